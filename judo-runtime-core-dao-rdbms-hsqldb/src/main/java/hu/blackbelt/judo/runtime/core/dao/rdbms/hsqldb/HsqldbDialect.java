@@ -34,4 +34,9 @@ public class HsqldbDialect implements Dialect {
     public String getDualTable() {
         return "\"INFORMATION_SCHEMA\".\"SYSTEM_USERS\"";
     }
+
+    @Override
+    public boolean isWindowFunctionSupported() {
+        return true;
+    }
 }
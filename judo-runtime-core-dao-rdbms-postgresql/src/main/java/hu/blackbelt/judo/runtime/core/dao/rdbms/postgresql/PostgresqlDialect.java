@@ -32,4 +32,14 @@ public class PostgresqlDialect implements Dialect {
     public String getDualTable() {
         return null;
     }
+
+    @Override
+    public boolean isWindowFunctionSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean isArrayParameterSupported() {
+        return true;
+    }
 }
@@ -196,14 +196,20 @@ public abstract class AbstractRdbmsDAO<ID> implements DAO<ID> {
     }
 
     @Override
+    @SneakyThrows(SQLException.class)
     public List<Payload> createAll(EClass eClass, Iterable<Payload> payloads, QueryCustomizer<ID> queryCustomizer) {
-        List resultPayloads = new ArrayList<>();
-
-        for (Payload payload : payloads) {
-            resultPayloads.add(create(eClass, payload, queryCustomizer));
+        final List<Payload> payloadList = ImmutableList.copyOf(payloads);
+        if (payloadList.isEmpty()) {
+            return ImmutableList.of();
         }
 
-        return ImmutableList.copyOf(resultPayloads);
+        try (MetricsCancelToken ct = getMetricsCollector().start(METRICS_DAO_QUERY)) {
+            List<Payload> result = insertPayloads(eClass, payloadList, queryCustomizer, true);
+            final Map<EClass, Payload> cache = new HashMap<>();
+            payloadList.forEach(payload -> addStaticFeaturesToPayload(payload, eClass, cache));
+            logResult(result);
+            return ImmutableList.copyOf(result);
+        }
     }
 
     @Override
@@ -228,14 +234,43 @@ public abstract class AbstractRdbmsDAO<ID> implements DAO<ID> {
     }
 
     @Override
+    @SneakyThrows(SQLException.class)
     public List<Payload> updateAll(EClass eClass, Iterable<Payload> payloads, QueryCustomizer<ID> queryCustomizer) {
-        List resultPayloads = new ArrayList<>();
+        final List<Payload> payloadList = ImmutableList.copyOf(payloads);
+        if (payloadList.isEmpty()) {
+            return ImmutableList.of();
+        }
 
-        for (Payload payload : payloads) {
-            resultPayloads.add(update(eClass, payload, queryCustomizer));
+        final List<ID> identifiers = new ArrayList<>(payloadList.size());
+        for (Payload payload : payloadList) {
+            checkArgument(payload.containsKey(getIdentifierProvider().getName()), "Identifier not found on payload");
+            identifiers.add((ID) payload.getAs(getIdentifierProvider().getType(), getIdentifierProvider().getName()));
+        }
+        if (new HashSet<>(identifiers).size() < identifiers.size()) {
+            // an instance is updated multiple times, updates must see the result of previous ones
+            List<Payload> resultPayloads = new ArrayList<>();
+            for (Payload payload : payloadList) {
+                resultPayloads.add(update(eClass, payload, queryCustomizer));
+            }
+            return ImmutableList.copyOf(resultPayloads);
         }
 
-        return ImmutableList.copyOf(resultPayloads);
+        try (MetricsCancelToken ct = getMetricsCollector().start(METRICS_DAO_QUERY)) {
+            final Map<ID, Payload> originalMap = new HashMap<>();
+            readByIdentifiers(eClass, identifiers, null)
+                    .forEach(original -> originalMap.put((ID) original.getAs(getIdentifierProvider().getType(), getIdentifierProvider().getName()), original));
+            final List<Payload> originals = new ArrayList<>(identifiers.size());
+            for (ID identifier : identifiers) {
+                checkState(originalMap.containsKey(identifier), "Could not found type: " + AsmUtils.getClassifierFQName(eClass) + " ID: " + identifier);
+                originals.add(originalMap.get(identifier));
+            }
+
+            List<Payload> result = updatePayloads(eClass, originals, payloadList, queryCustomizer, true);
+            final Map<EClass, Payload> cache = new HashMap<>();
+            payloadList.forEach(payload -> addStaticFeaturesToPayload(payload, eClass, cache));
+            logResult(result);
+            return ImmutableList.copyOf(result);
+        }
     }
 
     @Override
@@ -612,12 +647,16 @@ public abstract class AbstractRdbmsDAO<ID> implements DAO<ID> {
 
     protected abstract Payload insertPayload(EClass clazz, Payload payload, QueryCustomizer<ID> queryCustomizer, boolean checkMandatoryFeatures) throws SQLException;
 
+    protected abstract List<Payload> insertPayloads(EClass clazz, List<Payload> payloads, QueryCustomizer<ID> queryCustomizer, boolean checkMandatoryFeatures) throws SQLException;
+
     protected abstract Payload insertPayloadAndAttach(EReference reference, ID identifier, Payload payload, QueryCustomizer<ID> queryCustomizer) throws SQLException;
 
     protected abstract void deletePayload(EClass clazz, Collection<ID> ids) throws SQLException;
 
     protected abstract Payload updatePayload(EClass clazz, Payload original, Payload updated, QueryCustomizer<ID> queryCustomizer, boolean checkMandatoryFeatures) throws SQLException;
 
+    protected abstract List<Payload> updatePayloads(EClass clazz, List<Payload> originals, List<Payload> updated, QueryCustomizer<ID> queryCustomizer, boolean checkMandatoryFeatures) throws SQLException;
+
     protected abstract void setReferenceOfInstance(EReference mappedReference, ID id, Collection<ID> identifiersToSet) throws SQLException;
 
     protected abstract void unsetReferenceOfInstance(EReference mappedReference, ID id) throws SQLException;
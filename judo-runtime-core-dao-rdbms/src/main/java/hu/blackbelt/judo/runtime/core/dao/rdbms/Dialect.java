@@ -26,4 +26,21 @@ public interface Dialect {
 
     String getDualTable();
 
+    /**
+     * Window functions (<code>ROW_NUMBER() OVER (PARTITION BY ...)</code>) are supported by RDBMS. Limited
+     * subselects of multiple parents are selected by a single statement if supported, otherwise a statement is
+     * executed for each parent.
+     */
+    default boolean isWindowFunctionSupported() {
+        return false;
+    }
+
+    /**
+     * Array parameters (<code>= ANY(:ids)</code>) are supported by RDBMS and JDBC driver. A single array parameter
+     * keeps SQL text independent of the number of IDs.
+     */
+    default boolean isArrayParameterSupported() {
+        return false;
+    }
+
 }
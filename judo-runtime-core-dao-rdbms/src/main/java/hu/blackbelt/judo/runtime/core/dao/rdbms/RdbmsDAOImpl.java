@@ -312,55 +312,46 @@ public class RdbmsDAOImpl<ID> extends AbstractRdbmsDAO<ID> implements DAO<ID> {
     protected Payload insertPayload(EClass clazz, Payload payload, QueryCustomizer<ID> queryCustomizer, boolean checkMandatoryFeatures) throws SQLException {
         checkState(!Boolean.FALSE.equals(context.getAs(Boolean.class, STATEFUL)) || Boolean.TRUE.equals(context.getAs(Boolean.class, ROLLBACK)), "INSERT is not supported in stateless operation");
 
-        final Payload actor = context.getAs(Payload.class, Dispatcher.ACTOR_KEY);
-        final Principal principal = context.getAs(Principal.class, Dispatcher.PRINCIPAL_KEY);
-        final Metadata<ID> metadata = Metadata.<ID>buildMetadata()
-                .timestamp(LocalDateTime.now())
-                .userId(actor != null ? actor.getAs(identifierProvider.getType(), identifierProvider.getName()) : null)
-                .username(principal != null ? principal.getName() : null)
-                .build();
-        Collection<Statement<ID>> statements = getInsertPayloadProcessor(metadata)
+        Collection<Statement<ID>> statements = getInsertPayloadProcessor(buildMetadata())
                 .insert(clazz, payload, checkMandatoryFeatures);
 
 
         modifyStatementExecutor.executeStatements(new NamedParameterJdbcTemplate(dataSource), statements);
 
-        // Get the root entity's
-        ID identifier = (ID) statements.stream()
-                .filter(InsertStatement.class::isInstance)
-                .map(InsertStatement.class::cast)
-                .filter(i -> i.getContainer().isEmpty())
-                .findFirst().orElseThrow(() -> new IllegalStateException("Insert statement could not found")).getInstance().getIdentifier();
-
-        final Optional<Payload> result = readByIdentifier(clazz, identifier, queryCustomizer);
+        final Optional<Payload> result = readByIdentifier(clazz, getRootIdentifier(statements), queryCustomizer);
         checkArgument(result.isPresent(), "Creation of " + AsmUtils.getClassifierFQName(clazz) + " failed");
 
-        // Collect clientReferenceId recursively and map back to response
-        Map<ID, Object> clientReferenceMap = new HashMap<>();
-        traversePayload(
-                getCollectPayloadClientReferenceConsumer(clientReferenceMap),
-                PayloadTraverser.builder()
-                        .transferObjectType(clazz)
-                        .payload(payload)
-                        .asmModel(asmModel)
-                        .build());
-
-        collectInsertStatementsClientReferenceId(clientReferenceMap, statements);
         Payload ret = result.get();
+        applyClientReferences(clazz, payload, ret, statements);
+        return ret;
+    }
 
-        Set<ID> insertedIds = statements.stream()
-                .filter(st -> st instanceof InsertStatement)
-                .map(st -> (ID) ((InsertStatement) st).getInstance().getIdentifier())
-                .collect(Collectors.toSet());
+    @Override
+    protected List<Payload> insertPayloads(EClass clazz, List<Payload> payloads, QueryCustomizer<ID> queryCustomizer, boolean checkMandatoryFeatures) throws SQLException {
+        checkState(!Boolean.FALSE.equals(context.getAs(Boolean.class, STATEFUL)) || Boolean.TRUE.equals(context.getAs(Boolean.class, ROLLBACK)), "INSERT is not supported in stateless operation");
 
-        traversePayload(
-                getApplyClientReferenceIdConsumer(clientReferenceMap)
-                        .andThen(getMarkInsertedPayloadsConsumer(insertedIds)),
-                PayloadTraverser.builder()
-                        .transferObjectType(clazz)
-                        .payload(ret)
-                        .asmModel(asmModel)
-                        .build());
+        final InsertPayloadDaoProcessor<ID> insertPayloadProcessor = getInsertPayloadProcessor(buildMetadata());
+        final List<Collection<Statement<ID>>> statementsOfPayloads = new ArrayList<>();
+        for (Payload payload : payloads) {
+            statementsOfPayloads.add(insertPayloadProcessor.insert(clazz, payload, checkMandatoryFeatures));
+        }
+
+        // statements of all payloads are executed together so inserts and updates are sent in batches
+        modifyStatementExecutor.executeStatements(new NamedParameterJdbcTemplate(dataSource),
+                statementsOfPayloads.stream().flatMap(Collection::stream).collect(Collectors.toList()));
+
+        final List<ID> identifiers = statementsOfPayloads.stream()
+                .map(this::getRootIdentifier)
+                .collect(Collectors.toList());
+        final Map<ID, Payload> results = readByIdentifiersAsMap(clazz, identifiers, queryCustomizer);
+
+        final List<Payload> ret = new ArrayList<>(payloads.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            final Payload result = results.get(identifiers.get(i));
+            checkArgument(result != null, "Creation of " + AsmUtils.getClassifierFQName(clazz) + " failed");
+            applyClientReferences(clazz, payloads.get(i), result, statementsOfPayloads.get(i));
+            ret.add(result);
+        }
         return ret;
     }
 
@@ -471,33 +462,99 @@ public class RdbmsDAOImpl<ID> extends AbstractRdbmsDAO<ID> implements DAO<ID> {
     protected Payload updatePayload(EClass clazz, Payload original, Payload updated, QueryCustomizer<ID> queryCustomizer, boolean checkMandatoryFeatures) throws SQLException {
         checkState(!Boolean.FALSE.equals(context.getAs(Boolean.class, STATEFUL)) || Boolean.TRUE.equals(context.getAs(Boolean.class, ROLLBACK)), "UPDATE is not supported in stateless operation");
 
+        Collection<Statement<ID>> statements = getUpdatePayloadProcessor(buildMetadata())
+                .update(clazz, original, updated, checkMandatoryFeatures);
+
+        modifyStatementExecutor.executeStatements(new NamedParameterJdbcTemplate(dataSource), statements);
+
+        final Optional<Payload> result = readByIdentifier(clazz, original.getAs(identifierProvider.getType(), identifierProvider.getName()), queryCustomizer);
+        checkArgument(result.isPresent(), "Updating " + AsmUtils.getClassifierFQName(clazz) + " failed");
+
+        Payload ret = result.get();
+        applyClientReferences(clazz, updated, ret, statements);
+        return ret;
+    }
+
+    @Override
+    protected List<Payload> updatePayloads(EClass clazz, List<Payload> originals, List<Payload> updated, QueryCustomizer<ID> queryCustomizer, boolean checkMandatoryFeatures) throws SQLException {
+        checkState(!Boolean.FALSE.equals(context.getAs(Boolean.class, STATEFUL)) || Boolean.TRUE.equals(context.getAs(Boolean.class, ROLLBACK)), "UPDATE is not supported in stateless operation");
+        checkArgument(originals.size() == updated.size(), "Number of original and updated payloads must match");
+
+        final UpdatePayloadDaoProcessor<ID> updatePayloadProcessor = getUpdatePayloadProcessor(buildMetadata());
+        final List<Collection<Statement<ID>>> statementsOfPayloads = new ArrayList<>();
+        for (int i = 0; i < originals.size(); i++) {
+            statementsOfPayloads.add(updatePayloadProcessor.update(clazz, originals.get(i), updated.get(i), checkMandatoryFeatures));
+        }
+
+        // statements of all payloads are executed together so inserts and updates are sent in batches
+        modifyStatementExecutor.executeStatements(new NamedParameterJdbcTemplate(dataSource),
+                statementsOfPayloads.stream().flatMap(Collection::stream).collect(Collectors.toList()));
+
+        final List<ID> identifiers = originals.stream()
+                .map(original -> original.getAs(identifierProvider.getType(), identifierProvider.getName()))
+                .collect(Collectors.toList());
+        final Map<ID, Payload> results = readByIdentifiersAsMap(clazz, identifiers, queryCustomizer);
+
+        final List<Payload> ret = new ArrayList<>(originals.size());
+        for (int i = 0; i < originals.size(); i++) {
+            final Payload result = results.get(identifiers.get(i));
+            checkArgument(result != null, "Updating " + AsmUtils.getClassifierFQName(clazz) + " failed");
+            applyClientReferences(clazz, updated.get(i), result, statementsOfPayloads.get(i));
+            ret.add(result);
+        }
+        return ret;
+    }
+
+    private Metadata<ID> buildMetadata() {
         final Payload actor = context.getAs(Payload.class, Dispatcher.ACTOR_KEY);
         final Principal principal = context.getAs(Principal.class, Dispatcher.PRINCIPAL_KEY);
-        final Metadata<ID> metadata = Metadata.<ID>buildMetadata()
+        return Metadata.<ID>buildMetadata()
                 .timestamp(LocalDateTime.now())
                 .userId(actor != null ? actor.getAs(identifierProvider.getType(), identifierProvider.getName()) : null)
                 .username(principal != null ? principal.getName() : null)
                 .build();
-        Collection<Statement<ID>> statements = getUpdatePayloadProcessor(metadata)
-                .update(clazz, original, updated, checkMandatoryFeatures);
-
-        modifyStatementExecutor.executeStatements(new NamedParameterJdbcTemplate(dataSource), statements);
+    }
 
-        final Optional<Payload> result = readByIdentifier(clazz, original.getAs(identifierProvider.getType(), identifierProvider.getName()), queryCustomizer);
-        checkArgument(result.isPresent(), "Updating " + AsmUtils.getClassifierFQName(clazz) + " failed");
+    /**
+     * Get the root entity's identifier of insert statements.
+     */
+    private ID getRootIdentifier(Collection<Statement<ID>> statements) {
+        return (ID) statements.stream()
+                .filter(InsertStatement.class::isInstance)
+                .map(InsertStatement.class::cast)
+                .filter(i -> i.getContainer().isEmpty())
+                .findFirst().orElseThrow(() -> new IllegalStateException("Insert statement could not found")).getInstance().getIdentifier();
+    }
 
-        // Collect clientReferenceId recursively and map back to response
+    private Map<ID, Payload> readByIdentifiersAsMap(EClass clazz, Collection<ID> identifiers, QueryCustomizer<ID> queryCustomizer) {
+        // all written instances must be returned so filtering, ordering and paging of caller are not applied
+        final QueryCustomizer<ID> readCustomizer = queryCustomizer != null
+                ? QueryCustomizer.<ID>builder()
+                        .mask(queryCustomizer.getMask())
+                        .withoutFeatures(queryCustomizer.isWithoutFeatures())
+                        .parameters(queryCustomizer.getParameters())
+                        .build()
+                : null;
+        final Map<ID, Payload> results = new HashMap<>();
+        readByIdentifiers(clazz, identifiers, readCustomizer)
+                .forEach(result -> results.putIfAbsent(result.getAs(identifierProvider.getType(), identifierProvider.getName()), result));
+        return results;
+    }
+
+    /**
+     * Collect clientReferenceId recursively and map back to response, mark inserted payloads of response.
+     */
+    private void applyClientReferences(EClass clazz, Payload payload, Payload result, Collection<Statement<ID>> statements) {
         Map<ID, Object> clientReferenceMap = new HashMap<>();
         traversePayload(
                 getCollectPayloadClientReferenceConsumer(clientReferenceMap),
                 PayloadTraverser.builder()
                         .transferObjectType(clazz)
-                        .payload(updated)
+                        .payload(payload)
                         .asmModel(asmModel)
                         .build());
 
         collectInsertStatementsClientReferenceId(clientReferenceMap, statements);
-        Payload ret = result.get();
 
         Set<ID> insertedIds = statements.stream()
                 .filter(st -> st instanceof InsertStatement)
@@ -509,11 +566,9 @@ public class RdbmsDAOImpl<ID> extends AbstractRdbmsDAO<ID> implements DAO<ID> {
                         .andThen(getMarkInsertedPayloadsConsumer(insertedIds)),
                 PayloadTraverser.builder()
                         .transferObjectType(clazz)
-                        .payload(ret)
+                        .payload(result)
                         .asmModel(asmModel)
                         .build());
-
-        return ret;
     }
 
     private Collection<Statement<ID>> createAddAndRemoveReferenceForPayload(Collection<ID> identifiersExists, EReference mappedReference,
@@ -0,0 +1,116 @@
+package hu.blackbelt.judo.runtime.core.dao.rdbms;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.Iterables;
+import hu.blackbelt.judo.runtime.core.dao.rdbms.executors.StatementExecutor;
+import lombok.Builder;
+import lombok.NonNull;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Query of records by IDs. IDs are bound in chunks to keep IN lists (or arrays) bounded.
+ * <p>
+ * Array parameters are created by {@link Connection#createArrayOf(String, Object[])} with type name of ID column so
+ * drivers do not have to guess element type of Java arrays. ID columns of all entity tables have the same type (of
+ * identifier provider) so type name is resolved once, by the metadata of first queried table (on the connection of the
+ * statement, so no other connection is taken from the pool).
+ */
+class RdbmsIdQuery {
+
+    static final String IDS = "ids";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+    private final boolean arrayParameter;
+
+    private final AtomicReference<String> idColumnTypeName = new AtomicReference<>();
+
+    @Builder
+    private RdbmsIdQuery(@NonNull NamedParameterJdbcTemplate jdbcTemplate, int chunkSize, boolean arrayParameter) {
+        checkArgument(chunkSize > 0, "Chunk size must be positive");
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+        this.arrayParameter = arrayParameter;
+    }
+
+    /**
+     * Run query of IDs in chunks.
+     *
+     * @param sql       SQL statement with <code>ids</code> parameter
+     * @param tableName table name of ID column (used to resolve type name of array elements)
+     * @param idValues  ID values (coerced to JDBC type)
+     * @return records of all chunks
+     */
+    List<Map<String, Object>> queryForList(final String sql, final String tableName, final List<Object> idValues) {
+        if (idValues.size() <= chunkSize) {
+            return jdbcTemplate.queryForList(sql, Collections.singletonMap(IDS, toParameterValue(tableName, idValues)));
+        }
+
+        final List<Map<String, Object>> result = new ArrayList<>();
+        for (List<Object> chunk : Iterables.partition(idValues, chunkSize)) {
+            result.addAll(jdbcTemplate.queryForList(sql, Collections.singletonMap(IDS, toParameterValue(tableName, chunk))));
+        }
+        return result;
+    }
+
+    private Object toParameterValue(final String tableName, final List<Object> idValues) {
+        if (!arrayParameter) {
+            return idValues;
+        }
+        final Object[] array = idValues.toArray();
+        return new SqlParameterValue(Types.ARRAY, new AbstractSqlTypeValue() {
+            @Override
+            protected Object createTypeValue(final Connection connection, final int sqlType, final String typeName) throws SQLException {
+                return connection.createArrayOf(getIdColumnTypeName(connection, tableName), array);
+            }
+        });
+    }
+
+    private String getIdColumnTypeName(final Connection connection, final String tableName) throws SQLException {
+        final String resolvedTypeName = idColumnTypeName.get();
+        if (resolvedTypeName != null) {
+            return resolvedTypeName;
+        }
+
+        final String typeName;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT " + StatementExecutor.ID_COLUMN_NAME + " FROM " + tableName + " WHERE 1 = 0")) {
+            typeName = resultSet.getMetaData().getColumnTypeName(1);
+        }
+        checkState(typeName != null, "Type of ID column is unknown: " + tableName);
+        idColumnTypeName.compareAndSet(null, typeName);
+        return idColumnTypeName.get();
+    }
+}
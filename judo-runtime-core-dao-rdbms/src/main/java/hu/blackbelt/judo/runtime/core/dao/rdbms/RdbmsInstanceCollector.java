@@ -28,6 +28,8 @@ import hu.blackbelt.judo.meta.rdbms.runtime.RdbmsModel;
 import hu.blackbelt.judo.meta.rdbms.support.RdbmsModelResourceSupport;
 import hu.blackbelt.judo.meta.rdbmsRules.Rule;
 import hu.blackbelt.judo.meta.rdbmsRules.Rules;
+import hu.blackbelt.judo.runtime.core.MetricsCancelToken;
+import hu.blackbelt.judo.runtime.core.MetricsCollector;
 import hu.blackbelt.judo.runtime.core.dao.core.collectors.InstanceCollector;
 import hu.blackbelt.judo.runtime.core.dao.core.collectors.InstanceGraph;
 import hu.blackbelt.judo.runtime.core.dao.core.collectors.InstanceReference;
@@ -54,11 +56,23 @@ import java.util.stream.Stream;
 import static com.google.common.base.Preconditions.checkArgument;
 import static hu.blackbelt.judo.meta.asm.runtime.AsmUtils.getClassifierFQName;
 import static hu.blackbelt.judo.meta.rdbms.support.RdbmsModelResourceSupport.rdbmsModelResourceSupportBuilder;
+import static java.util.Objects.requireNonNullElse;
 
 
+/**
+ * Collecting instance graphs (containments, references and back references) of entities.
+ * <p>
+ * IDs are bound in chunks (of {@link #DEFAULT_CHUNK_SIZE} IDs by default) to keep IN lists bounded. A single array
+ * parameter (<code>= ANY(:ids)</code>) is used instead of IN lists if it is enabled and supported by dialect. Time
+ * of collection is reported by depth of reference chain.
+ */
 @Slf4j
 public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
 
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final String METRICS_COLLECT_INSTANCES_DEPTH = "collect-instances-depth-";
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final AsmUtils asmUtils;
     private final RdbmsResolver rdbmsResolver;
@@ -66,11 +80,12 @@ public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
     private final Coercer coercer;
     private final IdentifierProvider<ID> identifierProvider;
     private RdbmsParameterMapper<ID> rdbmsParameterMapper;
+    private final MetricsCollector metricsCollector;
+    private final boolean arrayParameter;
+    private final RdbmsIdQuery idQuery;
 
     private final AtomicReference<RdbmsModelResourceSupport> rdbmsSupport = new AtomicReference<>(null);
 
-    private static final String IDS = "ids";
-
     private static final String TABLE_ALIAS_FORMAT = "_t{0,number,00}";
     private final AtomicInteger nextAliasIndex = new AtomicInteger(0);
 
@@ -85,7 +100,11 @@ public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
             @NonNull RdbmsModel rdbmsModel,
             @NonNull Coercer coercer,
             @NonNull IdentifierProvider<ID> identifierProvider,
-            @NonNull RdbmsParameterMapper<ID> rdbmsParameterMapper) {
+            @NonNull RdbmsParameterMapper<ID> rdbmsParameterMapper,
+            MetricsCollector metricsCollector,
+            Dialect dialect,
+            Integer chunkSize,
+            Boolean arrayParameterBinding) {
         this.jdbcTemplate = jdbcTemplate;
         this.asmUtils = new AsmUtils(asmModel.getResourceSet());
         this.rdbmsResolver = rdbmsResolver;
@@ -93,6 +112,13 @@ public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
         this.coercer = coercer;
         this.identifierProvider = identifierProvider;
         this.rdbmsParameterMapper = rdbmsParameterMapper;
+        this.metricsCollector = metricsCollector;
+        this.arrayParameter = requireNonNullElse(arrayParameterBinding, false) && dialect != null && dialect.isArrayParameterSupported();
+        this.idQuery = RdbmsIdQuery.builder()
+                .jdbcTemplate(jdbcTemplate)
+                .chunkSize(requireNonNullElse(chunkSize, DEFAULT_CHUNK_SIZE))
+                .arrayParameter(arrayParameter)
+                .build();
     }
 
     public RdbmsModelResourceSupport getRdbmsSupport() {
@@ -262,16 +288,18 @@ public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
     private Map<ID, InstanceGraph<ID>> collectInstances(final RdbmsSelect select, final Collection<ID> ids, final RdbmsParameterMapper<ID> parameterMapper) {
         final Map<ID, InstanceGraph<ID>> graphs = new HashMap<>();
 
-        final String sql = select.toSql();
+        final String sql = select.toSql(arrayParameter);
         if (log.isDebugEnabled()) {
             log.debug("SQL:\n{}", sql);
         }
 
         final Map<List<EReference>, Map<ID, InstanceGraph<ID>>> selectContainments;
         if (ids != null && !ids.isEmpty()) {
-            final List<Map<String, Object>> result = jdbcTemplate.queryForList(sql, Collections.singletonMap(IDS, ids.stream().map(id -> coercer.coerce(id, parameterMapper.getIdClassName())).collect(Collectors.toList())));
+            try (MetricsCancelToken ct = startMetrics(0)) {
+                final List<Map<String, Object>> result = queryForList(sql, select.getTableName(), ids, parameterMapper);
 
-            selectContainments = processResults(select, result, graphs, Optional.empty(), Collections.emptyList(), ReferenceType.CONTAINMENT);
+                selectContainments = processResults(select, result, graphs, Optional.empty(), Collections.emptyList(), ReferenceType.CONTAINMENT);
+            }
         } else {
             selectContainments = Collections.emptyMap();
         }
@@ -307,7 +335,7 @@ public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
                     .collect(Collectors.toList()), graphs.keySet());
         }
 
-        final String subSelectSql = subSelect.toSql();
+        final String subSelectSql = subSelect.toSql(arrayParameter);
 
         if (log.isDebugEnabled()) {
             log.debug("SQL:\n{}", subSelectSql);
@@ -321,10 +349,12 @@ public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
 
         final Map<List<EReference>, Map<ID, InstanceGraph<ID>>> subSelectContainments;
         if (!graphs.keySet().isEmpty()) {
-            final List<Map<String, Object>> subQueryResults = jdbcTemplate.queryForList(subSelectSql, Collections.singletonMap(IDS, graphs.keySet().stream().map(id -> coercer.coerce(id, parameterMapper.getIdClassName())).collect(Collectors.toList())));
+            try (MetricsCancelToken ct = startMetrics(referenceChain.size())) {
+                final List<Map<String, Object>> subQueryResults = queryForList(subSelectSql, subSelect.getPartner().getTableName(), graphs.keySet(), parameterMapper);
 
-            final String baseAlias = subSelect.getBase().getAlias();
-            subSelectContainments = processResults(subSelect.getBase().getSelect(), subQueryResults, graphs, Optional.of("_P" + baseAlias + "_ID"), referenceChain, subSelect.getReferenceType());
+                final String baseAlias = subSelect.getBase().getAlias();
+                subSelectContainments = processResults(subSelect.getBase().getSelect(), subQueryResults, graphs, Optional.of("_P" + baseAlias + "_ID"), referenceChain, subSelect.getReferenceType());
+            }
         } else {
             subSelectContainments = Collections.emptyMap();
         }
@@ -372,6 +402,26 @@ public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
         }
     }
 
+    /**
+     * Run query of IDs in chunks.
+     */
+    private List<Map<String, Object>> queryForList(final String sql, final String tableName, final Collection<ID> ids, final RdbmsParameterMapper<ID> parameterMapper) {
+        final List<Object> idValues = ids.stream()
+                .map(id -> coercer.coerce(id, parameterMapper.getIdClassName()))
+                .collect(Collectors.toList());
+        return idQuery.queryForList(sql, tableName, idValues);
+    }
+
+    private MetricsCancelToken startMetrics(final int depth) {
+        return metricsCollector != null ? metricsCollector.start(METRICS_COLLECT_INSTANCES_DEPTH + depth) : null;
+    }
+
+    private static String idCondition(final String column, final boolean arrayParameter) {
+        return arrayParameter
+                ? column + " = ANY(:" + RdbmsIdQuery.IDS + ")"
+                : column + " IN (:" + RdbmsIdQuery.IDS + ")";
+    }
+
     private void getContainmentsWithReferences(final int level, final EClass entityType, final Source source, final EReference containmentOfEntityType) {
         final Map<EClass, Source> sources = new HashMap<>();
 
@@ -650,7 +700,7 @@ public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
     }
 
     private interface BaseSource extends Source {
-        String toSql(final RdbmsSubSelect subSelect);
+        String toSql(final RdbmsSubSelect subSelect, final boolean arrayParameter);
 
         RdbmsSelect getSelect();
 
@@ -679,7 +729,7 @@ public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
             return Stream.concat(joins.stream(), joins.stream().flatMap(j -> j.getAllJoins().stream())).collect(Collectors.toList());
         }
 
-        public String toSql(final RdbmsSubSelect subSelect) {
+        public String toSql(final RdbmsSubSelect subSelect, final boolean arrayParameter) {
             final String baseAlias = subSelect.getBase().getAlias();
 
             final String joinCondition;
@@ -697,20 +747,20 @@ public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
                     "\nFROM " + tableName + " AS " + alias +
                     "\nJOIN " + subSelect.getPartner().getTableName() + " AS " + "_P" + baseAlias + " ON (" + joinCondition + ")" +
                     (getAllJoins().isEmpty() ? "" : getAllJoins().stream().map(j -> j.toSql()).collect(Collectors.joining())) +
-                    "\nWHERE " + "_P" + baseAlias + "." + StatementExecutor.ID_COLUMN_NAME + " IN (:" + IDS + ")";
+                    "\nWHERE " + idCondition("_P" + baseAlias + "." + StatementExecutor.ID_COLUMN_NAME, arrayParameter);
         }
 
-        public String toSql() {
+        public String toSql(final boolean arrayParameter) {
             return "SELECT " + alias + "." + StatementExecutor.ID_COLUMN_NAME + " AS " + alias + "_ID" +
                     (getAllJoins().isEmpty() ? "" : ", " + getAllJoins().stream().map(j -> j.getAlias() + "." + StatementExecutor.ID_COLUMN_NAME + " AS " + j.getAlias() + "_ID").collect(Collectors.joining(", "))) +
                     "\nFROM " + tableName + " AS " + alias +
                     (getAllJoins().isEmpty() ? "" : getAllJoins().stream().map(j -> j.toSql()).collect(Collectors.joining())) +
-                    "\nWHERE " + alias + "." + StatementExecutor.ID_COLUMN_NAME + " IN (:" + IDS + ")";
+                    "\nWHERE " + idCondition(alias + "." + StatementExecutor.ID_COLUMN_NAME, arrayParameter);
         }
 
         @Override
         public String toString() {
-            return toSql();
+            return toSql(false);
         }
 
         @Override
@@ -791,8 +841,8 @@ public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
         }
 
         @Override
-        public String toSql(final RdbmsSubSelect subSelect) {
-            return selectsByEntityType.get(entityType).toSql(subSelect);
+        public String toSql(final RdbmsSubSelect subSelect, final boolean arrayParameter) {
+            return selectsByEntityType.get(entityType).toSql(subSelect, arrayParameter);
         }
 
         @Override
@@ -845,13 +895,13 @@ public class RdbmsInstanceCollector<ID> implements InstanceCollector<ID> {
         @NonNull
         private EClass entityType;
 
-        public String toSql() {
-            return base.toSql(this);
+        public String toSql(final boolean arrayParameter) {
+            return base.toSql(this, arrayParameter);
         }
 
         @Override
         public String toString() {
-            return toSql();
+            return toSql(false);
         }
     }
 
@@ -37,12 +37,17 @@ import org.eclipse.emf.ecore.EReference;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkState;
 import static hu.blackbelt.judo.meta.asm.runtime.AsmUtils.getClassifierFQName;
 import static hu.blackbelt.judo.meta.asm.runtime.AsmUtils.getReferenceFQName;
 
+/**
+ * Resolving RDBMS elements of ASM model elements. Mapping of ASM model is not changing so resolved elements are
+ * memoized (by model element).
+ */
 @Slf4j(topic = "dao-rdbms")
 @RequiredArgsConstructor
 @Builder
@@ -54,7 +59,51 @@ public class RdbmsResolver {
     @NonNull
     TransformationTraceService transformationTraceService;
 
+    private final Map<EClass, RdbmsTable> tables = new ConcurrentHashMap<>();
+
+    private final Map<EReference, RdbmsTable> junctionTables = new ConcurrentHashMap<>();
+
+    private final Map<EAttribute, RdbmsField> attributeFields = new ConcurrentHashMap<>();
+
+    private final Map<EReference, RdbmsField> referenceFields = new ConcurrentHashMap<>();
+
+    private final Map<EReference, RdbmsField> junctionFields = new ConcurrentHashMap<>();
+
+    private final Map<EReference, RdbmsField> junctionOppositeFields = new ConcurrentHashMap<>();
+
     public RdbmsTable rdbmsTable(EClass entityType) {
+        return tables.computeIfAbsent(entityType, this::resolveRdbmsTable);
+    }
+
+    public RdbmsTable rdbmsJunctionTable(EReference reference) {
+        return junctionTables.computeIfAbsent(reference, this::resolveRdbmsJunctionTable);
+    }
+
+    public RdbmsField rdbmsField(EAttribute attribute) {
+        return attributeFields.computeIfAbsent(attribute, this::resolveRdbmsField);
+    }
+
+    public RdbmsField rdbmsField(EReference reference, boolean junction) {
+        return (junction ? junctionFields : referenceFields)
+                .computeIfAbsent(reference, r -> resolveRdbmsField(r, junction));
+    }
+
+    public RdbmsField rdbmsField(EReference reference) {
+        return rdbmsField(reference, false);
+    }
+
+    public RdbmsField rdbmsJunctionField(EReference reference) {
+        return rdbmsField(reference, true);
+    }
+
+    public RdbmsField rdbmsJunctionOppositeField(EReference reference) {
+        if (reference.getEOpposite() != null) {
+            return rdbmsField(reference.getEOpposite(), true);
+        }
+        return junctionOppositeFields.computeIfAbsent(reference, this::resolveRdbmsJunctionOppositeField);
+    }
+
+    private RdbmsTable resolveRdbmsTable(EClass entityType) {
         List<RdbmsTable> rdbmsTableList =
                 transformationTraceService.getDescendantOfInstanceByModelType(asmModel.getName(),
                         hu.blackbelt.judo.meta.rdbms.runtime.RdbmsModel.class, entityType)
@@ -69,7 +118,7 @@ public class RdbmsResolver {
     }
 
 
-    public RdbmsTable rdbmsJunctionTable(EReference reference) {
+    private RdbmsTable resolveRdbmsJunctionTable(EReference reference) {
         List<RdbmsTable> rdbmsTableList =
                 transformationTraceService.getDescendantOfInstanceByModelType(asmModel.getName(),
                         hu.blackbelt.judo.meta.rdbms.runtime.RdbmsModel.class, reference)
@@ -91,7 +140,7 @@ public class RdbmsResolver {
     }
 
 
-    public RdbmsField rdbmsField(EAttribute attribute) {
+    private RdbmsField resolveRdbmsField(EAttribute attribute) {
         List<RdbmsField> rdbmsFieldList =
                 transformationTraceService.getDescendantOfInstanceByModelType(asmModel.getName(),
                         hu.blackbelt.judo.meta.rdbms.runtime.RdbmsModel.class, attribute)
@@ -105,7 +154,7 @@ public class RdbmsResolver {
         return rdbmsFieldList.get(0);
     }
 
-    public RdbmsField rdbmsField(EReference reference, boolean junction) {
+    private RdbmsField resolveRdbmsField(EReference reference, boolean junction) {
         List<RdbmsField> rdbmsFieldList =
                 transformationTraceService.getDescendantOfInstanceByModelType(asmModel.getName(),
                         hu.blackbelt.judo.meta.rdbms.runtime.RdbmsModel.class, reference)
@@ -119,20 +168,7 @@ public class RdbmsResolver {
         return rdbmsFieldList.get(0);
     }
 
-    public RdbmsField rdbmsField(EReference reference) {
-        return rdbmsField(reference, false);
-    }
-
-    public RdbmsField rdbmsJunctionField(EReference reference) {
-        return rdbmsField(reference, true);
-    }
-
-    public RdbmsField rdbmsJunctionOppositeField(EReference reference) {
-
-        if (reference.getEOpposite() != null) {
-            return rdbmsField(reference.getEOpposite(), true);
-        }
-
+    private RdbmsField resolveRdbmsJunctionOppositeField(EReference reference) {
         List<RdbmsField> rdbmsFieldList =
                 transformationTraceService.getDescendantOfInstanceByModelType(asmModel.getName(),
                         hu.blackbelt.judo.meta.rdbms.runtime.RdbmsModel.class, reference)
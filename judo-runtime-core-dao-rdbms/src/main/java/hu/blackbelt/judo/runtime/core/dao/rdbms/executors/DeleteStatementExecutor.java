@@ -62,6 +62,8 @@ class DeleteStatementExecutor<ID> extends StatementExecutor<ID> {
 
     private final RdbmsReferenceUtil<ID> rdbmsReferenceUtil;
 
+    private final AsmUtils asmUtils;
+
     @Builder
     public DeleteStatementExecutor(
             @NonNull AsmModel asmModel,
@@ -73,6 +75,7 @@ class DeleteStatementExecutor<ID> extends StatementExecutor<ID> {
             @NonNull IdentifierProvider<ID> identifierProvider) {
         super(asmModel, rdbmsModel, transformationTraceService, rdbmsParameterMapper, rdbmsResolver, coercer, identifierProvider);
         rdbmsReferenceUtil = new RdbmsReferenceUtil<>(asmModel, rdbmsModel, transformationTraceService);
+        asmUtils = new AsmUtils(asmModel.getResourceSet());
     }
 
     /**
@@ -94,7 +97,6 @@ class DeleteStatementExecutor<ID> extends StatementExecutor<ID> {
         // Collect all information required to build dependencies between nodes.
         Set<RdbmsReference<ID>> deleteRdbmsReferences = toRdbmsReferences(deleteStatements, removeReferenceStatements);
 
-        AsmUtils asmUtils = new AsmUtils(getAsmModel().getResourceSet());
         toDependencySortedDeleteStatementStream(deleteStatements, deleteRdbmsReferences)
                 .forEach(consumer(deleteStatement -> {
 
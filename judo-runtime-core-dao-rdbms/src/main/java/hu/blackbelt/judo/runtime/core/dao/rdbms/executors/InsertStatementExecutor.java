@@ -33,12 +33,16 @@ import hu.blackbelt.judo.runtime.core.dao.rdbms.*;
 import hu.blackbelt.judo.tatami.core.TransformationTraceService;
 import hu.blackbelt.mapper.api.Coercer;
 import lombok.Builder;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EReference;
 import org.jgrapht.Graph;
+import org.jgrapht.Graphs;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.traverse.TopologicalOrderIterator;
@@ -71,6 +75,8 @@ class InsertStatementExecutor<ID> extends StatementExecutor<ID> {
 
     private final RdbmsReferenceUtil<ID> rdbmsReferenceUtil;
 
+    private final AsmUtils asmUtils;
+
     @Builder
     public InsertStatementExecutor(
             @NonNull AsmModel asmModel,
@@ -82,6 +88,7 @@ class InsertStatementExecutor<ID> extends StatementExecutor<ID> {
             @NonNull IdentifierProvider<ID> identifierProvider) {
         super(asmModel, rdbmsModel, transformationTraceService, rdbmsParameterMapper, rdbmsResolver, coercer, identifierProvider);
         rdbmsReferenceUtil = new RdbmsReferenceUtil<>(asmModel, rdbmsModel, transformationTraceService);
+        asmUtils = new AsmUtils(asmModel.getResourceSet());
     }
 
     /**
@@ -91,6 +98,10 @@ class InsertStatementExecutor<ID> extends StatementExecutor<ID> {
      * It makes it in two phase, the first inserts the record with the attributes and mandatory references, in
      * second phase adds optional dependencies.
      *
+     * Records are assigned to stages, a record is inserted in a later stage than the records it depends on (records
+     * of dependent statements and previous tables of inheritance chain). Records of a stage are sent in JDBC batches
+     * grouped by table and column set.
+     *
      * @param jdbcTemplate
      * @param insertStatements
      * @param addReferenceStatements
@@ -101,12 +112,17 @@ class InsertStatementExecutor<ID> extends StatementExecutor<ID> {
 
         // Collect all information required to build dependencies between nodes.
         Set<RdbmsReference<ID>> insertRdbmsReferences = toRdbmsReferences(insertStatements, addReferenceStatements);
+        List<AddReferenceStatement<ID>> addReferenceStatementList = ImmutableList.copyOf(addReferenceStatements);
+
+        Graph<Statement<ID>, DefaultEdge> graph = toDependencyGraph(insertStatements, insertRdbmsReferences);
+        Map<Statement<ID>, Integer> lastStages = new HashMap<>();
+        SortedMap<Integer, Map<InsertBatchKey, InsertBatch>> stages = new TreeMap<>();
 
-        toDependencySortedInsertStatementStream(insertStatements, insertRdbmsReferences)
+        toDependencySortedInsertStatementStream(graph)
                 .forEach(consumer(insertStatement -> {
 
                     EClass entity = insertStatement.getInstance().getType();
-                    String entityFQName = new AsmUtils(getAsmModel().getResourceSet()).getRelativeFQName(entity);
+                    String entityFQName = asmUtils.getRelativeFQName(entity);
                     checkState(AsmUtils.isEntityType(entity), "Non-entity types cannot be explicitly instantiated: " + entityFQName);
                     checkState(!entity.isAbstract(), "Abstract types cannot be explicitly instantiated: " + entityFQName);
 
@@ -127,10 +143,15 @@ class InsertStatementExecutor<ID> extends StatementExecutor<ID> {
                     Map<RdbmsReference<ID>, ID> mandatoryReferenceMap =
                             collectReferenceIdentifiersForGivenIdentifier(
                                     insertStatement.getInstance().getIdentifier(),
-                                    ImmutableList.copyOf(addReferenceStatements),
+                                    addReferenceStatementList,
                                     true,
                                     false);
 
+                    int[] stage = {Graphs.predecessorListOf(graph, insertStatement).stream()
+                            .mapToInt(lastStages::get)
+                            .max()
+                            .orElse(-1)};
+
                     // Collecting all tables on the inheritance chain which required to insert.
                     Stream.concat(
                             ImmutableList.of(entity).stream(),
@@ -212,7 +233,7 @@ class InsertStatementExecutor<ID> extends StatementExecutor<ID> {
 
                                  */
 
-                                Map<String, String> fields = Stream.concat(
+                                SortedMap<String, String> fields = Stream.concat(
                                         metaMapping.entrySet().stream(),
                                         Stream.concat(
                                                 attributeMapforCurrentStatement.keySet().stream()
@@ -226,53 +247,71 @@ class InsertStatementExecutor<ID> extends StatementExecutor<ID> {
                                                                 e -> getRdbmsResolver().rdbmsField(e).getSqlName()))
                                                         .entrySet().stream()
                                         )
-                                ).collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
-
-                                String sql = "INSERT INTO " + tableName + "(" +
-                                        fields.entrySet().stream().map(e -> e.getValue()).collect(joining(", ")) +
-                                        ") VALUES ( " +
-                                        fields.entrySet().stream().map(e -> ":" + e.getKey()).collect(joining(", ")) +
-                                        ")";
+                                ).collect(toMap(Map.Entry::getKey, Map.Entry::getValue, (v1, v2) -> v1, TreeMap::new));
+
+                                stage[0]++;
+                                InsertBatch batch = stages.computeIfAbsent(stage[0], s -> new LinkedHashMap<>())
+                                        .computeIfAbsent(new InsertBatchKey(tableName, fields), k -> new InsertBatch(
+                                                "INSERT INTO " + tableName + "(" +
+                                                        fields.entrySet().stream().map(e -> e.getValue()).collect(joining(", ")) +
+                                                        ") VALUES ( " +
+                                                        fields.entrySet().stream().map(e -> ":" + e.getKey()).collect(joining(", ")) +
+                                                        ")"));
+                                batch.getParameters().add(insertStatementNamedParameters);
 
                                 if (log.isDebugEnabled()) {
                                     log.debug("Insert: " + getClassifierFQName(entityForCurrentStatement) + " " + tableName +
                                             " ID: " + identifier +
-                                            " SQL: " + sql +
+                                            " SQL: " + batch.getSql() +
                                             " Params: " + ImmutableMap.copyOf(insertStatementNamedParameters.getValues()).toString());
                                 }
-
-                                int count = jdbcTemplate.update(sql, insertStatementNamedParameters);
-                                checkState(count == 1, "There is illegal state, no records inserted");
                             });
+
+                    lastStages.put(insertStatement, stage[0]);
                 }));
+
+        stages.values().forEach(batches -> batches.values().forEach(batch -> {
+            if (batch.getParameters().size() == 1) {
+                int count = jdbcTemplate.update(batch.getSql(), batch.getParameters().get(0));
+                checkState(count == 1, "There is illegal state, no records inserted");
+            } else {
+                if (log.isDebugEnabled()) {
+                    log.debug("Insert batch: " + batch.getParameters().size() + " records SQL: " + batch.getSql());
+                }
+                int[] counts = jdbcTemplate.batchUpdate(batch.getSql(),
+                        batch.getParameters().toArray(new MapSqlParameterSource[0]));
+                checkState(counts.length == batch.getParameters().size(), "There is illegal state, no records inserted");
+                // some drivers (i.e. PostgreSQL with rewritten batch inserts) are not reporting row counts of batch items
+                checkState(Arrays.stream(counts).allMatch(count -> count == 1 || count == java.sql.Statement.SUCCESS_NO_INFO),
+                        "There is illegal state, no records inserted");
+            }
+        }));
     }
 
 
     /**
-     * Topological Sorting over foreign key dependencies.
+     * Dependency graph of foreign key dependencies.
      * @param insertStatements The existing insert statements.
      * @param rdbmsReferences
      * @return
      */
-    private Stream<InsertStatement<ID>> toDependencySortedInsertStatementStream(
+    private Graph<Statement<ID>, DefaultEdge> toDependencyGraph(
                             Collection<InsertStatement<ID>> insertStatements,
                             Collection<RdbmsReference<ID>> rdbmsReferences) {
 
           // Topoligical Sorting over foreign key dependencies
           Graph<Statement<ID>, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
           insertStatements.stream().forEach(s -> graph.addVertex(s));
+          // index statements by identifier so opposite statements of references are resolved in constant time
+          Map<ID, Statement<ID>> statementsByIdentifier = new HashMap<>();
+          insertStatements.forEach(s -> statementsByIdentifier.putIfAbsent(s.getInstance().getIdentifier(), s));
           rdbmsReferences.stream()
                   .filter(rdbmsReference -> getRdbmsResolver().rdbmsField(rdbmsReference.getReference()).isMandatory())
                   .forEach(rdbmsReference -> {
 
-                      Statement<ID> oppositeStatement = insertStatements.stream()
-                              .filter(insertStatement ->
-                                      insertStatement
-                                              .getInstance()
-                                              .getIdentifier()
-                                              .equals(rdbmsReference.getOppositeIdentifier()))
-                              .findFirst()
-                              .get();
+                      Statement<ID> oppositeStatement = statementsByIdentifier.get(rdbmsReference.getOppositeIdentifier());
+                      checkState(oppositeStatement != null, "Insert statement of mandatory reference not found: " +
+                              rdbmsReference.getOppositeIdentifier());
 
                       if (rdbmsReference.getRule().isForeignKey()) {
                           graph.addEdge(rdbmsReference.getStatement(), oppositeStatement);
@@ -280,7 +319,15 @@ class InsertStatementExecutor<ID> extends StatementExecutor<ID> {
                           graph.addEdge(oppositeStatement, rdbmsReference.getStatement());
                       }
                   });
+          return graph;
+    }
 
+    /**
+     * Topological Sorting over foreign key dependencies.
+     * @param graph dependency graph of insert statements
+     * @return
+     */
+    private Stream<InsertStatement<ID>> toDependencySortedInsertStatementStream(Graph<Statement<ID>, DefaultEdge> graph) {
           // Iterate the ordered statement
           @SuppressWarnings({ "rawtypes", "unchecked" })
           Iterator<InsertStatement<ID>> iterator = new TopologicalOrderIterator(graph);
@@ -323,4 +370,17 @@ class InsertStatementExecutor<ID> extends StatementExecutor<ID> {
                 })
                 .collect(Collectors.toSet());
     }
+
+    @Value
+    private static class InsertBatchKey {
+        String tableName;
+        Map<String, String> fields;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class InsertBatch {
+        private final String sql;
+        private final List<MapSqlParameterSource> parameters = new ArrayList<>();
+    }
 }
@@ -43,6 +43,24 @@ import java.util.stream.Collectors;
  */
 public class ModifyStatementExecutor<ID> extends StatementExecutor<ID> {
 
+    private final EntityExistsValidationStatementExecutor<ID> entityExistsValidationStatementExecutor;
+
+    private final InsertStatementExecutor<ID> insertStatementExecutor;
+
+    private final UpdateStatementExecutor<ID> updateStatementExecutor;
+
+    private final CheckUniqueAttributeStatementExecutor<ID> checkUniqueAttributeStatementExecutor;
+
+    private final UpdateReferenceExecutor<ID> updateReferenceExecutor;
+
+    private final DeleteStatementExecutor<ID> deleteStatementExecutor;
+
+    private final AddReferenceStatementExecutor<ID> addReferenceStatementExecutor;
+
+    private final RemoveReferenceStatementExecutor<ID> removeReferenceStatementExecutor;
+
+    private final AddRemoveReferenceStatementConsistencyCheckExecutor<ID> addRemoveReferenceStatementConsistencyCheckExecutor;
+
     @Builder
     public ModifyStatementExecutor(
             @NonNull AsmModel asmModel,
@@ -53,19 +71,8 @@ public class ModifyStatementExecutor<ID> extends StatementExecutor<ID> {
             @NonNull Coercer coercer,
             @NonNull IdentifierProvider<ID> identifierProvider) {
         super(asmModel, rdbmsModel, transformationTraceService, rdbmsParameterMapper, rdbmsResolver, coercer, identifierProvider);
-    }
-
-    /**
-     * Executing all given statements. There is precedence is used for statements.
-     *
-     * @param jdbcTemplate
-     * @param statements
-     * @throws SQLException
-     */
-    public void executeStatements(NamedParameterJdbcTemplate jdbcTemplate,
-                                  Collection<Statement<ID>> statements) throws SQLException {
 
-        EntityExistsValidationStatementExecutor<ID> entityExistsValidationStatementExecutor =
+        this.entityExistsValidationStatementExecutor =
                 EntityExistsValidationStatementExecutor.<ID>builder()
                         .asmModel(getAsmModel())
                         .rdbmsModel(getRdbmsModel())
@@ -77,8 +84,7 @@ public class ModifyStatementExecutor<ID> extends StatementExecutor<ID> {
                         .identifierProvider(getIdentifierProvider())
                         .build();
 
-
-        InsertStatementExecutor<ID> insertStatementExecutor = InsertStatementExecutor.<ID>builder()
+        this.insertStatementExecutor = InsertStatementExecutor.<ID>builder()
                 .asmModel(getAsmModel())
                 .rdbmsModel(getRdbmsModel())
                 .rdbmsResolver(getRdbmsResolver())
@@ -89,7 +95,7 @@ public class ModifyStatementExecutor<ID> extends StatementExecutor<ID> {
                 .identifierProvider(getIdentifierProvider())
                 .build();
 
-        UpdateStatementExecutor<ID> updateStatementExecutor = UpdateStatementExecutor.<ID>builder()
+        this.updateStatementExecutor = UpdateStatementExecutor.<ID>builder()
                 .asmModel(getAsmModel())
                 .rdbmsModel(getRdbmsModel())
                 .rdbmsResolver(getRdbmsResolver())
@@ -100,7 +106,7 @@ public class ModifyStatementExecutor<ID> extends StatementExecutor<ID> {
                 .identifierProvider(getIdentifierProvider())
                 .build();
 
-        CheckUniqueAttributeStatementExecutor<ID> checkUniqueAttributeStatementExecutor = CheckUniqueAttributeStatementExecutor.<ID>builder()
+        this.checkUniqueAttributeStatementExecutor = CheckUniqueAttributeStatementExecutor.<ID>builder()
                 .asmModel(getAsmModel())
                 .rdbmsModel(getRdbmsModel())
                 .rdbmsResolver(getRdbmsResolver())
@@ -111,7 +117,7 @@ public class ModifyStatementExecutor<ID> extends StatementExecutor<ID> {
                 .identifierProvider(getIdentifierProvider())
                 .build();
 
-        UpdateReferenceExecutor<ID> updateReferenceExecutor = UpdateReferenceExecutor.<ID>builder()
+        this.updateReferenceExecutor = UpdateReferenceExecutor.<ID>builder()
                 .asmModel(getAsmModel())
                 .rdbmsModel(getRdbmsModel())
                 .rdbmsResolver(getRdbmsResolver())
@@ -122,7 +128,7 @@ public class ModifyStatementExecutor<ID> extends StatementExecutor<ID> {
                 .identifierProvider(getIdentifierProvider())
                 .build();
 
-        DeleteStatementExecutor<ID> deleteStatementExecutor = DeleteStatementExecutor.<ID>builder()
+        this.deleteStatementExecutor = DeleteStatementExecutor.<ID>builder()
                 .asmModel(getAsmModel())
                 .rdbmsModel(getRdbmsModel())
                 .rdbmsResolver(getRdbmsResolver())
@@ -133,7 +139,7 @@ public class ModifyStatementExecutor<ID> extends StatementExecutor<ID> {
                 .identifierProvider(getIdentifierProvider())
                 .build();
 
-        AddReferenceStatementExecutor<ID> addReferenceStatementExecutor = AddReferenceStatementExecutor.<ID>builder()
+        this.addReferenceStatementExecutor = AddReferenceStatementExecutor.<ID>builder()
                 .asmModel(getAsmModel())
                 .rdbmsModel(getRdbmsModel())
                 .rdbmsResolver(getRdbmsResolver())
@@ -144,7 +150,7 @@ public class ModifyStatementExecutor<ID> extends StatementExecutor<ID> {
                 .identifierProvider(getIdentifierProvider())
                 .build();
 
-        RemoveReferenceStatementExecutor<ID> removeReferenceStatementExecutor = RemoveReferenceStatementExecutor.<ID>builder()
+        this.removeReferenceStatementExecutor = RemoveReferenceStatementExecutor.<ID>builder()
                 .asmModel(getAsmModel())
                 .rdbmsModel(getRdbmsModel())
                 .rdbmsResolver(getRdbmsResolver())
@@ -155,7 +161,7 @@ public class ModifyStatementExecutor<ID> extends StatementExecutor<ID> {
                 .identifierProvider(getIdentifierProvider())
                 .build();
 
-        AddRemoveReferenceStatementConsistencyCheckExecutor<ID> addRemoveReferenceStatementConsistencyCheckExecutor = AddRemoveReferenceStatementConsistencyCheckExecutor.<ID>builder()
+        this.addRemoveReferenceStatementConsistencyCheckExecutor = AddRemoveReferenceStatementConsistencyCheckExecutor.<ID>builder()
                 .asmModel(getAsmModel())
                 .rdbmsModel(getRdbmsModel())
                 .rdbmsResolver(getRdbmsResolver())
@@ -165,6 +171,18 @@ public class ModifyStatementExecutor<ID> extends StatementExecutor<ID> {
                 .coercer(getCoercer())
                 .identifierProvider(getIdentifierProvider())
                 .build();
+    }
+
+    /**
+     * Executing all given statements. There is precedence is used for statements. Statement executors are stateless
+     * so they are created once and shared by all calls.
+     *
+     * @param jdbcTemplate
+     * @param statements
+     * @throws SQLException
+     */
+    public void executeStatements(NamedParameterJdbcTemplate jdbcTemplate,
+                                  Collection<Statement<ID>> statements) throws SQLException {
 
         // Check existence
         entityExistsValidationStatementExecutor.executeEntityExistsValidationStatements(
@@ -20,6 +20,8 @@ package hu.blackbelt.judo.runtime.core.dao.rdbms.executors;
  * #L%
  */
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import hu.blackbelt.judo.dao.api.DAO;
 import hu.blackbelt.judo.dao.api.IdentifierProvider;
@@ -38,7 +40,6 @@ import hu.blackbelt.judo.meta.expression.numeric.IntegerOppositeExpression;
 import hu.blackbelt.judo.meta.expression.object.ObjectVariableReference;
 import hu.blackbelt.judo.meta.expression.support.ExpressionModelResourceSupport;
 import hu.blackbelt.judo.meta.jql.jqldsl.JqlExpression;
-import hu.blackbelt.judo.meta.jql.runtime.JqlParser;
 import hu.blackbelt.judo.meta.measure.Measure;
 import hu.blackbelt.judo.meta.measure.Unit;
 import hu.blackbelt.judo.meta.query.*;
@@ -50,35 +51,46 @@ import hu.blackbelt.judo.runtime.core.dao.rdbms.RdbmsParameterMapper;
 import hu.blackbelt.judo.runtime.core.dao.rdbms.RdbmsResolver;
 import hu.blackbelt.judo.runtime.core.dao.rdbms.query.RdbmsBuilder;
 import hu.blackbelt.judo.runtime.core.dao.rdbms.query.RdbmsBuilderContext;
+import hu.blackbelt.judo.runtime.core.dao.rdbms.query.model.RdbmsQueryOverlay;
 import hu.blackbelt.judo.runtime.core.dao.rdbms.query.model.RdbmsResultSet;
 import hu.blackbelt.judo.runtime.core.dao.rdbms.query.model.SqlConverterContext;
 import hu.blackbelt.judo.runtime.core.dao.rdbms.query.translators.*;
 import hu.blackbelt.judo.runtime.core.dao.rdbms.query.utils.RdbmsAliasUtil;
+import hu.blackbelt.judo.runtime.core.expression.ConcurrentJqlParser;
 import hu.blackbelt.judo.runtime.core.query.Context;
 import hu.blackbelt.judo.runtime.core.query.QueryFactory;
 import hu.blackbelt.judo.tatami.core.TransformationTraceService;
 import lombok.*;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.*;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
 
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static hu.blackbelt.judo.meta.expression.constant.util.builder.ConstantBuilders.newInstanceBuilder;
 import static hu.blackbelt.judo.meta.query.util.builder.QueryBuilders.*;
+import static java.util.Objects.requireNonNullElse;
 
 @Slf4j
-public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
+public class SelectStatementExecutor<ID> extends StatementExecutor<ID> implements AutoCloseable {
     private static final String METRICS_SELECT_PREPARE = "select-prepare";
     private static final String METRICS_SELECT_PROCESSING = "select-processing";
     private static final String METRICS_SELECT_QUERY = "select-query";
@@ -86,6 +98,14 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
     private static final String METRICS_COUNT_PREPARE = "count-prepare";
     private static final String METRICS_COUNT_QUERY = "count-query";
 
+    private static final String METRICS_QUERY_META_CACHE_HIT = "query-meta-cache-hit";
+    private static final String METRICS_QUERY_META_CACHE_MISS = "query-meta-cache-miss";
+
+    public static final int DEFAULT_FILTER_CACHE_SIZE = 1000;
+    public static final int DEFAULT_SQL_CACHE_SIZE = 1000;
+    public static final int DEFAULT_QUERY_META_CACHE_SIZE = 1000;
+    public static final int DEFAULT_SUB_QUERY_PARALLELISM = 4;
+
     private final Translator translator = new Translator();
     private final MetricsCollector metricsCollector;
     private final RdbmsBuilder<ID> rdbmsBuilder;
@@ -93,6 +113,10 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
     private final DataTypeManager dataTypeManager;
     private final int chunkSize;
     private final AsmUtils asmUtils;
+    private final SelectStatementExecutorFilterCache filterCache;
+    private final SelectStatementExecutorSqlCache sqlCache;
+    private final Cache<QueryMetaCacheKey, SelectStatementExecutorQueryMetaCache> queryMetaCaches;
+    private final SelectStatementExecutorSubQueryRunner subQueryRunner;
 
     @Builder
     public SelectStatementExecutor(@NonNull final AsmModel asmModel,
@@ -105,13 +129,38 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                                    @NonNull final IdentifierProvider<ID> identifierProvider,
                                    @NonNull final RdbmsBuilder<ID> rdbmsBuilder,
                                    @NonNull final MetricsCollector metricsCollector,
-                                   @NonNull final Integer chunkSize) {
+                                   @NonNull final Integer chunkSize,
+                                   final Integer filterCacheSize,
+                                   final Integer sqlCacheSize,
+                                   final Integer queryMetaCacheSize,
+                                   final Boolean parallelSubQueries,
+                                   final Integer subQueryParallelism,
+                                   final Integer subQueryMaxConnections,
+                                   final ExecutorService subQueryExecutor) {
         super(asmModel, rdbmsModel, transformationTraceService, rdbmsParameterMapper, rdbmsResolver, dataTypeManager.getCoercer(),
                 identifierProvider);
         this.queryFactory = queryFactory;
         this.dataTypeManager = dataTypeManager;
-        this.metricsCollector = metricsCollector;
+        this.metricsCollector = new SubQueryBranchMetricsCollector(metricsCollector);
         this.chunkSize = chunkSize;
+        this.filterCache = new SelectStatementExecutorFilterCache(
+                requireNonNullElse(filterCacheSize, DEFAULT_FILTER_CACHE_SIZE), this.metricsCollector);
+        this.sqlCache = new SelectStatementExecutorSqlCache(
+                requireNonNullElse(sqlCacheSize, DEFAULT_SQL_CACHE_SIZE), this.metricsCollector);
+        final int _queryMetaCacheSize = requireNonNullElse(queryMetaCacheSize, DEFAULT_QUERY_META_CACHE_SIZE);
+        this.queryMetaCaches = _queryMetaCacheSize > 0
+                ? CacheBuilder.newBuilder().maximumSize(_queryMetaCacheSize).build()
+                : null;
+        if (requireNonNullElse(parallelSubQueries, false)) {
+            final int _subQueryParallelism = requireNonNullElse(subQueryParallelism, DEFAULT_SUB_QUERY_PARALLELISM);
+            this.subQueryRunner = new SelectStatementExecutorSubQueryRunner(subQueryExecutor,
+                    _subQueryParallelism,
+                    requireNonNullElse(subQueryMaxConnections, _subQueryParallelism),
+                    () -> rdbmsBuilder.getConstantFields().set(new HashMap<>()),
+                    () -> rdbmsBuilder.getConstantFields().remove());
+        } else {
+            this.subQueryRunner = null;
+        }
 
         asmUtils = new AsmUtils(asmModel.getResourceSet());
 
@@ -236,11 +285,7 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                             AsmUtils.getClassifierFQName(mappedTransferObjectType)));
 
             final Select select;
-            if (queryCustomizer != null &&
-                    (queryCustomizer.getFilter() != null ||
-                        queryCustomizer.getOrderByList() != null &&
-                        !queryCustomizer.getOrderByList().isEmpty() ||
-                        queryCustomizer.getSeek() != null)) {
+            if (queryCustomizer != null && queryCustomizer.getFilter() != null) {
                 select = clone(_select);
             } else {
                 select = _select;
@@ -250,7 +295,7 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                     .withAlias("")
                     .build();
 
-            applyQueryCustomizer(query, queryCustomizer, false);
+            final RdbmsQueryOverlay overlay = applyQueryCustomizer(query, queryCustomizer, false);
             if (queryCustomizer != null &&
                     queryCustomizer.getInstanceIds() != null &&
                     ids != null) {
@@ -262,7 +307,7 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
             }
 
             final Map<Target, Map<ID, Payload>> result =
-                    runQuery(jdbcTemplate, query,false, ids, null, Collections.emptyList(),
+                    runQuery(jdbcTemplate, query, overlay, false, ids, null, Collections.emptyList(),
                             queryCustomizer != null ? queryCustomizer.getSeek() : null,
                             queryCustomizer != null && queryCustomizer.isWithoutFeatures(),
                             queryCustomizer != null ? queryCustomizer.getMask() : null,
@@ -341,7 +386,7 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                     .orElseThrow(() -> new IllegalStateException("Query for static data not prepared yet"));
 
             final Map<Target, Map<ID, Payload>> results =
-                    runQuery(jdbcTemplate, subSelect, false,null, null, Collections.emptyList(), null,
+                    runQuery(jdbcTemplate, subSelect, null, false, null, null, Collections.emptyList(), null,
                             false, Collections.singletonMap(attribute.getName(), true), parameters, true).getResultSet();
 
             final Collection<Payload> resultSet = results.get(subSelect.getSelect().getMainTarget()).values();
@@ -389,12 +434,12 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                 _query = subSelect.get();
             }
 
+            // order by items of navigation joins are cleared by query customizer so ordered queries are cloned too
             final SubSelect query;
             if (queryCustomizer != null &&
                     (queryCustomizer.getFilter() != null ||
                         queryCustomizer.getOrderByList() != null &&
-                        !queryCustomizer.getOrderByList().isEmpty() ||
-                        queryCustomizer.getSeek() != null)) {
+                        !queryCustomizer.getOrderByList().isEmpty())) {
                 if (_query.eContainer() != null) {
                     Node _container = (Node) clone(_query.eContainer());
                     query = _container.getSubSelects().stream()
@@ -410,7 +455,7 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                 query = _query;
             }
 
-            applyQueryCustomizer(query, queryCustomizer, false);
+            final RdbmsQueryOverlay overlay = applyQueryCustomizer(query, queryCustomizer, false);
 
             Collection<ID> instanceIds;
             final Collection<ID> parentIds;
@@ -432,7 +477,7 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
             }
 
             final Map<Target, Map<ID, Payload>> subQueryResults =
-                    runQuery(jdbcTemplate, query, false, instanceIds, parentIds,
+                    runQuery(jdbcTemplate, query, overlay, false, instanceIds, parentIds,
                             reference != null ? Collections.singletonList(reference) : Collections.emptyList(),
                             queryCustomizer != null ? queryCustomizer.getSeek() : null,
                             queryCustomizer != null ? queryCustomizer.isWithoutFeatures() : false,
@@ -509,7 +554,7 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
             }
 
             final SubSelect query;
-            if (queryCustomizer != null) {
+            if (queryCustomizer != null && queryCustomizer.getFilter() != null) {
                 if (_query.eContainer() != null) {
                     Node _container = (Node) clone(_query.eContainer());
                     query = _container.getSubSelects().stream()
@@ -554,62 +599,88 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
             rdbmsBuilder.getConstantFields().remove();
         }
     }
-    private void applyQueryCustomizer(final SubSelect query,
-                                      final DAO.QueryCustomizer<ID> queryCustomizer,
-                                      boolean applyFilterOnly) {
+
+    /**
+     * Apply query customizer on a logical query. Filter is added to the select of logical query (so select must be
+     * cloned by caller), order by items, limit and offset are returned as overlay.
+     *
+     * @param query           logical query
+     * @param queryCustomizer query customizer
+     * @param applyFilterOnly apply filter only (i.e. for counting records)
+     * @return overlay of logical query
+     */
+    private RdbmsQueryOverlay applyQueryCustomizer(final SubSelect query,
+                                                   final DAO.QueryCustomizer<ID> queryCustomizer,
+                                                   boolean applyFilterOnly) {
         final EClass mainTarget = query.getSelect().getMainTarget().getType();
 
         if (queryCustomizer != null && queryCustomizer.getFilter() != null) {
             final Filter filter = createFilter(mainTarget, query.getSelect(), queryCustomizer.getFilter());
             query.getSelect().getFilters().add(filter);
         }
-        if (!applyFilterOnly) {
-            final boolean reverse = queryCustomizer != null &&
-                    queryCustomizer.getSeek() != null ? queryCustomizer.getSeek().isReverse() : false;
-            if (queryCustomizer != null &&
-                    queryCustomizer.getOrderByList() != null &&
-                    !queryCustomizer.getOrderByList().isEmpty()) {
-
-                final Map<EAttribute, Feature> mainFeatures = query.getSelect().getFeatures().stream()
-                        .filter(f -> (f instanceof Attribute ||
-                                f instanceof Function ||
-                                f instanceof SubSelectFeature) &&
-                                f.getTargetMappings().stream()
-                                        .anyMatch(tm -> Objects.equals(tm.getTarget(), query.getSelect().getMainTarget())))
-                        .collect(Collectors.toMap(f -> f.getTargetMappings().stream()
-                                .filter(tm -> Objects.equals(tm.getTarget(), query.getSelect().getMainTarget()))
-                                .findAny().get().getTargetAttribute(), f -> f));
-
-                query.getNavigationJoins().forEach(j -> j.getOrderBys().clear());
-                query.getSelect().getOrderBys().clear();
-                query.getOrderBys().clear();
-                query.getSelect().getOrderBys().addAll(queryCustomizer.getOrderByList().stream()
-                        .map(o -> newOrderByBuilder()
-                                .withFeature(mainFeatures.get(o.getAttribute()))
-                                .withDescending(reverse ? !o.isDescending() : o.isDescending())
-                                .build())
-                        .collect(Collectors.toList()));
-            }
-            if (queryCustomizer != null && queryCustomizer.getSeek() != null) {
-                query.setLimit(queryCustomizer.getSeek().getLimit());
-                if (queryCustomizer.getSeek().getOffset() > 0) {
-                    query.setOffset(queryCustomizer.getSeek().getOffset());
-                }
+        if (queryCustomizer == null || applyFilterOnly) {
+            return null;
+        }
+
+        final RdbmsQueryOverlay.RdbmsQueryOverlayBuilder overlay = RdbmsQueryOverlay.builder();
+        final boolean reverse = queryCustomizer.getSeek() != null && queryCustomizer.getSeek().isReverse();
+        if (queryCustomizer.getOrderByList() != null && !queryCustomizer.getOrderByList().isEmpty()) {
+            final Map<EAttribute, Feature> mainFeatures = query.getSelect().getFeatures().stream()
+                    .filter(f -> (f instanceof Attribute ||
+                            f instanceof Function ||
+                            f instanceof SubSelectFeature) &&
+                            f.getTargetMappings().stream()
+                                    .anyMatch(tm -> Objects.equals(tm.getTarget(), query.getSelect().getMainTarget())))
+                    .collect(Collectors.toMap(f -> f.getTargetMappings().stream()
+                            .filter(tm -> Objects.equals(tm.getTarget(), query.getSelect().getMainTarget()))
+                            .findAny().get().getTargetAttribute(), f -> f));
+
+            // navigation joins are part of (cloned) query, other order by items are replaced by overlay
+            query.getNavigationJoins().stream()
+                    .filter(j -> !j.getOrderBys().isEmpty())
+                    .forEach(j -> j.getOrderBys().clear());
+            overlay.orderBys(queryCustomizer.getOrderByList().stream()
+                    .map(o -> newOrderByBuilder()
+                            .withFeature(mainFeatures.get(o.getAttribute()))
+                            .withDescending(reverse ? !o.isDescending() : o.isDescending())
+                            .build())
+                    .collect(Collectors.toList()));
+        }
+        if (queryCustomizer.getSeek() != null) {
+            overlay.limit(queryCustomizer.getSeek().getLimit());
+            if (queryCustomizer.getSeek().getOffset() > 0) {
+                overlay.offset(queryCustomizer.getSeek().getOffset());
             }
         }
+        return overlay.build();
     }
 
     private <T extends EObject> T clone(final T original) {
         final EcoreUtil.Copier copier = new EcoreUtil.Copier(true, true);
 
-        synchronized (original.eResource()) {
-            final T result = (T) copier.copy(original);
-            copier.copyReferences();
-            return result;
-        }
+        // logical queries of query factory are not modified after they are built so no locking is needed
+        final T result = (T) copier.copy(original);
+        copier.copyReferences();
+        return result;
     }
 
     private Filter createFilter(final EClass type, final Node node, final String filterExpressionString) {
+        final LogicalExpression translatedFilterExpression = filterCache.get(type, filterExpressionString,
+                f -> compileFilter(type, f));
+
+        final Feature filter = queryFactory.dataExpressionToFeature(translatedFilterExpression, Context.builder()
+                .node(node)
+                .sourceCounter(queryFactory.getNextSourceIndex())
+                .targetCounter(queryFactory.getNextTargetIndex())
+                .variables(Collections.singletonMap("self", node))
+                .build(), null, null);
+        return newFilterBuilder()
+                .withAlias("_f" + node.getAlias())
+                .withFeature(filter)
+                .build();
+    }
+
+    private LogicalExpression compileFilter(final EClass type, final String filterExpressionString) {
         // TODO - use request ID in URI
         final ExpressionModelResourceSupport expressionModelResourceSupport = ExpressionModelResourceSupport.expressionModelResourceSupportBuilder()
                 .uri(URI.createURI("expression:filter-" + UUID.randomUUID()))
@@ -628,10 +699,7 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                 .build();
         context.pushVariable(_this);
 
-        JqlExpression filterExpressionJql;
-        synchronized (this) {
-            filterExpressionJql = new JqlParser().parseString(filterExpressionString);
-        }
+        final JqlExpression filterExpressionJql = ConcurrentJqlParser.parseString(filterExpressionString);
         final LogicalExpression filterExpression = (LogicalExpression)
                 jqlExpressionBuilder.createExpression(CreateExpressionArguments.<EClass, EClass, EClassifier>builder()
                                                                                .withJqlExpression(filterExpressionJql)
@@ -643,17 +711,7 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
         if (log.isDebugEnabled()) {
             log.debug("Translated transfer object filter to entity filter:\n    {}\n => {}", filterExpression, translatedFilterExpression);
         }
-
-        final Feature filter = queryFactory.dataExpressionToFeature(translatedFilterExpression, Context.builder()
-                .node(node)
-                .sourceCounter(queryFactory.getNextSourceIndex())
-                .targetCounter(queryFactory.getNextTargetIndex())
-                .variables(Collections.singletonMap("self", node))
-                .build(), null, null);
-        return newFilterBuilder()
-                .withAlias("_f" + node.getAlias())
-                .withFeature(filter)
-                .build();
+        return translatedFilterExpression;
     }
 
     @Builder
@@ -685,6 +743,7 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
     private QueryResult<ID> runQuery(
             final NamedParameterJdbcTemplate jdbcTemplate,
             final SubSelect query,
+            final RdbmsQueryOverlay overlay,
             final boolean count,
             final Collection<ID> instanceIds,
             final Collection<ID> parentIds,
@@ -711,20 +770,40 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
         }
 
 
-        final RdbmsResultSet<ID> resultSetHandler = RdbmsResultSet.<ID>builder()
-                .query(query)
-                .builderContext(RdbmsBuilderContext.builder()
-                        .parentIdFilterQuery(parentIds != null ? query : null)
-                        .rdbmsBuilder(rdbmsBuilder)
-                        .queryParameters(queryParameters)
-                        .build())
-                .count(count)
-                .filterByInstances(instanceIds != null)
-                .seek(seek)
-                .withoutFeatures(withoutFeatures)
-                .mask(mask)
-                .skipParents(skipParents)
-                .build();
+        final SelectStatementExecutorSqlCache.PreparedSql preparedSql = sqlCache.get(
+                SelectStatementExecutorSqlCache.QueryShape.builder()
+                        .query(query)
+                        .overlay(overlay)
+                        .seek(seek)
+                        .mask(mask)
+                        .count(count)
+                        .filterByInstances(instanceIds != null)
+                        .filterByParents(parentIds != null)
+                        .withoutFeatures(withoutFeatures)
+                        .skipParents(skipParents)
+                        .build(),
+                generation -> RdbmsResultSet.<ID>builder()
+                        .query(query)
+                        .overlay(overlay)
+                        .builderContext(RdbmsBuilderContext.builder()
+                                .parentIdFilterQuery(parentIds != null ? query : null)
+                                .rdbmsBuilder(rdbmsBuilder)
+                                .queryParameters(queryParameters)
+                                .variableListener(generation::markNotCacheable)
+                                .build())
+                        .count(count)
+                        .filterByInstances(instanceIds != null)
+                        .seek(seek)
+                        .withoutFeatures(withoutFeatures)
+                        .mask(mask)
+                        .skipParents(skipParents)
+                        .build()
+                        .toSql(SqlConverterContext.builder()
+                                .coercer(getCoercer())
+                                .sqlParameters(generation.getSqlParameters())
+                                .prefixes(Collections.emptyMap())
+                                .build()));
+        final String sql = preparedSql.getSql();
 
         final List<Chunk<ID>> chunks = new ArrayList<>();
         if (parentIds != null) {
@@ -752,6 +831,10 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
             chunks.add(Chunk.<ID>builder().build());
         }
 
+        final SelectStatementExecutorQueryMetaCache metaCache = !count
+                ? getQueryMetaCache(query, mask, referenceChain)
+                : null;
+
         // the map that will store results
         final Map<Target, Map<ID, Payload>> results = query.getSelect().getTargets().stream()
                 .collect(Collectors.toMap(target -> target, target -> new LinkedHashMap<>()));
@@ -774,15 +857,8 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                                 .map(id -> getCoercer().coerce(id, getRdbmsParameterMapper().getIdClassName()))
                                 .collect(Collectors.toList()));
             }
+            preparedSql.bind(sqlParameters);
 
-
-            final String sql = resultSetHandler.toSql(
-                    SqlConverterContext.builder()
-                            .coercer(getCoercer())
-                            .sqlParameters(sqlParameters)
-                            .prefixes(Collections.emptyMap())
-                            .build()
-            );
             if (log.isDebugEnabled()) {
                 log.debug("SQL:\n--------------------------------------------------------------------------------\n{}", sql);
                 log.debug("Parameters: {}", sqlParameters.getValues());
@@ -792,12 +868,17 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                     recordNumber.addAndGet(jdbcTemplate.queryForObject(sql, sqlParameters, Integer.class));
                 }
             } else {
-                List<Map<String, Object>> resultSet = new ArrayList<>();
                 try (MetricsCancelToken ct = metricsCollector.start(METRICS_SELECT_QUERY)) {
-                    resultSet = jdbcTemplate.queryForList(sql, sqlParameters);
+                    // records are mapped while reading JDBC result set, no intermediate record maps are created
+                    jdbcTemplate.query(sql, sqlParameters, (ResultSetExtractor<Void>) resultSet -> {
+                        try (MetricsCancelToken pt = metricsCollector.start(METRICS_SELECT_PROCESSING)) {
+                            mapResults(results, query, metaCache, resultSet, chunk, withoutFeatures);
+                        }
+                        return null;
+                    });
                 }
                 try (MetricsCancelToken ct = metricsCollector.start(METRICS_SELECT_PROCESSING)) {
-                    mapResults(results, jdbcTemplate, query, resultSet, chunk, mask, referenceChain, withoutFeatures, queryParameters);
+                    runEmbeddedSubQueries(results, jdbcTemplate, query, metaCache, mask, withoutFeatures, queryParameters);
                 }
             }
         };
@@ -807,24 +888,102 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                 .resultSet(results).build();
     }
 
+    /**
+     * Get meta cache (field aliases, target paths and mask projections) of a logical query. Meta caches of logical
+     * queries prepared by query factory are reused, meta caches of copied queries (i.e. filtered by query customizer)
+     * are created on each call.
+     *
+     * @param query          logical (sub)query
+     * @param mask           mask containing features to get
+     * @param referenceChain list of references
+     * @return meta cache of logical query
+     */
+    private SelectStatementExecutorQueryMetaCache getQueryMetaCache(final SubSelect query,
+                                                                    final Map<String, Object> mask,
+                                                                    final List<EReference> referenceChain) {
+        if (queryMetaCaches == null || query.getSelect().eResource() == null) {
+            return new SelectStatementExecutorQueryMetaCache(query, mask, referenceChain);
+        }
+
+        final QueryMetaCacheKey key = new QueryMetaCacheKey(query.getSelect(),
+                mask != null ? new HashMap<>(mask) : null, new ArrayList<>(referenceChain));
+        SelectStatementExecutorQueryMetaCache metaCache = queryMetaCaches.getIfPresent(key);
+        if (metaCache != null) {
+            metricsCollector.increment(METRICS_QUERY_META_CACHE_HIT, 1);
+        } else {
+            metricsCollector.increment(METRICS_QUERY_META_CACHE_MISS, 1);
+            metaCache = new SelectStatementExecutorQueryMetaCache(query, mask, referenceChain);
+            queryMetaCaches.put(key, metaCache);
+        }
+        return metaCache;
+    }
+
+    /**
+     * Resolve columns of a JDBC result set to the features of a logical query. Columns are resolved once per
+     * statement, records are mapped by column indexes.
+     *
+     * @param metaData  JDBC result set meta data
+     * @param query     logical (sub)query
+     * @param metaCache meta cache of logical query
+     * @param chunk     chunk of instance and parent IDs
+     * @param parentKey key used to identify parent instance in subselects
+     * @return resolved columns
+     * @throws SQLException if meta data could not be read
+     */
+    private List<RecordColumn> getRecordColumns(final ResultSetMetaData metaData,
+                                                final SubSelect query,
+                                                final SelectStatementExecutorQueryMetaCache metaCache,
+                                                final SelectStatementExecutor.Chunk<ID> chunk,
+                                                final String parentKey) throws SQLException {
+        final int columnCount = metaData.getColumnCount();
+        final List<RecordColumn> columns = new ArrayList<>(columnCount);
+        for (int index = 1; index <= columnCount; index++) {
+            final String name = JdbcUtils.lookupColumnName(metaData, index);
+            final Optional<Node> idSource = metaCache.getSources(name);
+            final Optional<Node> metaField = metaCache.getMetaField(name);
+
+            if (idSource.isPresent()) {
+                final List<Target> foundTargets = metaCache.getIdFieldTargets(name).orElseThrow();
+                if (log.isTraceEnabled() && foundTargets.isEmpty()) {
+                    log.trace("    - no target of ID, source alias: {}, column: {}", idSource.get().getAlias(), name);
+                }
+                columns.add(new RecordColumn(index, name, RecordColumnKind.ID, foundTargets, null, null));
+            } else if (metaField.isPresent()) {
+                final List<Target> foundTargets = metaCache.getMetaFieldTargets(name).orElseThrow();
+                final String metaFieldName = metaCache.getMetaFieldName(name).get();
+                if (log.isTraceEnabled() && foundTargets.isEmpty()) {
+                    log.trace("    - no target of type, source alias: {}, column: {}", metaField.get().getAlias(), metaFieldName);
+                }
+                columns.add(new RecordColumn(index, name, RecordColumnKind.META, foundTargets, metaFieldName, null));
+            } else if (chunk.parentIds != null && parentKey != null && parentKey.equalsIgnoreCase(name)) {
+                columns.add(new RecordColumn(index, name, RecordColumnKind.PARENT_ID, Collections.emptyList(), null, null));
+            } else {
+                final Optional<FeatureTargetMapping> featureTargetMapping = metaCache.getFeatureTargetMapping(name);
+                if (featureTargetMapping.isPresent() && !query.getSelect().getTargets().isEmpty()) {
+                    columns.add(new RecordColumn(index, name, RecordColumnKind.ATTRIBUTE, Collections.emptyList(), null,
+                            featureTargetMapping.get()));
+                } else if (log.isDebugEnabled()) {
+                    log.debug("No target found for {}", name);
+                }
+            }
+        }
+        return columns;
+    }
+
     private void mapResults(final Map<Target, Map<ID, Payload>> results,
-                            final NamedParameterJdbcTemplate jdbcTemplate,
                             final SubSelect query,
-                            final List<Map<String, Object>> resultSet,
+                            final SelectStatementExecutorQueryMetaCache metaCache,
+                            final ResultSet resultSet,
                             final SelectStatementExecutor.Chunk<ID> chunk,
-                            final Map<String, Object> mask,
-                            final List<EReference> referenceChain,
-                            final boolean withoutFeatures,
-                            final Map<String, Object> queryParameters
-                            ) {
+                            final boolean withoutFeatures) throws SQLException {
         // key used to identify parent instance in subselects
         final String parentKey = RdbmsAliasUtil.getParentIdColumnAlias(query.getContainer());
-        final SelectStatementExecutorQueryMetaCache metaCache = new SelectStatementExecutorQueryMetaCache(query, mask, referenceChain);
+        final List<RecordColumn> columns = getRecordColumns(resultSet.getMetaData(), query, metaCache, chunk, parentKey);
 
-        for (Map<String, Object> record : resultSet) {
+        while (resultSet.next()) {
 
             if (log.isDebugEnabled()) {
-                log.debug("Processing record:\n{}", record);
+                log.debug("Processing record: {}", resultSet.getRow());
             }
 
             // map containing records by target (extracted from current JDBC record)
@@ -841,106 +1000,63 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                 recordsByTarget.get(query.getSelect().getMainTarget()).put(parentKey, new HashSet<>());
             }
 
-
-            for (Map.Entry<String, Object> field : record.entrySet()) {
+            for (RecordColumn column : columns) {
+                final Object fieldValue = JdbcUtils.getResultSetValue(resultSet, column.getIndex());
                 if (log.isTraceEnabled()) {
-                    log.trace("  - key: {}", field.getKey());
-                    log.trace("  - value: {} ({})", field.getValue(),
-                            field.getValue() != null ? field.getValue().getClass().getName() : "-");
+                    log.trace("  - key: {}", column.getName());
+                    log.trace("  - value: {} ({})", fieldValue,
+                            fieldValue != null ? fieldValue.getClass().getName() : "-");
                 }
-                final Optional<Node> idSource = metaCache.getSources(field.getKey());
-                final Optional<Node> metaField = metaCache.getMetaField(field.getKey());
-                final Optional<String> metaFieldName = metaCache.getMetaFieldName(field.getKey());
 
-                if (idSource.isPresent()) {
-                    if (log.isTraceEnabled()) {
-                        log.trace("    - id source: {}", idSource.get().getAlias());
-                    }
-
-                    final List<Target> foundTargets = metaCache.getIdFieldTargets(field.getKey())
-                            .orElseThrow();
-
-                    if (!foundTargets.isEmpty()) {
-                        for (Target target : foundTargets) {
-                            if (log.isTraceEnabled()) {
-                                log.trace("    - id target: {}", target);
-                            }
-                            final ID id = getCoercer().coerce(field.getValue(), getIdentifierProvider().getType());
-                            recordsByTarget.get(target).put(getIdentifierProvider().getName(), id);
+                if (column.getKind() == RecordColumnKind.ID) {
+                    for (Target target : column.getTargets()) {
+                        if (log.isTraceEnabled()) {
+                            log.trace("    - id target: {}", target);
+                        }
+                        final ID id = getCoercer().coerce(fieldValue, getIdentifierProvider().getType());
+                        recordsByTarget.get(target).put(getIdentifierProvider().getName(), id);
 
-                            idsByTarget.put(target, id);
-                            if (id == null) {
-                                nullTargets.add(target);
-                            }
+                        idsByTarget.put(target, id);
+                        if (id == null) {
+                            nullTargets.add(target);
                         }
-                    } else {
+                    }
+                } else if (column.getKind() == RecordColumnKind.META) {
+                    final String metaFieldName = column.getMetaFieldName();
+                    for (Target target : column.getTargets()) {
                         if (log.isTraceEnabled()) {
-                            log.trace("    - no target of ID, source alias: {}, column: {}",
-                                    idSource.get().getAlias(),
-                                    field.getKey());
+                            log.trace("    - meta target: {}", target);
                         }
-                    }
-                } else if (metaField.isPresent()) {
-                    if (log.isTraceEnabled()) {
-                        log.trace("    - meta source: {}", metaField.get().getAlias());
-                    }
-
-                    final List<Target> foundTargets = metaCache.getMetaFieldTargets(field.getKey()).orElseThrow();
 
-                    if (!foundTargets.isEmpty()) {
-                        for (Target target : foundTargets) {
-                            if (log.isTraceEnabled()) {
-                                log.trace("    - meta target: {}", target);
-                            }
-
-                            final Object value;
-                            if (ENTITY_CREATE_TIMESTAMP_MAP_KEY.equals(metaFieldName.get()) ||
-                                    ENTITY_UPDATE_TIMESTAMP_MAP_KEY.equals(metaFieldName.get())) {
-                                value = getCoercer().coerce(field.getValue(), LocalDateTime.class);
-                            } else if (ENTITY_CREATE_USER_ID_MAP_KEY.equals(metaFieldName.get()) ||
-                                    ENTITY_UPDATE_USER_ID_MAP_KEY.equals(metaFieldName.get())) {
-                                value = getCoercer().coerce(field.getValue(), getIdentifierProvider().getType());
-                            } else {
-                                value = field.getValue();
-                            }
-
-                            recordsByTarget.get(target).put(metaFieldName.get(), value);
-                        };
-                    } else {
-                        if (log.isTraceEnabled()) {
-                            log.trace("    - no target of type, source alias: {}, column: {}",
-                                    metaField.get().getAlias(),metaFieldName.get());
+                        final Object value;
+                        if (ENTITY_CREATE_TIMESTAMP_MAP_KEY.equals(metaFieldName) ||
+                                ENTITY_UPDATE_TIMESTAMP_MAP_KEY.equals(metaFieldName)) {
+                            value = getCoercer().coerce(fieldValue, LocalDateTime.class);
+                        } else if (ENTITY_CREATE_USER_ID_MAP_KEY.equals(metaFieldName) ||
+                                ENTITY_UPDATE_USER_ID_MAP_KEY.equals(metaFieldName)) {
+                            value = getCoercer().coerce(fieldValue, getIdentifierProvider().getType());
+                        } else {
+                            value = fieldValue;
                         }
+
+                        recordsByTarget.get(target).put(metaFieldName, value);
                     }
-                } else if (chunk.parentIds != null && parentKey != null && parentKey.equalsIgnoreCase(field.getKey())) {
-                    final ID id = getCoercer().coerce(field.getValue(), getIdentifierProvider().getType());
+                } else if (column.getKind() == RecordColumnKind.PARENT_ID) {
+                    final ID id = getCoercer().coerce(fieldValue, getIdentifierProvider().getType());
                     if (log.isTraceEnabled()) {
                         log.trace("    - parent key: {}", parentKey);
                     }
                     recordsByTarget.get(query.getSelect().getMainTarget()).getAs(Collection.class, parentKey).add(id);
                 } else {
-                    final Set<Target> foundTargets = new HashSet<>();
-                    for (Target target : query.getSelect().getTargets()) {
-                        if (log.isTraceEnabled()) {
-                            log.trace("   - target: {}", target);
-                        }
-                        Optional<FeatureTargetMapping> featureTargetMapping = metaCache.getFeatureTargetMapping(field.getKey());
-                        if (featureTargetMapping.isPresent()) { // attribute found in the current target
-
-                            Object convertedValue = getFieldValue(field, featureTargetMapping.get());
-                            if (log.isTraceEnabled()) {
-                                log.trace("    - converted value: {}", convertedValue);
-                            }
-                            recordsByTarget.get(featureTargetMapping.get().getTarget())
-                                    .put(featureTargetMapping.get().getTargetAttribute().getName(), convertedValue);
-                            foundTargets.add(featureTargetMapping.get().getTarget());
-                        }
-                    };
-                    if (log.isDebugEnabled() && foundTargets.isEmpty()) {
-                        log.debug("No target found for {}, value: {}", field.getKey(), field.getValue());
+                    final FeatureTargetMapping featureTargetMapping = column.getFeatureTargetMapping();
+                    final Object convertedValue = getFieldValue(fieldValue, featureTargetMapping);
+                    if (log.isTraceEnabled()) {
+                        log.trace("    - converted value: {}", convertedValue);
                     }
+                    recordsByTarget.get(featureTargetMapping.getTarget())
+                            .put(featureTargetMapping.getTargetAttribute().getName(), convertedValue);
                 }
-            };
+            }
 
             // replace payload with null if ID of target is NULL
             for (Target target : nullTargets) {
@@ -1004,15 +1120,6 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
             if (log.isTraceEnabled()) {
                 log.trace("Records by target:\n{}", recordsByTarget);
             }
-        };
-
-        if (!withoutFeatures) {
-            metaCache.getSingleEmbeddedReferences().stream()
-                    .forEach(e -> e.getValue().stream()
-                            .forEach(subSelect ->
-                                    runSubQuery(jdbcTemplate, query,  subSelect, e.getKey(), results,
-                                            mask != null ? (Map<String, Object>) mask.get(subSelect.getTransferRelation().getName()) : null,
-                                            queryParameters)));
         }
 
         if (log.isTraceEnabled()) {
@@ -1020,7 +1127,58 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
         }
     }
 
-    private Object getFieldValue(Map.Entry<String, Object> field, FeatureTargetMapping featureTargetMapping) {
+    @SuppressWarnings("unchecked")
+    private void runEmbeddedSubQueries(final Map<Target, Map<ID, Payload>> results,
+                                       final NamedParameterJdbcTemplate jdbcTemplate,
+                                       final SubSelect query,
+                                       final SelectStatementExecutorQueryMetaCache metaCache,
+                                       final Map<String, Object> mask,
+                                       final boolean withoutFeatures,
+                                       final Map<String, Object> queryParameters) {
+        if (withoutFeatures) {
+            return;
+        }
+
+        final List<Callable<List<Runnable>>> subQueries = metaCache.getSingleEmbeddedReferences().stream()
+                .flatMap(e -> e.getValue().stream()
+                        .map(subSelect -> (Callable<List<Runnable>>) () ->
+                                runSubQuery(jdbcTemplate, query, subSelect, e.getKey(), results,
+                                        mask != null ? (Map<String, Object>) mask.get(subSelect.getTransferRelation().getName()) : null,
+                                        queryParameters)))
+                .collect(Collectors.toList());
+
+        if (subQueries.size() > 1 && isParallelSubQueryExecutionAllowed(jdbcTemplate, metaCache)) {
+            subQueryRunner.run(jdbcTemplate.getJdbcTemplate().getDataSource(), subQueries);
+        } else {
+            subQueries.forEach(subQuery -> {
+                try {
+                    subQuery.call().forEach(Runnable::run);
+                } catch (RuntimeException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new IllegalStateException("Subquery execution failed", ex);
+                }
+            });
+        }
+    }
+
+    /**
+     * Check if independent subqueries can be executed parallel. Subqueries are executed on the caller thread if
+     * parallel execution is not enabled, the caller is bound to a connection that is not a read-only transaction (so
+     * subqueries must see its changes), the caller is a subquery branch already (nested subqueries) or any subquery
+     * is using variables (that can be resolved on the caller thread only).
+     */
+    private boolean isParallelSubQueryExecutionAllowed(final NamedParameterJdbcTemplate jdbcTemplate,
+                                                       final SelectStatementExecutorQueryMetaCache metaCache) {
+        if (subQueryRunner == null || !subQueryRunner.isParallelExecutionAllowed(jdbcTemplate.getJdbcTemplate().getDataSource())) {
+            return false;
+        }
+        return metaCache.getSingleEmbeddedReferences().stream()
+                .flatMap(e -> e.getValue().stream())
+                .noneMatch(SelectStatementExecutorSqlCache::containsVariable);
+    }
+
+    private Object getFieldValue(final Object fieldValue, final FeatureTargetMapping featureTargetMapping) {
         final Feature feature = (Feature) featureTargetMapping.eContainer();
 
         if (log.isTraceEnabled()) {
@@ -1034,9 +1192,9 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                         false);
 
         final Object convertedValue;
-        if (field.getValue() != null) {
+        if (fieldValue != null) {
             final String className;
-            Object value = field.getValue();
+            Object value = fieldValue;
             if (customTypeName.isPresent()) {
                 if (log.isDebugEnabled()) {
                     log.debug("Using custom type: {}", customTypeName.get());
@@ -1106,6 +1264,7 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
 
         return runQuery(jdbcTemplate,
                 query,
+                null,
                 true,
                 instanceIds,
                 parentIds,
@@ -1117,13 +1276,18 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                 true).getCount();
     }
 
-    private void runSubQuery(final NamedParameterJdbcTemplate jdbcTemplate,
-                             final SubSelect query,
-                             final SubSelect subSelect,
-                             final List<EReference> referenceChain,
-                             final Map<Target, Map<ID, Payload>> results,
-                             final Map<String, Object> mask,
-                             final Map<String, Object> queryParameters) {
+    /**
+     * Run subquery of container records.
+     *
+     * @return actions merging subquery records into container records (in order of execution)
+     */
+    private List<Runnable> runSubQuery(final NamedParameterJdbcTemplate jdbcTemplate,
+                                       final SubSelect query,
+                                       final SubSelect subSelect,
+                                       final List<EReference> referenceChain,
+                                       final Map<Target, Map<ID, Payload>> results,
+                                       final Map<String, Object> mask,
+                                       final Map<String, Object> queryParameters) {
         checkArgument(subSelect.getTransferRelation() != null,
                 "SubSelect must have transfer relation");
 
@@ -1143,38 +1307,60 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
                 .findAny();
         if (subTarget.isPresent()) {
             final Set<ID> ids = results.get(subTarget.get()).keySet();
-            if (!ids.isEmpty()) {
-                if (ids.size() == 1 ||
-                        (Objects.equals(subSelect.getBase(), query.getSelect()) ||
-                                query.getSelect().getAllJoins().contains(subSelect.getBase())) &&
-                                subSelect.getLimit() == null) {
-                    executeSubQuery(jdbcTemplate, query, subSelect, newReferenceChain, results, ids, mask, queryParameters);
-                } else {
-                    ids.forEach(id -> executeSubQuery(jdbcTemplate, query, subSelect, newReferenceChain, results,
-                            Collections.singleton(id), mask, queryParameters));
-                }
+            if (ids.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final boolean baseSelected = Objects.equals(subSelect.getBase(), query.getSelect()) ||
+                    query.getSelect().getAllJoins().contains(subSelect.getBase());
+            if (ids.size() == 1 || baseSelected && subSelect.getLimit() == null) {
+                return Collections.singletonList(
+                        executeSubQuery(jdbcTemplate, query, subSelect, null, newReferenceChain, results, ids, mask, queryParameters));
+            } else if (baseSelected && isLimitPerParentSupported(subSelect)) {
+                // limit is applied to records of each parent in a single statement
+                return Collections.singletonList(
+                        executeSubQuery(jdbcTemplate, query, subSelect, RdbmsQueryOverlay.builder().limitPerParent(true).build(),
+                                newReferenceChain, results, ids, mask, queryParameters));
+            } else {
+                return ids.stream()
+                        .map(id -> executeSubQuery(jdbcTemplate, query, subSelect, null, newReferenceChain, results,
+                                Collections.singleton(id), mask, queryParameters))
+                        .collect(Collectors.toList());
             }
         } else {
             throw new UnsupportedOperationException("Not supported yet");
         }
     }
 
+    private boolean isLimitPerParentSupported(final SubSelect subSelect) {
+        return rdbmsBuilder.getDialect().isWindowFunctionSupported() &&
+                subSelect.getContainer() != null &&
+                !subSelect.getNavigationJoins().isEmpty() &&
+                !subSelect.getSelect().isAggregated() &&
+                !subSelect.getSelect().isSingleColumnedSelect();
+    }
+
+    /**
+     * Execute subquery.
+     *
+     * @return action merging subquery records into container records
+     */
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    private void executeSubQuery(final NamedParameterJdbcTemplate jdbcTemplate,
-                                 final SubSelect query,
-                                 final SubSelect subSelect,
-                                 final List<EReference> newReferenceChain,
-                                 final Map<Target, Map<ID, Payload>> results,
-                                 final Collection<ID> ids,
-                                 final Map<String, Object> mask,
-                                 final Map<String, Object> queryParameters) {
+    private Runnable executeSubQuery(final NamedParameterJdbcTemplate jdbcTemplate,
+                                     final SubSelect query,
+                                     final SubSelect subSelect,
+                                     final RdbmsQueryOverlay overlay,
+                                     final List<EReference> newReferenceChain,
+                                     final Map<Target, Map<ID, Payload>> results,
+                                     final Collection<ID> ids,
+                                     final Map<String, Object> mask,
+                                     final Map<String, Object> queryParameters) {
         if (log.isTraceEnabled()) {
             log.trace("  IDs: {}", ids);
         }
 
         // map storing subquery results, it will be filled by recursive call
         final Map<Target, Map<ID, Payload>> subQueryResults =
-                runQuery(jdbcTemplate, subSelect, false, null, ids, newReferenceChain, null, false, mask, queryParameters, false)
+                runQuery(jdbcTemplate, subSelect, overlay, false, null, ids, newReferenceChain, null, false, mask, queryParameters, false)
                         .getResultSet();
 
         if (log.isDebugEnabled()) {
@@ -1190,7 +1376,7 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
             log.trace("  - parent key: {}", subParentKey);
         }
 
-        subQueryResults.get(subQueryTarget).values().forEach(subQueryRecord -> {
+        return () -> subQueryResults.get(subQueryTarget).values().forEach(subQueryRecord -> {
             final Collection<ID> parentIds = (Collection<ID>) subQueryRecord.get(subParentKey);
             if (log.isTraceEnabled()) {
                 log.trace("    - parent IDs: {}", parentIds);
@@ -1280,6 +1466,78 @@ public class SelectStatementExecutor<ID> extends StatementExecutor<ID> {
         });
     }
 
+    /**
+     * Shut down the default worker pool of parallel subqueries. Executors passed to the builder are not shut down.
+     */
+    @Override
+    public void close() {
+        if (subQueryRunner != null) {
+            subQueryRunner.close();
+        }
+    }
+
+    /**
+     * Metrics collector skipping measurements of parallel subquery branches. Metrics of a request are collected on
+     * the caller thread, the time of parallel subqueries is measured by the caller as a whole.
+     */
+    private static class SubQueryBranchMetricsCollector implements MetricsCollector {
+
+        private final MetricsCollector delegate;
+
+        SubQueryBranchMetricsCollector(final MetricsCollector delegate) {
+            this.delegate = delegate;
+        }
+
+        private static boolean isSubQueryBranch() {
+            return SelectStatementExecutorSubQueryRunner.isSubQueryBranch();
+        }
+
+        @Override
+        public MetricsCancelToken start(final String key) {
+            return isSubQueryBranch() ? new MetricsCancelToken(key, this) : delegate.start(key);
+        }
+
+        @Override
+        public void stop(final String key) {
+            if (!isSubQueryBranch()) {
+                delegate.stop(key);
+            }
+        }
+
+        @Override
+        public void increment(final String key, final long delta) {
+            if (!isSubQueryBranch()) {
+                delegate.increment(key, delta);
+            }
+        }
+
+        @Override
+        public Map<String, AtomicLong> getMetrics() {
+            return delegate.getMetrics();
+        }
+    }
+
+    private enum RecordColumnKind {
+        ID, META, PARENT_ID, ATTRIBUTE
+    }
+
+    @Value
+    private static class RecordColumn {
+        int index;
+        String name;
+        RecordColumnKind kind;
+        List<Target> targets;
+        String metaFieldName;
+        FeatureTargetMapping featureTargetMapping;
+    }
+
+    @Value
+    private static class QueryMetaCacheKey {
+        Select select;
+        Map<String, Object> mask;
+        List<EReference> referenceChain;
+    }
+
     @Builder
     @ToString
     private static class Chunk<ID> {
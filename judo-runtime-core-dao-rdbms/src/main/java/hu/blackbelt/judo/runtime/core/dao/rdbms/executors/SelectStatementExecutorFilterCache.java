@@ -0,0 +1,254 @@
+package hu.blackbelt.judo.runtime.core.dao.rdbms.executors;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import hu.blackbelt.judo.meta.expression.LogicalExpression;
+import hu.blackbelt.judo.meta.expression.constant.StringConstant;
+import hu.blackbelt.judo.runtime.core.MetricsCollector;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Cache of translated (transfer object to entity) filter expressions of query customizers.
+ * <p>
+ * Filters are cached by transfer object type and normalized filter text. String literals are lifted out of the
+ * filter text so filters that differ in literal values only (i.e. search terms) share a single cache entry, literals
+ * are bound to a copy of the cached expression on each call. Cache hits skip JQL parsing, expression building and
+ * translation.
+ */
+@Slf4j
+public class SelectStatementExecutorFilterCache {
+
+    public static final String METRICS_FILTER_CACHE_HIT = "filter-cache-hit";
+    public static final String METRICS_FILTER_CACHE_MISS = "filter-cache-miss";
+    public static final String METRICS_FILTER_CACHE_EVICTION = "filter-cache-eviction";
+
+    private static final char PLACEHOLDER_MARK = '\uE000';
+
+    private final Cache<FilterKey, CompiledFilter> cache;
+
+    private final MetricsCollector metricsCollector;
+
+    public SelectStatementExecutorFilterCache(final int maximumSize, @NonNull final MetricsCollector metricsCollector) {
+        this.metricsCollector = metricsCollector;
+        if (maximumSize > 0) {
+            cache = CacheBuilder.newBuilder()
+                    .maximumSize(maximumSize)
+                    .removalListener((RemovalListener<FilterKey, CompiledFilter>) notification -> {
+                        if (notification.wasEvicted()) {
+                            metricsCollector.increment(METRICS_FILTER_CACHE_EVICTION, 1);
+                        }
+                    })
+                    .build();
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * Get translated filter expression of a given transfer object type.
+     *
+     * @param type                   transfer object type
+     * @param filterExpressionString filter expression (JQL)
+     * @param compiler               function that parses, builds and translates a filter expression of the type
+     * @return translated filter expression, it can be modified by caller
+     */
+    public LogicalExpression get(final EClass type,
+                                 final String filterExpressionString,
+                                 final Function<String, LogicalExpression> compiler) {
+        if (cache == null) {
+            return compiler.apply(filterExpressionString);
+        }
+
+        final NormalizedFilter normalizedFilter = normalize(filterExpressionString);
+        final FilterKey key = new FilterKey(type, normalizedFilter.getText());
+
+        CompiledFilter compiledFilter = cache.getIfPresent(key);
+        if (compiledFilter != null) {
+            metricsCollector.increment(METRICS_FILTER_CACHE_HIT, 1);
+        } else {
+            metricsCollector.increment(METRICS_FILTER_CACHE_MISS, 1);
+            compiledFilter = compile(normalizedFilter, compiler);
+            cache.put(key, compiledFilter);
+        }
+
+        if (compiledFilter.getExpression() == null) {
+            return compiler.apply(filterExpressionString);
+        }
+        return compiledFilter.bind(normalizedFilter.getLiterals());
+    }
+
+    /**
+     * Invalidate all cached filters (i.e. on model reload).
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private static CompiledFilter compile(final NormalizedFilter normalizedFilter,
+                                          final Function<String, LogicalExpression> compiler) {
+        final LogicalExpression expression;
+        try {
+            expression = compiler.apply(normalizedFilter.getText());
+        } catch (RuntimeException ex) {
+            // literal values may be significant for expression builder, filter will be compiled without caching
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to compile normalized filter: " + normalizedFilter.getText(), ex);
+            }
+            return new CompiledFilter(null);
+        }
+
+        final Set<Integer> boundLiterals = new HashSet<>();
+        forEachStringConstant(expression, (constant, index) -> boundLiterals.add(index));
+        if (boundLiterals.size() != normalizedFilter.getLiterals().size()) {
+            // some literals are not kept as string constants by expression builder, they cannot be bound later
+            if (log.isDebugEnabled()) {
+                log.debug("Filter is not cacheable: {}", normalizedFilter.getText());
+            }
+            return new CompiledFilter(null);
+        }
+        return new CompiledFilter(expression);
+    }
+
+    private static void forEachStringConstant(final EObject expression,
+                                              final BiConsumer<StringConstant, Integer> consumer) {
+        final TreeIterator<EObject> iterator = expression.eAllContents();
+        while (iterator.hasNext()) {
+            final EObject object = iterator.next();
+            if (object instanceof StringConstant) {
+                final Integer index = getPlaceholderIndex(((StringConstant) object).getValue());
+                if (index != null) {
+                    consumer.accept((StringConstant) object, index);
+                }
+            }
+        }
+    }
+
+    private static String getPlaceholder(final int index) {
+        return PLACEHOLDER_MARK + Integer.toString(index) + PLACEHOLDER_MARK;
+    }
+
+    private static Integer getPlaceholderIndex(final String value) {
+        if (value == null || value.length() < 3 ||
+                value.charAt(0) != PLACEHOLDER_MARK || value.charAt(value.length() - 1) != PLACEHOLDER_MARK) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Replace string literals of a filter expression with placeholders.
+     * <p>
+     * Literals containing escape characters are kept in filter text because their values are resolved by JQL parser.
+     *
+     * @param filterExpressionString filter expression (JQL)
+     * @return normalized filter text and lifted literals (in order of placeholder indexes)
+     */
+    static NormalizedFilter normalize(final String filterExpressionString) {
+        if (filterExpressionString.indexOf(PLACEHOLDER_MARK) >= 0) {
+            return new NormalizedFilter(filterExpressionString, Collections.emptyList());
+        }
+
+        final StringBuilder text = new StringBuilder(filterExpressionString.length());
+        final List<String> literals = new ArrayList<>();
+        final int length = filterExpressionString.length();
+
+        int i = 0;
+        while (i < length) {
+            final char c = filterExpressionString.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                boolean escaped = false;
+                int end = i + 1;
+                while (end < length && filterExpressionString.charAt(end) != c) {
+                    if (filterExpressionString.charAt(end) == '\\') {
+                        escaped = true;
+                        end++;
+                    }
+                    end++;
+                }
+                if (end >= length) {
+                    // unterminated literal, JQL parser will report it
+                    text.append(filterExpressionString, i, length);
+                    break;
+                }
+                if (c == '`' || escaped) {
+                    text.append(filterExpressionString, i, end + 1);
+                } else {
+                    text.append(c).append(getPlaceholder(literals.size())).append(c);
+                    literals.add(filterExpressionString.substring(i + 1, end));
+                }
+                i = end + 1;
+            } else {
+                text.append(c);
+                i++;
+            }
+        }
+
+        return new NormalizedFilter(text.toString(), Collections.unmodifiableList(literals));
+    }
+
+    @Value
+    static class NormalizedFilter {
+        String text;
+        List<String> literals;
+    }
+
+    @Value
+    private static class FilterKey {
+        EClass type;
+        String text;
+    }
+
+    private static class CompiledFilter {
+
+        @Getter
+        private final LogicalExpression expression;
+
+        CompiledFilter(final LogicalExpression expression) {
+            this.expression = expression;
+        }
+
+        LogicalExpression bind(final List<String> literals) {
+            final LogicalExpression copy = EcoreUtil.copy(expression);
+            forEachStringConstant(copy, (constant, index) -> constant.setValue(literals.get(index)));
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package hu.blackbelt.judo.runtime.core.dao.rdbms.executors;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import hu.blackbelt.judo.dao.api.DAO;
+import hu.blackbelt.judo.meta.query.OrderBy;
+import hu.blackbelt.judo.meta.query.Select;
+import hu.blackbelt.judo.meta.query.SubSelect;
+import hu.blackbelt.judo.meta.query.Variable;
+import hu.blackbelt.judo.runtime.core.MetricsCancelToken;
+import hu.blackbelt.judo.runtime.core.MetricsCollector;
+import hu.blackbelt.judo.runtime.core.dao.rdbms.query.model.RdbmsQueryOverlay;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of SQL statements generated for logical queries.
+ * <p>
+ * Statements are cached by query shape (logical query, order by items, paging, mask and flags of result set). Named
+ * parameters created by SQL generation (i.e. constants that have no literal representation) are cached with the
+ * statement and bound again on each call, only instance and parent ID lists are bound by caller.
+ * <p>
+ * Only statements of logical queries prepared by query factory are cached, queries that are modified by request
+ * (filtered by query customizer), that are using variables or query parameters (resolved on each request) or that are
+ * continued after a given item (seek) are generated on each call. A statement is not cached if a variable is found in
+ * the logical query or if SQL generation reports (by {@link SqlGeneration#markNotCacheable()}) that a variable is
+ * mapped to a named parameter.
+ */
+@Slf4j
+public class SelectStatementExecutorSqlCache {
+
+    public static final String METRICS_SQL_CACHE_HIT = "sql-cache-hit";
+    public static final String METRICS_SQL_CACHE_MISS = "sql-cache-miss";
+    public static final String METRICS_SQL_CACHE_EVICTION = "sql-cache-eviction";
+    public static final String METRICS_SQL_GENERATION = "sql-generation";
+
+    private final Cache<SqlKey, PreparedSql> cache;
+
+    private final MetricsCollector metricsCollector;
+
+    public SelectStatementExecutorSqlCache(final int maximumSize, @NonNull final MetricsCollector metricsCollector) {
+        this.metricsCollector = metricsCollector;
+        if (maximumSize > 0) {
+            cache = CacheBuilder.newBuilder()
+                    .maximumSize(maximumSize)
+                    .removalListener((RemovalListener<SqlKey, PreparedSql>) notification -> {
+                        if (notification.wasEvicted()) {
+                            metricsCollector.increment(METRICS_SQL_CACHE_EVICTION, 1);
+                        }
+                    })
+                    .build();
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * Get SQL statement of a given query shape.
+     *
+     * @param shape     query shape
+     * @param generator function that generates SQL statement of query, generated named parameters are added to the
+     *                  parameter source of generation
+     * @return SQL statement and generated named parameters
+     */
+    public PreparedSql get(final QueryShape shape, final Function<SqlGeneration, String> generator) {
+        if (cache == null || !shape.isCacheable()) {
+            return generate(generator).getPreparedSql();
+        }
+
+        final SqlKey key = shape.toKey();
+        PreparedSql preparedSql = cache.getIfPresent(key);
+        if (preparedSql != null) {
+            metricsCollector.increment(METRICS_SQL_CACHE_HIT, 1);
+        } else {
+            metricsCollector.increment(METRICS_SQL_CACHE_MISS, 1);
+            if (containsVariable(shape.getQuery())) {
+                // values of variables are resolved on each request, statement is not cacheable
+                cache.put(key, PreparedSql.NOT_CACHEABLE);
+            } else {
+                final SqlGeneration generation = generate(generator);
+                cache.put(key, generation.isCacheable() ? generation.getPreparedSql() : PreparedSql.NOT_CACHEABLE);
+                return generation.getPreparedSql();
+            }
+        }
+
+        if (preparedSql == null || preparedSql == PreparedSql.NOT_CACHEABLE) {
+            return generate(generator).getPreparedSql();
+        }
+        return preparedSql;
+    }
+
+    /**
+     * Invalidate all cached statements (i.e. on model reload).
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private SqlGeneration generate(final Function<SqlGeneration, String> generator) {
+        try (MetricsCancelToken ignored = metricsCollector.start(METRICS_SQL_GENERATION)) {
+            final SqlGeneration generation = new SqlGeneration();
+            final MapSqlParameterSource generatedParameters = generation.getSqlParameters();
+            final String sql = generator.apply(generation);
+            generation.preparedSql = new PreparedSql(sql, Arrays.stream(generatedParameters.getParameterNames())
+                    .map(name -> new GeneratedParameter(name,
+                            generatedParameters.getValue(name),
+                            generatedParameters.getSqlType(name),
+                            generatedParameters.getTypeName(name)))
+                    .collect(Collectors.toList()));
+            return generation;
+        }
+    }
+
+    static boolean containsVariable(final SubSelect query) {
+        final EObject root = EcoreUtil.getRootContainer(query.getSelect());
+        if (root instanceof Variable) {
+            return true;
+        }
+        final TreeIterator<EObject> iterator = root.eAllContents();
+        while (iterator.hasNext()) {
+            if (iterator.next() instanceof Variable) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Shape of a logical query that determines the generated SQL statement.
+     */
+    @Builder
+    @Getter
+    public static class QueryShape {
+
+        @NonNull
+        private final SubSelect query;
+
+        private final RdbmsQueryOverlay overlay;
+
+        private final DAO.Seek seek;
+
+        private final Map<String, Object> mask;
+
+        private final boolean count;
+
+        private final boolean filterByInstances;
+
+        private final boolean filterByParents;
+
+        private final boolean withoutFeatures;
+
+        private final boolean skipParents;
+
+        boolean isCacheable() {
+            // logical queries prepared by query factory are contained by resource (copies and wrappers are not)
+            return query.getSelect().eResource() != null &&
+                    (query.eResource() != null || query.eContainer() == null) &&
+                    (seek == null || seek.getLastItem() == null);
+        }
+
+        SqlKey toKey() {
+            final List<OrderBy> orderBys = overlay != null ? overlay.getOrderBys() : null;
+            return new SqlKey(
+                    query.eResource() != null ? query : null,
+                    query.getSelect(),
+                    orderBys != null
+                            ? orderBys.stream()
+                                    .map(o -> Arrays.<Object>asList(o.getFeature(), o.isDescending()))
+                                    .collect(Collectors.toList())
+                            : null,
+                    overlay != null ? overlay.getLimit() : null,
+                    overlay != null ? overlay.getOffset() : null,
+                    overlay != null && overlay.isLimitPerParent(),
+                    seek != null ? seek.isReverse() : null,
+                    mask != null ? new HashMap<>(mask) : null,
+                    count,
+                    filterByInstances,
+                    filterByParents,
+                    withoutFeatures,
+                    skipParents);
+        }
+    }
+
+    /**
+     * State of a single SQL generation.
+     */
+    public static class SqlGeneration {
+
+        @Getter
+        private final MapSqlParameterSource sqlParameters = new MapSqlParameterSource();
+
+        @Getter
+        private boolean cacheable = true;
+
+        @Getter
+        private PreparedSql preparedSql;
+
+        /**
+         * Mark generated statement as not cacheable, i.e. values of named parameters are resolved on each request.
+         */
+        public void markNotCacheable() {
+            cacheable = false;
+        }
+    }
+
+    /**
+     * SQL statement and named parameters created by SQL generation.
+     */
+    @Value
+    public static class PreparedSql {
+
+        private static final PreparedSql NOT_CACHEABLE = new PreparedSql(null, Collections.emptyList());
+
+        String sql;
+
+        List<GeneratedParameter> parameters;
+
+        /**
+         * Add generated named parameters to parameter source of a statement.
+         *
+         * @param sqlParameters parameter source
+         */
+        public void bind(final MapSqlParameterSource sqlParameters) {
+            parameters.forEach(p -> sqlParameters.addValue(p.getName(), p.getValue(), p.getSqlType(), p.getTypeName()));
+        }
+    }
+
+    @Value
+    private static class GeneratedParameter {
+        String name;
+        Object value;
+        int sqlType;
+        String typeName;
+    }
+
+    @Value
+    private static class SqlKey {
+        SubSelect query;
+        Select select;
+        List<List<Object>> orderBys;
+        Integer limit;
+        Integer offset;
+        boolean limitPerParent;
+        Boolean reverse;
+        Map<String, Object> mask;
+        boolean count;
+        boolean filterByInstances;
+        boolean filterByParents;
+        boolean withoutFeatures;
+        boolean skipParents;
+    }
+}
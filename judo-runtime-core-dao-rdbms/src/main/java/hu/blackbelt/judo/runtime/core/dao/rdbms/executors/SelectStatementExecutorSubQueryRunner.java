@@ -0,0 +1,241 @@
+package hu.blackbelt.judo.runtime.core.dao.rdbms.executors;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runner of independent embedded subqueries on a bounded worker pool.
+ * <p>
+ * Each branch is running on its own read-only connection, so branches can be executed parallel if the caller is not
+ * bound to a connection (non-transactional DAO calls) or the caller is bound to a read-only transaction with
+ * (at most) read committed isolation, i.e. caller has no pending changes that should be seen by subqueries and
+ * statements of the transaction are not expected to see the same snapshot. Isolation level of transactions using the
+ * database default is read from the bound connection. Read-write transactions (including exposed operations of the
+ * dispatcher) are running subqueries on the caller thread.
+ * <p>
+ * Number of connections taken by branches of all callers is limited, so it should be less than the size of the
+ * connection pool to leave connections for callers (a transactional caller keeps its connection while waiting for
+ * branches). Branches that are not getting a connection permit are executed on the caller thread.
+ * <p>
+ * Branches are only fetching records, results are merged on the caller thread in order of subqueries so result is
+ * independent of completion order.
+ */
+@Slf4j
+public class SelectStatementExecutorSubQueryRunner implements AutoCloseable {
+
+    private static final ThreadLocal<Boolean> SUB_QUERY_BRANCH = ThreadLocal.withInitial(() -> false);
+
+    private final ExecutorService executor;
+    private final boolean executorOwned;
+    private final Semaphore branchConnections;
+    private final Runnable branchInitializer;
+    private final Runnable branchFinalizer;
+
+    /**
+     * Create subquery runner.
+     *
+     * @param executor          executor running branches, a fixed thread pool of the given parallelism is created
+     *                          (and shut down by {@link #close()}) if it is <code>null</code>
+     * @param parallelism       number of threads of the default executor
+     * @param maxConnections    maximum number of connections used by branches at the same time (of all callers)
+     * @param branchInitializer initializer of thread context of branches (called on worker thread)
+     * @param branchFinalizer   finalizer of thread context of branches (called on worker thread)
+     */
+    public SelectStatementExecutorSubQueryRunner(final ExecutorService executor,
+                                                 final int parallelism,
+                                                 final int maxConnections,
+                                                 @NonNull final Runnable branchInitializer,
+                                                 @NonNull final Runnable branchFinalizer) {
+        if (executor != null) {
+            this.executor = executor;
+            this.executorOwned = false;
+        } else {
+            this.executor = Executors.newFixedThreadPool(parallelism,
+                    new ThreadFactoryBuilder().setNameFormat("judo-subquery-%d").setDaemon(true).build());
+            this.executorOwned = true;
+        }
+        this.branchConnections = new Semaphore(maxConnections);
+        this.branchInitializer = branchInitializer;
+        this.branchFinalizer = branchFinalizer;
+    }
+
+    /**
+     * Check if the current thread is running a subquery branch.
+     *
+     * @return <code>true</code> if thread is a subquery branch
+     */
+    public static boolean isSubQueryBranch() {
+        return SUB_QUERY_BRANCH.get();
+    }
+
+    /**
+     * Check if subqueries of the current thread can be executed parallel.
+     *
+     * @param dataSource data source of subqueries
+     * @return <code>true</code> if subqueries can be executed parallel
+     */
+    public boolean isParallelExecutionAllowed(final DataSource dataSource) {
+        if (dataSource == null || isSubQueryBranch() || executor.isShutdown()) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                return false;
+            }
+            final Integer isolationLevel = getTransactionIsolationLevel(dataSource);
+            return isolationLevel != null &&
+                    (isolationLevel == Connection.TRANSACTION_READ_COMMITTED || isolationLevel == Connection.TRANSACTION_READ_UNCOMMITTED);
+        }
+        return !TransactionSynchronizationManager.hasResource(dataSource);
+    }
+
+    private static Integer getTransactionIsolationLevel(final DataSource dataSource) {
+        final Integer isolationLevel = TransactionSynchronizationManager.getCurrentTransactionIsolationLevel();
+        if (isolationLevel != null) {
+            return isolationLevel;
+        }
+        // transaction is using the default isolation level of database
+        final Object resource = TransactionSynchronizationManager.getResource(dataSource);
+        if (!(resource instanceof ConnectionHolder) || ((ConnectionHolder) resource).getConnectionHandle() == null) {
+            return null;
+        }
+        try {
+            return ((ConnectionHolder) resource).getConnection().getTransactionIsolation();
+        } catch (SQLException ex) {
+            log.warn("Unable to get isolation level of transaction", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Run subqueries parallel. Subqueries are returning merge tasks that are executed on the caller thread. Subqueries
+     * that are not getting a branch connection are executed on the caller thread (after submitting the others).
+     *
+     * @param dataSource data source of subqueries
+     * @param subQueries subqueries
+     */
+    public void run(@NonNull final DataSource dataSource, @NonNull final List<Callable<List<Runnable>>> subQueries) {
+        final List<Future<List<Runnable>>> futures = new ArrayList<>();
+        final List<FutureTask<List<Runnable>>> callerTasks = new ArrayList<>();
+        for (Callable<List<Runnable>> subQuery : subQueries) {
+            final Future<List<Runnable>> future = submitBranch(dataSource, subQuery);
+            if (future != null) {
+                futures.add(future);
+            } else {
+                final FutureTask<List<Runnable>> callerTask = new FutureTask<>(subQuery);
+                callerTasks.add(callerTask);
+                futures.add(callerTask);
+            }
+        }
+        callerTasks.forEach(FutureTask::run);
+
+        final List<Runnable> merges = new ArrayList<>();
+        RuntimeException failure = null;
+        for (Future<List<Runnable>> future : futures) {
+            try {
+                merges.addAll(future.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("Subquery execution interrupted", ex);
+            } catch (ExecutionException ex) {
+                if (failure == null) {
+                    failure = ex.getCause() instanceof RuntimeException
+                            ? (RuntimeException) ex.getCause()
+                            : new IllegalStateException("Subquery execution failed", ex.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        merges.forEach(Runnable::run);
+    }
+
+    private Future<List<Runnable>> submitBranch(final DataSource dataSource, final Callable<List<Runnable>> subQuery) {
+        if (!branchConnections.tryAcquire()) {
+            return null;
+        }
+        try {
+            return executor.submit(() -> {
+                try {
+                    return runBranch(dataSource, subQuery);
+                } finally {
+                    branchConnections.release();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            branchConnections.release();
+            return null;
+        }
+    }
+
+    private List<Runnable> runBranch(final DataSource dataSource, final Callable<List<Runnable>> subQuery) throws Exception {
+        final Connection connection = DataSourceUtils.getConnection(dataSource);
+        final boolean readOnly = connection.isReadOnly();
+        try {
+            connection.setReadOnly(true);
+            TransactionSynchronizationManager.bindResource(dataSource, new ConnectionHolder(connection));
+            try {
+                SUB_QUERY_BRANCH.set(true);
+                branchInitializer.run();
+                try {
+                    return subQuery.call();
+                } finally {
+                    branchFinalizer.run();
+                    SUB_QUERY_BRANCH.remove();
+                }
+            } finally {
+                TransactionSynchronizationManager.unbindResource(dataSource);
+            }
+        } finally {
+            try {
+                connection.setReadOnly(readOnly);
+            } catch (SQLException ex) {
+                log.warn("Unable to reset read-only flag of connection", ex);
+            }
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Shut down the default executor. Executors passed to the runner are managed by their owners.
+     */
+    @Override
+    public void close() {
+        if (executorOwned) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package hu.blackbelt.judo.runtime.core.dao.rdbms.executors;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Executing JDBC batches of update statements and checking row counts of updated records.
+ * <p>
+ * Some drivers are not reporting row counts of batch items ({@link Statement#SUCCESS_NO_INFO}). It is accepted for
+ * plain updates, but stale versions of optimistic lock updates can be detected by row counts only. Optimistic lock
+ * updates are sent in batch if driver is known to report row counts (learnt from previous batches), otherwise records
+ * are updated one by one.
+ */
+@Slf4j(topic = "dao-rdbms")
+class UpdateStatementBatchExecutor {
+
+    private volatile Boolean rowCountsReported;
+
+    void execute(NamedParameterJdbcTemplate jdbcTemplate, String sql, List<MapSqlParameterSource> parameters, boolean optimisticLock) {
+        if (parameters.size() == 1 || optimisticLock && !Boolean.TRUE.equals(rowCountsReported)) {
+            if (parameters.size() > 1 && log.isDebugEnabled()) {
+                log.debug("Update records one by one (row counts of batch items are not reported): " + parameters.size() + " records SQL: " + sql);
+            }
+            parameters.forEach(p -> {
+                int count = jdbcTemplate.update(sql, p);
+                checkState(count == 1, "There is illegal state, no records updated");
+            });
+            return;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Update batch: " + parameters.size() + " records SQL: " + sql);
+        }
+        int[] counts = jdbcTemplate.batchUpdate(sql, parameters.toArray(new MapSqlParameterSource[0]));
+        checkState(counts.length == parameters.size(), "There is illegal state, no records updated");
+        boolean reported = Arrays.stream(counts).noneMatch(count -> count == Statement.SUCCESS_NO_INFO);
+        rowCountsReported = reported;
+        if (optimisticLock) {
+            checkState(reported, "There is illegal state, row counts of optimistic lock updates are not reported");
+            checkState(Arrays.stream(counts).allMatch(count -> count == 1), "There is illegal state, no records updated");
+        } else {
+            checkState(Arrays.stream(counts).allMatch(count -> count == 1 || count == Statement.SUCCESS_NO_INFO),
+                    "There is illegal state, no records updated");
+        }
+    }
+}
@@ -20,6 +20,8 @@ package hu.blackbelt.judo.runtime.core.dao.rdbms.executors;
  * #L%
  */
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import hu.blackbelt.judo.dao.api.IdentifierProvider;
@@ -31,7 +33,10 @@ import hu.blackbelt.judo.runtime.core.dao.rdbms.RdbmsResolver;
 import hu.blackbelt.judo.tatami.core.TransformationTraceService;
 import hu.blackbelt.mapper.api.Coercer;
 import lombok.Builder;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
@@ -41,10 +46,11 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import java.sql.Types;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static com.google.common.base.Preconditions.checkState;
 import static hu.blackbelt.judo.meta.asm.runtime.AsmUtils.getClassifierFQName;
 import static hu.blackbelt.judo.meta.asm.runtime.AsmUtils.isEntityType;
 import static org.jooq.lambda.Unchecked.consumer;
@@ -56,6 +62,14 @@ import static org.jooq.lambda.Unchecked.consumer;
 @Slf4j(topic = "dao-rdbms")
 class UpdateStatementExecutor<ID> extends StatementExecutor<ID> {
 
+    private static final int SQL_CACHE_SIZE = 1000;
+
+    private final Cache<UpdateShape, String> sqlCache = CacheBuilder.newBuilder()
+            .maximumSize(SQL_CACHE_SIZE)
+            .build();
+
+    private final UpdateStatementBatchExecutor batchExecutor = new UpdateStatementBatchExecutor();
+
     @Builder
     public UpdateStatementExecutor(
             @NonNull AsmModel asmModel,
@@ -75,12 +89,18 @@ class UpdateStatementExecutor<ID> extends StatementExecutor<ID> {
      * It makes it in two phase, the first inserts the record with the attributes and mandatory references, in
      * second phase adds optional dependencies.
      *
+     * Updates are sent in JDBC batches grouped by shape (table, updated columns and optimistic lock). Updates of the
+     * same record are assigned to subsequent stages so they are executed in original order.
+     *
      * @param jdbcTemplate
      * @param updateStatements
      */
     public void executeUpdateStatements(NamedParameterJdbcTemplate jdbcTemplate,
                                         Collection<UpdateStatement<ID>> updateStatements) {
 
+        Map<List<Object>, Integer> recordStages = new HashMap<>();
+        SortedMap<Integer, Map<UpdateShape, UpdateBatch>> stages = new TreeMap<>();
+
         updateStatements.forEach(consumer(updateStatement -> {
 
                     EClass entity = updateStatement.getInstance().getType();
@@ -142,10 +162,11 @@ class UpdateStatementExecutor<ID> extends StatementExecutor<ID> {
                                     }
 
                                     String tableName = getRdbmsResolver().rdbmsTable(entityForCurrentStatement).getSqlName();
-                                    String sql = "UPDATE  " + tableName + " SET " + ENTITY_VERSION_COLUMN_NAME + " = " + ENTITY_VERSION_COLUMN_NAME + " + 1" +
+                                    UpdateShape shape = new UpdateShape(tableName, true, fields, version != null);
+                                    String sql = getSql(shape, () -> "UPDATE  " + tableName + " SET " + ENTITY_VERSION_COLUMN_NAME + " = " + ENTITY_VERSION_COLUMN_NAME + " + 1" +
                                             (!fields.isEmpty() ? fields.entrySet().stream().map(e -> ", " + e.getValue() + " = :" + e.getKey()).collect(Collectors.joining()) : "") +
                                             " WHERE " + ID_COLUMN_NAME + " = :" + getIdentifierProvider().getName() +
-                                            (version != null ? " AND " + ENTITY_VERSION_COLUMN_NAME + " = :" + ENTITY_VERSION_MAP_KEY : "");
+                                            (version != null ? " AND " + ENTITY_VERSION_COLUMN_NAME + " = :" + ENTITY_VERSION_MAP_KEY : ""));
 
                                     if (log.isDebugEnabled()) {
                                         log.debug("Update: " + getClassifierFQName(entityForCurrentStatement) + " " + tableName +
@@ -154,8 +175,7 @@ class UpdateStatementExecutor<ID> extends StatementExecutor<ID> {
                                                 " Params: " + metaUpdateStatementNamedParameters.getValues());
                                     }
 
-                                    int count = jdbcTemplate.update(sql, metaUpdateStatementNamedParameters);
-                                    checkState(count == 1, "There is illegal state, no records updated");
+                                    addToBatch(recordStages, stages, shape, sql, identifier, metaUpdateStatementNamedParameters);
                                 }
 
                                 if (attributeMapforCurrentStatement.size() > 0) {
@@ -170,12 +190,15 @@ class UpdateStatementExecutor<ID> extends StatementExecutor<ID> {
                                             attributeMapforCurrentStatement.entrySet().stream()
                                                     .collect(Collectors.toMap(
                                                             e -> e.getKey().getName(),
-                                                            e -> getRdbmsResolver().rdbmsField(e.getKey()).getSqlName()
+                                                            e -> getRdbmsResolver().rdbmsField(e.getKey()).getSqlName(),
+                                                            (v1, v2) -> v1,
+                                                            TreeMap::new
                                                     ));
 
-                                    String sql = "UPDATE  " + tableName + " SET " +
+                                    UpdateShape shape = new UpdateShape(tableName, false, fields, false);
+                                    String sql = getSql(shape, () -> "UPDATE  " + tableName + " SET " +
                                             fields.entrySet().stream().map(e -> e.getValue() + " = :" + e.getKey()).collect(Collectors.joining(", ")) +
-                                            " WHERE " + ID_COLUMN_NAME + " = :" + getIdentifierProvider().getName();
+                                            " WHERE " + ID_COLUMN_NAME + " = :" + getIdentifierProvider().getName());
                                     Map<String, Object> paramNullReplaced = updateStatementNamedParameters.getValues().entrySet()
                                                     .stream()
                                                     .collect(
@@ -193,10 +216,47 @@ class UpdateStatementExecutor<ID> extends StatementExecutor<ID> {
                                                 " Params: " + ImmutableMap.copyOf(paramNullReplaced).toString());
                                     }
 
-                                    int count = jdbcTemplate.update(sql, updateStatementNamedParameters);
-                                    checkState(count == 1, "There is illegal state, no records updated");
+                                    addToBatch(recordStages, stages, shape, sql, identifier, updateStatementNamedParameters);
                                 }
                             });
                 }));
+
+        stages.values().forEach(batches -> batches.forEach((shape, batch) ->
+                batchExecutor.execute(jdbcTemplate, batch.getSql(), batch.getParameters(), shape.isOptimisticLock())));
+    }
+
+    private String getSql(UpdateShape shape, Callable<String> sqlBuilder) {
+        try {
+            return sqlCache.get(shape, sqlBuilder);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Unable to build update statement", ex.getCause());
+        }
+    }
+
+    private void addToBatch(Map<List<Object>, Integer> recordStages,
+                            SortedMap<Integer, Map<UpdateShape, UpdateBatch>> stages,
+                            UpdateShape shape,
+                            String sql,
+                            ID identifier,
+                            MapSqlParameterSource parameters) {
+        int stage = recordStages.merge(Arrays.asList(shape.getTableName(), identifier), 0, (previous, ignored) -> previous + 1);
+        stages.computeIfAbsent(stage, s -> new LinkedHashMap<>())
+                .computeIfAbsent(shape, k -> new UpdateBatch(sql))
+                .getParameters().add(parameters);
+    }
+
+    @Value
+    private static class UpdateShape {
+        String tableName;
+        boolean meta;
+        Map<String, String> fields;
+        boolean optimisticLock;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class UpdateBatch {
+        private final String sql;
+        private final List<MapSqlParameterSource> parameters = new ArrayList<>();
     }
 }
@@ -45,5 +45,7 @@ public class RdbmsBuilderContext {
     private Map<Node, List<EClass>> descendants = new HashMap<>();
     private SubSelect parentIdFilterQuery;
     private Map<String, Object> queryParameters;
+    // called when a variable is mapped to a named parameter, i.e. SQL statement depends on the variable value
+    private Runnable variableListener;
 
 }
@@ -43,6 +43,9 @@ public class VariableMapper<ID> extends RdbmsMapper<Variable> {
     @Override
     public Stream<? extends RdbmsField> map(final Variable variable, RdbmsBuilderContext builderContext) {
         final RdbmsBuilder<?> rdbmsBuilder = builderContext.getRdbmsBuilder();
+        if (builderContext.getVariableListener() != null) {
+            builderContext.getVariableListener().run();
+        }
 
         final String id = EcoreUtil.getIdentification(variable);
         if (id != null) {
@@ -43,4 +43,14 @@ public class RdbmsOrderBy {
                         .build())) +
                 (descending ? " DESC" : " ASC") + " NULLS " + (descending ? "FIRST" : "LAST");
     }
+
+    /**
+     * Convert order by item to SQL format of window functions (column expression is used instead of output alias).
+     */
+    public String toWindowSql(SqlConverterContext converterContext) {
+        return rdbmsField.toSql(converterContext.toBuilder()
+                        .includeAlias(false)
+                        .build()) +
+                (descending ? " DESC" : " ASC") + " NULLS " + (descending ? "FIRST" : "LAST");
+    }
 }
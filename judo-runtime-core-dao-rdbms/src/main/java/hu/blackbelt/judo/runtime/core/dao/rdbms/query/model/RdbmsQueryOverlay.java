@@ -0,0 +1,51 @@
+package hu.blackbelt.judo.runtime.core.dao.rdbms.query.model;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.query.OrderBy;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Query customizer parts (order by, limit and offset) and execution options that are applied to a logical query when
+ * building SQL statement instead of modifying the logical query model. Logical queries prepared by query factory are
+ * shared templates so they must not be modified by requests.
+ */
+@Getter
+@Builder
+public class RdbmsQueryOverlay {
+
+    /**
+     * Order by items replacing order by items of the logical query (<code>null</code> if ordering is not overridden).
+     */
+    private final List<OrderBy> orderBys;
+
+    private final Integer limit;
+
+    private final Integer offset;
+
+    /**
+     * Apply limit and offset to records of each parent instead of the whole result set (using window function).
+     */
+    private final boolean limitPerParent;
+}
@@ -31,6 +31,7 @@ import hu.blackbelt.judo.runtime.core.dao.rdbms.query.processor.JoinProcessParam
 import hu.blackbelt.judo.runtime.core.dao.rdbms.query.RdbmsBuilder;
 import hu.blackbelt.judo.runtime.core.dao.rdbms.query.model.join.*;
 import hu.blackbelt.judo.runtime.core.dao.rdbms.query.utils.RdbmsAliasUtil;
+import hu.blackbelt.judo.runtime.core.dao.rdbms.query.utils.RdbmsLimitPerParentUtil;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.emf.common.util.*;
@@ -42,6 +43,7 @@ import java.util.*;
 import java.util.stream.*;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static hu.blackbelt.judo.runtime.core.dao.rdbms.query.utils.RdbmsAliasUtil.AGGREGATE_PREFIX;
 import static hu.blackbelt.judo.runtime.core.dao.rdbms.query.utils.RdbmsAliasUtil.getParentIdColumnAlias;
 
@@ -64,6 +66,13 @@ public class RdbmsResultSet<ID> extends RdbmsField {
 
     private final Map<OrderBy, RdbmsField> orderByFeatures = new LinkedHashMap<>();
 
+    private final List<OrderBy> selectOrderBys;
+    private final List<OrderBy> queryOrderBys;
+    private final Integer limit;
+    private final Integer offset;
+    private final boolean limitPerParent;
+    private RdbmsColumn parentIdColumn;
+
     private final boolean group;
     private final boolean skipParents;
 
@@ -77,6 +86,7 @@ public class RdbmsResultSet<ID> extends RdbmsField {
     @Builder
     private RdbmsResultSet(
             @NonNull final SubSelect query,
+            final RdbmsQueryOverlay overlay,
             final RdbmsBuilderContext builderContext,
             final boolean filterByInstances,
             final DAO.Seek seek,
@@ -87,6 +97,16 @@ public class RdbmsResultSet<ID> extends RdbmsField {
         this.query = query;
         this.skipParents = skipParents;
         this.count = count;
+        if (overlay != null && overlay.getOrderBys() != null) {
+            selectOrderBys = overlay.getOrderBys();
+            queryOrderBys = Collections.emptyList();
+        } else {
+            selectOrderBys = query.getSelect().getOrderBys();
+            queryOrderBys = query.getOrderBys();
+        }
+        limit = overlay != null && overlay.getLimit() != null ? overlay.getLimit() : query.getLimit();
+        offset = overlay != null && overlay.getOffset() != null ? overlay.getOffset() : query.getOffset();
+        limitPerParent = overlay != null && overlay.isLimitPerParent();
         this.rdbmsBuilder = (RdbmsBuilder<ID>) builderContext.getRdbmsBuilder();
 
         if (log.isTraceEnabled()) {
@@ -129,7 +149,7 @@ public class RdbmsResultSet<ID> extends RdbmsField {
             addOrderByFeatures(resultSetBuilderContext, withoutFeatures);
         }
 
-        for (OrderBy orderBy : query.getSelect().getOrderBys()) {
+        for (OrderBy orderBy : selectOrderBys) {
             final List<RdbmsField> orderByFields = getOrderByFields(resultSetBuilderContext, orderBy);
             if (!orderByFields.isEmpty()) {
                 orderByFeatures.put(orderBy, orderByFields.get(0));
@@ -139,11 +159,11 @@ public class RdbmsResultSet<ID> extends RdbmsField {
 
         addFilterJoins(resultSetBuilderContext);
 
-        if (query.getLimit() != null && seek != null && seek.getLastItem() != null && baseTableName != null) {
+        if (limit != null && seek != null && seek.getLastItem() != null && baseTableName != null) {
             addSeekBaseTableOrderByConditions(seek);
         }
 
-        if (query.getLimit() != null && seek != null && seek.getLastItem() != null) {
+        if (limit != null && seek != null && seek.getLastItem() != null) {
             addSeekOrderByConditions(seek);
         }
 
@@ -251,12 +271,13 @@ public class RdbmsResultSet<ID> extends RdbmsField {
                 (group || !query.getSelect().isAggregated()) &&
                 !skipParents && !query.getSelect().isSingleColumnedSelect()) {
             // add parent ID to result set that will be used to move result records under their container records
-            columns.add(RdbmsColumn.builder()
+            parentIdColumn = RdbmsColumn.builder()
                     .partnerTablePrefix(AGGREGATE_PREFIX)
                     .partnerTable(query)
                     .columnName(getParentIdColumnAlias(query.getContainer()))
                     .alias(getParentIdColumnAlias(query.getContainer()))
-                    .build());
+                    .build();
+            columns.add(parentIdColumn);
         }
 
         final RdbmsNavigationJoin<ID> navigationJoin =
@@ -327,7 +348,7 @@ public class RdbmsResultSet<ID> extends RdbmsField {
     }
 
     private void addOrderByFeatures(RdbmsBuilderContext resultSetBuilderContext, final boolean withoutFeatures) {
-        for (OrderBy orderBy : query.getOrderBys()) {
+        for (OrderBy orderBy : queryOrderBys) {
             joins.add(RdbmsTableJoin.builder()
                     .tableName(rdbmsBuilder.getTableName(orderBy.getType()))
                     .columnName(StatementExecutor.ID_COLUMN_NAME)
@@ -608,7 +629,34 @@ public class RdbmsResultSet<ID> extends RdbmsField {
                 multiplePaths = true;
             }
         }
-        final boolean addDistinct = query.getLimit() != null && multiplePaths && skipParents;
+        final boolean addDistinct = limit != null && multiplePaths && skipParents;
+
+        if (limitPerParent && limit != null && limit > 0) {
+            checkState(parentIdColumn != null && !group && !count && !query.getSelect().isAggregated(),
+                    "Limit per parent is not supported by query: " + query.getAlias());
+
+            final List<String> columnAliases = columns.stream()
+                    .map(RdbmsField::getRdbmsAlias)
+                    .collect(Collectors.toList());
+            checkState(columnAliases.stream().allMatch(Objects::nonNull),
+                    "Limit per parent is not supported by query with unaliased columns: " + query.getAlias());
+
+            // output aliases of SELECT clause are not valid in window clause, column expressions are used
+            return RdbmsLimitPerParentUtil.toSql(
+                    getSelect(addDistinct, resultContext),
+                    getBaseTableName(prefix, rdbmsBuilder.getDialect().getDualTable()) +
+                            getJoin(resultContext) +
+                            getWhere(allConditions),
+                    parentIdColumn.toSql(resultContext.toBuilder().includeAlias(false).build()),
+                    orderBys.stream()
+                            .map(o -> o.toWindowSql(resultContext))
+                            .collect(Collectors.toList()),
+                    columnAliases,
+                    parentIdColumn.getRdbmsAlias(),
+                    prefix,
+                    offset != null && offset > 0 ? offset : 0,
+                    limit);
+        }
 
         final String sql = getSelect(addDistinct, resultContext) +
                 getBaseTableName(prefix, rdbmsBuilder.getDialect().getDualTable()) +
@@ -694,9 +742,9 @@ public class RdbmsResultSet<ID> extends RdbmsField {
                                 AsmUtils.annotatedAsTrue(tm.getTargetAttribute(), "parameterized")) ||
                 f.getTargetMappings().stream()
                         .anyMatch(tm -> tm.getTarget() == null ||
-                        query.getSelect().getOrderBys().stream()
+                        selectOrderBys.stream()
                                 .anyMatch(o -> Objects.equals(o.getFeature(), f)) ||
-                                query.getOrderBys().stream().anyMatch(o -> Objects.equals(o.getFeature(), f)) ||
+                                queryOrderBys.stream().anyMatch(o -> Objects.equals(o.getFeature(), f)) ||
                                 targetMask.containsKey(tm.getTarget()) &&
                                         (tm.getTargetAttribute() == null ||
                                                 targetMask.get(tm.getTarget()).contains(tm.getTargetAttribute().getName()))
@@ -735,15 +783,15 @@ public class RdbmsResultSet<ID> extends RdbmsField {
     }
 
     private String getLimit() {
-        if (query.getLimit() != null && query.getLimit() > 0) {
-            return "\nLIMIT " + query.getLimit();
+        if (limit != null && limit > 0) {
+            return "\nLIMIT " + limit;
         }
         return "";
     }
 
     private String getOffset() {
-        if (query.getLimit() != null && query.getLimit() > 0 && query.getOffset() != null && query.getOffset() > 0) {
-            return "\nOFFSET " + query.getOffset();
+        if (limit != null && limit > 0 && offset != null && offset > 0) {
+            return "\nOFFSET " + offset;
         }
         return "";
     }
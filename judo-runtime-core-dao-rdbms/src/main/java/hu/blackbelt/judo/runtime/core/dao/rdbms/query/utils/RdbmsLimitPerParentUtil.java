@@ -0,0 +1,74 @@
+package hu.blackbelt.judo.runtime.core.dao.rdbms.query.utils;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * SQL statement selecting limited number of records per parent by window function.
+ * <p>
+ * Records of parents are numbered by <code>ROW_NUMBER()</code> window function, limit and offset are applied on record
+ * numbers by wrapping statement. Columns of wrapping statement are listed explicitly, so record number is not returned.
+ * Aliases of wrapped query and record number are prefixed by the prefix of (sub)select, so they are unique in nested
+ * statements.
+ */
+public class RdbmsLimitPerParentUtil {
+
+    public static final String WRAPPER_ALIAS = "__limit_per_parent";
+    public static final String ROW_NUMBER_ALIAS = "__row_number";
+
+    /**
+     * Get SQL statement.
+     *
+     * @param selectClause   SELECT clause of query (including aliased columns)
+     * @param fromClause     FROM, JOIN and WHERE clauses of query
+     * @param partitionBy    parent ID column expression (without alias)
+     * @param orderBys       ORDER BY items (column expressions without alias, including direction)
+     * @param columnAliases  aliases of columns in SELECT clause
+     * @param parentIdAlias  alias of parent ID column in SELECT clause
+     * @param prefix         prefix of (sub)select
+     * @param offset         number of records to skip per parent
+     * @param limit          maximum number of records per parent
+     * @return SQL statement
+     */
+    public static String toSql(final String selectClause,
+                               final String fromClause,
+                               final String partitionBy,
+                               final List<String> orderBys,
+                               final List<String> columnAliases,
+                               final String parentIdAlias,
+                               final String prefix,
+                               final int offset,
+                               final int limit) {
+        final String alias = prefix + WRAPPER_ALIAS;
+        final String rowNumberAlias = prefix + ROW_NUMBER_ALIAS;
+        final String rowNumber = "ROW_NUMBER() OVER (PARTITION BY " + partitionBy +
+                (!orderBys.isEmpty() ? " ORDER BY " + String.join(", ", orderBys) : "") + ")";
+        return "SELECT " + columnAliases.stream().map(c -> alias + "." + c).collect(Collectors.joining(", ")) +
+                "\nFROM (" + selectClause + ", " + rowNumber + " AS " + rowNumberAlias +
+                fromClause +
+                "\n) AS " + alias +
+                "\nWHERE " + alias + "." + rowNumberAlias + " > " + offset +
+                " AND " + alias + "." + rowNumberAlias + " <= " + (offset + limit) +
+                "\nORDER BY " + alias + "." + parentIdAlias + ", " + alias + "." + rowNumberAlias;
+    }
+}
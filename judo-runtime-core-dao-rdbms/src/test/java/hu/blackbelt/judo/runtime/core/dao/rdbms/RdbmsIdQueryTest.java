@@ -0,0 +1,144 @@
+package hu.blackbelt.judo.runtime.core.dao.rdbms;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RdbmsIdQueryTest {
+
+    private static final String SQL = "SELECT _t00.ID AS _t00_ID\nFROM T_ENTITY AS _t00\nWHERE _t00.ID IN (:ids)";
+
+    private static final String ARRAY_SQL = "SELECT _t00.ID AS _t00_ID\nFROM T_ENTITY AS _t00\nWHERE _t00.ID = ANY(:ids)";
+
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        namedParameterJdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(namedParameterJdbcTemplate.getJdbcTemplate()).thenReturn(jdbcTemplate);
+        // each chunk returns records of its IDs
+        when(namedParameterJdbcTemplate.queryForList(anyString(), anyMap())).thenAnswer(invocation ->
+                Collections.singletonList(Collections.singletonMap("chunk", invocation.getArgument(1, Map.class).get(RdbmsIdQuery.IDS))));
+    }
+
+    private static List<Object> ids(final int count) {
+        return IntStream.range(0, count).mapToObj(i -> (Object) UUID.randomUUID()).collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> captureParameters(final String sql, final int times) {
+        final ArgumentCaptor<Map<String, Object>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(namedParameterJdbcTemplate, times(times)).queryForList(eq(sql), captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    void testIdsAreBoundInSingleListIfChunkSizeIsNotExceeded() {
+        final RdbmsIdQuery query = RdbmsIdQuery.builder().jdbcTemplate(namedParameterJdbcTemplate).chunkSize(3).build();
+        final List<Object> ids = ids(3);
+
+        final List<Map<String, Object>> result = query.queryForList(SQL, "T_ENTITY", ids);
+
+        assertEquals(1, result.size());
+        assertEquals(Collections.singletonList(Collections.singletonMap(RdbmsIdQuery.IDS, ids)), captureParameters(SQL, 1));
+    }
+
+    @Test
+    void testIdsAreBoundInChunks() {
+        final RdbmsIdQuery query = RdbmsIdQuery.builder().jdbcTemplate(namedParameterJdbcTemplate).chunkSize(3).build();
+        final List<Object> ids = ids(7);
+
+        final List<Map<String, Object>> result = query.queryForList(SQL, "T_ENTITY", ids);
+
+        assertEquals(3, result.size(), "Records of all chunks must be returned");
+        assertEquals(Arrays.asList(ids.subList(0, 3), ids.subList(3, 6), ids.subList(6, 7)), captureParameters(SQL, 3).stream()
+                .map(parameters -> parameters.get(RdbmsIdQuery.IDS))
+                .collect(Collectors.toList()));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testIdsAreBoundAsArraysOfIdColumnType() throws SQLException {
+        final RdbmsIdQuery query = RdbmsIdQuery.builder().jdbcTemplate(namedParameterJdbcTemplate).chunkSize(2).arrayParameter(true).build();
+        final List<Object> ids = ids(3);
+
+        query.queryForList(ARRAY_SQL, "T_ENTITY", ids);
+
+        final List<Map<String, Object>> parameters = captureParameters(ARRAY_SQL, 2);
+        final Connection connection = mock(Connection.class);
+        final PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(preparedStatement.getConnection()).thenReturn(connection);
+        final Array array = mock(Array.class);
+        when(connection.createArrayOf(anyString(), any(Object[].class))).thenReturn(array);
+        final Statement statement = mock(Statement.class);
+        final ResultSet resultSet = mock(ResultSet.class);
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnTypeName(1)).thenReturn("uuid");
+
+        for (Map<String, Object> parameter : parameters) {
+            final SqlParameterValue value = (SqlParameterValue) parameter.get(RdbmsIdQuery.IDS);
+            assertEquals(Types.ARRAY, value.getSqlType());
+            ((SqlTypeValue) value.getValue()).setTypeValue(preparedStatement, 1, Types.ARRAY, null);
+        }
+
+        final ArgumentCaptor<Object[]> elements = ArgumentCaptor.forClass(Object[].class);
+        verify(connection, times(2)).createArrayOf(eq("uuid"), elements.capture());
+        assertArrayEquals(ids.subList(0, 2).toArray(), elements.getAllValues().get(0));
+        assertArrayEquals(ids.subList(2, 3).toArray(), elements.getAllValues().get(1));
+        verify(preparedStatement, times(2)).setObject(1, array, Types.ARRAY);
+        // type name of ID column is resolved once, by the connection of statement
+        verify(statement).executeQuery("SELECT ID FROM T_ENTITY WHERE 1 = 0");
+        verify(statement).close();
+        verify(resultSet).close();
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,219 @@
+package hu.blackbelt.judo.runtime.core.dao.rdbms.executors;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.expression.LogicalExpression;
+import hu.blackbelt.judo.meta.expression.constant.StringConstant;
+import hu.blackbelt.judo.meta.expression.constant.util.builder.StringConstantBuilder;
+import hu.blackbelt.judo.meta.expression.logical.StringComparison;
+import hu.blackbelt.judo.runtime.core.MetricsCollector;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static hu.blackbelt.judo.meta.expression.logical.util.builder.LogicalBuilders.newStringComparisonBuilder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SelectStatementExecutorFilterCacheTest {
+
+    private static final Pattern FIELD_AND_LITERAL = Pattern.compile("this\\.(\\w+) == '([^']*)'");
+
+    private EClass type;
+
+    private MetricsCollector metricsCollector;
+
+    private List<String> compiledFilters;
+
+    @BeforeEach
+    void setUp() {
+        type = EcoreFactory.eINSTANCE.createEClass();
+        type.setName("T");
+        metricsCollector = mock(MetricsCollector.class);
+        compiledFilters = new ArrayList<>();
+    }
+
+    /**
+     * Compiler of <code>this.field == 'literal'</code> filters keeping literal as string constant.
+     */
+    private LogicalExpression compile(final String filter) {
+        compiledFilters.add(filter);
+        final Matcher matcher = FIELD_AND_LITERAL.matcher(filter);
+        assertTrue(matcher.matches(), "Unsupported filter: " + filter);
+        return newStringComparisonBuilder()
+                .withLeft(StringConstantBuilder.create().withValue(matcher.group(1)).build())
+                .withRight(StringConstantBuilder.create().withValue(matcher.group(2)).build())
+                .build();
+    }
+
+    private static String getLiteral(final LogicalExpression expression) {
+        return ((StringConstant) ((StringComparison) expression).getRight()).getValue();
+    }
+
+    @Test
+    void testLiteralsAreLifted() {
+        final SelectStatementExecutorFilterCache.NormalizedFilter filter1 =
+                SelectStatementExecutorFilterCache.normalize("this.name!ilike('%abc%') and this.code == \"X1\"");
+        final SelectStatementExecutorFilterCache.NormalizedFilter filter2 =
+                SelectStatementExecutorFilterCache.normalize("this.name!ilike('%other%') and this.code == \"Y2\"");
+
+        assertEquals(filter1.getText(), filter2.getText());
+        assertEquals(Arrays.asList("%abc%", "X1"), filter1.getLiterals());
+        assertEquals(Arrays.asList("%other%", "Y2"), filter2.getLiterals());
+    }
+
+    @Test
+    void testNonStringLiteralsAreKept() {
+        final SelectStatementExecutorFilterCache.NormalizedFilter filter1 =
+                SelectStatementExecutorFilterCache.normalize("this.created > `2020-01-01T00:00:00Z` and this.amount > 10");
+        final SelectStatementExecutorFilterCache.NormalizedFilter filter2 =
+                SelectStatementExecutorFilterCache.normalize("this.created > `2021-01-01T00:00:00Z` and this.amount > 10");
+
+        assertNotEquals(filter1.getText(), filter2.getText());
+        assertEquals(Collections.emptyList(), filter1.getLiterals());
+    }
+
+    @Test
+    void testEscapedLiteralsAreKept() {
+        final SelectStatementExecutorFilterCache.NormalizedFilter filter =
+                SelectStatementExecutorFilterCache.normalize("this.name == 'it\\'s' or this.name == 'plain'");
+
+        assertEquals(Collections.singletonList("plain"), filter.getLiterals());
+        assertTrue(filter.getText().startsWith("this.name == 'it\\'s' or this.name == '"));
+    }
+
+    @Test
+    void testUnterminatedLiteralIsKept() {
+        final SelectStatementExecutorFilterCache.NormalizedFilter filter =
+                SelectStatementExecutorFilterCache.normalize("this.name == 'abc");
+
+        assertEquals("this.name == 'abc", filter.getText());
+        assertEquals(Collections.emptyList(), filter.getLiterals());
+    }
+
+    @Test
+    void testCachedFilterIsBoundToLiterals() {
+        final SelectStatementExecutorFilterCache cache = new SelectStatementExecutorFilterCache(10, metricsCollector);
+
+        final LogicalExpression first = cache.get(type, "this.name == 'abc'", this::compile);
+        final LogicalExpression second = cache.get(type, "this.name == 'other'", this::compile);
+
+        assertEquals(1, compiledFilters.size());
+        assertEquals("abc", getLiteral(first));
+        assertEquals("other", getLiteral(second));
+        assertEquals("name", ((StringConstant) ((StringComparison) second).getLeft()).getValue());
+        assertNotSame(first, second);
+        verify(metricsCollector, times(1)).increment(SelectStatementExecutorFilterCache.METRICS_FILTER_CACHE_MISS, 1);
+        verify(metricsCollector, times(1)).increment(SelectStatementExecutorFilterCache.METRICS_FILTER_CACHE_HIT, 1);
+    }
+
+    @Test
+    void testBoundFilterDoesNotChangeCachedFilter() {
+        final SelectStatementExecutorFilterCache cache = new SelectStatementExecutorFilterCache(10, metricsCollector);
+
+        final LogicalExpression first = cache.get(type, "this.name == 'abc'", this::compile);
+        ((StringConstant) ((StringComparison) first).getRight()).setValue("changed");
+
+        assertEquals("xyz", getLiteral(cache.get(type, "this.name == 'xyz'", this::compile)));
+        assertEquals("abc", getLiteral(cache.get(type, "this.name == 'abc'", this::compile)));
+    }
+
+    @Test
+    void testFilterIsNotCachedIfNormalizedFilterCannotBeCompiled() {
+        final SelectStatementExecutorFilterCache cache = new SelectStatementExecutorFilterCache(10, metricsCollector);
+        final Function<String, LogicalExpression> compiler = filter -> {
+            if (filter.indexOf('\uE000') >= 0) {
+                throw new IllegalArgumentException("Placeholder is not a valid literal");
+            }
+            return compile(filter);
+        };
+
+        assertEquals("abc", getLiteral(cache.get(type, "this.name == 'abc'", compiler)));
+        assertEquals("other", getLiteral(cache.get(type, "this.name == 'other'", compiler)));
+        assertEquals(Arrays.asList("this.name == 'abc'", "this.name == 'other'"), compiledFilters);
+    }
+
+    @Test
+    void testFilterIsNotCachedIfLiteralsAreNotKept() {
+        final SelectStatementExecutorFilterCache cache = new SelectStatementExecutorFilterCache(10, metricsCollector);
+        // compiler drops the first character of literal so placeholder is not found in expression
+        final Function<String, LogicalExpression> compiler = filter -> compile(filter.replaceFirst("== '.", "== '"));
+
+        assertEquals("bc", getLiteral(cache.get(type, "this.name == 'abc'", compiler)));
+        assertEquals("ther", getLiteral(cache.get(type, "this.name == 'other'", compiler)));
+        assertEquals(3, compiledFilters.size());
+        assertEquals("this.name == 'ther'", compiledFilters.get(2));
+    }
+
+    @Test
+    void testEvictionIsReported() {
+        final SelectStatementExecutorFilterCache cache = new SelectStatementExecutorFilterCache(1, metricsCollector);
+
+        cache.get(type, "this.name == 'abc'", this::compile);
+        verify(metricsCollector, never()).increment(SelectStatementExecutorFilterCache.METRICS_FILTER_CACHE_EVICTION, 1);
+
+        cache.get(type, "this.code == 'abc'", this::compile);
+        verify(metricsCollector, times(1)).increment(SelectStatementExecutorFilterCache.METRICS_FILTER_CACHE_EVICTION, 1);
+
+        cache.get(type, "this.name == 'abc'", this::compile);
+        assertEquals(3, compiledFilters.size());
+    }
+
+    @Test
+    void testInvalidateAll() {
+        final SelectStatementExecutorFilterCache cache = new SelectStatementExecutorFilterCache(10, metricsCollector);
+
+        cache.get(type, "this.name == 'abc'", this::compile);
+        cache.invalidateAll();
+        cache.get(type, "this.name == 'abc'", this::compile);
+
+        assertEquals(2, compiledFilters.size());
+        verify(metricsCollector, never()).increment(SelectStatementExecutorFilterCache.METRICS_FILTER_CACHE_EVICTION, 1);
+    }
+
+    @Test
+    void testDisabledCache() {
+        final SelectStatementExecutorFilterCache cache = new SelectStatementExecutorFilterCache(0, metricsCollector);
+
+        assertEquals("abc", getLiteral(cache.get(type, "this.name == 'abc'", this::compile)));
+        assertEquals("abc", getLiteral(cache.get(type, "this.name == 'abc'", this::compile)));
+
+        assertEquals(Arrays.asList("this.name == 'abc'", "this.name == 'abc'"), compiledFilters);
+        verify(metricsCollector, never()).increment(anyString(), anyLong());
+    }
+}
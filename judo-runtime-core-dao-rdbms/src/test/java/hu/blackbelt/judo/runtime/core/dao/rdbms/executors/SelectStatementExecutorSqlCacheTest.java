@@ -0,0 +1,143 @@
+package hu.blackbelt.judo.runtime.core.dao.rdbms.executors;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.query.Select;
+import hu.blackbelt.judo.meta.query.SubSelect;
+import hu.blackbelt.judo.runtime.core.MetricsCancelToken;
+import hu.blackbelt.judo.runtime.core.MetricsCollector;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.sql.Types;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static hu.blackbelt.judo.meta.query.util.builder.QueryBuilders.newSelectBuilder;
+import static hu.blackbelt.judo.meta.query.util.builder.QueryBuilders.newSubSelectBuilder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SelectStatementExecutorSqlCacheTest {
+
+    private static final String SQL = "SELECT _t.C_ID AS __identifier FROM T _t WHERE _t.C_NAME = :p0";
+
+    private MetricsCollector metricsCollector;
+
+    private SubSelect query;
+
+    private AtomicInteger generations;
+
+    @BeforeEach
+    void setUp() {
+        metricsCollector = mock(MetricsCollector.class);
+        when(metricsCollector.start(anyString())).thenAnswer(invocation -> new MetricsCancelToken(invocation.getArgument(0), metricsCollector));
+
+        // logical queries prepared by query factory are contained by resource
+        final Select select = newSelectBuilder().build();
+        new ResourceImpl().getContents().add(select);
+        query = newSubSelectBuilder().withSelect(select).build();
+
+        generations = new AtomicInteger();
+    }
+
+    private SelectStatementExecutorSqlCache.QueryShape shape() {
+        return SelectStatementExecutorSqlCache.QueryShape.builder()
+                .query(query)
+                .filterByInstances(true)
+                .build();
+    }
+
+    /**
+     * SQL generator adding the given value as named parameter (as {@link hu.blackbelt.judo.runtime.core.dao.rdbms.query.mappers.VariableMapper}
+     * does for query parameters).
+     */
+    private Function<SelectStatementExecutorSqlCache.SqlGeneration, String> generator(final String value, final boolean variable) {
+        return generation -> {
+            generations.incrementAndGet();
+            if (variable) {
+                generation.markNotCacheable();
+            }
+            generation.getSqlParameters().addValue("p0", value, Types.VARCHAR, "VARCHAR");
+            return SQL;
+        };
+    }
+
+    private static Object getBoundValue(final SelectStatementExecutorSqlCache.PreparedSql preparedSql) {
+        final MapSqlParameterSource sqlParameters = new MapSqlParameterSource();
+        preparedSql.bind(sqlParameters);
+        return sqlParameters.getValue("p0");
+    }
+
+    @Test
+    void testStatementWithConstantParameterIsCached() {
+        final SelectStatementExecutorSqlCache cache = new SelectStatementExecutorSqlCache(10, metricsCollector);
+
+        final SelectStatementExecutorSqlCache.PreparedSql first = cache.get(shape(), generator("constant", false));
+        final SelectStatementExecutorSqlCache.PreparedSql second = cache.get(shape(), generator("other", false));
+
+        assertEquals(1, generations.get());
+        assertEquals(SQL, second.getSql());
+        assertEquals("constant", getBoundValue(first));
+        assertEquals("constant", getBoundValue(second));
+        verify(metricsCollector, times(1)).increment(SelectStatementExecutorSqlCache.METRICS_SQL_CACHE_MISS, 1);
+        verify(metricsCollector, times(1)).increment(SelectStatementExecutorSqlCache.METRICS_SQL_CACHE_HIT, 1);
+    }
+
+    @Test
+    void testStatementWithQueryParameterIsNotCached() {
+        final SelectStatementExecutorSqlCache cache = new SelectStatementExecutorSqlCache(10, metricsCollector);
+
+        final SelectStatementExecutorSqlCache.PreparedSql first = cache.get(shape(), generator("first", true));
+        final SelectStatementExecutorSqlCache.PreparedSql second = cache.get(shape(), generator("second", true));
+        final SelectStatementExecutorSqlCache.PreparedSql third = cache.get(shape(), generator("third", true));
+
+        assertEquals(3, generations.get());
+        assertEquals("first", getBoundValue(first));
+        assertEquals("second", getBoundValue(second));
+        assertEquals("third", getBoundValue(third));
+    }
+
+    @Test
+    void testStatementOfQueryNotContainedByResourceIsNotCached() {
+        final SelectStatementExecutorSqlCache cache = new SelectStatementExecutorSqlCache(10, metricsCollector);
+        final SelectStatementExecutorSqlCache.QueryShape shape = SelectStatementExecutorSqlCache.QueryShape.builder()
+                .query(newSubSelectBuilder().withSelect(newSelectBuilder().build()).build())
+                .build();
+
+        assertEquals("first", getBoundValue(cache.get(shape, generator("first", false))));
+        assertEquals("second", getBoundValue(cache.get(shape, generator("second", false))));
+        assertEquals(2, generations.get());
+        verify(metricsCollector, never()).increment(SelectStatementExecutorSqlCache.METRICS_SQL_CACHE_MISS, 1);
+    }
+
+    @Test
+    void testDisabledCache() {
+        final SelectStatementExecutorSqlCache cache = new SelectStatementExecutorSqlCache(0, metricsCollector);
+
+        assertEquals("first", getBoundValue(cache.get(shape(), generator("first", false))));
+        assertEquals("second", getBoundValue(cache.get(shape(), generator("second", false))));
+        assertEquals(2, generations.get());
+    }
+}
@@ -0,0 +1,232 @@
+package hu.blackbelt.judo.runtime.core.dao.rdbms.executors;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SelectStatementExecutorSubQueryRunnerTest {
+
+    private DataSource dataSource;
+
+    private Connection connection1;
+
+    private Connection connection2;
+
+    private AtomicInteger initializedBranches;
+
+    private AtomicInteger finalizedBranches;
+
+    private SelectStatementExecutorSubQueryRunner runner;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        connection1 = mock(Connection.class);
+        connection2 = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection1, connection2);
+
+        initializedBranches = new AtomicInteger();
+        finalizedBranches = new AtomicInteger();
+        runner = new SelectStatementExecutorSubQueryRunner(null, 2, 2,
+                initializedBranches::incrementAndGet, finalizedBranches::incrementAndGet);
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.close();
+        if (TransactionSynchronizationManager.hasResource(dataSource)) {
+            TransactionSynchronizationManager.unbindResource(dataSource);
+        }
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void testSubQueriesAreRunParallelOnReadOnlyConnections() throws SQLException {
+        final CountDownLatch secondBranchFinished = new CountDownLatch(1);
+        final Map<Integer, Connection> connections = new ConcurrentHashMap<>();
+        final Map<Integer, Boolean> nestedParallelExecutionAllowed = new ConcurrentHashMap<>();
+        final List<Integer> merges = new ArrayList<>();
+
+        final Callable<List<Runnable>> first = () -> {
+            // first branch is completed after the second one, merges must keep order of subqueries anyway
+            assertTrue(secondBranchFinished.await(10, TimeUnit.SECONDS), "Subqueries are not running parallel");
+            connections.put(0, DataSourceUtils.getConnection(dataSource));
+            nestedParallelExecutionAllowed.put(0, runner.isParallelExecutionAllowed(dataSource));
+            return Collections.singletonList(() -> merges.add(0));
+        };
+        final Callable<List<Runnable>> second = () -> {
+            connections.put(1, DataSourceUtils.getConnection(dataSource));
+            nestedParallelExecutionAllowed.put(1, runner.isParallelExecutionAllowed(dataSource));
+            secondBranchFinished.countDown();
+            return Collections.singletonList(() -> merges.add(1));
+        };
+
+        assertTrue(runner.isParallelExecutionAllowed(dataSource));
+        runner.run(dataSource, Arrays.asList(first, second));
+
+        assertEquals(Arrays.asList(0, 1), merges);
+        assertEquals(Set.of(connection1, connection2), new HashSet<>(connections.values()));
+        assertEquals(Map.of(0, false, 1, false), nestedParallelExecutionAllowed);
+        assertEquals(2, initializedBranches.get());
+        assertEquals(2, finalizedBranches.get());
+        assertFalse(TransactionSynchronizationManager.hasResource(dataSource));
+        for (Connection connection : Arrays.asList(connection1, connection2)) {
+            verify(connection).setReadOnly(true);
+            verify(connection).setReadOnly(false);
+            verify(connection).close();
+        }
+    }
+
+    @Test
+    void testFailureOfSubQueryIsPropagated() throws SQLException {
+        final List<Integer> merges = new ArrayList<>();
+        final IllegalArgumentException failure = new IllegalArgumentException("Failed subquery");
+
+        final Callable<List<Runnable>> first = () -> Collections.singletonList(() -> merges.add(0));
+        final Callable<List<Runnable>> second = () -> {
+            throw failure;
+        };
+
+        final RuntimeException thrown = assertThrows(RuntimeException.class, () -> runner.run(dataSource, Arrays.asList(first, second)));
+
+        assertSame(failure, thrown);
+        assertTrue(merges.isEmpty(), "Results must not be merged if any subquery is failed");
+        assertEquals(2, finalizedBranches.get());
+        verify(connection1).close();
+        verify(connection2).close();
+    }
+
+    @Test
+    void testParallelExecutionIsNotAllowedInReadWriteTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.bindResource(dataSource, new ConnectionHolder(connection1));
+
+        assertFalse(runner.isParallelExecutionAllowed(dataSource));
+    }
+
+    @Test
+    void testParallelExecutionIsAllowedInReadOnlyTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(Connection.TRANSACTION_READ_COMMITTED);
+        TransactionSynchronizationManager.bindResource(dataSource, new ConnectionHolder(connection1));
+
+        assertTrue(runner.isParallelExecutionAllowed(dataSource));
+
+        TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(Connection.TRANSACTION_REPEATABLE_READ);
+
+        assertFalse(runner.isParallelExecutionAllowed(dataSource), "Branches would not see snapshot of transaction");
+    }
+
+    @Test
+    void testDefaultIsolationLevelIsReadFromConnection() throws SQLException {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        TransactionSynchronizationManager.bindResource(dataSource, new ConnectionHolder(connection1));
+
+        when(connection1.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_SERIALIZABLE);
+        assertFalse(runner.isParallelExecutionAllowed(dataSource), "Default isolation level of database is serializable");
+
+        when(connection1.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+        assertTrue(runner.isParallelExecutionAllowed(dataSource));
+
+        when(connection1.getTransactionIsolation()).thenThrow(new SQLException("Connection is closed"));
+        assertFalse(runner.isParallelExecutionAllowed(dataSource));
+    }
+
+    @Test
+    void testSubQueriesAreRunOnCallerThreadIfNoBranchConnectionIsAvailable() throws SQLException {
+        runner.close();
+        runner = new SelectStatementExecutorSubQueryRunner(null, 2, 1,
+                initializedBranches::incrementAndGet, finalizedBranches::incrementAndGet);
+
+        final Thread caller = Thread.currentThread();
+        final Map<Integer, Thread> threads = new ConcurrentHashMap<>();
+        final List<Integer> merges = new ArrayList<>();
+
+        final Callable<List<Runnable>> first = () -> {
+            threads.put(0, Thread.currentThread());
+            return Collections.singletonList(() -> merges.add(0));
+        };
+        final Callable<List<Runnable>> second = () -> {
+            threads.put(1, Thread.currentThread());
+            return Collections.singletonList(() -> merges.add(1));
+        };
+        final Callable<List<Runnable>> third = () -> {
+            threads.put(2, Thread.currentThread());
+            return Collections.singletonList(() -> merges.add(2));
+        };
+
+        runner.run(dataSource, Arrays.asList(first, second, third));
+
+        assertEquals(Arrays.asList(0, 1, 2), merges);
+        assertNotSame(caller, threads.get(0));
+        assertSame(caller, threads.get(1), "Second branch must not wait for a connection");
+        assertSame(caller, threads.get(2), "Third branch must not wait for a connection");
+        assertEquals(1, initializedBranches.get());
+        verify(dataSource, times(1)).getConnection();
+
+        // connection permit is released by finished branch
+        threads.clear();
+        runner.run(dataSource, Collections.singletonList(first));
+        assertNotSame(caller, threads.get(0));
+    }
+
+    @Test
+    void testParallelExecutionIsNotAllowedIfConnectionIsBound() {
+        TransactionSynchronizationManager.bindResource(dataSource, new ConnectionHolder(connection1));
+
+        assertFalse(runner.isParallelExecutionAllowed(dataSource));
+        assertFalse(runner.isParallelExecutionAllowed(null));
+    }
+
+    @Test
+    void testCloseShutsDownDefaultExecutor() {
+        runner.close();
+
+        assertFalse(runner.isParallelExecutionAllowed(dataSource));
+    }
+
+    @Test
+    void testCloseDoesNotShutDownExecutorOfCaller() {
+        final ExecutorService executor = mock(ExecutorService.class);
+
+        new SelectStatementExecutorSubQueryRunner(executor, 2, 2, () -> {}, () -> {}).close();
+
+        verify(executor, never()).shutdown();
+        verify(executor, never()).shutdownNow();
+    }
+}
@@ -0,0 +1,131 @@
+package hu.blackbelt.judo.runtime.core.dao.rdbms.executors;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UpdateStatementBatchExecutorTest {
+
+    private static final String SQL = "UPDATE T SET VERSION = VERSION + 1 WHERE ID = :__identifier AND VERSION = :__version";
+
+    private static final String PLAIN_SQL = "UPDATE T SET C_NAME = :name WHERE ID = :__identifier";
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private UpdateStatementBatchExecutor batchExecutor;
+
+    private List<MapSqlParameterSource> parameters;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        batchExecutor = new UpdateStatementBatchExecutor();
+        parameters = Arrays.asList(
+                new MapSqlParameterSource().addValue("__identifier", 1).addValue("__version", 3),
+                new MapSqlParameterSource().addValue("__identifier", 2).addValue("__version", 5));
+    }
+
+    private void learnRowCounts(final int... counts) {
+        when(jdbcTemplate.batchUpdate(eq(PLAIN_SQL), any(SqlParameterSource[].class))).thenReturn(counts);
+        batchExecutor.execute(jdbcTemplate, PLAIN_SQL, parameters, false);
+    }
+
+    @Test
+    void testStaleVersionInBatchIsRejected() {
+        learnRowCounts(1, 1);
+        when(jdbcTemplate.batchUpdate(eq(SQL), any(SqlParameterSource[].class))).thenReturn(new int[] {1, 0});
+
+        final IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> batchExecutor.execute(jdbcTemplate, SQL, parameters, true));
+
+        assertEquals("There is illegal state, no records updated", thrown.getMessage());
+        verify(jdbcTemplate, never()).update(eq(SQL), any(SqlParameterSource.class));
+    }
+
+    @Test
+    void testOptimisticLockBatchIsUpdatedInBatchIfRowCountsAreReported() {
+        learnRowCounts(1, 1);
+        when(jdbcTemplate.batchUpdate(eq(SQL), any(SqlParameterSource[].class))).thenReturn(new int[] {1, 1});
+
+        batchExecutor.execute(jdbcTemplate, SQL, parameters, true);
+
+        verify(jdbcTemplate).batchUpdate(eq(SQL), any(SqlParameterSource[].class));
+        verify(jdbcTemplate, never()).update(eq(SQL), any(SqlParameterSource.class));
+    }
+
+    @Test
+    void testStaleVersionIsRejectedIfRowCountsAreUnknown() {
+        when(jdbcTemplate.update(eq(SQL), any(SqlParameterSource.class))).thenReturn(1, 0);
+
+        final IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> batchExecutor.execute(jdbcTemplate, SQL, parameters, true));
+
+        assertEquals("There is illegal state, no records updated", thrown.getMessage());
+        verify(jdbcTemplate, never()).batchUpdate(eq(SQL), any(SqlParameterSource[].class));
+        verify(jdbcTemplate).update(SQL, parameters.get(0));
+        verify(jdbcTemplate).update(SQL, parameters.get(1));
+    }
+
+    @Test
+    void testOptimisticLockBatchIsUpdatedOneByOneIfRowCountsAreNotReported() {
+        learnRowCounts(Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO);
+        when(jdbcTemplate.update(eq(SQL), any(SqlParameterSource.class))).thenReturn(1);
+
+        batchExecutor.execute(jdbcTemplate, SQL, parameters, true);
+
+        verify(jdbcTemplate, never()).batchUpdate(eq(SQL), any(SqlParameterSource[].class));
+        verify(jdbcTemplate, times(2)).update(eq(SQL), any(SqlParameterSource.class));
+    }
+
+    @Test
+    void testMissingRowCountsOfOptimisticLockBatchAreRejected() {
+        learnRowCounts(1, 1);
+        when(jdbcTemplate.batchUpdate(eq(SQL), any(SqlParameterSource[].class)))
+                .thenReturn(new int[] {Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO});
+
+        assertThrows(IllegalStateException.class, () -> batchExecutor.execute(jdbcTemplate, SQL, parameters, true));
+    }
+
+    @Test
+    void testMissingRowCountsOfPlainBatchAreAccepted() {
+        learnRowCounts(Statement.SUCCESS_NO_INFO, 1);
+
+        verify(jdbcTemplate).batchUpdate(eq(PLAIN_SQL), any(SqlParameterSource[].class));
+    }
+
+    @Test
+    void testMissingRecordOfPlainBatchIsRejected() {
+        assertThrows(IllegalStateException.class, () -> learnRowCounts(1, 0));
+    }
+}
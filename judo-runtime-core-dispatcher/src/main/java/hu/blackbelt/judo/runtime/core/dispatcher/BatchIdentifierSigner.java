@@ -0,0 +1,105 @@
+package hu.blackbelt.judo.runtime.core.dispatcher;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.Lists;
+import hu.blackbelt.judo.runtime.core.dispatcher.security.IdentifierSigner;
+import lombok.NonNull;
+import org.eclipse.emf.ecore.ETypedElement;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Sign identifiers of list responses. Large lists are split into chunks that are signed in parallel (signing is CPU
+ * bound, especially with RSA and EC keys).
+ * <p>
+ * A shared executor can be given, otherwise a pool of signing parallelism threads is created and owned (shut down on
+ * {@link #close()}).
+ */
+class BatchIdentifierSigner implements AutoCloseable {
+
+    private final IdentifierSigner identifierSigner;
+
+    private final int parallelSigningThreshold;
+
+    private final int signingParallelism;
+
+    private final ExecutorService executor;
+
+    private final boolean ownedExecutor;
+
+    BatchIdentifierSigner(@NonNull final IdentifierSigner identifierSigner, final int parallelSigningThreshold, final int signingParallelism, final ExecutorService executor) {
+        this.identifierSigner = identifierSigner;
+        this.parallelSigningThreshold = parallelSigningThreshold;
+        this.signingParallelism = signingParallelism;
+        if (parallelSigningThreshold > 0 && signingParallelism > 1) {
+            this.ownedExecutor = executor == null;
+            this.executor = executor != null ? executor : new ForkJoinPool(signingParallelism);
+        } else {
+            this.ownedExecutor = false;
+            this.executor = null;
+        }
+    }
+
+    void signIdentifiers(final ETypedElement producedBy, final Collection<? extends Map<String, Object>> payloadList, final boolean immutable) {
+        if (executor == null || payloadList.size() < parallelSigningThreshold) {
+            payloadList.forEach(payload -> identifierSigner.signIdentifiers(producedBy, payload, immutable));
+            return;
+        }
+
+        final List<Map<String, Object>> payloads = new ArrayList<>(payloadList);
+        final int chunkSize = Math.max(1, (payloads.size() + signingParallelism - 1) / signingParallelism);
+        final List<Future<?>> futures = Lists.partition(payloads, chunkSize).stream()
+                .map(chunk -> executor.submit(() -> chunk.forEach(payload -> identifierSigner.signIdentifiers(producedBy, payload, immutable))))
+                .collect(Collectors.toList());
+
+        try {
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Signing identifiers interrupted", ex);
+        } catch (ExecutionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException("Unable to sign identifiers", ex.getCause());
+        }
+    }
+
+    /**
+     * Shut down signing pool if it is owned, shared executors are managed by their owner.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor) {
+            executor.shutdown();
+        }
+    }
+}
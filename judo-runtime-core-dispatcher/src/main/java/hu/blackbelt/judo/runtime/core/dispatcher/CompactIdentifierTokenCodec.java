@@ -0,0 +1,281 @@
+package hu.blackbelt.judo.runtime.core.dispatcher;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
+import lombok.NonNull;
+import lombok.Value;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EOperation;
+import org.eclipse.emf.ecore.EReference;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compact signed identifier format, an alternative of JWS tokens.
+ * <p>
+ * Token is a fixed layout binary structure (format version, flags, identifier, entity type, issuer and version)
+ * authenticated by HMAC-SHA256 truncated to 128 bits and encoded as base64url with {@link #PREFIX} prefix. MAC key is
+ * derived from the configured secret (HMAC of {@link #KEY_DERIVATION_LABEL}) so it is never the same key as the one of
+ * JWS signatures.
+ * <p>
+ * Entity types and issuers (operations and references returning mapped transfer objects) are encoded by index of model
+ * elements sorted by FQ name, a fingerprint of index tables is included in MAC. Indexes are only valid for the same
+ * model so tokens issued before adding, removing or renaming any entity type or issuer are rejected (clients have to
+ * reload instances after such model change, JWS tokens are not affected).
+ */
+class CompactIdentifierTokenCodec {
+
+    static final String PREFIX = "~";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAC_LENGTH = 16;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final String KEY_DERIVATION_LABEL = "compact-id-v1";
+
+    private static final int FLAG_IMMUTABLE = 1;
+    private static final int FLAG_VERSION = 1 << 1;
+    private static final int FLAG_UUID = 1 << 2;
+    private static final int FLAG_ENTITY_TYPE_INDEX = 1 << 3;
+    private static final int FLAG_ENTITY_TYPE_NAME = 1 << 4;
+    private static final int FLAG_ISSUER_INDEX = 1 << 5;
+    private static final int FLAG_ISSUER_NAME = 1 << 6;
+
+    private final List<String> entityTypes;
+    private final Map<String, Integer> entityTypeIndexes;
+    private final List<String> issuers;
+    private final Map<String, Integer> issuerIndexes;
+    private final byte[] fingerprint;
+    private final ThreadLocal<Mac> mac;
+
+    CompactIdentifierTokenCodec(@NonNull final byte[] secret, @NonNull final AsmUtils asmUtils) {
+        if (secret.length == 0) {
+            throw new IllegalArgumentException("Secret of compact identifier tokens must not be empty");
+        }
+
+        entityTypes = asmUtils.all(EClass.class)
+                .filter(AsmUtils::isEntityType)
+                .map(AsmUtils::getClassifierFQName)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        issuers = Stream.concat(
+                        asmUtils.all(EOperation.class)
+                                .filter(operation -> isMappedTransferObjectType(asmUtils, operation.getEType()))
+                                .map(AsmUtils::getOperationFQName),
+                        asmUtils.all(EReference.class)
+                                .filter(reference -> isMappedTransferObjectType(asmUtils, reference.getEType()))
+                                .map(AsmUtils::getReferenceFQName))
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        entityTypeIndexes = toIndexes(entityTypes);
+        issuerIndexes = toIndexes(issuers);
+
+        final byte[] macKey;
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            entityTypes.forEach(t -> digest.update((t + "\n").getBytes(StandardCharsets.UTF_8)));
+            digest.update((byte) 0);
+            issuers.forEach(i -> digest.update((i + "\n").getBytes(StandardCharsets.UTF_8)));
+            fingerprint = Arrays.copyOf(digest.digest(), 16);
+
+            final Mac keyDerivation = Mac.getInstance(MAC_ALGORITHM);
+            keyDerivation.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+            macKey = keyDerivation.doFinal(KEY_DERIVATION_LABEL.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Unable to initialize compact identifier token codec", ex);
+        }
+
+        mac = ThreadLocal.withInitial(() -> {
+            try {
+                final Mac instance = Mac.getInstance(MAC_ALGORITHM);
+                instance.init(new SecretKeySpec(macKey, MAC_ALGORITHM));
+                return instance;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("Unable to initialize MAC", ex);
+            }
+        });
+    }
+
+    private static boolean isMappedTransferObjectType(final AsmUtils asmUtils, final EClassifier type) {
+        return type instanceof EClass && asmUtils.isMappedTransferObjectType((EClass) type);
+    }
+
+    static boolean isCompactToken(final String token) {
+        return token != null && token.startsWith(PREFIX);
+    }
+
+    String encode(@NonNull final String identifier, final String issuer, final String entityType, final Integer version, final boolean immutable) {
+        final UUID uuid = toUuid(identifier);
+        final Integer entityTypeIndex = entityType != null ? entityTypeIndexes.get(entityType) : null;
+        final Integer issuerIndex = issuer != null ? issuerIndexes.get(issuer) : null;
+
+        int flags = 0;
+        flags |= immutable ? FLAG_IMMUTABLE : 0;
+        flags |= version != null ? FLAG_VERSION : 0;
+        flags |= uuid != null ? FLAG_UUID : 0;
+        flags |= entityTypeIndex != null ? FLAG_ENTITY_TYPE_INDEX : entityType != null ? FLAG_ENTITY_TYPE_NAME : 0;
+        flags |= issuerIndex != null ? FLAG_ISSUER_INDEX : issuer != null ? FLAG_ISSUER_NAME : 0;
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(flags);
+            if (uuid != null) {
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+            } else {
+                out.writeUTF(identifier);
+            }
+            if (entityTypeIndex != null) {
+                writeVarInt(out, entityTypeIndex);
+            } else if (entityType != null) {
+                out.writeUTF(entityType);
+            }
+            if (issuerIndex != null) {
+                writeVarInt(out, issuerIndex);
+            } else if (issuer != null) {
+                out.writeUTF(issuer);
+            }
+            if (version != null) {
+                writeVarInt(out, version);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to sign identifier", ex);
+        }
+
+        final byte[] body = bytes.toByteArray();
+        final byte[] token = Arrays.copyOf(body, body.length + MAC_LENGTH);
+        System.arraycopy(mac(body, body.length), 0, token, body.length, MAC_LENGTH);
+        return PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    Token decode(@NonNull final String token) {
+        if (!isCompactToken(token)) {
+            throw new IllegalStateException("Invalid signed identifier");
+        }
+
+        final byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalStateException("Invalid signed identifier", ex);
+        }
+        if (bytes.length < MAC_LENGTH + 2) {
+            throw new IllegalStateException("Invalid signed identifier");
+        }
+
+        final int bodyLength = bytes.length - MAC_LENGTH;
+        if (!MessageDigest.isEqual(mac(bytes, bodyLength), Arrays.copyOfRange(bytes, bodyLength, bytes.length))) {
+            throw new IllegalStateException("Invalid signed identifier");
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bodyLength))) {
+            if (in.readUnsignedByte() != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported signed identifier format");
+            }
+            final int flags = in.readUnsignedByte();
+            final String identifier = (flags & FLAG_UUID) != 0
+                    ? new UUID(in.readLong(), in.readLong()).toString()
+                    : in.readUTF();
+            final String entityType = (flags & FLAG_ENTITY_TYPE_INDEX) != 0
+                    ? entityTypes.get(readVarInt(in))
+                    : (flags & FLAG_ENTITY_TYPE_NAME) != 0 ? in.readUTF() : null;
+            final String issuer = (flags & FLAG_ISSUER_INDEX) != 0
+                    ? issuers.get(readVarInt(in))
+                    : (flags & FLAG_ISSUER_NAME) != 0 ? in.readUTF() : null;
+            final Integer version = (flags & FLAG_VERSION) != 0 ? readVarInt(in) : null;
+            if (in.available() > 0) {
+                throw new IllegalStateException("Invalid signed identifier");
+            }
+            return new Token(identifier, issuer, entityType, version, (flags & FLAG_IMMUTABLE) != 0 ? Boolean.TRUE : null);
+        } catch (IOException | IndexOutOfBoundsException ex) {
+            throw new IllegalStateException("Invalid signed identifier", ex);
+        }
+    }
+
+    private byte[] mac(final byte[] body, final int length) {
+        final Mac instance = mac.get();
+        instance.update(fingerprint);
+        instance.update(body, 0, length);
+        return Arrays.copyOf(instance.doFinal(), MAC_LENGTH);
+    }
+
+    private static UUID toUuid(final String identifier) {
+        if (identifier.length() != 36) {
+            return null;
+        }
+        try {
+            final UUID uuid = UUID.fromString(identifier);
+            return uuid.toString().equals(identifier) ? uuid : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static Map<String, Integer> toIndexes(final List<String> values) {
+        final Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            indexes.put(values.get(i), i);
+        }
+        return Collections.unmodifiableMap(indexes);
+    }
+
+    private static void writeVarInt(final DataOutput out, final int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.writeByte(remaining);
+    }
+
+    private static int readVarInt(final DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+
+    @Value
+    static class Token {
+        String identifier;
+        String issuer;
+        String entityType;
+        Integer version;
+        Boolean immutable;
+    }
+}
@@ -20,6 +20,8 @@ package hu.blackbelt.judo.runtime.core.dispatcher;
  * #L%
  */
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import hu.blackbelt.judo.dao.api.DAO;
 import hu.blackbelt.judo.dao.api.Payload;
 import hu.blackbelt.judo.dao.api.ValidationResult;
@@ -33,6 +35,7 @@ import hu.blackbelt.judo.runtime.core.dispatcher.security.ActorResolver;
 import hu.blackbelt.judo.runtime.core.exception.AccessDeniedException;
 import lombok.Builder;
 import lombok.NonNull;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
@@ -42,13 +45,25 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static hu.blackbelt.judo.meta.asm.runtime.AsmUtils.*;
 
+/**
+ * Default actor resolver loading actor instances by claims of principal (access token).
+ * <p>
+ * Claim attributes used to filter actors are resolved once per actor type. Loaded actors are cached by realm, client
+ * and filter (claim) value for a short time (<code>actorCacheTtl</code> seconds), cached actors of an entity type are
+ * invalidated by {@link #invalidateActors(EClass)} on writes.
+ */
 @Slf4j
 public class DefaultActorResolver<ID> implements ActorResolver {
 
+    public static final int DEFAULT_ACTOR_CACHE_SIZE = 1000;
+    public static final int DEFAULT_ACTOR_CACHE_TTL = 30;
+
     DataTypeManager dataTypeManager;
 
     DAO<ID> dao;
@@ -59,18 +74,34 @@ public class DefaultActorResolver<ID> implements ActorResolver {
 
     private AsmUtils asmUtils;
 
+    private final Map<EClass, ActorClaims> actorClaims = new ConcurrentHashMap<>();
+
+    private final Cache<ActorKey, Payload> actorCache;
 
     @Builder
     public DefaultActorResolver(
             @NonNull DataTypeManager dataTypeManager,
             @NonNull DAO<ID> dao,
             @NonNull AsmModel asmModel,
-            Boolean checkMappedActors) {
+            Boolean checkMappedActors,
+            Integer actorCacheSize,
+            Integer actorCacheTtl) {
         this.dataTypeManager = dataTypeManager;
         this.dao = dao;
         this.asmModel = asmModel;
         this.checkMappedActors = checkMappedActors == null ? false : checkMappedActors;
         this.asmUtils = new AsmUtils(asmModel.getResourceSet());
+
+        final int cacheSize = Objects.requireNonNullElse(actorCacheSize, DEFAULT_ACTOR_CACHE_SIZE);
+        final int cacheTtl = Objects.requireNonNullElse(actorCacheTtl, DEFAULT_ACTOR_CACHE_TTL);
+        if (cacheSize > 0 && cacheTtl > 0) {
+            actorCache = CacheBuilder.newBuilder()
+                    .maximumSize(cacheSize)
+                    .expireAfterWrite(cacheTtl, TimeUnit.SECONDS)
+                    .build();
+        } else {
+            actorCache = null;
+        }
     }
 
     @Override
@@ -94,7 +125,7 @@ public class DefaultActorResolver<ID> implements ActorResolver {
                     .filter(e -> e.getValue() instanceof String)
                     .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue()));
 
-            return Optional.of(getActorByClaims(actorType, claims));
+            return Optional.of(getActorByClaims(principal.getRealm(), principal.getClient(), actorType, claims));
         } else {
             return Optional.empty();
         }
@@ -102,26 +133,19 @@ public class DefaultActorResolver<ID> implements ActorResolver {
 
     @Override
     public Payload getActorByClaims(final EClass actorType, final Map<String, Object> claims) {
-        final Optional<EAttribute> usernameClaim = actorType.getEAllAttributes().stream()
-                .filter(claim -> Objects.equals(getExtensionAnnotationValue(claim, "claim", false).orElse("-"), "USERNAME"))
-                .findAny();
-        final Optional<EAttribute> emailClaim = actorType.getEAllAttributes().stream()
-                .filter(claim -> Objects.equals(getExtensionAnnotationValue(claim, "claim", false).orElse("-"), "EMAIL"))
-                .findAny();
-
-        final EAttribute filterAttribute;
-        if (usernameClaim.isPresent() && claims.get(usernameClaim.get().getName()) != null) {
-            filterAttribute = usernameClaim.get();
-        } else if (emailClaim.isPresent() && claims.get(emailClaim.get().getName()) != null) {
-            filterAttribute = emailClaim.get();
-        } else {
-            filterAttribute = actorType.getEAllAttributes().stream()
-                    .filter(actorAttribute -> claims.containsKey(actorAttribute.getName())
-                            && asmUtils.getMappedAttribute(actorAttribute).filter(a -> isIdentifier(a)).isPresent())
-                    .sorted((a1, a2) -> AsmUtils.equals(a1, a2) ? 0 : a1.getName().compareTo(a2.getName()))
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalStateException("ID attribute in Entity ∂type matching any access token claim not found"));
+        return getActorByClaims(null, null, actorType, claims);
+    }
+
+    @Override
+    public void invalidateActors(final EClass entityType) {
+        if (actorCache != null) {
+            actorCache.asMap().keySet().removeIf(key -> key.getEntityType() == null || entityType == null
+                    || entityType.isSuperTypeOf(key.getEntityType()) || key.getEntityType().isSuperTypeOf(entityType));
         }
+    }
+
+    private Payload getActorByClaims(final String realm, final String client, final EClass actorType, final Map<String, Object> claims) {
+        final EAttribute filterAttribute = actorClaims.computeIfAbsent(actorType, this::resolveActorClaims).getFilterAttribute(claims);
 
         final Integer operator;
         final Object value;
@@ -160,6 +184,32 @@ public class DefaultActorResolver<ID> implements ActorResolver {
             value = null;
         }
 
+        // actors are not cached if filter is not supported (first actor is returned)
+        final ActorKey key = actorCache != null && operator != null
+                ? new ActorKey(realm, client, actorType, asmUtils.getMappedEntityType(actorType).orElse(null), filterAttribute, value)
+                : null;
+        final Payload cachedActor = key != null ? actorCache.getIfPresent(key) : null;
+
+        final Payload result;
+        if (cachedActor != null) {
+            result = Payload.asPayload(cachedActor);
+        } else {
+            result = loadActor(actorType, filterAttribute, operator, value);
+            if (key != null) {
+                actorCache.put(key, Payload.asPayload(result));
+            }
+        }
+
+        // add transient attributes (claims) from Access Token
+        result.putAll(claims.entrySet().stream()
+                .filter(e -> e.getValue() != null)
+                .filter(e -> actorType.getEAllAttributes().stream().anyMatch(a -> Objects.equals(a.getName(), e.getKey()) && annotatedAsTrue(a, "transient")))
+                .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue())));
+
+        return result;
+    }
+
+    private Payload loadActor(final EClass actorType, final EAttribute filterAttribute, final Integer operator, final Object value) {
         final String filter;
         if (operator != null) {
             filter = QueryCustomizerParameterProcessor.convertFilterToJql(filterAttribute, operator, value, false);
@@ -188,13 +238,55 @@ public class DefaultActorResolver<ID> implements ActorResolver {
             throw new SecurityException("Multiple actors found in database by token");
         }
 
-        final Payload result = queryResult.get(0);
-        // add transient attributes (claims) from Access Token
-        result.putAll(claims.entrySet().stream()
-                .filter(e -> e.getValue() != null)
-                .filter(e -> actorType.getEAllAttributes().stream().anyMatch(a -> Objects.equals(a.getName(), e.getKey()) && annotatedAsTrue(a, "transient")))
-                .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue())));
+        return queryResult.get(0);
+    }
 
-        return result;
+    private ActorClaims resolveActorClaims(final EClass actorType) {
+        return new ActorClaims(
+                actorType.getEAllAttributes().stream()
+                        .filter(claim -> Objects.equals(getExtensionAnnotationValue(claim, "claim", false).orElse("-"), "USERNAME"))
+                        .findAny()
+                        .orElse(null),
+                actorType.getEAllAttributes().stream()
+                        .filter(claim -> Objects.equals(getExtensionAnnotationValue(claim, "claim", false).orElse("-"), "EMAIL"))
+                        .findAny()
+                        .orElse(null),
+                actorType.getEAllAttributes().stream()
+                        .filter(actorAttribute -> asmUtils.getMappedAttribute(actorAttribute).filter(a -> isIdentifier(a)).isPresent())
+                        .sorted((a1, a2) -> AsmUtils.equals(a1, a2) ? 0 : a1.getName().compareTo(a2.getName()))
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Attributes of an actor type that can be used to find actor instance by claims.
+     */
+    @Value
+    private static class ActorClaims {
+        EAttribute usernameClaim;
+        EAttribute emailClaim;
+        List<EAttribute> identifierAttributes;
+
+        EAttribute getFilterAttribute(final Map<String, Object> claims) {
+            if (usernameClaim != null && claims.get(usernameClaim.getName()) != null) {
+                return usernameClaim;
+            } else if (emailClaim != null && claims.get(emailClaim.getName()) != null) {
+                return emailClaim;
+            } else {
+                return identifierAttributes.stream()
+                        .filter(actorAttribute -> claims.containsKey(actorAttribute.getName()))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalStateException("ID attribute in Entity ∂type matching any access token claim not found"));
+            }
+        }
+    }
+
+    @Value
+    private static class ActorKey {
+        String realm;
+        String client;
+        EClass actorType;
+        EClass entityType;
+        EAttribute filterAttribute;
+        Object value;
     }
 }
@@ -55,6 +55,7 @@ import org.springframework.transaction.support.DefaultTransactionDefinition;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -68,7 +69,7 @@ import static hu.blackbelt.judo.runtime.core.validator.Validator.*;
 import static java.util.Optional.ofNullable;
 
 @Slf4j
-public class DefaultDispatcher<ID> implements Dispatcher {
+public class DefaultDispatcher<ID> implements Dispatcher, AutoCloseable {
 
     public static final String UPDATEABLE_KEY = "__updateable";
     public static final String DELETEABLE_KEY = "__deleteable";
@@ -98,6 +99,8 @@ public class DefaultDispatcher<ID> implements Dispatcher {
     private static final String METRICS_SDK_CALL = "call-sdk";
     private static final String METRICS_JUDO_CALL = "call-judo";
 
+    public static final int DEFAULT_PARALLEL_SIGNING_THRESHOLD = 500;
+
     public static final String ASM_EXTENSION_ANNOTATION_INPUT_RANGE = "inputRange";
     public static final String ASM_EXTENSION_ANNOTATION_BINDING = "binding";
 
@@ -153,6 +156,8 @@ public class DefaultDispatcher<ID> implements Dispatcher {
 
     private final Locale defaultLocale;
 
+    private final BatchIdentifierSigner batchIdentifierSigner;
+
     @SuppressWarnings("unchecked")
     private void setupBehaviourCalls(DAO<ID> dao, IdentifierProvider<ID> identifierProvider, AsmModel asmModel) {
         ServiceContext serviceContext = ServiceContext.<ID>builder()
@@ -217,7 +222,10 @@ public class DefaultDispatcher<ID> implements Dispatcher {
             Boolean enableValidation,
             Boolean trimString,
             Boolean caseInsensitiveLike,
-            Locale defaultLocale) {
+            Locale defaultLocale,
+            Integer parallelSigningThreshold,
+            Integer signingParallelism,
+            ExecutorService signingExecutor) {
         this.asmModel = asmModel;
         this.dao = dao;
         this.identifierProvider = identifierProvider;
@@ -251,6 +259,11 @@ public class DefaultDispatcher<ID> implements Dispatcher {
 
         this.caseInsensitiveLike = Objects.requireNonNullElse(caseInsensitiveLike, false);
 
+        this.batchIdentifierSigner = new BatchIdentifierSigner(identifierSigner,
+                Objects.requireNonNullElse(parallelSigningThreshold, DEFAULT_PARALLEL_SIGNING_THRESHOLD),
+                Objects.requireNonNullElseGet(signingParallelism, () -> Runtime.getRuntime().availableProcessors()),
+                signingExecutor);
+
         this.openIdConfigurationProvider = openIdConfigurationProvider;
 
         this.filestoreTokenIssuer = Objects.requireNonNullElseGet(filestoreTokenIssuer, () -> new TokenIssuer() {
@@ -364,6 +377,24 @@ public class DefaultDispatcher<ID> implements Dispatcher {
         }
     }
 
+    /**
+     * Get entity type written by a stateful operation call, cached actors of this type have to be invalidated.
+     *
+     * @param callType   call type of operation
+     * @param behaviour  behaviour of operation
+     * @param entityType entity type of bound instance
+     * @return entity type of bound instance if only this instance is written (updated or deleted), <code>null</code>
+     * if any entity can be written by operation (i.e. create, reference changes, scripts, SDK calls)
+     */
+    static EClass getWrittenEntityType(final String callType, final AsmUtils.OperationBehaviour behaviour, final EClass entityType) {
+        if (BEHAVIOUR.equals(callType)
+                && (AsmUtils.OperationBehaviour.UPDATE_INSTANCE.equals(behaviour) || AsmUtils.OperationBehaviour.DELETE_INSTANCE.equals(behaviour))) {
+            return entityType;
+        } else {
+            return null;
+        }
+    }
+
     private Set<BehaviourCall<ID>> getBehaviourCalls() {
         if (behaviourCalls == null) {
             setupBehaviourCalls(dao, identifierProvider, asmModel);
@@ -414,14 +445,16 @@ public class DefaultDispatcher<ID> implements Dispatcher {
                 return;
             }
 
-            final ResponseConverter responseConverter = ResponseConverter.builder()
-                    .transferObjectType((EClass) operationType)
+            // response converters are cached because conversion rules are compiled per transfer object type, conversion
+            // does not depend on locale of client (so number of cached converters is bounded by the model)
+            final ResponseConverter responseConverter = responseConverters.computeIfAbsent((EClass) operationType, transferObjectType -> ResponseConverter.builder()
+                    .transferObjectType(transferObjectType)
                     .coercer(dataTypeManager.getCoercer())
                     .asmModel(asmModel)
                     .keepProperties(Arrays.asList(identifierProvider.getName(), UPDATEABLE_KEY, DELETEABLE_KEY, SELECTED_ITEM_KEY, REFERENCE_ID_KEY, Dispatcher.ENTITY_TYPE_MAP_KEY, VERSION_KEY))
                     .filestoreTokenIssuer(filestoreTokenIssuer)
-                    .locale(locale)
-                    .build();
+                    .locale(defaultLocale)
+                    .build());
 
             if (isMany) {
                 final Collection<Payload> payloadList = ((Collection<Map<String, Object>>) result.get(outputParameterName)).stream()
@@ -429,7 +462,7 @@ public class DefaultDispatcher<ID> implements Dispatcher {
                         .filter(Objects::nonNull)
                         .collect(Collectors.toList());
                 result.put(outputParameterName, payloadList);
-                payloadList.forEach(payload -> identifierSigner.signIdentifiers(producedBy, payload, immutable));
+                batchIdentifierSigner.signIdentifiers(producedBy, payloadList, immutable);
             } else {
                 responseConverter.convert((Map<String, Object>) result.get(outputParameterName))
                         .ifPresent((payload) -> {
@@ -482,6 +515,8 @@ public class DefaultDispatcher<ID> implements Dispatcher {
             }
             int idx = 0;
             final List<Payload> payloadList = new ArrayList<>();
+            // identifier uniqueness of all items is checked at once
+            requestConverter.shareGlobalValidationContext(validationContext);
             for (Iterator<Map<String, Object>> it = parameterList.iterator(); it.hasNext(); idx++) {
                 validationContext.put(LOCATION_KEY, parameter.getName() + "[" + idx + "]");
                 final Map<String, Object> input = it.next();
@@ -510,6 +545,7 @@ public class DefaultDispatcher<ID> implements Dispatcher {
                     validationResults.addAll(rangeValidator.validateValue(Payload.asPayload(exchange), reference, Payload.asPayload(input), validationContext));
                 }
             }
+            validationResults.addAll(requestConverter.validateSharedValues(validationContext));
             exchange.put(parameter.getName(), payloadList);
         } else {
             try {
@@ -603,6 +639,8 @@ public class DefaultDispatcher<ID> implements Dispatcher {
 
     private LoadingCache<String, Optional<EOperation>> operationCache = CacheBuilder.newBuilder().build(operationLoader);
 
+    private final Map<EClass, ResponseConverter> responseConverters = new ConcurrentHashMap<>();
+
     @Override
     public Map<String, Object> callOperation(final String operationFullyQualifiedName, final Map<String, Object> exchange) {
         MDC.put("operation", operationFullyQualifiedName);
@@ -785,6 +823,10 @@ public class DefaultDispatcher<ID> implements Dispatcher {
                 MDC.put("operation", operationFullyQualifiedName); // reset operation
             }
 
+            if (exposed && !stateless) {
+                actorResolver.invalidateActors(getWrittenEntityType(callType, behaviour.orElse(null), entityType.orElse(null)));
+            }
+
             final ETypedElement producedBy;
             if ((AsmUtils.OperationBehaviour.REFRESH.equals(behaviour.orElse(null)) || AsmUtils.OperationBehaviour.UPDATE_INSTANCE.equals(behaviour.orElse(null)))
                     && signedIdentifier.isPresent()) {
@@ -847,4 +889,11 @@ public class DefaultDispatcher<ID> implements Dispatcher {
         return dataTypeManager.getCoercer().coerce(sourceValue, targetClass);
     }
 
+    /**
+     * Shut down signing pool created by dispatcher (shared signing executor is not shut down).
+     */
+    @Override
+    public void close() {
+        batchIdentifierSigner.close();
+    }
 }
@@ -20,6 +20,8 @@ package hu.blackbelt.judo.runtime.core.dispatcher;
  * #L%
  */
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import hu.blackbelt.judo.dao.api.IdentifierProvider;
 import hu.blackbelt.judo.dao.api.ValidationResult;
 import hu.blackbelt.judo.dispatcher.api.Dispatcher;
@@ -27,6 +29,7 @@ import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
 import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
 import hu.blackbelt.judo.runtime.core.accessmanager.api.SignedIdentifier;
 import hu.blackbelt.judo.runtime.core.DataTypeManager;
+import hu.blackbelt.judo.runtime.core.MetricsCollector;
 import hu.blackbelt.judo.runtime.core.exception.AccessDeniedException;
 import hu.blackbelt.judo.runtime.core.dispatcher.security.IdentifierSigner;
 import lombok.*;
@@ -50,6 +53,7 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.ECParameterSpec;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -69,6 +73,12 @@ public class DefaultIdentifierSigner<ID> implements IdentifierSigner {
 
     private static final String VERSION_KEY = "__version";
 
+    public static final int DEFAULT_VERIFIED_IDENTIFIER_CACHE_SIZE = 10000;
+    public static final int DEFAULT_VERIFIED_IDENTIFIER_CACHE_TTL = 600;
+
+    public static final String METRICS_VERIFIED_IDENTIFIER_CACHE_HIT = "verified-identifier-cache-hit";
+    public static final String METRICS_VERIFIED_IDENTIFIER_CACHE_MISS = "verified-identifier-cache-miss";
+
     @NonNull
     @Setter
     AsmModel asmModel;
@@ -81,82 +91,161 @@ public class DefaultIdentifierSigner<ID> implements IdentifierSigner {
     @Setter
     DataTypeManager dataTypeManager;
 
-    private AsmUtils asmUtils;
-
-    private Key privateKey;
-    private Key publicKey;
-
     @Builder.Default
     String algorithm = AlgorithmIdentifiers.HMAC_SHA512;
 
+    /**
+     * Base64 encoded secret of HMAC algorithms, it is required by compact token format (MAC key of compact tokens is
+     * derived from it).
+     */
     @Setter
     String secret;
 
     @Setter
     String keys;
 
-    protected void configureKeys() {
-        asmUtils = new AsmUtils(asmModel.getResourceSet());
+    /**
+     * Maximum number of verified signed identifiers kept in cache, 0 disables caching.
+     */
+    @Setter
+    Integer verifiedIdentifierCacheSize;
+
+    /**
+     * Time to live of verified signed identifiers in cache (in seconds).
+     */
+    @Setter
+    Integer verifiedIdentifierCacheTtl;
+
+    @Setter
+    MetricsCollector metricsCollector;
+
+    /**
+     * Format of signed identifiers (JWS by default). Both formats are accepted on verification (compact tokens only if
+     * secret is configured) so format can be changed without invalidating identifiers already sent to clients.
+     */
+    @Setter
+    TokenFormat tokenFormat;
+
+    /**
+     * Keys and state derived from configuration, created once and published as a whole (signer is used by parallel
+     * threads).
+     */
+    private volatile State state;
+
+    public enum TokenFormat {
+        /**
+         * JOSE JWS with JSON claims (signed by configured algorithm).
+         */
+        JWS,
+        /**
+         * Compact binary token authenticated by truncated HMAC-SHA256 (see {@link CompactIdentifierTokenCodec}), secret
+         * must be configured.
+         */
+        COMPACT
+    }
+
+    private State configureKeys() {
+        final boolean hasSecret = secret != null && !"".equals(secret);
+        if (tokenFormat == TokenFormat.COMPACT && !hasSecret) {
+            // random key would make compact tokens invalid after restart and on other nodes
+            throw new IllegalStateException("Secret is required by compact signed identifier format");
+        }
+
+        final AsmUtils asmUtils = new AsmUtils(asmModel.getResourceSet());
+        final SigningKeys signingKeys;
         if (algorithm.startsWith("HS")) {
-            loadHMACKey();
+            signingKeys = loadHMACKey();
         } else if (algorithm.startsWith("RS")) {
-            loadRSAKey();
+            signingKeys = loadRSAKey();
         } else if (algorithm.startsWith("ES")) {
-            loadECKey();
+            signingKeys = loadECKey();
         } else if (algorithm.startsWith("PS")) {
-            loadRSAKey();
-        } else if (!AlgorithmIdentifiers.NONE.equals(algorithm)) {
+            signingKeys = loadRSAKey();
+        } else if (AlgorithmIdentifiers.NONE.equals(algorithm)) {
+            signingKeys = new SigningKeys(null, null);
+        } else {
             throw new UnsupportedOperationException("Unsupported JWT algorithm: " + algorithm);
         }
+
+        final CompactIdentifierTokenCodec compactTokenCodec = hasSecret
+                ? new CompactIdentifierTokenCodec(Base64.getDecoder().decode(secret), asmUtils)
+                : null;
+
+        final int cacheSize = Objects.requireNonNullElse(verifiedIdentifierCacheSize, DEFAULT_VERIFIED_IDENTIFIER_CACHE_SIZE);
+        final Cache<VerifiedIdentifierKey, SignedIdentifier> verifiedIdentifierCache;
+        if (cacheSize > 0) {
+            verifiedIdentifierCache = CacheBuilder.newBuilder()
+                    .maximumSize(cacheSize)
+                    .expireAfterWrite(Objects.requireNonNullElse(verifiedIdentifierCacheTtl, DEFAULT_VERIFIED_IDENTIFIER_CACHE_TTL), TimeUnit.SECONDS)
+                    .build();
+        } else {
+            verifiedIdentifierCache = null;
+        }
+
+        return new State(asmUtils, signingKeys.getPrivateKey(), signingKeys.getPublicKey(), compactTokenCodec, verifiedIdentifierCache);
+    }
+
+    /**
+     * Configure keys once, state is published by a single volatile write so threads never see partially configured
+     * signer (keys are immutable, JWS instances are not shared).
+     */
+    private State getState() {
+        State current = state;
+        if (current == null) {
+            synchronized (this) {
+                current = state;
+                if (current == null) {
+                    current = configureKeys();
+                    state = current;
+                }
+            }
+        }
+        return current;
     }
 
-    private void loadRSAKey() {
+    private SigningKeys loadRSAKey() {
         try {
             if (keys != null && !"".equals(keys)) {
                 log.info("Loading RSA key pair...");
                 final PublicJsonWebKey jsonWebKey = PublicJsonWebKey.Factory.newPublicJwk(new String(Base64.getDecoder().decode(keys)));
-                privateKey = jsonWebKey.getPrivateKey();
-                publicKey = jsonWebKey.getPublicKey();
+                return new SigningKeys(jsonWebKey.getPrivateKey(), jsonWebKey.getPublicKey());
             } else {
                 log.info("Generating RSA key pair...");
                 final RsaJsonWebKey rsaJsonWebKey = RsaJwkGenerator.generateJwk(GENERATED_RSA_KEY_SIZE);
                 if (log.isTraceEnabled()) {
                     log.trace("Generated RSA key: {}", rsaJsonWebKey.toJson(JsonWebKey.OutputControlLevel.INCLUDE_PRIVATE));
                 }
-                privateKey = rsaJsonWebKey.getPrivateKey();
-                publicKey = rsaJsonWebKey.getPublicKey();
+                return new SigningKeys(rsaJsonWebKey.getPrivateKey(), rsaJsonWebKey.getPublicKey());
             }
         } catch (JoseException ex) {
             throw new IllegalStateException("Unable to initialize RSA key", ex);
         }
     }
 
-    private void loadECKey() {
+    private SigningKeys loadECKey() {
         try {
             if (keys != null && !"".equals(keys)) {
                 log.info("Loading EC key pair...");
                 final PublicJsonWebKey jsonWebKey = PublicJsonWebKey.Factory.newPublicJwk(new String(Base64.getDecoder().decode(keys)));
-                privateKey = jsonWebKey.getPrivateKey();
-                publicKey = jsonWebKey.getPublicKey();
+                return new SigningKeys(jsonWebKey.getPrivateKey(), jsonWebKey.getPublicKey());
             } else {
                 log.info("Generating EC key pair...");
                 final EllipticCurveJsonWebKey ellipticCurveJsonWebKey = EcJwkGenerator.generateJwk(GENERATED_EC_KEY_SPEC);
                 if (log.isTraceEnabled()) {
                     log.trace("Generated EC key: {}", ellipticCurveJsonWebKey.toJson(JsonWebKey.OutputControlLevel.INCLUDE_PRIVATE));
                 }
-                privateKey = ellipticCurveJsonWebKey.getEcPrivateKey();
-                publicKey = ellipticCurveJsonWebKey.getECPublicKey();
+                return new SigningKeys(ellipticCurveJsonWebKey.getEcPrivateKey(), ellipticCurveJsonWebKey.getECPublicKey());
             }
         } catch (JoseException ex) {
             throw new IllegalStateException("Unable to initialize EC key", ex);
         }
     }
 
-    private void loadHMACKey() {
+    private SigningKeys loadHMACKey() {
         if (secret != null && !"".equals(secret)) {
             log.info("Loading HMAC secret...");
-            privateKey = new HmacKey(Base64.getDecoder().decode(secret));
-            publicKey = privateKey;
+            final Key key = new HmacKey(Base64.getDecoder().decode(secret));
+            return new SigningKeys(key, key);
         } else {
             try {
                 log.info("Generating HMAC secret...");
@@ -166,8 +255,8 @@ public class DefaultIdentifierSigner<ID> implements IdentifierSigner {
                 if (log.isTraceEnabled()) {
                     log.trace("Generated secret: {}", Base64.getEncoder().encodeToString(values));
                 }
-                privateKey = new HmacKey(values);
-                publicKey = privateKey;
+                final Key key = new HmacKey(values);
+                return new SigningKeys(key, key);
             } catch (NoSuchAlgorithmException ex) {
                 throw new IllegalStateException("Unable to initialize identifier signer");
             }
@@ -175,18 +264,19 @@ public class DefaultIdentifierSigner<ID> implements IdentifierSigner {
     }
 
 
-    @SuppressWarnings("unchecked")
     @Override
     public void signIdentifiers(final ETypedElement typedElement, final Map<String, Object> payload, final boolean immutable) {
-        if (privateKey == null) {
-            configureKeys();
-        }
+        signIdentifiers(getState(), typedElement, payload, immutable);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void signIdentifiers(final State state, final ETypedElement typedElement, final Map<String, Object> payload, final boolean immutable) {
         if (typedElement.getEType() instanceof EClass) {
             final ID id = (ID) payload.get(identifierProvider.getName());
             final String entityType = (String) payload.get(Dispatcher.ENTITY_TYPE_MAP_KEY);
             final Integer version = (Integer) payload.get(VERSION_KEY);
-            if (asmUtils.isMappedTransferObjectType((EClass) typedElement.getEType()) && id != null) {
-                payload.put(SIGNED_IDENTIFIER_KEY, sign(typedElement, id, entityType, version, immutable));
+            if (state.getAsmUtils().isMappedTransferObjectType((EClass) typedElement.getEType()) && id != null) {
+                payload.put(SIGNED_IDENTIFIER_KEY, sign(state, typedElement, id, entityType, version, immutable));
 
                 final boolean updateable;
                 final boolean deleteable;
@@ -216,9 +306,9 @@ public class DefaultIdentifierSigner<ID> implements IdentifierSigner {
                     .forEach(reference -> {
                         if (reference.isMany()) {
                             ((Collection<Map<String, Object>>) payload.get(reference.getName()))
-                                    .forEach(containment -> signIdentifiers(reference, containment, immutable));
+                                    .forEach(containment -> signIdentifiers(state, reference, containment, immutable));
                         } else {
-                            signIdentifiers(reference, (Map<String, Object>) payload.get(reference.getName()), immutable);
+                            signIdentifiers(state, reference, (Map<String, Object>) payload.get(reference.getName()), immutable);
                         }
                     });
         }
@@ -226,14 +316,12 @@ public class DefaultIdentifierSigner<ID> implements IdentifierSigner {
 
     @Override
     public Optional<SignedIdentifier> extractSignedIdentifier(final EClass clazz, final Map<String, Object> payload) {
-        if (privateKey == null) {
-            configureKeys();
-        }
+        final State state = getState();
 
         final String signedIdentifierAsString = (String) payload.get(SIGNED_IDENTIFIER_KEY);
 
-        if (asmUtils.isMappedTransferObjectType(clazz) && signedIdentifierAsString != null) {
-            final SignedIdentifier signedIdentifier = verify(signedIdentifierAsString);
+        if (state.getAsmUtils().isMappedTransferObjectType(clazz) && signedIdentifierAsString != null) {
+            final SignedIdentifier signedIdentifier = verifyCached(state, signedIdentifierAsString);
 
             final Object originalId = payload.get(identifierProvider.getName());
             if (originalId != null) {
@@ -257,7 +345,7 @@ public class DefaultIdentifierSigner<ID> implements IdentifierSigner {
             }
             checkArgument(signedIdentifier.getProducedBy() != null, "Unable to check source of data");
 
-            if (!hasCorrectSigner((EClass) signedIdentifier.getProducedBy().getEType(), clazz)) {
+            if (!hasCorrectSigner(state.getAsmUtils(), (EClass) signedIdentifier.getProducedBy().getEType(), clazz)) {
                 log.info("Mapped transfer object type {} does not match type of signed identifier {}", AsmUtils.getClassifierFQName(clazz), AsmUtils.getClassifierFQName(signedIdentifier.getProducedBy().getEType()));
                 throw new AccessDeniedException(ValidationResult.builder()
                         .code("ACCESS_DENIED_INVALID_TYPE")
@@ -273,15 +361,15 @@ public class DefaultIdentifierSigner<ID> implements IdentifierSigner {
         }
     }
 
-    private EClass getOverrideOfClass(EClass clazz) {
+    private static EClass getOverrideOfClass(AsmUtils asmUtils, EClass clazz) {
         return AsmUtils.getExtensionAnnotationValue(clazz, "override", false)
                 .map(fqName -> asmUtils.resolve(fqName).filter(c -> c instanceof EClass).map(c -> (EClass) c).orElse(null))
                 .orElse(null);
     }
 
-    private boolean hasCorrectSigner(EClass signerClass, EClass accessedClass) {
-        final EClass accessedClassOverride = getOverrideOfClass(accessedClass);
-        final EClass signerClassOverride = getOverrideOfClass(signerClass);
+    private static boolean hasCorrectSigner(AsmUtils asmUtils, EClass signerClass, EClass accessedClass) {
+        final EClass accessedClassOverride = getOverrideOfClass(asmUtils, accessedClass);
+        final EClass signerClassOverride = getOverrideOfClass(asmUtils, signerClass);
 
         return AsmUtils.equals(signerClass, accessedClass) ||
                 AsmUtils.equals(signerClass, accessedClassOverride) ||
@@ -290,9 +378,22 @@ public class DefaultIdentifierSigner<ID> implements IdentifierSigner {
                 (accessedClassOverride != null && signerClass.getEAllSuperTypes().contains(accessedClassOverride));
     }
 
-    private String sign(final ETypedElement typedElement, final ID id, final String entityType, final Integer version, final Boolean immutable) {
+    private String sign(final State state, final ETypedElement typedElement, final ID id, final String entityType, final Integer version, final Boolean immutable) {
         final String idAsString = dataTypeManager.getCoercer().coerce(id, String.class);
 
+        final String issuer;
+        if (typedElement instanceof EReference) {
+            issuer = AsmUtils.getReferenceFQName((EReference) typedElement);
+        } else if (typedElement instanceof EOperation) {
+            issuer = AsmUtils.getOperationFQName((EOperation) typedElement);
+        } else {
+            issuer = null;
+        }
+
+        if (tokenFormat == TokenFormat.COMPACT) {
+            return state.getCompactTokenCodec().encode(idAsString, issuer, entityType, version, Boolean.TRUE.equals(immutable));
+        }
+
         final JwtClaims claims = new JwtClaims();
         claims.setSubject(idAsString);
         claims.setIssuedAtToNow();
@@ -303,14 +404,12 @@ public class DefaultIdentifierSigner<ID> implements IdentifierSigner {
         if (Boolean.TRUE.equals(immutable)) {
             claims.setClaim(IMMUTABLE, true);
         }
-        if (typedElement instanceof EReference) {
-            claims.setIssuer(AsmUtils.getReferenceFQName((EReference) typedElement));
-        } else if (typedElement instanceof EOperation) {
-            claims.setIssuer(AsmUtils.getOperationFQName((EOperation) typedElement));
+        if (issuer != null) {
+            claims.setIssuer(issuer);
         }
 
         final JsonWebSignature jws = new JsonWebSignature();
-        jws.setKey(privateKey);
+        jws.setKey(state.getPrivateKey());
         jws.setPayload(claims.toJson());
         jws.setAlgorithmHeaderValue(algorithm);
 
@@ -321,36 +420,97 @@ public class DefaultIdentifierSigner<ID> implements IdentifierSigner {
         }
     }
 
-    private SignedIdentifier verify(final String signedIdentifierAsString) {
+    /**
+     * Verify signed identifier, verified identifiers are cached by token and verification key so repeated
+     * verifications (i.e. same instances of a session) do not check signature again. Invalid tokens are not cached.
+     */
+    private SignedIdentifier verifyCached(final State state, final String signedIdentifierAsString) {
+        final Cache<VerifiedIdentifierKey, SignedIdentifier> cache = state.getVerifiedIdentifierCache();
+        if (cache == null) {
+            return verify(state, signedIdentifierAsString);
+        }
+
+        final VerifiedIdentifierKey key = new VerifiedIdentifierKey(state.getPublicKey(), signedIdentifierAsString);
+        SignedIdentifier signedIdentifier = cache.getIfPresent(key);
+        if (signedIdentifier != null) {
+            incrementMetrics(METRICS_VERIFIED_IDENTIFIER_CACHE_HIT);
+        } else {
+            incrementMetrics(METRICS_VERIFIED_IDENTIFIER_CACHE_MISS);
+            signedIdentifier = verify(state, signedIdentifierAsString);
+            cache.put(key, signedIdentifier);
+        }
+        return signedIdentifier;
+    }
+
+    private void incrementMetrics(final String key) {
+        if (metricsCollector != null) {
+            metricsCollector.increment(key, 1);
+        }
+    }
+
+    private SignedIdentifier verify(final State state, final String signedIdentifierAsString) {
+        if (CompactIdentifierTokenCodec.isCompactToken(signedIdentifierAsString)) {
+            if (state.getCompactTokenCodec() == null) {
+                throw new IllegalStateException("Invalid signed identifier, compact format is not configured");
+            }
+            final CompactIdentifierTokenCodec.Token token = state.getCompactTokenCodec().decode(signedIdentifierAsString);
+            return toSignedIdentifier(state.getAsmUtils(), token.getIdentifier(), token.getIssuer(), token.getEntityType(), token.getVersion(), token.getImmutable());
+        }
+
         final JwtConsumer jwtConsumer = new JwtConsumerBuilder()
                 .setRelaxVerificationKeyValidation()
                 .setRequireSubject()
-                .setVerificationKey(publicKey)
+                .setVerificationKey(state.getPublicKey())
                 .setJwsAlgorithmConstraints(AlgorithmConstraints.ConstraintType.PERMIT, algorithm)
                 .build();
 
         try {
             final JwtClaims jwtClaims = jwtConsumer.processToClaims(signedIdentifierAsString);
 
-            final String issuer = jwtClaims.getIssuer();
-            final Optional<ETypedElement> issuerOperation = asmUtils.resolveOperation(issuer).map(operation -> operation);
-            final Optional<ETypedElement> issuerReference = asmUtils.resolveReference(issuer).map(reference -> reference);
             final String entityType = jwtClaims.getClaimValue(ENTITY_CLAIM, String.class);
             final String version = jwtClaims.getClaimValueAsString(ENTITY_VERSION);
             final Boolean immutable = jwtClaims.getClaimValue(IMMUTABLE, Boolean.class);
 
-            return SignedIdentifier.builder()
-                    .identifier(jwtClaims.getSubject())
-                    .producedBy(issuerOperation.orElse(issuerReference.orElse(null)))
-                    .entityType(entityType)
-                    .version(version != null ? Integer.parseInt(version) : null)
-                    .immutable(immutable)
-                    .build();
+            return toSignedIdentifier(state.getAsmUtils(), jwtClaims.getSubject(), jwtClaims.getIssuer(), entityType, version != null ? Integer.parseInt(version) : null, immutable);
         } catch (InvalidJwtException | MalformedClaimException e) {
             throw new IllegalStateException("Invalid signed identifier", e);
         }
     }
 
+    private static SignedIdentifier toSignedIdentifier(final AsmUtils asmUtils, final String identifier, final String issuer, final String entityType, final Integer version, final Boolean immutable) {
+        final Optional<ETypedElement> issuerOperation = asmUtils.resolveOperation(issuer).map(operation -> operation);
+        final Optional<ETypedElement> issuerReference = asmUtils.resolveReference(issuer).map(reference -> reference);
+
+        return SignedIdentifier.builder()
+                .identifier(identifier)
+                .producedBy(issuerOperation.orElse(issuerReference.orElse(null)))
+                .entityType(entityType)
+                .version(version)
+                .immutable(immutable)
+                .build();
+    }
+
+    @Value
+    private static class SigningKeys {
+        Key privateKey;
+        Key publicKey;
+    }
+
+    @Value
+    private static class State {
+        AsmUtils asmUtils;
+        Key privateKey;
+        Key publicKey;
+        CompactIdentifierTokenCodec compactTokenCodec;
+        Cache<VerifiedIdentifierKey, SignedIdentifier> verifiedIdentifierCache;
+    }
+
+    @Value
+    private static class VerifiedIdentifierKey {
+        Key verificationKey;
+        String signedIdentifier;
+    }
+
     public static void main(String[] args) throws NoSuchAlgorithmException {
         final SecureRandom random = SecureRandom.getInstanceStrong();
         final byte[] values = new byte[GENERATED_SECRET_KEY_SIZE / 8];
@@ -93,6 +93,14 @@ public class DefaultMetricsCollector implements MetricsCollector {
         }
     }
 
+    @Override
+    public void increment(final String key, final long delta) {
+        if (enabled) {
+            context.putIfAbsent(FRAMEWORK_METRICS, new TreeMap<>());
+            incrementCounter(key, delta);
+        }
+    }
+
     @Override
     public Map<String, AtomicLong> getMetrics() {
         if (enabled) {
@@ -51,6 +51,7 @@ import java.util.*;
 import java.util.function.Function;
 
 import static hu.blackbelt.judo.meta.asm.runtime.AsmUtils.*;
+import static hu.blackbelt.judo.runtime.core.validator.DefaultPayloadValidator.BATCH_VALIDATION_KEY;
 import static hu.blackbelt.judo.runtime.core.validator.DefaultPayloadValidator.LOCATION_KEY;
 import static hu.blackbelt.judo.runtime.core.validator.DefaultPayloadValidator.VALIDATION_RESULT_KEY;
 import static hu.blackbelt.judo.runtime.core.validator.Validator.*;
@@ -131,6 +132,7 @@ public class RequestConverter {
 
     }
 
+    @SuppressWarnings("unchecked")
     public Optional<Payload> convert(final Map<String, Object> input, final Map<String, Object> validationContext) throws ValidationException {
         if (input == null) {
             return Optional.empty();
@@ -138,7 +140,12 @@ public class RequestConverter {
 
         final Map<String, Object> rootContext = new TreeMap<>(validationContext);
 
-        rootContext.put(GLOBAL_VALIDATION_CONTEXT, new HashMap<String, Object>());
+        // global validation context is shared by payloads of a list parameter, collected values are validated by caller
+        final boolean shared = validationContext.get(GLOBAL_VALIDATION_CONTEXT) instanceof Map;
+        final Map<String, Object> globalValidationContext = shared
+                ? (Map<String, Object>) validationContext.get(GLOBAL_VALIDATION_CONTEXT)
+                : createGlobalValidationContext();
+        rootContext.put(GLOBAL_VALIDATION_CONTEXT, globalValidationContext);
 
         final List<ValidationResult> validationResults = new ArrayList<>(validateIdentifier(transferObjectType, input, rootContext));
         final Payload payload = Payload.asPayload(input);
@@ -155,6 +162,10 @@ public class RequestConverter {
             log.debug("Invalid payload", ex);
         }
 
+        if (!shared) {
+            validationResults.addAll(validateCollectedValues(globalValidationContext));
+        }
+
         if (throwValidationException && !validationResults.isEmpty()) {
             throw new ValidationException("Validation failed", Collections.unmodifiableCollection(validationResults));
         } else {
@@ -164,6 +175,45 @@ public class RequestConverter {
         return Optional.of(payload);
     }
 
+    /**
+     * Share global validation context by all payloads converted with the given validation context (i.e. items of a list
+     * parameter) until {@link #validateSharedValues(Map)} is called, so values collected for batch validation are
+     * checked at once.
+     *
+     * @param validationContext validation context used to convert payloads
+     */
+    public void shareGlobalValidationContext(final Map<String, Object> validationContext) {
+        validationContext.put(GLOBAL_VALIDATION_CONTEXT, createGlobalValidationContext());
+    }
+
+    /**
+     * Validate values collected from payloads converted with shared global validation context and stop sharing it.
+     *
+     * @param validationContext validation context used to convert payloads
+     * @return validation results of collected values
+     */
+    @SuppressWarnings("unchecked")
+    public List<ValidationResult> validateSharedValues(final Map<String, Object> validationContext) {
+        final Object globalValidationContext = validationContext.remove(GLOBAL_VALIDATION_CONTEXT);
+        if (globalValidationContext instanceof Map) {
+            return validateCollectedValues((Map<String, Object>) globalValidationContext);
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    private List<ValidationResult> validateCollectedValues(final Map<String, Object> globalValidationContext) {
+        final List<ValidationResult> validationResults = new ArrayList<>();
+        validatorProvider.getValidators().forEach(v -> validationResults.addAll(v.validateCollectedValues(globalValidationContext)));
+        return validationResults;
+    }
+
+    private static Map<String, Object> createGlobalValidationContext() {
+        final Map<String, Object> globalValidationContext = new HashMap<>();
+        globalValidationContext.put(BATCH_VALIDATION_KEY, true);
+        return globalValidationContext;
+    }
+
     private void processPayload(Payload instance, PayloadTraverser.PayloadTraverserContext ctx, Collection<ValidationResult> validationResults, Map<String, Object> validationContext, Map<String, Object> feedbackContext) {
 
         final String containerLocation = (String) validationContext.getOrDefault(LOCATION_KEY, "");
@@ -31,14 +31,24 @@ import hu.blackbelt.mapper.api.Coercer;
 import hu.blackbelt.osgi.filestore.security.api.DownloadClaim;
 import hu.blackbelt.osgi.filestore.security.api.Token;
 import hu.blackbelt.osgi.filestore.security.api.TokenIssuer;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.Singular;
 import org.eclipse.emf.ecore.*;
 
 import java.util.*;
-import java.util.stream.Stream;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Converting payloads of responses (enumeration literals, download tokens of binary attributes, removing unknown
+ * properties).
+ * <p>
+ * Conversion rules are compiled once per transfer object type (allowed keys, enumeration literals, binary attributes)
+ * and cached by converter instance so converting a list response does not scan the model.
+ */
 public class ResponseConverter {
 
     private final EClass transferObjectType;
@@ -53,6 +63,8 @@ public class ResponseConverter {
 
     private final Locale locale;
 
+    private final Map<EClass, TypeProjection> projections = new ConcurrentHashMap<>();
+
     @Builder
     public ResponseConverter(@NonNull EClass transferObjectType,
                              @NonNull AsmModel asmModel,
@@ -75,69 +87,101 @@ public class ResponseConverter {
 
         return Optional.of(PayloadTraverser.builder()
                 .predicate((reference) -> AsmUtils.isEmbedded(reference))
-                .processor((instance, ctx) -> {
-                    ctx.getType().getEAllAttributes().stream()
-                            .filter(a -> instance.get(a.getName()) != null) // missing and null values are not touched
-                            .forEach(a -> instance.put(a.getName(), a.getEAttributeType() instanceof EEnum
-                                    ? convertEnumerationValue(a.getEAttributeType(), (Integer) instance.get(a.getName()))
-                                    : convertNonEnumerationValue(a, instance.get(a.getName()))));
-                    for (final Iterator<Map.Entry<String, Object>> it = instance.entrySet().iterator(); it.hasNext(); ) {
-                        final Map.Entry<String, Object> entry = it.next();
-                        if (!ctx.getType().getEAllStructuralFeatures().stream()
-                                .filter(f -> !ctx.getType().getEAllStructuralFeatures().stream().anyMatch(d -> Objects.equals(f.getName(), AsmUtils.getExtensionAnnotationValue(d, "default", false).orElse("-"))))
-                                .anyMatch(f -> Objects.equals(f.getName(), entry.getKey()))
-                                && !keepProperties.contains(entry.getKey())
-                                || entry.getValue() == null) {
-                            it.remove();
-                        }
-                    }
-                })
+                .processor((instance, ctx) -> projections.computeIfAbsent(ctx.getType(), this::compile).project(instance))
                 .build()
                 .traverse(Payload.asPayload(input), transferObjectType));
     }
 
-    private final Object convertEnumerationValue(final EDataType dataType, final Integer oldValue) {
-        return Optional.ofNullable(asmUtils.all(EEnum.class)
-                        .filter(e -> AsmUtils.equals(e, dataType))
-                        .findAny()
-                        .orElseThrow(() -> new IllegalStateException("Invalid enumeration type: " + AsmUtils.getClassifierFQName(dataType)))
-                        .getEEnumLiteral(oldValue))
-                .map(l -> l.getLiteral())
-                .orElseThrow(() -> new IllegalArgumentException("Invalid enumeration value '" + oldValue + "' of type: " + AsmUtils.getClassifierFQName(dataType)));
+    private TypeProjection compile(final EClass type) {
+        final Set<String> defaultFeatureNames = type.getEAllStructuralFeatures().stream()
+                .map(f -> AsmUtils.getExtensionAnnotationValue(f, "default", false))
+                .flatMap(Optional::stream)
+                .collect(Collectors.toSet());
+
+        final Set<String> allowedKeys = new HashSet<>(keepProperties);
+        type.getEAllStructuralFeatures().stream()
+                .map(ENamedElement::getName)
+                .filter(name -> !defaultFeatureNames.contains(name))
+                .forEach(allowedKeys::add);
+
+        final List<Function<Object, Object>> converters = new ArrayList<>();
+        final List<String> attributeNames = new ArrayList<>();
+        type.getEAllAttributes().forEach(a -> {
+            attributeNames.add(a.getName());
+            converters.add(compileAttribute(a));
+        });
+
+        return new TypeProjection(attributeNames.toArray(new String[0]), converters, allowedKeys);
     }
 
-    @SuppressWarnings("unchecked")
-    private final Object convertNonEnumerationValue(final EAttribute attribute, final Object oldValue) {
-        if (AsmUtils.isByteArray(attribute.getEAttributeType()) && oldValue != null) {
+    private Function<Object, Object> compileAttribute(final EAttribute attribute) {
+        final EDataType dataType = attribute.getEAttributeType();
+        if (dataType instanceof EEnum) {
+            final EEnum enumeration = asmUtils.all(EEnum.class)
+                    .filter(e -> AsmUtils.equals(e, dataType))
+                    .findAny()
+                    .orElse(null);
+            if (enumeration == null) {
+                return value -> {
+                    throw new IllegalStateException("Invalid enumeration type: " + AsmUtils.getClassifierFQName(dataType));
+                };
+            }
+            final Map<Integer, String> literals = enumeration.getELiterals().stream()
+                    .collect(Collectors.toMap(EEnumLiteral::getValue, EEnumLiteral::getLiteral, (l1, l2) -> l1));
+            return value -> Optional.ofNullable(literals.get((Integer) value))
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid enumeration value '" + value + "' of type: " + AsmUtils.getClassifierFQName(dataType)));
+        } else if (AsmUtils.isByteArray(dataType)) {
             final Map<String, Object> context = new TreeMap<>();
             context.put(GetUploadTokenCall.ATTRIBUTE_KEY, AsmUtils.getAttributeFQName(attribute));
             final String contextString = new Gson().toJson(context);
+            return value -> convertBinaryValue(contextString, value);
+        } else {
+            final String instanceClassName = dataType.getInstanceClassName();
+            return value -> coercer.coerce(value, instanceClassName);
+        }
+    }
 
-            if (oldValue instanceof Token) {
-                return filestoreTokenIssuer.createDownloadToken((Token<DownloadClaim>) oldValue);
-            } else if (oldValue instanceof Map) {
-                return filestoreTokenIssuer.createDownloadToken(Token.<DownloadClaim>builder()
-                        .jwtClaim(DownloadClaim.FILE_ID, ((Map<String, Object>) oldValue).get(DownloadClaim.FILE_ID.getJwtClaimName()))
-                        .jwtClaim(DownloadClaim.FILE_NAME, ((Map<String, Object>) oldValue).get(DownloadClaim.FILE_NAME.getJwtClaimName()))
-                        .jwtClaim(DownloadClaim.FILE_SIZE, ((Map<String, Object>) oldValue).get(DownloadClaim.FILE_SIZE.getJwtClaimName()))
-                        .jwtClaim(DownloadClaim.FILE_MIME_TYPE, ((Map<String, Object>) oldValue).get(DownloadClaim.FILE_MIME_TYPE.getJwtClaimName()))
-                        .jwtClaim(DownloadClaim.CONTEXT, contextString)
-                        .jwtClaim(DownloadClaim.DISPOSITION, "attachment")
-                        .build());
-            } else if (oldValue instanceof FileType) {
-                return filestoreTokenIssuer.createDownloadToken(Token.<DownloadClaim>builder()
-                        .jwtClaim(DownloadClaim.FILE_ID, ((FileType) oldValue).getId())
-                        .jwtClaim(DownloadClaim.FILE_NAME, ((FileType) oldValue).getFileName())
-                        .jwtClaim(DownloadClaim.FILE_SIZE, ((FileType) oldValue).getSize())
-                        .jwtClaim(DownloadClaim.FILE_MIME_TYPE, ((FileType) oldValue).getMimeType())
-                        .jwtClaim(DownloadClaim.CONTEXT, contextString)
-                        .jwtClaim(DownloadClaim.DISPOSITION, "attachment")
-                        .build());
-            } else {
-                throw new IllegalStateException("Unknown binary data format: " + oldValue.getClass().getName());
-            }
+    @SuppressWarnings("unchecked")
+    private Object convertBinaryValue(final String contextString, final Object oldValue) {
+        if (oldValue instanceof Token) {
+            return filestoreTokenIssuer.createDownloadToken((Token<DownloadClaim>) oldValue);
+        } else if (oldValue instanceof Map) {
+            return filestoreTokenIssuer.createDownloadToken(Token.<DownloadClaim>builder()
+                    .jwtClaim(DownloadClaim.FILE_ID, ((Map<String, Object>) oldValue).get(DownloadClaim.FILE_ID.getJwtClaimName()))
+                    .jwtClaim(DownloadClaim.FILE_NAME, ((Map<String, Object>) oldValue).get(DownloadClaim.FILE_NAME.getJwtClaimName()))
+                    .jwtClaim(DownloadClaim.FILE_SIZE, ((Map<String, Object>) oldValue).get(DownloadClaim.FILE_SIZE.getJwtClaimName()))
+                    .jwtClaim(DownloadClaim.FILE_MIME_TYPE, ((Map<String, Object>) oldValue).get(DownloadClaim.FILE_MIME_TYPE.getJwtClaimName()))
+                    .jwtClaim(DownloadClaim.CONTEXT, contextString)
+                    .jwtClaim(DownloadClaim.DISPOSITION, "attachment")
+                    .build());
+        } else if (oldValue instanceof FileType) {
+            return filestoreTokenIssuer.createDownloadToken(Token.<DownloadClaim>builder()
+                    .jwtClaim(DownloadClaim.FILE_ID, ((FileType) oldValue).getId())
+                    .jwtClaim(DownloadClaim.FILE_NAME, ((FileType) oldValue).getFileName())
+                    .jwtClaim(DownloadClaim.FILE_SIZE, ((FileType) oldValue).getSize())
+                    .jwtClaim(DownloadClaim.FILE_MIME_TYPE, ((FileType) oldValue).getMimeType())
+                    .jwtClaim(DownloadClaim.CONTEXT, contextString)
+                    .jwtClaim(DownloadClaim.DISPOSITION, "attachment")
+                    .build());
         } else {
-            return coercer.coerce(oldValue, attribute.getEAttributeType().getInstanceClassName());
+            throw new IllegalStateException("Unknown binary data format: " + oldValue.getClass().getName());
+        }
+    }
+
+    @AllArgsConstructor
+    private static class TypeProjection {
+        private final String[] attributeNames;
+        private final List<Function<Object, Object>> converters;
+        private final Set<String> allowedKeys;
+
+        void project(final Payload instance) {
+            for (int i = 0; i < attributeNames.length; i++) {
+                final Object value = instance.get(attributeNames[i]);
+                if (value != null) { // missing and null values are not touched
+                    instance.put(attributeNames[i], converters.get(i).apply(value));
+                }
+            }
+            instance.entrySet().removeIf(entry -> entry.getValue() == null || !allowedKeys.contains(entry.getKey()));
         }
     }
 }
@@ -54,4 +54,12 @@ public interface ActorResolver {
      * @return payload of actor (instance)
      */
     Payload getActorByClaims(EClass actorType, Map<String, Object> claims);
+
+    /**
+     * Invalidate actor instances cached by resolver (i.e. on writes).
+     *
+     * @param entityType entity type that is written, <code>null</code> to invalidate all actors
+     */
+    default void invalidateActors(EClass entityType) {
+    }
 }
@@ -0,0 +1,239 @@
+package hu.blackbelt.judo.runtime.core.dispatcher;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import hu.blackbelt.judo.dispatcher.api.Dispatcher;
+import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
+import hu.blackbelt.judo.meta.asm.support.AsmModelResourceSupport;
+import hu.blackbelt.judo.runtime.core.DataTypeManager;
+import hu.blackbelt.judo.runtime.core.UUIDIdentifierProvider;
+import hu.blackbelt.judo.runtime.core.accessmanager.api.SignedIdentifier;
+import hu.blackbelt.judo.runtime.core.dispatcher.security.IdentifierSigner;
+import hu.blackbelt.mapper.impl.DefaultCoercer;
+import org.eclipse.emf.ecore.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchIdentifierSignerTest {
+
+    private static final String EXTENDED_METADATA = "http://blackbelt.hu/judo/meta/ExtendedMetadata/";
+    private static final String ENTITY_TYPE = "demo.Product";
+    private static final int THRESHOLD = 100;
+    private static final int PARALLELISM = 4;
+
+    private final UUIDIdentifierProvider identifierProvider = new UUIDIdentifierProvider();
+
+    private EClass transferObjectType;
+
+    private EReference productsReference;
+
+    private DefaultIdentifierSigner<UUID> identifierSigner;
+
+    private ExecutorService executor;
+
+    /**
+     * Names of threads signing identifiers.
+     */
+    private Set<String> signingThreads;
+
+    private static EAnnotation annotation(final String name, final String value) {
+        final EAnnotation annotation = newEAnnotationBuilder()
+                .withSource(EXTENDED_METADATA + name)
+                .build();
+        annotation.getDetails().put("value", value);
+        return annotation;
+    }
+
+    @BeforeEach
+    void init() {
+        final EClass entityType = newEClassBuilder()
+                .withName("Product")
+                .withEAnnotations(annotation("entity", "true"))
+                .build();
+        transferObjectType = newEClassBuilder()
+                .withName("ProductInfo")
+                .withEAnnotations(annotation("mappedEntityType", ENTITY_TYPE))
+                .withEStructuralFeatures(ImmutableList.of(
+                        newEAttributeBuilder()
+                                .withName("name")
+                                .withEType(EcorePackage.eINSTANCE.getEString())
+                                .build()))
+                .build();
+        productsReference = newEReferenceBuilder()
+                .withName("products")
+                .withLowerBound(0).withUpperBound(-1)
+                .withEType(transferObjectType)
+                .build();
+        final EClass applicationType = newEClassBuilder()
+                .withName("Application")
+                .withEStructuralFeatures(ImmutableList.of(productsReference))
+                .build();
+
+        final AsmModel asmModel = AsmModel.buildAsmModel()
+                .resourceSet(AsmModelResourceSupport.createAsmResourceSet())
+                .build();
+        asmModel.getAsmModelResourceSupport().addContent(newEPackageBuilder()
+                .withName("demo").withNsPrefix("demo").withNsURI("http://blackbelt.hu/test/demo")
+                .withEClassifiers(ImmutableList.of(entityType, transferObjectType, applicationType))
+                .build());
+
+        identifierSigner = DefaultIdentifierSigner.<UUID>builder()
+                .asmModel(asmModel)
+                .identifierProvider(identifierProvider)
+                .dataTypeManager(new DataTypeManager(new DefaultCoercer()))
+                .build();
+
+        executor = Executors.newFixedThreadPool(PARALLELISM);
+        signingThreads = ConcurrentHashMap.newKeySet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private IdentifierSigner recordingSigner() {
+        return new IdentifierSigner() {
+            @Override
+            public void signIdentifiers(final ETypedElement typedElement, final Map<String, Object> payload, final boolean immutable) {
+                signingThreads.add(Thread.currentThread().getName());
+                identifierSigner.signIdentifiers(typedElement, payload, immutable);
+            }
+
+            @Override
+            public Optional<SignedIdentifier> extractSignedIdentifier(final EClass clazz, final Map<String, Object> payload) {
+                return identifierSigner.extractSignedIdentifier(clazz, payload);
+            }
+        };
+    }
+
+    private List<Map<String, Object>> payloads(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    final Map<String, Object> payload = new HashMap<>();
+                    payload.put(identifierProvider.getName(), UUID.randomUUID());
+                    payload.put(Dispatcher.ENTITY_TYPE_MAP_KEY, ENTITY_TYPE);
+                    payload.put("name", "product" + i);
+                    return payload;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private void assertSignedByOwnIdentifier(final List<Map<String, Object>> payloads) {
+        for (final Map<String, Object> payload : payloads) {
+            final String signedIdentifier = (String) payload.get(IdentifierSigner.SIGNED_IDENTIFIER_KEY);
+            assertNotNull(signedIdentifier, "Identifier of " + payload.get("name") + " is not signed");
+
+            final Map<String, Object> received = new HashMap<>();
+            received.put(IdentifierSigner.SIGNED_IDENTIFIER_KEY, signedIdentifier);
+            final Optional<SignedIdentifier> extracted = identifierSigner.extractSignedIdentifier(transferObjectType, received);
+
+            assertTrue(extracted.isPresent());
+            assertEquals(payload.get(identifierProvider.getName()).toString(), extracted.get().getIdentifier());
+            assertEquals(ENTITY_TYPE, extracted.get().getEntityType());
+            assertEquals(payload.get(identifierProvider.getName()), received.get(identifierProvider.getName()));
+        }
+    }
+
+    @Test
+    void testSignMorePayloadsThanThresholdInParallel() {
+        final List<Map<String, Object>> payloads = payloads(THRESHOLD * 10 + 3);
+
+        try (BatchIdentifierSigner batchIdentifierSigner = new BatchIdentifierSigner(recordingSigner(), THRESHOLD, PARALLELISM, executor)) {
+            batchIdentifierSigner.signIdentifiers(productsReference, payloads, false);
+        }
+
+        assertSignedByOwnIdentifier(payloads);
+        assertFalse(signingThreads.contains(Thread.currentThread().getName()), "Large list must be signed by executor");
+        assertEquals(payloads.size(), payloads.stream().map(p -> p.get(IdentifierSigner.SIGNED_IDENTIFIER_KEY)).distinct().count());
+    }
+
+    @Test
+    void testSignMorePayloadsThanThresholdInOwnedPool() {
+        final List<Map<String, Object>> payloads = payloads(THRESHOLD * 3);
+
+        try (BatchIdentifierSigner batchIdentifierSigner = new BatchIdentifierSigner(recordingSigner(), THRESHOLD, PARALLELISM, null)) {
+            batchIdentifierSigner.signIdentifiers(productsReference, payloads, true);
+        }
+
+        assertSignedByOwnIdentifier(payloads);
+        assertFalse(signingThreads.contains(Thread.currentThread().getName()), "Large list must be signed by signing pool");
+        payloads.forEach(payload -> assertEquals(Boolean.TRUE, payload.get(DefaultDispatcher.IMMUTABLE_KEY)));
+    }
+
+    @Test
+    void testSignPayloadsBelowThresholdOnCallerThread() {
+        final List<Map<String, Object>> payloads = payloads(THRESHOLD - 1);
+
+        try (BatchIdentifierSigner batchIdentifierSigner = new BatchIdentifierSigner(recordingSigner(), THRESHOLD, PARALLELISM, executor)) {
+            batchIdentifierSigner.signIdentifiers(productsReference, payloads, false);
+        }
+
+        assertSignedByOwnIdentifier(payloads);
+        assertEquals(Set.of(Thread.currentThread().getName()), signingThreads);
+    }
+
+    @Test
+    void testSharedExecutorIsNotShutDown() {
+        final BatchIdentifierSigner batchIdentifierSigner = new BatchIdentifierSigner(recordingSigner(), THRESHOLD, PARALLELISM, executor);
+        batchIdentifierSigner.close();
+
+        assertFalse(executor.isShutdown());
+    }
+
+    @Test
+    void testSigningFailureIsRethrown() {
+        final List<Map<String, Object>> payloads = payloads(THRESHOLD * 2);
+        final Object failingIdentifier = payloads.get(THRESHOLD + 1).get(identifierProvider.getName());
+        final IdentifierSigner failingSigner = new IdentifierSigner() {
+            @Override
+            public void signIdentifiers(final ETypedElement typedElement, final Map<String, Object> payload, final boolean immutable) {
+                if (failingIdentifier.equals(payload.get(identifierProvider.getName()))) {
+                    throw new IllegalArgumentException("Signing failed");
+                }
+                identifierSigner.signIdentifiers(typedElement, payload, immutable);
+            }
+
+            @Override
+            public Optional<SignedIdentifier> extractSignedIdentifier(final EClass clazz, final Map<String, Object> payload) {
+                return identifierSigner.extractSignedIdentifier(clazz, payload);
+            }
+        };
+
+        try (BatchIdentifierSigner batchIdentifierSigner = new BatchIdentifierSigner(failingSigner, THRESHOLD, PARALLELISM, executor)) {
+            final IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                    () -> batchIdentifierSigner.signIdentifiers(productsReference, payloads, false));
+            assertEquals("Signing failed", ex.getMessage());
+        }
+    }
+}
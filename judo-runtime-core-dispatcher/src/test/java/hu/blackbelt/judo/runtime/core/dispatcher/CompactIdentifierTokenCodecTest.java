@@ -0,0 +1,233 @@
+package hu.blackbelt.judo.runtime.core.dispatcher;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
+import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
+import hu.blackbelt.judo.meta.asm.support.AsmModelResourceSupport;
+import hu.blackbelt.judo.runtime.core.DataTypeManager;
+import hu.blackbelt.judo.runtime.core.UUIDIdentifierProvider;
+import hu.blackbelt.mapper.impl.DefaultCoercer;
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactIdentifierTokenCodecTest {
+
+    private static final String EXTENDED_METADATA = "http://blackbelt.hu/judo/meta/ExtendedMetadata/";
+    private static final String ENTITY_TYPE = "demo.Product";
+    private static final byte[] SECRET = "compact-identifier-test-secret".getBytes(StandardCharsets.UTF_8);
+
+    private AsmModel asmModel;
+
+    private String issuer;
+
+    private CompactIdentifierTokenCodec codec;
+
+    private static EAnnotation annotation(final String name, final String value) {
+        final EAnnotation annotation = newEAnnotationBuilder()
+                .withSource(EXTENDED_METADATA + name)
+                .build();
+        annotation.getDetails().put("value", value);
+        return annotation;
+    }
+
+    /**
+     * Create model of an entity type and a transfer object type listed by application, optional additional reference
+     * changes index tables of codec.
+     */
+    private static AsmModel createModel(final boolean withFeaturedReference) {
+        final EClass entityType = newEClassBuilder()
+                .withName("Product")
+                .withEAnnotations(annotation("entity", "true"))
+                .build();
+        final EClass transferObjectType = newEClassBuilder()
+                .withName("ProductInfo")
+                .withEAnnotations(annotation("mappedEntityType", ENTITY_TYPE))
+                .build();
+        final List<EReference> references = new ArrayList<>();
+        references.add(newEReferenceBuilder()
+                .withName("products")
+                .withLowerBound(0).withUpperBound(-1)
+                .withEType(transferObjectType)
+                .build());
+        if (withFeaturedReference) {
+            references.add(newEReferenceBuilder()
+                    .withName("featured")
+                    .withLowerBound(0).withUpperBound(1)
+                    .withEType(transferObjectType)
+                    .build());
+        }
+        final EClass applicationType = newEClassBuilder()
+                .withName("Application")
+                .withEStructuralFeatures(references)
+                .build();
+
+        final AsmModel model = AsmModel.buildAsmModel()
+                .resourceSet(AsmModelResourceSupport.createAsmResourceSet())
+                .build();
+        model.getAsmModelResourceSupport().addContent(newEPackageBuilder()
+                .withName("demo").withNsPrefix("demo").withNsURI("http://blackbelt.hu/test/demo")
+                .withEClassifiers(ImmutableList.of(entityType, transferObjectType, applicationType))
+                .build());
+        return model;
+    }
+
+    private static CompactIdentifierTokenCodec createCodec(final byte[] secret, final AsmModel model) {
+        return new CompactIdentifierTokenCodec(secret, new AsmUtils(model.getResourceSet()));
+    }
+
+    private static byte[] toBytes(final String token) {
+        return Base64.getUrlDecoder().decode(token.substring(CompactIdentifierTokenCodec.PREFIX.length()));
+    }
+
+    private static String toToken(final byte[] bytes) {
+        return CompactIdentifierTokenCodec.PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @BeforeEach
+    void init() {
+        asmModel = createModel(false);
+        issuer = new AsmUtils(asmModel.getResourceSet()).all(EReference.class)
+                .filter(reference -> "products".equals(reference.getName()))
+                .map(AsmUtils::getReferenceFQName)
+                .findAny()
+                .orElseThrow();
+        codec = createCodec(SECRET, asmModel);
+    }
+
+    @Test
+    void testRoundTripOfUuidIdentifier() {
+        final String identifier = UUID.randomUUID().toString();
+
+        final String token = codec.encode(identifier, issuer, ENTITY_TYPE, 3, true);
+        final CompactIdentifierTokenCodec.Token decoded = codec.decode(token);
+
+        assertTrue(CompactIdentifierTokenCodec.isCompactToken(token));
+        assertEquals(new CompactIdentifierTokenCodec.Token(identifier, issuer, ENTITY_TYPE, 3, true), decoded);
+    }
+
+    @Test
+    void testRoundTripOfNonUuidIdentifier() {
+        final String numericIdentifier = "1234567890";
+        final String upperCaseUuid = UUID.randomUUID().toString().toUpperCase();
+
+        assertEquals(new CompactIdentifierTokenCodec.Token(numericIdentifier, issuer, ENTITY_TYPE, null, null),
+                codec.decode(codec.encode(numericIdentifier, issuer, ENTITY_TYPE, null, false)));
+        assertEquals(new CompactIdentifierTokenCodec.Token(upperCaseUuid, null, null, 0, null),
+                codec.decode(codec.encode(upperCaseUuid, null, null, 0, false)));
+    }
+
+    @Test
+    void testRoundTripOfNamesNotInModel() {
+        final String identifier = UUID.randomUUID().toString();
+        final String unknownEntityType = "demo.Unknown";
+        final String unknownIssuer = "demo.Unknown#items";
+
+        final String indexToken = codec.encode(identifier, issuer, ENTITY_TYPE, 1, false);
+        final String nameToken = codec.encode(identifier, unknownIssuer, unknownEntityType, 1, false);
+
+        assertEquals(new CompactIdentifierTokenCodec.Token(identifier, unknownIssuer, unknownEntityType, 1, null), codec.decode(nameToken));
+        assertTrue(indexToken.length() < nameToken.length(), "Model elements must be encoded by index");
+    }
+
+    @Test
+    void testFlippedMacByteIsRejected() {
+        final byte[] bytes = toBytes(codec.encode(UUID.randomUUID().toString(), issuer, ENTITY_TYPE, 1, false));
+        bytes[bytes.length - 1] ^= 1;
+
+        assertThrows(IllegalStateException.class, () -> codec.decode(toToken(bytes)));
+    }
+
+    @Test
+    void testFlippedBodyByteIsRejected() {
+        final byte[] bytes = toBytes(codec.encode("1234567890", issuer, ENTITY_TYPE, 1, false));
+        bytes[4] ^= 1;
+
+        assertThrows(IllegalStateException.class, () -> codec.decode(toToken(bytes)));
+    }
+
+    @Test
+    void testTruncatedTokenIsRejected() {
+        final byte[] bytes = toBytes(codec.encode(UUID.randomUUID().toString(), issuer, ENTITY_TYPE, 1, false));
+
+        assertThrows(IllegalStateException.class, () -> codec.decode(toToken(Arrays.copyOf(bytes, bytes.length - 1))));
+        assertThrows(IllegalStateException.class, () -> codec.decode(toToken(Arrays.copyOf(bytes, 10))));
+        assertThrows(IllegalStateException.class, () -> codec.decode(CompactIdentifierTokenCodec.PREFIX));
+    }
+
+    @Test
+    void testTrailingBytesAreRejected() {
+        final byte[] bytes = toBytes(codec.encode(UUID.randomUUID().toString(), issuer, ENTITY_TYPE, 1, false));
+
+        assertThrows(IllegalStateException.class, () -> codec.decode(toToken(Arrays.copyOf(bytes, bytes.length + 1))));
+        assertThrows(IllegalStateException.class, () -> codec.decode(toToken(Arrays.copyOf(bytes, bytes.length + 16))));
+    }
+
+    @Test
+    void testMalformedTokenIsRejected() {
+        assertThrows(IllegalStateException.class, () -> codec.decode("~not*base64"));
+        assertThrows(IllegalStateException.class, () -> codec.decode("eyJhbGciOiJIUzUxMiJ9"));
+    }
+
+    @Test
+    void testTokenOfDifferentKeyIsRejected() {
+        final String token = codec.encode(UUID.randomUUID().toString(), issuer, ENTITY_TYPE, 1, false);
+        final CompactIdentifierTokenCodec otherCodec = createCodec("other-secret".getBytes(StandardCharsets.UTF_8), asmModel);
+
+        assertThrows(IllegalStateException.class, () -> otherCodec.decode(token));
+    }
+
+    @Test
+    void testTokenOfDifferentModelIsRejected() {
+        final String token = codec.encode(UUID.randomUUID().toString(), issuer, ENTITY_TYPE, 1, false);
+        final CompactIdentifierTokenCodec otherCodec = createCodec(SECRET, createModel(true));
+
+        assertThrows(IllegalStateException.class, () -> otherCodec.decode(token));
+    }
+
+    @Test
+    void testEmptySecretIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> createCodec(new byte[0], asmModel));
+    }
+
+    @Test
+    void testCompactFormatRequiresSecret() {
+        final DefaultIdentifierSigner<UUID> identifierSigner = DefaultIdentifierSigner.<UUID>builder()
+                .asmModel(asmModel)
+                .identifierProvider(new UUIDIdentifierProvider())
+                .dataTypeManager(new DataTypeManager(new DefaultCoercer()))
+                .tokenFormat(DefaultIdentifierSigner.TokenFormat.COMPACT)
+                .build();
+        final EReference reference = new AsmUtils(asmModel.getResourceSet()).all(EReference.class).findAny().orElseThrow();
+
+        assertThrows(IllegalStateException.class, () -> identifierSigner.signIdentifiers(reference, new HashMap<>(), false));
+    }
+}
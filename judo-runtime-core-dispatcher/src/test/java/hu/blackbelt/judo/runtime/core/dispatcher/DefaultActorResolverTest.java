@@ -0,0 +1,195 @@
+package hu.blackbelt.judo.runtime.core.dispatcher;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import hu.blackbelt.judo.dao.api.DAO;
+import hu.blackbelt.judo.dao.api.Payload;
+import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
+import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
+import hu.blackbelt.judo.meta.asm.support.AsmModelResourceSupport;
+import hu.blackbelt.judo.runtime.core.DataTypeManager;
+import hu.blackbelt.mapper.impl.DefaultCoercer;
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DefaultActorResolverTest {
+
+    private static final String EXTENDED_METADATA = "http://blackbelt.hu/judo/meta/ExtendedMetadata/";
+    private static final String EMAIL = "user@example.com";
+
+    @Mock
+    private DAO<UUID> dao;
+
+    private AsmModel asmModel;
+
+    private EClass userType;
+
+    private EClass productType;
+
+    private EClass actorType;
+
+    /**
+     * Number of actors loaded from (mocked) database, used as version of loaded actor.
+     */
+    private final AtomicInteger loadedActors = new AtomicInteger();
+
+    private static EAnnotation annotation(final String name, final String value) {
+        final EAnnotation annotation = newEAnnotationBuilder()
+                .withSource(EXTENDED_METADATA + name)
+                .build();
+        annotation.getDetails().put("value", value);
+        return annotation;
+    }
+
+    @BeforeEach
+    void init() {
+        final EDataType stringType = newEDataTypeBuilder()
+                .withName("String")
+                .withInstanceClassName("java.lang.String")
+                .build();
+        userType = newEClassBuilder()
+                .withName("User")
+                .withEAnnotations(annotation("entity", "true"))
+                .withEStructuralFeatures(ImmutableList.of(
+                        newEAttributeBuilder()
+                                .withName("email")
+                                .withEType(stringType)
+                                .build()))
+                .build();
+        productType = newEClassBuilder()
+                .withName("Product")
+                .withEAnnotations(annotation("entity", "true"))
+                .build();
+        actorType = newEClassBuilder()
+                .withName("UserActor")
+                .withEAnnotations(annotation("mappedEntityType", "demo.User"))
+                .withEStructuralFeatures(ImmutableList.of(
+                        newEAttributeBuilder()
+                                .withName("email")
+                                .withEType(stringType)
+                                .withEAnnotations(annotation("claim", "EMAIL"))
+                                .build()))
+                .build();
+
+        asmModel = AsmModel.buildAsmModel()
+                .resourceSet(AsmModelResourceSupport.createAsmResourceSet())
+                .build();
+        asmModel.getAsmModelResourceSupport().addContent(newEPackageBuilder()
+                .withName("demo").withNsPrefix("demo").withNsURI("http://blackbelt.hu/test/demo")
+                .withEClassifiers(ImmutableList.of(stringType, userType, productType, actorType))
+                .build());
+
+        when(dao.search(eq(actorType), any())).thenAnswer(invocation -> ImmutableList.of(Payload.asPayload(Map.of(
+                "email", EMAIL,
+                "version", loadedActors.incrementAndGet()))));
+    }
+
+    private DefaultActorResolver<UUID> actorResolver(final Integer actorCacheSize) {
+        return DefaultActorResolver.<UUID>builder()
+                .dataTypeManager(new DataTypeManager(new DefaultCoercer()))
+                .dao(dao)
+                .asmModel(asmModel)
+                .actorCacheSize(actorCacheSize)
+                .build();
+    }
+
+    private Payload getActor(final DefaultActorResolver<UUID> actorResolver) {
+        return actorResolver.getActorByClaims(actorType, Map.of("email", EMAIL));
+    }
+
+    @Test
+    void testCachedActorIsReturnedWithoutSearch() {
+        final DefaultActorResolver<UUID> actorResolver = actorResolver(null);
+
+        final Payload actor = getActor(actorResolver);
+        actor.put("version", -1);
+        final Payload cachedActor = getActor(actorResolver);
+
+        assertEquals(EMAIL, cachedActor.get("email"));
+        assertEquals(1, cachedActor.get("version"), "Cached actor must not be changed by caller");
+        verify(dao, times(1)).search(eq(actorType), any());
+    }
+
+    @Test
+    void testInvalidateActorsOfWrittenEntityType() {
+        final DefaultActorResolver<UUID> actorResolver = actorResolver(null);
+        getActor(actorResolver);
+
+        actorResolver.invalidateActors(productType);
+        assertEquals(1, getActor(actorResolver).get("version"), "Actors must not be invalidated by write of other entity type");
+
+        actorResolver.invalidateActors(userType);
+        assertEquals(2, getActor(actorResolver).get("version"));
+
+        verify(dao, times(2)).search(eq(actorType), any());
+    }
+
+    @Test
+    void testInvalidateAllActors() {
+        final DefaultActorResolver<UUID> actorResolver = actorResolver(null);
+        getActor(actorResolver);
+
+        actorResolver.invalidateActors(null);
+        assertEquals(2, getActor(actorResolver).get("version"));
+
+        verify(dao, times(2)).search(eq(actorType), any());
+    }
+
+    @Test
+    void testActorsAreNotCachedIfCacheIsDisabled() {
+        final DefaultActorResolver<UUID> actorResolver = actorResolver(0);
+
+        getActor(actorResolver);
+        assertEquals(2, getActor(actorResolver).get("version"));
+
+        verify(dao, times(2)).search(eq(actorType), any());
+    }
+
+    @Test
+    void testOnlyUpdateAndDeleteOfBoundInstanceInvalidateSingleEntityType() {
+        assertEquals(userType, DefaultDispatcher.getWrittenEntityType(DefaultDispatcher.BEHAVIOUR, AsmUtils.OperationBehaviour.UPDATE_INSTANCE, userType));
+        assertEquals(userType, DefaultDispatcher.getWrittenEntityType(DefaultDispatcher.BEHAVIOUR, AsmUtils.OperationBehaviour.DELETE_INSTANCE, userType));
+
+        assertNull(DefaultDispatcher.getWrittenEntityType(DefaultDispatcher.BEHAVIOUR, AsmUtils.OperationBehaviour.CREATE_INSTANCE, userType));
+        assertNull(DefaultDispatcher.getWrittenEntityType(DefaultDispatcher.BEHAVIOUR, AsmUtils.OperationBehaviour.SET_REFERENCE, userType));
+        assertNull(DefaultDispatcher.getWrittenEntityType(DefaultDispatcher.BEHAVIOUR, AsmUtils.OperationBehaviour.ADD_REFERENCE, userType));
+        assertNull(DefaultDispatcher.getWrittenEntityType(DefaultDispatcher.SCRIPT, null, userType));
+        assertNull(DefaultDispatcher.getWrittenEntityType(DefaultDispatcher.SDK, null, userType));
+    }
+}
@@ -0,0 +1,210 @@
+package hu.blackbelt.judo.runtime.core.dispatcher;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import hu.blackbelt.judo.dispatcher.api.Dispatcher;
+import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
+import hu.blackbelt.judo.meta.asm.support.AsmModelResourceSupport;
+import hu.blackbelt.judo.runtime.core.DataTypeManager;
+import hu.blackbelt.judo.runtime.core.MetricsCollector;
+import hu.blackbelt.judo.runtime.core.UUIDIdentifierProvider;
+import hu.blackbelt.judo.runtime.core.accessmanager.api.SignedIdentifier;
+import hu.blackbelt.judo.runtime.core.dispatcher.security.IdentifierSigner;
+import hu.blackbelt.mapper.impl.DefaultCoercer;
+import org.eclipse.emf.ecore.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static hu.blackbelt.judo.runtime.core.dispatcher.DefaultIdentifierSigner.METRICS_VERIFIED_IDENTIFIER_CACHE_HIT;
+import static hu.blackbelt.judo.runtime.core.dispatcher.DefaultIdentifierSigner.METRICS_VERIFIED_IDENTIFIER_CACHE_MISS;
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DefaultIdentifierSignerTest {
+
+    private static final String EXTENDED_METADATA = "http://blackbelt.hu/judo/meta/ExtendedMetadata/";
+    private static final String ENTITY_TYPE = "demo.Product";
+    private static final String SECRET = Base64.getEncoder().encodeToString(
+            "secret-of-verified-identifier-cache-test-0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8));
+    private static final String OTHER_SECRET = Base64.getEncoder().encodeToString(
+            "other-secret-of-verified-identifier-cache-test-0123456789abcdefghijklmnopqrstu".getBytes(StandardCharsets.UTF_8));
+
+    private final UUIDIdentifierProvider identifierProvider = new UUIDIdentifierProvider();
+
+    private AsmModel asmModel;
+
+    private EClass transferObjectType;
+
+    private EReference productsReference;
+
+    private MetricsCollector metricsCollector;
+
+    private static EAnnotation annotation(final String name, final String value) {
+        final EAnnotation annotation = newEAnnotationBuilder()
+                .withSource(EXTENDED_METADATA + name)
+                .build();
+        annotation.getDetails().put("value", value);
+        return annotation;
+    }
+
+    @BeforeEach
+    void init() {
+        final EClass entityType = newEClassBuilder()
+                .withName("Product")
+                .withEAnnotations(annotation("entity", "true"))
+                .build();
+        transferObjectType = newEClassBuilder()
+                .withName("ProductInfo")
+                .withEAnnotations(annotation("mappedEntityType", ENTITY_TYPE))
+                .build();
+        productsReference = newEReferenceBuilder()
+                .withName("products")
+                .withLowerBound(0).withUpperBound(-1)
+                .withEType(transferObjectType)
+                .build();
+        final EClass applicationType = newEClassBuilder()
+                .withName("Application")
+                .withEStructuralFeatures(ImmutableList.of(productsReference))
+                .build();
+
+        asmModel = AsmModel.buildAsmModel()
+                .resourceSet(AsmModelResourceSupport.createAsmResourceSet())
+                .build();
+        asmModel.getAsmModelResourceSupport().addContent(newEPackageBuilder()
+                .withName("demo").withNsPrefix("demo").withNsURI("http://blackbelt.hu/test/demo")
+                .withEClassifiers(ImmutableList.of(entityType, transferObjectType, applicationType))
+                .build());
+
+        metricsCollector = mock(MetricsCollector.class);
+    }
+
+    private DefaultIdentifierSigner<UUID> signer(final String secret, final Integer cacheSize) {
+        return DefaultIdentifierSigner.<UUID>builder()
+                .asmModel(asmModel)
+                .identifierProvider(identifierProvider)
+                .dataTypeManager(new DataTypeManager(new DefaultCoercer()))
+                .secret(secret)
+                .verifiedIdentifierCacheSize(cacheSize)
+                .metricsCollector(metricsCollector)
+                .build();
+    }
+
+    private String signProduct(final DefaultIdentifierSigner<UUID> signer, final UUID id) {
+        final Map<String, Object> payload = new HashMap<>();
+        payload.put(identifierProvider.getName(), id);
+        payload.put(Dispatcher.ENTITY_TYPE_MAP_KEY, ENTITY_TYPE);
+        signer.signIdentifiers(productsReference, payload, false);
+        final String signedIdentifier = (String) payload.get(IdentifierSigner.SIGNED_IDENTIFIER_KEY);
+        assertNotNull(signedIdentifier);
+        return signedIdentifier;
+    }
+
+    private SignedIdentifier extract(final DefaultIdentifierSigner<UUID> signer, final String signedIdentifier) {
+        final Map<String, Object> received = new HashMap<>();
+        received.put(IdentifierSigner.SIGNED_IDENTIFIER_KEY, signedIdentifier);
+        return signer.extractSignedIdentifier(transferObjectType, received).orElseThrow();
+    }
+
+    private static String tamper(final String signedIdentifier) {
+        final int lastDot = signedIdentifier.lastIndexOf('.');
+        final char first = signedIdentifier.charAt(lastDot + 1);
+        return signedIdentifier.substring(0, lastDot + 1) + (first == 'A' ? 'B' : 'A') + signedIdentifier.substring(lastDot + 2);
+    }
+
+    @Test
+    void testCachedIdentifierIsNotVerifiedAgain() {
+        final DefaultIdentifierSigner<UUID> signer = signer(SECRET, null);
+        final UUID id = UUID.randomUUID();
+        final String signedIdentifier = signProduct(signer, id);
+
+        final SignedIdentifier verified = extract(signer, signedIdentifier);
+        final SignedIdentifier cached = extract(signer, signedIdentifier);
+
+        assertEquals(id.toString(), verified.getIdentifier());
+        assertEquals(ENTITY_TYPE, verified.getEntityType());
+        assertSame(verified, cached, "Cached identifier must be returned without verification");
+        verify(metricsCollector, times(1)).increment(METRICS_VERIFIED_IDENTIFIER_CACHE_MISS, 1);
+        verify(metricsCollector, times(1)).increment(METRICS_VERIFIED_IDENTIFIER_CACHE_HIT, 1);
+    }
+
+    @Test
+    void testTamperedIdentifierIsNotHittingCache() {
+        final DefaultIdentifierSigner<UUID> signer = signer(SECRET, null);
+        final String signedIdentifier = signProduct(signer, UUID.randomUUID());
+        extract(signer, signedIdentifier);
+
+        final String tampered = tamper(signedIdentifier);
+        assertThrows(IllegalStateException.class, () -> extract(signer, tampered));
+        // invalid identifiers are not cached
+        assertThrows(IllegalStateException.class, () -> extract(signer, tampered));
+
+        verify(metricsCollector, times(3)).increment(METRICS_VERIFIED_IDENTIFIER_CACHE_MISS, 1);
+        verify(metricsCollector, never()).increment(METRICS_VERIFIED_IDENTIFIER_CACHE_HIT, 1);
+    }
+
+    @Test
+    void testIdentifierSignedByDifferentKeyIsNotHittingCache() {
+        final DefaultIdentifierSigner<UUID> signer = signer(SECRET, null);
+        final DefaultIdentifierSigner<UUID> otherSigner = signer(OTHER_SECRET, null);
+        final UUID id = UUID.randomUUID();
+
+        final String signedIdentifier = signProduct(signer, id);
+        final String signedByOtherKey = signProduct(otherSigner, id);
+        extract(signer, signedIdentifier);
+        extract(otherSigner, signedByOtherKey);
+
+        assertThrows(IllegalStateException.class, () -> extract(signer, signedByOtherKey));
+        assertThrows(IllegalStateException.class, () -> extract(otherSigner, signedIdentifier));
+
+        verify(metricsCollector, times(4)).increment(METRICS_VERIFIED_IDENTIFIER_CACHE_MISS, 1);
+        verify(metricsCollector, never()).increment(METRICS_VERIFIED_IDENTIFIER_CACHE_HIT, 1);
+    }
+
+    @Test
+    void testLeastRecentlyUsedIdentifierIsEvictedOverCacheSize() {
+        final DefaultIdentifierSigner<UUID> signer = signer(SECRET, 1);
+        final String first = signProduct(signer, UUID.randomUUID());
+        final String second = signProduct(signer, UUID.randomUUID());
+
+        final SignedIdentifier verified = extract(signer, first);
+        extract(signer, second);
+        final SignedIdentifier reverified = extract(signer, first);
+
+        assertNotSame(verified, reverified, "First identifier must be evicted by the second one");
+        assertEquals(verified.getIdentifier(), reverified.getIdentifier());
+        verify(metricsCollector, times(3)).increment(METRICS_VERIFIED_IDENTIFIER_CACHE_MISS, 1);
+        verify(metricsCollector, never()).increment(METRICS_VERIFIED_IDENTIFIER_CACHE_HIT, 1);
+    }
+
+    @Test
+    void testCacheIsDisabledBySizeZero() {
+        final DefaultIdentifierSigner<UUID> signer = signer(SECRET, 0);
+        final String signedIdentifier = signProduct(signer, UUID.randomUUID());
+
+        assertNotSame(extract(signer, signedIdentifier), extract(signer, signedIdentifier));
+        verifyNoInteractions(metricsCollector);
+    }
+}
@@ -0,0 +1,212 @@
+package hu.blackbelt.judo.runtime.core.dispatcher;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import hu.blackbelt.judo.dao.api.DAO;
+import hu.blackbelt.judo.dao.api.Payload;
+import hu.blackbelt.judo.dao.api.ValidationResult;
+import hu.blackbelt.judo.dispatcher.api.Context;
+import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
+import hu.blackbelt.judo.meta.asm.support.AsmModelResourceSupport;
+import hu.blackbelt.judo.runtime.core.UUIDIdentifierProvider;
+import hu.blackbelt.judo.runtime.core.exception.ValidationException;
+import hu.blackbelt.judo.runtime.core.validator.DefaultPayloadValidator;
+import hu.blackbelt.judo.runtime.core.validator.DefaultValidatorProvider;
+import hu.blackbelt.judo.runtime.core.validator.UniqueAttributeValidator;
+import hu.blackbelt.judo.runtime.core.validator.ValidatorProvider;
+import hu.blackbelt.mapper.impl.DefaultCoercer;
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static hu.blackbelt.judo.runtime.core.validator.DefaultPayloadValidator.LOCATION_KEY;
+import static hu.blackbelt.judo.runtime.core.validator.DefaultPayloadValidator.VALIDATION_RESULT_KEY;
+import static hu.blackbelt.judo.runtime.core.validator.Validator.ERROR_IDENTIFIER_ATTRIBUTE_UNIQUENESS_VIOLATION;
+import static hu.blackbelt.judo.runtime.core.validator.Validator.VALUE_KEY;
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RequestConverterTest {
+
+    private static final String EXTENDED_METADATA = "http://blackbelt.hu/judo/meta/ExtendedMetadata/";
+    private static final String CODE_ATTRIBUTE = "code";
+    private static final String PARAMETER_NAME = "products";
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"([^\"]*)\"");
+
+    private final UUIDIdentifierProvider identifierProvider = new UUIDIdentifierProvider();
+
+    private EClass transferObjectType;
+
+    private DAO<UUID> dao;
+
+    private RequestConverter requestConverter;
+
+    /**
+     * Persisted IDs by code.
+     */
+    private Map<String, UUID> persisted;
+
+    private static EAnnotation annotation(final String name, final String value) {
+        final EAnnotation annotation = newEAnnotationBuilder()
+                .withSource(EXTENDED_METADATA + name)
+                .build();
+        annotation.getDetails().put("value", value);
+        return annotation;
+    }
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void init() {
+        final EClass entityType = newEClassBuilder()
+                .withName("Product")
+                .withEAnnotations(annotation("entity", "true"))
+                .withEStructuralFeatures(ImmutableList.of(
+                        newEAttributeBuilder()
+                                .withName(CODE_ATTRIBUTE)
+                                .withEType(EcorePackage.eINSTANCE.getEString())
+                                .withEAnnotations(annotation("identifier", "true"))
+                                .build()))
+                .build();
+        transferObjectType = newEClassBuilder()
+                .withName("ProductInfo")
+                .withEAnnotations(annotation("mappedEntityType", "demo.Product"))
+                .withEStructuralFeatures(ImmutableList.of(
+                        newEAttributeBuilder()
+                                .withName(CODE_ATTRIBUTE)
+                                .withEType(EcorePackage.eINSTANCE.getEString())
+                                .withEAnnotations(annotation("binding", CODE_ATTRIBUTE))
+                                .build()))
+                .build();
+
+        final AsmModel asmModel = AsmModel.buildAsmModel()
+                .resourceSet(AsmModelResourceSupport.createAsmResourceSet())
+                .build();
+        asmModel.getAsmModelResourceSupport().addContent(newEPackageBuilder()
+                .withName("demo").withNsPrefix("demo").withNsURI("http://blackbelt.hu/test/demo")
+                .withEClassifiers(ImmutableList.of(entityType, transferObjectType))
+                .build());
+
+        persisted = new HashMap<>();
+        dao = mock(DAO.class);
+        when(dao.search(any(EClass.class), any(DAO.QueryCustomizer.class))).thenAnswer(invocation -> {
+            final String filter = invocation.getArgument(1, DAO.QueryCustomizer.class).getFilter();
+            final List<Payload> result = new ArrayList<>();
+            final Matcher matcher = STRING_LITERAL.matcher(filter);
+            while (matcher.find()) {
+                final String code = matcher.group(1);
+                if (persisted.containsKey(code)) {
+                    result.add(Payload.asPayload(Map.of(identifierProvider.getName(), persisted.get(code), CODE_ATTRIBUTE, code)));
+                }
+            }
+            return result;
+        });
+
+        final ValidatorProvider validatorProvider = new DefaultValidatorProvider<UUID>();
+        validatorProvider.addValidator(new UniqueAttributeValidator<>(dao, asmModel, identifierProvider, mock(Context.class)));
+
+        requestConverter = RequestConverter.builder()
+                .transferObjectType(transferObjectType)
+                .asmModel(asmModel)
+                .coercer(new DefaultCoercer())
+                .payloadValidator(DefaultPayloadValidator.builder()
+                        .asmModel(asmModel)
+                        .coercer(new DefaultCoercer())
+                        .identifierProvider(identifierProvider)
+                        .validatorProvider(validatorProvider)
+                        .build())
+                .validatorProvider(validatorProvider)
+                .identifierProvider(identifierProvider)
+                .keepProperties(Collections.emptyList())
+                .throwValidationException(true)
+                .build();
+    }
+
+    /**
+     * Convert items of a list parameter as {@link DefaultDispatcher} does.
+     */
+    private List<ValidationResult> convertItems(final String... codes) {
+        final Map<String, Object> validationContext = new HashMap<>();
+        final List<ValidationResult> validationResults = new ArrayList<>();
+
+        requestConverter.shareGlobalValidationContext(validationContext);
+        for (int i = 0; i < codes.length; i++) {
+            validationContext.put(LOCATION_KEY, PARAMETER_NAME + "[" + i + "]");
+            try {
+                requestConverter.convert(Map.of(CODE_ATTRIBUTE, codes[i]), validationContext);
+            } catch (ValidationException ex) {
+                validationResults.addAll(ex.getValidationResults());
+            }
+        }
+        validationResults.addAll(requestConverter.validateSharedValues(validationContext));
+
+        assertFalse(validationContext.containsKey(RequestConverter.GLOBAL_VALIDATION_CONTEXT));
+        return validationResults;
+    }
+
+    private static Set<Object> violatedValues(final Collection<ValidationResult> results) {
+        results.forEach(r -> assertEquals(ERROR_IDENTIFIER_ATTRIBUTE_UNIQUENESS_VIOLATION, r.getCode()));
+        return results.stream().map(r -> r.getDetails().get(VALUE_KEY)).collect(Collectors.toSet());
+    }
+
+    @Test
+    void testItemsOfListAreCheckedBySingleSearch() {
+        persisted.put("b", UUID.randomUUID());
+
+        final List<ValidationResult> results = convertItems("a", "b", "c", "d");
+
+        assertEquals(Set.of("b"), violatedValues(results));
+        assertTrue(String.valueOf(results.get(0).getLocation()).startsWith(PARAMETER_NAME + "[1]"));
+        verify(dao, times(1)).search(any(EClass.class), any(DAO.QueryCustomizer.class));
+    }
+
+    @Test
+    void testDuplicatedValuesOfDifferentItems() {
+        final List<ValidationResult> results = convertItems("a", "b", "a");
+
+        assertEquals(Set.of("a"), violatedValues(results));
+        assertTrue(String.valueOf(results.get(0).getLocation()).startsWith(PARAMETER_NAME + "[2]"));
+        verify(dao, times(1)).search(any(EClass.class), any(DAO.QueryCustomizer.class));
+    }
+
+    @Test
+    void testSinglePayloadIsCheckedByConvert() {
+        persisted.put("a", UUID.randomUUID());
+        final Map<String, Object> validationContext = new HashMap<>();
+        validationContext.put(LOCATION_KEY, "");
+
+        final ValidationException exception = assertThrows(ValidationException.class,
+                () -> requestConverter.convert(Map.of(CODE_ATTRIBUTE, "a"), validationContext));
+
+        assertEquals(Set.of("a"), violatedValues(exception.getValidationResults()));
+        assertFalse(validationContext.containsKey(VALIDATION_RESULT_KEY));
+        verify(dao, times(1)).search(any(EClass.class), any(DAO.QueryCustomizer.class));
+    }
+}
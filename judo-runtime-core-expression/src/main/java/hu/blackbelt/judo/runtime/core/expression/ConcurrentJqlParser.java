@@ -0,0 +1,74 @@
+package hu.blackbelt.judo.runtime.core.expression;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.jql.jqldsl.JqlExpression;
+import hu.blackbelt.judo.meta.jql.runtime.JqlParser;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JQL parser that is safe to call concurrently.
+ * <p>
+ * {@link JqlParser} instances are not thread-safe (each one holds its own Xtext resource set) and the first parsing
+ * initializes the shared Xtext injector and EMF registrations. Initialization is done once under lock, expressions
+ * are parsed by a new parser instance per call (confined to the calling thread) without locking.
+ */
+@Slf4j
+public final class ConcurrentJqlParser {
+
+    private static final String WARM_UP_EXPRESSION = "true";
+
+    private static final Object INITIALIZATION_LOCK = new Object();
+
+    private static volatile boolean initialized = false;
+
+    private ConcurrentJqlParser() {
+    }
+
+    /**
+     * Parse JQL expression.
+     *
+     * @param jqlExpression JQL expression string
+     * @return parsed JQL expression
+     */
+    public static JqlExpression parseString(final String jqlExpression) {
+        if (!initialized) {
+            initialize();
+        }
+        return new JqlParser().parseString(jqlExpression);
+    }
+
+    static boolean isInitialized() {
+        return initialized;
+    }
+
+    private static void initialize() {
+        synchronized (INITIALIZATION_LOCK) {
+            if (!initialized) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Initializing JQL parser");
+                }
+                new JqlParser().parseString(WARM_UP_EXPRESSION);
+                initialized = true;
+            }
+        }
+    }
+}
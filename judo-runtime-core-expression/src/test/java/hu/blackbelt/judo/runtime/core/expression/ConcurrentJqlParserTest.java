@@ -0,0 +1,97 @@
+package hu.blackbelt.judo.runtime.core.expression;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.meta.jql.jqldsl.JqlExpression;
+import hu.blackbelt.judo.meta.jql.runtime.JqlParser;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentJqlParserTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 200;
+
+    private static final List<String> EXPRESSIONS = Arrays.asList(
+            "this.name == 'abc'",
+            "this.name!ilike('%abc%') and this.code == \"X1\"",
+            "this.amount > 10 or this.amount < -5.5",
+            "this.created > `2020-01-01T00:00:00Z` and not (this.active == true)",
+            "this.orders!filter(o | o.total > 100)!count() > 0",
+            "this.owner.email!isUndefined() or this.owner.email!matches('.*@example\\\\.com')"
+    );
+
+    /**
+     * Parser is initialized by the first (concurrent) calls, test classes are running in their own JVM so parser must
+     * not be used before concurrent calls. Expected results are parsed sequentially after concurrent parsing.
+     */
+    @Test
+    void testConcurrentParsingOfColdParserGivesSameResultAsSequentialParsing() throws Exception {
+        assertFalse(ConcurrentJqlParser.isInitialized(), "JQL parser is initialized before concurrent parsing");
+
+        final List<List<JqlExpression>> parsedByThreads = new ArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<List<JqlExpression>>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int offset = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    final List<JqlExpression> parsed = new ArrayList<>();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        parsed.add(ConcurrentJqlParser.parseString(EXPRESSIONS.get((offset + i) % EXPRESSIONS.size())));
+                    }
+                    return parsed;
+                }));
+            }
+            start.countDown();
+
+            for (Future<List<JqlExpression>> result : results) {
+                parsedByThreads.add(result.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final List<JqlExpression> expected = new ArrayList<>();
+        for (String expression : EXPRESSIONS) {
+            expected.add(new JqlParser().parseString(expression));
+        }
+
+        for (int t = 0; t < THREADS; t++) {
+            final List<JqlExpression> parsed = parsedByThreads.get(t);
+            for (int i = 0; i < ITERATIONS; i++) {
+                final int index = (t + i) % EXPRESSIONS.size();
+                assertTrue(EcoreUtil.equals(expected.get(index), parsed.get(i)),
+                        "Concurrently parsed expression differs: " + EXPRESSIONS.get(index));
+            }
+        }
+    }
+}
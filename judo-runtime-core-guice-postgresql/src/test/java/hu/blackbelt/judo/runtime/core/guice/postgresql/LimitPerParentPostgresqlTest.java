@@ -0,0 +1,299 @@
+package hu.blackbelt.judo.runtime.core.guice.postgresql;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+import com.google.inject.util.Modules;
+import hu.blackbelt.epsilon.runtime.execution.impl.BufferedSlf4jLogger;
+import hu.blackbelt.judo.dao.api.DAO;
+import hu.blackbelt.judo.dao.api.Payload;
+import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
+import hu.blackbelt.judo.meta.asm.support.AsmModelResourceSupport;
+import hu.blackbelt.judo.meta.expression.runtime.ExpressionModel;
+import hu.blackbelt.judo.meta.expression.support.ExpressionModelResourceSupport;
+import hu.blackbelt.judo.meta.liquibase.runtime.LiquibaseModel;
+import hu.blackbelt.judo.meta.liquibase.support.LiquibaseModelResourceSupport;
+import hu.blackbelt.judo.meta.measure.runtime.MeasureModel;
+import hu.blackbelt.judo.meta.measure.support.MeasureModelResourceSupport;
+import hu.blackbelt.judo.meta.rdbms.runtime.RdbmsModel;
+import hu.blackbelt.judo.meta.rdbms.support.RdbmsModelResourceSupport;
+import hu.blackbelt.judo.meta.rdbmsDataTypes.support.RdbmsDataTypesModelResourceSupport;
+import hu.blackbelt.judo.meta.rdbmsNameMapping.support.RdbmsNameMappingModelResourceSupport;
+import hu.blackbelt.judo.meta.rdbmsRules.support.RdbmsTableMappingRulesModelResourceSupport;
+import hu.blackbelt.judo.runtime.core.guice.JudoDefaultModule;
+import hu.blackbelt.judo.runtime.core.guice.JudoModelLoader;
+import hu.blackbelt.judo.runtime.core.guice.dao.rdbms.postgresql.JudoPostgresqlModules;
+import hu.blackbelt.judo.runtime.core.guice.dao.rdbms.postgresql.PostgresqlDataSourceProvider;
+import hu.blackbelt.judo.tatami.asm2rdbms.Asm2RdbmsTransformationTrace;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.emf.ecore.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.JdbcDatabaseContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static hu.blackbelt.judo.tatami.asm2rdbms.Asm2Rdbms.Asm2RdbmsTransformationParameter.asm2RdbmsTransformationParameter;
+import static hu.blackbelt.judo.tatami.asm2rdbms.Asm2Rdbms.executeAsm2RdbmsTransformation;
+import static hu.blackbelt.judo.tatami.rdbms2liquibase.Rdbms2Liquibase.Rdbms2LiquibaseTransformationParameter.rdbms2LiquibaseTransformationParameter;
+import static hu.blackbelt.judo.tatami.rdbms2liquibase.Rdbms2Liquibase.executeRdbms2LiquibaseTransformation;
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Limited embedded subselects of all parents (selected by window function) read by DAO on PostgreSQL.
+ */
+@Slf4j
+class LimitPerParentPostgresqlTest {
+
+    private static final String MODEL_NAME = "demo";
+    private static final String DIALECT = "postgresql";
+    private static final String EXTENDED_METADATA = "http://blackbelt.hu/judo/meta/ExtendedMetadata/";
+
+    @SuppressWarnings("rawtypes")
+    @Inject
+    DAO dao;
+
+    Injector injector;
+
+    @SuppressWarnings("rawtypes")
+    JdbcDatabaseContainer sqlContainer;
+
+    EClass parentInfoType;
+
+    private static EAnnotation annotation(final String name, final Map<String, String> details) {
+        final EAnnotation annotation = newEAnnotationBuilder()
+                .withSource(EXTENDED_METADATA + name)
+                .build();
+        annotation.getDetails().putAll(details);
+        return annotation;
+    }
+
+    private static EAnnotation annotation(final String name, final String value) {
+        return annotation(name, Map.of("value", value));
+    }
+
+    private static EReference embeddedReference(final String name, final EClass type, final boolean derived) {
+        return newEReferenceBuilder()
+                .withName(name)
+                .withEType(type)
+                .withLowerBound(0).withUpperBound(-1)
+                .withContainment(!derived)
+                .withDerived(derived).withTransient(derived).withVolatile(derived).withChangeable(!derived)
+                .withEAnnotations(annotation("embedded", "true"))
+                .withEAnnotations(annotation("binding", name))
+                .build();
+    }
+
+    private static EReference derivedEntityReference(final String name, final EClass type, final String getter) {
+        return newEReferenceBuilder()
+                .withName(name)
+                .withEType(type)
+                .withLowerBound(0).withUpperBound(-1)
+                .withDerived(true).withTransient(true).withVolatile(true).withChangeable(false)
+                .withEAnnotations(annotation("expression", Map.of("getter", getter, "getter.dialect", "JQL")))
+                .build();
+    }
+
+    private AsmModel createAsmModel() {
+        final EDataType stringType = newEDataTypeBuilder()
+                .withName("String")
+                .withInstanceClassName("java.lang.String")
+                .withEAnnotations(annotation("constraints", Map.of("maxLength", "255")))
+                .build();
+
+        final EClass childType = newEClassBuilder()
+                .withName("Child")
+                .withEAnnotations(annotation("entity", "true"))
+                .withEStructuralFeatures(newEAttributeBuilder().withName("name").withEType(stringType).build())
+                .build();
+        final EClass parentType = newEClassBuilder()
+                .withName("Parent")
+                .withEAnnotations(annotation("entity", "true"))
+                .withEStructuralFeatures(ImmutableList.of(
+                        newEAttributeBuilder().withName("name").withEType(stringType).build(),
+                        newEReferenceBuilder()
+                                .withName("children")
+                                .withEType(childType)
+                                .withLowerBound(0).withUpperBound(-1)
+                                .withContainment(true)
+                                .build(),
+                        derivedEntityReference("firstChildren", childType, "self.children!sort(c | c.name)!limit(2)"),
+                        derivedEntityReference("oneChild", childType, "self.children!limit(1)")))
+                .build();
+
+        final EClass childInfoType = newEClassBuilder()
+                .withName("ChildInfo")
+                .withEAnnotations(annotation("mappedEntityType", MODEL_NAME + ".Child"))
+                .withEStructuralFeatures(newEAttributeBuilder()
+                        .withName("name")
+                        .withEType(stringType)
+                        .withEAnnotations(annotation("binding", "name"))
+                        .build())
+                .build();
+        parentInfoType = newEClassBuilder()
+                .withName("ParentInfo")
+                .withEAnnotations(annotation("mappedEntityType", MODEL_NAME + ".Parent"))
+                .withEStructuralFeatures(ImmutableList.of(
+                        newEAttributeBuilder()
+                                .withName("name")
+                                .withEType(stringType)
+                                .withEAnnotations(annotation("binding", "name"))
+                                .build(),
+                        embeddedReference("children", childInfoType, false),
+                        embeddedReference("firstChildren", childInfoType, true),
+                        embeddedReference("oneChild", childInfoType, true)))
+                .build();
+
+        final AsmModel asmModel = AsmModel.buildAsmModel()
+                .name(MODEL_NAME)
+                .resourceSet(AsmModelResourceSupport.createAsmResourceSet())
+                .build();
+        asmModel.getAsmModelResourceSupport().addContent(newEPackageBuilder()
+                .withName(MODEL_NAME).withNsPrefix(MODEL_NAME).withNsURI("http://blackbelt.hu/test/" + MODEL_NAME)
+                .withEClassifiers(ImmutableList.of(stringType, childType, parentType, childInfoType, parentInfoType))
+                .build());
+        return asmModel;
+    }
+
+    @SuppressWarnings({ "rawtypes", "resource" })
+    @BeforeEach
+    void init() throws Exception {
+        sqlContainer =
+                (PostgreSQLContainer) new PostgreSQLContainer("postgres:latest").withStartupTimeout(Duration.ofSeconds(600));
+        sqlContainer.start();
+
+        final AsmModel asmModel = createAsmModel();
+
+        final RdbmsModel rdbmsModel = RdbmsModel.buildRdbmsModel()
+                .name(MODEL_NAME)
+                .resourceSet(RdbmsModelResourceSupport.createRdbmsResourceSet())
+                .build();
+        // The RDBMS model resources have to know the mapping models
+        RdbmsNameMappingModelResourceSupport.registerRdbmsNameMappingMetamodel(rdbmsModel.getResourceSet());
+        RdbmsDataTypesModelResourceSupport.registerRdbmsDataTypesMetamodel(rdbmsModel.getResourceSet());
+        RdbmsTableMappingRulesModelResourceSupport.registerRdbmsTableMappingRulesMetamodel(rdbmsModel.getResourceSet());
+
+        final LiquibaseModel liquibaseModel = LiquibaseModel.buildLiquibaseModel()
+                .name(MODEL_NAME)
+                .resourceSet(LiquibaseModelResourceSupport.createLiquibaseResourceSet())
+                .build();
+
+        final Asm2RdbmsTransformationTrace asm2rdbms;
+        try (BufferedSlf4jLogger bufferedLog = new BufferedSlf4jLogger(log)) {
+            asm2rdbms = executeAsm2RdbmsTransformation(asm2RdbmsTransformationParameter()
+                    .asmModel(asmModel)
+                    .rdbmsModel(rdbmsModel)
+                    .log(bufferedLog)
+                    .dialect(DIALECT));
+            executeRdbms2LiquibaseTransformation(rdbms2LiquibaseTransformationParameter()
+                    .rdbmsModel(rdbmsModel)
+                    .liquibaseModel(liquibaseModel)
+                    .log(bufferedLog)
+                    .dialect(DIALECT));
+        }
+
+        final MeasureModel measureModel = MeasureModel.buildMeasureModel()
+                .name(MODEL_NAME)
+                .resourceSet(MeasureModelResourceSupport.createMeasureResourceSet())
+                .build();
+
+        // expressions are extracted from ASM model by query factory
+        final ExpressionModel expressionModel = ExpressionModel.buildExpressionModel()
+                .name(MODEL_NAME)
+                .resourceSet(ExpressionModelResourceSupport.createExpressionResourceSet())
+                .build();
+
+        injector = Guice.createInjector(
+                Modules.override(JudoPostgresqlModules.builder().build()).with(binder -> {
+                    binder.bind(Integer.class).annotatedWith(Names.named(PostgresqlDataSourceProvider.POSTGRESQL_PORT)).toInstance(sqlContainer.getMappedPort(5432));
+                    binder.bind(String.class).annotatedWith(Names.named(PostgresqlDataSourceProvider.POSTGRESQL_HOST)).toInstance(sqlContainer.getHost());
+                    binder.bind(String.class).annotatedWith(Names.named(PostgresqlDataSourceProvider.POSTGRESQL_USER)).toInstance(sqlContainer.getUsername());
+                    binder.bind(String.class).annotatedWith(Names.named(PostgresqlDataSourceProvider.POSTGRESQL_PASSWORD)).toInstance(sqlContainer.getPassword());
+                    binder.bind(String.class).annotatedWith(Names.named(PostgresqlDataSourceProvider.POSTGRESQL_DATABASENAME)).toInstance(sqlContainer.getDatabaseName());
+                }),
+                new JudoDefaultModule(this,
+                        JudoModelLoader.builder()
+                                .asmModel(asmModel)
+                                .rdbmsModel(rdbmsModel)
+                                .measureModel(measureModel)
+                                .expressionModel(expressionModel)
+                                .liquibaseModel(liquibaseModel)
+                                .asm2rdbms(asm2rdbms)
+                                .build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (sqlContainer != null && sqlContainer.isRunning()) {
+            sqlContainer.stop();
+        }
+    }
+
+    private static Payload named(final String name) {
+        return Payload.asPayload(Map.of("name", name));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void createParent(final String name, final String... childNames) {
+        dao.create(parentInfoType, Payload.asPayload(Map.of(
+                "name", name,
+                "children", Arrays.stream(childNames).map(LimitPerParentPostgresqlTest::named).collect(Collectors.toList()))), null);
+    }
+
+    private static List<String> names(final Payload parent, final String referenceName) {
+        return Optional.ofNullable(parent.getAsCollectionPayload(referenceName))
+                .map(children -> children.stream().map(c -> c.getAs(String.class, "name")).collect(Collectors.toList()))
+                .orElse(Collections.emptyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testLimitedNavigationOfAllParents() {
+        createParent("p1", "d", "b", "a", "c");
+        createParent("p2", "y", "x");
+        createParent("p3");
+
+        final Map<String, Payload> parents = ((List<Payload>) dao.getAllOf(parentInfoType)).stream()
+                .collect(Collectors.toMap(p -> p.getAs(String.class, "name"), Function.identity()));
+
+        assertEquals(Set.of("p1", "p2", "p3"), parents.keySet());
+
+        // limited and ordered records of each parent
+        assertEquals(Arrays.asList("a", "b"), names(parents.get("p1"), "firstChildren"));
+        assertEquals(Arrays.asList("x", "y"), names(parents.get("p2"), "firstChildren"));
+        assertEquals(Collections.emptyList(), names(parents.get("p3"), "firstChildren"));
+
+        // limited records of each parent without ordering
+        assertEquals(1, names(parents.get("p1"), "oneChild").size());
+        assertEquals(1, names(parents.get("p2"), "oneChild").size());
+        assertEquals(Collections.emptyList(), names(parents.get("p3"), "oneChild"));
+    }
+}
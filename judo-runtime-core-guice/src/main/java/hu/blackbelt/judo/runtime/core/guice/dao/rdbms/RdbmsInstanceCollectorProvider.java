@@ -22,21 +22,27 @@ package hu.blackbelt.judo.runtime.core.guice.dao.rdbms;
 
 import com.google.inject.Inject;
 import com.google.inject.Provider;
+import com.google.inject.name.Named;
 import hu.blackbelt.judo.dao.api.IdentifierProvider;
 import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
 import hu.blackbelt.judo.meta.rdbms.runtime.RdbmsModel;
+import hu.blackbelt.judo.runtime.core.MetricsCollector;
 import hu.blackbelt.judo.runtime.core.dao.core.collectors.InstanceCollector;
+import hu.blackbelt.judo.runtime.core.dao.rdbms.Dialect;
 import hu.blackbelt.judo.runtime.core.dao.rdbms.RdbmsInstanceCollector;
 import hu.blackbelt.judo.runtime.core.dao.rdbms.RdbmsParameterMapper;
 import hu.blackbelt.judo.runtime.core.dao.rdbms.RdbmsResolver;
 import hu.blackbelt.mapper.api.Coercer;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 
 @SuppressWarnings("rawtypes")
 public class RdbmsInstanceCollectorProvider implements Provider<InstanceCollector> {
 
+    public static final String INSTANCE_COLLECTOR_ARRAY_PARAMETER_BINDING = "rdbmsDaoInstanceCollectorArrayParameterBinding";
+
     @Inject
     DataSource dataSource;
 
@@ -58,6 +64,22 @@ public class RdbmsInstanceCollectorProvider implements Provider<InstanceCollecto
     @Inject
     RdbmsParameterMapper rdbmsParameterMapper;
 
+    @Inject
+    MetricsCollector metricsCollector;
+
+    @Inject
+    Dialect dialect;
+
+    @Inject(optional = true)
+    @Named(SelectStatementExecutorProvider.SELECT_CHUNK_SIZE)
+    @Nullable
+    private Integer chunkSize = RdbmsInstanceCollector.DEFAULT_CHUNK_SIZE;
+
+    @Inject(optional = true)
+    @Named(INSTANCE_COLLECTOR_ARRAY_PARAMETER_BINDING)
+    @Nullable
+    private Boolean arrayParameterBinding = false;
+
     @SuppressWarnings("unchecked")
     @Override
     public InstanceCollector get() {
@@ -69,6 +91,10 @@ public class RdbmsInstanceCollectorProvider implements Provider<InstanceCollecto
                 .coercer(coercer)
                 .rdbmsParameterMapper(rdbmsParameterMapper)
                 .identifierProvider(identifierProvider)
+                .metricsCollector(metricsCollector)
+                .dialect(dialect)
+                .chunkSize(chunkSize)
+                .arrayParameterBinding(arrayParameterBinding)
                 .build();
         return instanceCollector;
     }
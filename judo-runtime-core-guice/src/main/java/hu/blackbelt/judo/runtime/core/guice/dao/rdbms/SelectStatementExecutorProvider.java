@@ -41,6 +41,12 @@ import javax.inject.Provider;
 public class SelectStatementExecutorProvider implements Provider<SelectStatementExecutor> {
 
     public static final String SELECT_CHUNK_SIZE = "rdbmsDaoChunkSize";
+    public static final String SELECT_FILTER_CACHE_SIZE = "rdbmsDaoFilterCacheSize";
+    public static final String SELECT_SQL_CACHE_SIZE = "rdbmsDaoSqlCacheSize";
+    public static final String SELECT_QUERY_META_CACHE_SIZE = "rdbmsDaoQueryMetaCacheSize";
+    public static final String SELECT_PARALLEL_SUB_QUERIES = "rdbmsDaoParallelSubQueries";
+    public static final String SELECT_SUB_QUERY_PARALLELISM = "rdbmsDaoSubQueryParallelism";
+    public static final String SELECT_SUB_QUERY_MAX_CONNECTIONS = "rdbmsDaoSubQueryMaxConnections";
 
     @Inject
     AsmModel asmModel;
@@ -77,10 +83,40 @@ public class SelectStatementExecutorProvider implements Provider<SelectStatement
     @Nullable
     private Integer chunkSize = 1000;
 
+    @Inject(optional = true)
+    @Named(SELECT_FILTER_CACHE_SIZE)
+    @Nullable
+    private Integer filterCacheSize = SelectStatementExecutor.DEFAULT_FILTER_CACHE_SIZE;
+
+    @Inject(optional = true)
+    @Named(SELECT_SQL_CACHE_SIZE)
+    @Nullable
+    private Integer sqlCacheSize = SelectStatementExecutor.DEFAULT_SQL_CACHE_SIZE;
+
+    @Inject(optional = true)
+    @Named(SELECT_QUERY_META_CACHE_SIZE)
+    @Nullable
+    private Integer queryMetaCacheSize = SelectStatementExecutor.DEFAULT_QUERY_META_CACHE_SIZE;
+
+    @Inject(optional = true)
+    @Named(SELECT_PARALLEL_SUB_QUERIES)
+    @Nullable
+    private Boolean parallelSubQueries = false;
+
+    @Inject(optional = true)
+    @Named(SELECT_SUB_QUERY_PARALLELISM)
+    @Nullable
+    private Integer subQueryParallelism = SelectStatementExecutor.DEFAULT_SUB_QUERY_PARALLELISM;
+
+    @Inject(optional = true)
+    @Named(SELECT_SUB_QUERY_MAX_CONNECTIONS)
+    @Nullable
+    private Integer subQueryMaxConnections = null;
+
     @SuppressWarnings("unchecked")
     @Override
     public SelectStatementExecutor get() {
-        return SelectStatementExecutor.builder()
+        final SelectStatementExecutor selectStatementExecutor = SelectStatementExecutor.builder()
                 .asmModel(asmModel)
                 .rdbmsModel(rdbmsModel)
                 .queryFactory(queryFactory)
@@ -88,11 +124,22 @@ public class SelectStatementExecutorProvider implements Provider<SelectStatement
                 .identifierProvider(identifierProvider)
                 .metricsCollector(metricsCollector)
                 .chunkSize(this.chunkSize)
+                .filterCacheSize(this.filterCacheSize)
+                .sqlCacheSize(this.sqlCacheSize)
+                .queryMetaCacheSize(this.queryMetaCacheSize)
+                .parallelSubQueries(this.parallelSubQueries)
+                .subQueryParallelism(this.subQueryParallelism)
+                .subQueryMaxConnections(this.subQueryMaxConnections)
                 .transformationTraceService(this.transformationTraceService)
                 .rdbmsParameterMapper(rdbmsParameterMapper)
                 .rdbmsBuilder(rdbmsBuilder)
                 .queryFactory(queryFactory)
                 .rdbmsResolver(rdbmsResolver)
                .build();
+        if (Boolean.TRUE.equals(this.parallelSubQueries)) {
+            // Guice has no lifecycle, worker pool of subqueries is shut down with the JVM
+            Runtime.getRuntime().addShutdownHook(new Thread(selectStatementExecutor::close, "judo-subquery-shutdown"));
+        }
+        return selectStatementExecutor;
     }
 }
@@ -34,6 +34,8 @@ import javax.annotation.Nullable;
 public class DefaultActorResolverProvider implements Provider<ActorResolver> {
 
     public static final String ACTOR_RESOLVER_CHECK_MAPPED_ACTORS = "actorResolverCheckMappedActors";
+    public static final String ACTOR_RESOLVER_CACHE_SIZE = "actorResolverCacheSize";
+    public static final String ACTOR_RESOLVER_CACHE_TTL = "actorResolverCacheTtl";
 
     @Inject
     AsmModel asmModel;
@@ -50,6 +52,16 @@ public class DefaultActorResolverProvider implements Provider<ActorResolver> {
     @Nullable
     Boolean checkMappedActors = false;
 
+    @Inject(optional = true)
+    @Named(ACTOR_RESOLVER_CACHE_SIZE)
+    @Nullable
+    Integer actorCacheSize;
+
+    @Inject(optional = true)
+    @Named(ACTOR_RESOLVER_CACHE_TTL)
+    @Nullable
+    Integer actorCacheTtl;
+
     @SuppressWarnings("unchecked")
     @Override
     public ActorResolver get() {
@@ -58,6 +70,8 @@ public class DefaultActorResolverProvider implements Provider<ActorResolver> {
                 .dao(dao)
                 .asmModel(asmModel)
                 .checkMappedActors(checkMappedActors)
+                .actorCacheSize(actorCacheSize)
+                .actorCacheTtl(actorCacheTtl)
                 .build();
     }
 }
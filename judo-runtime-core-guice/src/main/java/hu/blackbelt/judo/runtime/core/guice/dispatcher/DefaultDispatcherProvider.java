@@ -45,6 +45,7 @@ import hu.blackbelt.osgi.filestore.security.api.TokenValidator;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.annotation.Nullable;
+import java.util.concurrent.ExecutorService;
 
 @SuppressWarnings("rawtypes")
 public class DefaultDispatcherProvider implements Provider<Dispatcher> {
@@ -53,6 +54,9 @@ public class DefaultDispatcherProvider implements Provider<Dispatcher> {
     public static final String DISPATCHER_ENABLE_VALIDATION = "dispatcherEnableDefaultValidation";
     public static final String DISPATCHER_TRIM_STRING = "dispatcherTrimString";
     public static final String DISPATCHER_CASE_INSENSITIVE_LIKE = "dispatcherCaseInsensitiveLike";
+    public static final String DISPATCHER_PARALLEL_SIGNING_THRESHOLD = "dispatcherParallelSigningThreshold";
+    public static final String DISPATCHER_SIGNING_PARALLELISM = "dispatcherSigningParallelism";
+    public static final String DISPATCHER_SIGNING_EXECUTOR = "dispatcherSigningExecutor";
 
     @Inject
     JudoModelLoader models;
@@ -132,10 +136,25 @@ public class DefaultDispatcherProvider implements Provider<Dispatcher> {
     @Nullable
     Boolean caseInsensitiveLike;
 
+    @Inject(optional = true)
+    @Named(DISPATCHER_PARALLEL_SIGNING_THRESHOLD)
+    @Nullable
+    Integer parallelSigningThreshold;
+
+    @Inject(optional = true)
+    @Named(DISPATCHER_SIGNING_PARALLELISM)
+    @Nullable
+    Integer signingParallelism;
+
+    @Inject(optional = true)
+    @Named(DISPATCHER_SIGNING_EXECUTOR)
+    @Nullable
+    ExecutorService signingExecutor;
+
     @Override
     @SuppressWarnings("unchecked")
     public Dispatcher get() {
-        return DefaultDispatcher.builder()
+        final DefaultDispatcher dispatcher = DefaultDispatcher.builder()
                 .asmModel(models.getAsmModel())
                 .expressionModel(models.getExpressionModel())
                 .dao(dao)
@@ -158,7 +177,13 @@ public class DefaultDispatcherProvider implements Provider<Dispatcher> {
                 .enableValidation(enableValidation)
                 .trimString(trimString)
                 .caseInsensitiveLike(caseInsensitiveLike)
+                .parallelSigningThreshold(parallelSigningThreshold)
+                .signingParallelism(signingParallelism)
+                .signingExecutor(signingExecutor)
                 .exporter(exporter)
                 .build();
+        // Guice has no lifecycle, signing pool created by dispatcher is shut down with the JVM
+        Runtime.getRuntime().addShutdownHook(new Thread(dispatcher::close, "judo-signing-shutdown"));
+        return dispatcher;
     }
 }
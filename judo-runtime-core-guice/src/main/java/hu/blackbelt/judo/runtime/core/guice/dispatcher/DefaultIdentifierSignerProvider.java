@@ -26,6 +26,7 @@ import com.google.inject.name.Named;
 import hu.blackbelt.judo.dao.api.IdentifierProvider;
 import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
 import hu.blackbelt.judo.runtime.core.DataTypeManager;
+import hu.blackbelt.judo.runtime.core.MetricsCollector;
 import hu.blackbelt.judo.runtime.core.UUIDIdentifierProvider;
 import hu.blackbelt.judo.runtime.core.dispatcher.DefaultIdentifierSigner;
 import hu.blackbelt.judo.runtime.core.dispatcher.security.IdentifierSigner;
@@ -36,6 +37,9 @@ import javax.annotation.Nullable;
 public class DefaultIdentifierSignerProvider implements Provider<IdentifierSigner> {
 
     public static final String IDENTIFIER_SIGNER_SECRET = "identifierSignerSecret";
+    public static final String IDENTIFIER_SIGNER_VERIFIED_CACHE_SIZE = "identifierSignerVerifiedCacheSize";
+    public static final String IDENTIFIER_SIGNER_VERIFIED_CACHE_TTL = "identifierSignerVerifiedCacheTtl";
+    public static final String IDENTIFIER_SIGNER_TOKEN_FORMAT = "identifierSignerTokenFormat";
 
     @Inject
     AsmModel asmModel;
@@ -46,20 +50,47 @@ public class DefaultIdentifierSignerProvider implements Provider<IdentifierSigne
     @Inject
     IdentifierProvider identifierProvider;
 
+    @Inject
+    MetricsCollector metricsCollector;
+
     @Inject(optional = true)
     @Named(IDENTIFIER_SIGNER_SECRET)
     @Nullable
     String secret;
 
+    @Inject(optional = true)
+    @Named(IDENTIFIER_SIGNER_VERIFIED_CACHE_SIZE)
+    @Nullable
+    Integer verifiedIdentifierCacheSize;
+
+    @Inject(optional = true)
+    @Named(IDENTIFIER_SIGNER_VERIFIED_CACHE_TTL)
+    @Nullable
+    Integer verifiedIdentifierCacheTtl;
+
+    @Inject(optional = true)
+    @Named(IDENTIFIER_SIGNER_TOKEN_FORMAT)
+    @Nullable
+    String tokenFormat;
+
     @Override
     @SuppressWarnings("unchecked")
     public IdentifierSigner get() {
+        final DefaultIdentifierSigner.TokenFormat format = tokenFormat != null ? DefaultIdentifierSigner.TokenFormat.valueOf(tokenFormat) : null;
+        if (format == DefaultIdentifierSigner.TokenFormat.COMPACT && (secret == null || secret.isEmpty())) {
+            // fail on startup instead of first signed identifier
+            throw new IllegalStateException(IDENTIFIER_SIGNER_SECRET + " is required by compact " + IDENTIFIER_SIGNER_TOKEN_FORMAT);
+        }
 
         return DefaultIdentifierSigner.builder()
                 .asmModel(asmModel)
                 .identifierProvider(identifierProvider)
                 .dataTypeManager(dataTypeManager)
                 .secret(secret)
+                .verifiedIdentifierCacheSize(verifiedIdentifierCacheSize)
+                .verifiedIdentifierCacheTtl(verifiedIdentifierCacheTtl)
+                .metricsCollector(metricsCollector)
+                .tokenFormat(format)
                 .build();
     }
 }
@@ -0,0 +1,155 @@
+package hu.blackbelt.judo.runtime.core.security.keycloak.cxf;
+
+/*-
+ * #%L
+ * JUDO Services Keycloak Security for CXF
+ * %%
+ * Copyright (C) 2018 - 2023 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.dispatcher.api.JudoPrincipal;
+import lombok.Value;
+import org.eclipse.emf.ecore.EClass;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of principals of verified access tokens.
+ * <p>
+ * Entries are keyed by realm, actor type and SHA-256 hash of the token (tokens are not kept in memory) and they expire
+ * at expiration time of the token. Cached tokens issued before not-before policy of the realm are rejected. When cache
+ * is full expired entries are removed, cache is shrunk by dropping arbitrary entries if it is still full. Cache with
+ * maximum size 0 is disabled.
+ */
+class AccessTokenCache {
+
+    private final int maximumSize;
+
+    /**
+     * Current time in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    private final Map<CacheKey, CacheEntry> entries = new ConcurrentHashMap<>();
+
+    AccessTokenCache(final int maximumSize) {
+        this(maximumSize, System::currentTimeMillis);
+    }
+
+    AccessTokenCache(final int maximumSize, final LongSupplier clock) {
+        this.maximumSize = Math.max(maximumSize, 0);
+        this.clock = clock;
+    }
+
+    boolean isEnabled() {
+        return maximumSize > 0;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get principal of a verified access token.
+     *
+     * @param realm     realm of actor
+     * @param actorType actor type
+     * @param token     access token
+     * @param notBefore not-before policy of realm (epoch second), tokens issued before it are not accepted
+     * @return principal or <code>null</code> if token is not cached, it is expired or it is revoked by not-before policy
+     */
+    JudoPrincipal get(final String realm, final EClass actorType, final String token, final int notBefore) {
+        if (!isEnabled()) {
+            return null;
+        }
+        final CacheKey key = new CacheKey(realm, actorType, hash(token));
+        final CacheEntry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        } else if (entry.isExpired(clock.getAsLong()) || entry.getIssuedAt() < notBefore) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.getPrincipal();
+    }
+
+    /**
+     * Add principal of a verified access token.
+     *
+     * @param realm     realm of actor
+     * @param actorType actor type
+     * @param token     access token
+     * @param principal principal
+     * @param issuedAt  issue time of token (epoch second)
+     * @param expiresAt expiration time of token (epoch second), token without expiration is not cached
+     */
+    void put(final String realm, final EClass actorType, final String token, final JudoPrincipal principal, final long issuedAt, final long expiresAt) {
+        if (!isEnabled() || expiresAt <= 0) {
+            return;
+        }
+        if (entries.size() >= maximumSize) {
+            evict();
+        }
+        entries.put(new CacheKey(realm, actorType, hash(token)), new CacheEntry(principal, issuedAt, expiresAt * 1000L));
+    }
+
+    void invalidateAll() {
+        entries.clear();
+    }
+
+    private void evict() {
+        final long now = clock.getAsLong();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        final int target = maximumSize * 3 / 4;
+        for (final Iterator<CacheKey> it = entries.keySet().iterator(); it.hasNext() && entries.size() > target; ) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static String hash(final String token) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported", ex);
+        }
+    }
+
+    @Value
+    private static class CacheKey {
+        String realm;
+        EClass actorType;
+        String tokenHash;
+    }
+
+    @Value
+    private static class CacheEntry {
+        JudoPrincipal principal;
+        long issuedAt;
+        long expiresAtMillis;
+
+        boolean isExpired(final long now) {
+            return now >= expiresAtMillis;
+        }
+    }
+}
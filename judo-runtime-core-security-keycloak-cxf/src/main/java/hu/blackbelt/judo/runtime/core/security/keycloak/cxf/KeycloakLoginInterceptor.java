@@ -27,6 +27,8 @@ import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
 import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
 import hu.blackbelt.judo.meta.keycloak.AttributeBinding;
 import hu.blackbelt.judo.meta.keycloak.runtime.KeycloakModel;
+import hu.blackbelt.judo.runtime.core.MetricsCancelToken;
+import hu.blackbelt.judo.runtime.core.MetricsCollector;
 import hu.blackbelt.judo.runtime.core.exception.AuthenticationRequiredException;
 import hu.blackbelt.judo.runtime.core.security.OpenIdConfigurationProvider;
 import hu.blackbelt.judo.runtime.core.security.RealmExtractor;
@@ -48,6 +50,7 @@ import org.keycloak.adapters.KeycloakDeployment;
 import org.keycloak.adapters.KeycloakDeploymentBuilder;
 import org.keycloak.adapters.rotation.AdapterTokenVerifier;
 import org.keycloak.common.VerificationException;
+import org.keycloak.common.util.Base64Url;
 import org.keycloak.exceptions.TokenNotActiveException;
 import org.keycloak.jose.jws.JWSInput;
 import org.keycloak.jose.jws.JWSInputException;
@@ -60,6 +63,7 @@ import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
@@ -70,6 +74,14 @@ public class KeycloakLoginInterceptor extends AbstractPhaseInterceptor<Message>
     private static final String AUTHORIZATION = "Authorization";
     private static final String BEARER = "Bearer";
 
+    private static final ObjectMapper TOKEN_OBJECT_MAPPER = new ObjectMapper();
+
+    public static final int DEFAULT_ACCESS_TOKEN_CACHE_SIZE = 10000;
+
+    public static final String METRICS_ACCESS_TOKEN_CACHE_HIT = "access-token-cache-hit";
+    public static final String METRICS_ACCESS_TOKEN_CACHE_MISS = "access-token-cache-miss";
+    public static final String METRICS_ACCESS_TOKEN_VERIFICATION = "verify-access-token";
+
     @Reference(policyOption = ReferencePolicyOption.GREEDY)
     RealmExtractor realmExtractor;
 
@@ -86,21 +98,43 @@ public class KeycloakLoginInterceptor extends AbstractPhaseInterceptor<Message>
 
     private Map<String, KeycloakDeployment> keycloakDeploymentMap = new ConcurrentHashMap<>();
 
-    private final ObjectMapper tokenObjectMapper = new ObjectMapper();
+    /**
+     * Mapping of token claims to attribute names by actor type, computed once per actor type.
+     */
+    private final Map<EClass, Map<String, String>> claimMappings = new ConcurrentHashMap<>();
+
+    /**
+     * Principals of verified access tokens.
+     */
+    private AccessTokenCache accessTokenCache;
+
+    private MetricsCollector metricsCollector;
 
     public KeycloakLoginInterceptor() {
         super(Phase.UNMARSHAL);
+        accessTokenCache = new AccessTokenCache(DEFAULT_ACCESS_TOKEN_CACHE_SIZE);
     }
 
     private AsmUtils asmUtils;
 
 
+    /**
+     * Create login interceptor. Interceptor is not built by the runtime modules, so access token cache options are
+     * set by the caller (cache is enabled with {@link #DEFAULT_ACCESS_TOKEN_CACHE_SIZE} entries if not set).
+     *
+     * @param metricsCollector        metrics collector of cache hits and token verifications (optional)
+     * @param accessTokenCacheEnabled cache principals of verified access tokens (enabled by default)
+     * @param accessTokenCacheSize    maximum number of cached access tokens
+     */
     @Builder
     public KeycloakLoginInterceptor(
             @NonNull RealmExtractor realmExtractor,
             @NonNull AsmModel asmModel,
             @NonNull OpenIdConfigurationProvider openIdConfigurationProvider,
-            @NonNull TransformationTraceService transformationTraceService) {
+            @NonNull TransformationTraceService transformationTraceService,
+            MetricsCollector metricsCollector,
+            Boolean accessTokenCacheEnabled,
+            Integer accessTokenCacheSize) {
         super(Phase.UNMARSHAL);
         this.realmExtractor = realmExtractor;
         this.asmModel = asmModel;
@@ -109,26 +143,49 @@ public class KeycloakLoginInterceptor extends AbstractPhaseInterceptor<Message>
         this.authServerUrl = openIdConfigurationProvider.getServerUrl();
         asmUtils = new AsmUtils(asmModel.getResourceSet());
         keycloakDeploymentMap.clear();
+        this.metricsCollector = metricsCollector;
+        accessTokenCache = new AccessTokenCache(Objects.requireNonNullElse(accessTokenCacheEnabled, true)
+                ? Objects.requireNonNullElse(accessTokenCacheSize, DEFAULT_ACCESS_TOKEN_CACHE_SIZE)
+                : 0);
     }
 
-    private synchronized KeycloakDeployment getKeycloakDeployment(final String realm, final String resource) {
-        final KeycloakDeployment keycloakDeployment;
-        if (keycloakDeploymentMap.containsKey(realm)) {
-            keycloakDeployment = keycloakDeploymentMap.get(realm);
-        } else {
+    private KeycloakDeployment getKeycloakDeployment(final String realm, final String resource) {
+        // cached deployments are returned without locking, only creation of a new deployment is locked (per realm)
+        final KeycloakDeployment keycloakDeployment = keycloakDeploymentMap.get(realm);
+        if (keycloakDeployment != null) {
+            return keycloakDeployment;
+        }
+
+        return keycloakDeploymentMap.computeIfAbsent(realm, r -> {
             final AdapterConfig adapterConfig = new AdapterConfig();
             adapterConfig.setConnectionPoolSize(10);
             adapterConfig.setAuthServerUrl(authServerUrl);
-            adapterConfig.setRealm(realm);
+            adapterConfig.setRealm(r);
             adapterConfig.setResource(resource);
             adapterConfig.setSslRequired("external");
             adapterConfig.setPublicClient(true);
             adapterConfig.setConfidentialPort(0);
-            keycloakDeployment = KeycloakDeploymentBuilder.build(adapterConfig);
-            keycloakDeploymentMap.put(realm, keycloakDeployment);
+            return KeycloakDeploymentBuilder.build(adapterConfig);
+        });
+    }
+
+    private Map<String, String> getClaimMapping(final EClass actorType) {
+        final Map<String, String> claimMapping = claimMappings.get(actorType);
+        if (claimMapping != null) {
+            return claimMapping;
         }
 
-        return keycloakDeployment;
+        return claimMappings.computeIfAbsent(actorType, t -> {
+            final EMap<String, EAttribute> mapping = ECollections.asEMap(t.getEAllAttributes().stream()
+                    .collect(Collectors.toMap(claim -> ((AttributeBinding) transformationTraceService.getDescendantOfInstanceByModelType(asmModel.getName(), KeycloakModel.class, claim).get(0)).getAttributeName(), claim -> claim)));
+            // username is added to token as preferred_username by Keycloak
+            final EAttribute usernameClaim = mapping.get("username");
+            if (usernameClaim != null && "USERNAME".equals(AsmUtils.getExtensionAnnotationValue(usernameClaim, "claim", true).orElse("-"))) {
+                mapping.put("preferred_username", usernameClaim);
+            }
+            return Collections.unmodifiableMap(mapping.stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().getName())));
+        });
     }
 
     public void handleMessage(final Message message) {
@@ -140,38 +197,60 @@ public class KeycloakLoginInterceptor extends AbstractPhaseInterceptor<Message>
             final Optional<String> bearerToken = extractBearerToken(request);
             if (bearerToken != null && bearerToken.isPresent()) {
                 final KeycloakDeployment keycloakDeployment = getKeycloakDeployment(realm.get(), AsmUtils.getClassifierFQName(actorType.get()));
-                JWSInput jws = null;
+
+                // tokens are verified offline (signature and expiration), so principals of verified tokens can be
+                // reused until expiration of tokens (or until not-before policy of realm is changed)
+                if (accessTokenCache.isEnabled()) {
+                    final JudoPrincipal cachedPrincipal = accessTokenCache.get(realm.get(), actorType.get(), bearerToken.get(), keycloakDeployment.getNotBefore());
+                    if (cachedPrincipal != null) {
+                        incrementMetrics(METRICS_ACCESS_TOKEN_CACHE_HIT, 1);
+                        MDC.put("user", cachedPrincipal.getName());
+                        message.put(SecurityContext.class, KeycloakSecurityContext.builder()
+                                .userPrincipal(cachedPrincipal)
+                                .build());
+                        return;
+                    }
+                    incrementMetrics(METRICS_ACCESS_TOKEN_CACHE_MISS, 1);
+                }
+
                 try {
-                    jws = new JWSInput(bearerToken.get());
-                    final AccessToken accessToken = AdapterTokenVerifier.verifyToken(bearerToken.get(), keycloakDeployment);
-                    final Map<String, Object> token = tokenObjectMapper.readValue(jws.getContent(), Map.class);
+                    // token is parsed and verified by verifier, claims are read from payload of the verified token
+                    final AccessToken accessToken;
+                    try (MetricsCancelToken ct = startMetrics(METRICS_ACCESS_TOKEN_VERIFICATION)) {
+                        accessToken = AdapterTokenVerifier.createVerifier(bearerToken.get(), keycloakDeployment, true, AccessToken.class)
+                                .verify()
+                                .getToken();
+                    }
+                    final Map<String, Object> token = readClaims(bearerToken.get());
 
                     // map token (Keycloak) data to actor attributes
-                    final EMap<String, EAttribute> mapping = ECollections.asEMap(actorType.get().getEAllAttributes().stream()
-                            .collect(Collectors.toMap(claim -> ((AttributeBinding) transformationTraceService.getDescendantOfInstanceByModelType(asmModel.getName(), KeycloakModel.class, claim).get(0)).getAttributeName(), claim -> claim)));
-                    // username is added to token as preferred_username by Keycloak
-                    final EAttribute usernameClaim = mapping.get("username");
-                    if (usernameClaim != null && "USERNAME".equals(AsmUtils.getExtensionAnnotationValue(usernameClaim, "claim", true).orElse("-"))) {
-                        mapping.put("preferred_username", usernameClaim);
-                    }
+                    final Map<String, String> mapping = getClaimMapping(actorType.get());
                     final Map<String, Object> attributes = token.entrySet().stream()
-                            .collect(Collectors.toMap(e -> mapping.containsKey(e.getKey()) ? mapping.get(e.getKey()).getName() : e.getKey(), e -> e.getValue()));
+                            .collect(Collectors.toMap(e -> mapping.getOrDefault(e.getKey(), e.getKey()), e -> e.getValue()));
+
+                    final JudoPrincipal principal = JudoPrincipal.builder()
+                            .name(accessToken.getPreferredUsername())
+                            .realm(realm.get())
+                            .client(convertClientToActorName(accessToken.getIssuedFor()))
+                            .attributes(Collections.unmodifiableMap(attributes))
+                            .build();
+                    if (accessToken.getExp() != null) {
+                        accessTokenCache.put(realm.get(), actorType.get(), bearerToken.get(), principal,
+                                Objects.requireNonNullElse(accessToken.getIat(), 0L), accessToken.getExp());
+                    }
 
                     MDC.put("user", accessToken.getPreferredUsername());
                     message.put(SecurityContext.class, KeycloakSecurityContext.builder()
-                            .userPrincipal(JudoPrincipal.builder()
-                                    .name(accessToken.getPreferredUsername())
-                                    .realm(realm.get())
-                                    .client(convertClientToActorName(accessToken.getIssuedFor()))
-                                    .attributes(Collections.unmodifiableMap(attributes))
-                                    .build())
+                            .userPrincipal(principal)
                             .build());
                 } catch (TokenNotActiveException ex) {
                     log.info("Authentication failed: {}", ex.getMessage());
                     if (log.isDebugEnabled()) {
                         log.debug("Bearer token: {}", bearerToken.get());
-                        if (jws != null) {
-                            log.debug("Decoded access token: {}", jws.readContentAsString());
+                        try {
+                            log.debug("Decoded access token: {}", new JWSInput(bearerToken.get()).readContentAsString());
+                        } catch (JWSInputException e) {
+                            log.debug("Unable to decode access token", e);
                         }
                     }
 
@@ -179,7 +258,7 @@ public class KeycloakLoginInterceptor extends AbstractPhaseInterceptor<Message>
                             .code("ACCESS_TOKEN_EXPIRED")
                             .level(ValidationResult.Level.ERROR)
                             .build());
-                } catch (VerificationException | JWSInputException | IOException | RuntimeException ex) {
+                } catch (VerificationException | IOException | RuntimeException ex) {
                     log.error("Authentication failed", ex);
                     throw new AuthenticationException("Authentication failed");
                 }
@@ -187,6 +266,27 @@ public class KeycloakLoginInterceptor extends AbstractPhaseInterceptor<Message>
         }
     }
 
+    private MetricsCancelToken startMetrics(final String key) {
+        return metricsCollector != null ? metricsCollector.start(key) : null;
+    }
+
+    private void incrementMetrics(final String key, final long delta) {
+        if (metricsCollector != null) {
+            metricsCollector.increment(key, delta);
+        }
+    }
+
+    /**
+     * Read claims from JSON payload of a (verified) token. Claims are not converted from parsed {@link AccessToken} so
+     * types of values and claims with null value are kept as they are in the token.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readClaims(final String token) throws IOException {
+        final int payloadStart = token.indexOf('.') + 1;
+        final int payloadEnd = token.indexOf('.', payloadStart);
+        return TOKEN_OBJECT_MAPPER.readValue(Base64Url.decode(token.substring(payloadStart, payloadEnd)), Map.class);
+    }
+
     private static Optional<String> extractBearerToken(final HttpServletRequest httpServletRequest) {
         final String authorization = httpServletRequest.getHeader(AUTHORIZATION);
         if (authorization != null) {
@@ -0,0 +1,156 @@
+package hu.blackbelt.judo.runtime.core.security.keycloak.cxf;
+
+/*-
+ * #%L
+ * JUDO Services Keycloak Security for CXF
+ * %%
+ * Copyright (C) 2018 - 2023 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import hu.blackbelt.judo.dispatcher.api.JudoPrincipal;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessTokenCacheTest {
+
+    private static final String REALM = "demo";
+    private static final String TOKEN = "header.payload.signature";
+    private static final long NOW = 1_700_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(NOW * 1000L);
+
+    private EClass actorType;
+
+    private JudoPrincipal principal;
+
+    @BeforeEach
+    void init() {
+        actorType = EcoreFactory.eINSTANCE.createEClass();
+        actorType.setName("Actor");
+        principal = JudoPrincipal.builder()
+                .name("user")
+                .realm(REALM)
+                .attributes(Collections.emptyMap())
+                .build();
+    }
+
+    @Test
+    void testCachedPrincipalIsReturnedUntilExpiration() {
+        final AccessTokenCache cache = new AccessTokenCache(10, clock::get);
+        cache.put(REALM, actorType, TOKEN, principal, NOW - 10, NOW + 60);
+
+        assertSame(principal, cache.get(REALM, actorType, TOKEN, 0));
+
+        clock.set((NOW + 59) * 1000L);
+        assertSame(principal, cache.get(REALM, actorType, TOKEN, 0));
+
+        clock.set((NOW + 60) * 1000L);
+        assertNull(cache.get(REALM, actorType, TOKEN, 0));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testTokenWithoutExpirationIsNotCached() {
+        final AccessTokenCache cache = new AccessTokenCache(10, clock::get);
+        cache.put(REALM, actorType, TOKEN, principal, NOW, 0);
+
+        assertNull(cache.get(REALM, actorType, TOKEN, 0));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testEntriesAreKeyedByRealmActorTypeAndToken() {
+        final AccessTokenCache cache = new AccessTokenCache(10, clock::get);
+        final EClass otherActorType = EcoreFactory.eINSTANCE.createEClass();
+        otherActorType.setName("OtherActor");
+        cache.put(REALM, actorType, TOKEN, principal, NOW, NOW + 60);
+
+        assertNull(cache.get("other", actorType, TOKEN, 0));
+        assertNull(cache.get(REALM, otherActorType, TOKEN, 0));
+        assertNull(cache.get(REALM, actorType, TOKEN + "x", 0));
+        assertSame(principal, cache.get(REALM, actorType, TOKEN, 0));
+    }
+
+    @Test
+    void testTokenIssuedBeforeNotBeforePolicyIsRejected() {
+        final AccessTokenCache cache = new AccessTokenCache(10, clock::get);
+        cache.put(REALM, actorType, TOKEN, principal, NOW - 10, NOW + 60);
+
+        assertSame(principal, cache.get(REALM, actorType, TOKEN, (int) (NOW - 10)));
+        assertNull(cache.get(REALM, actorType, TOKEN, (int) (NOW - 5)));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testEvictionAtMaximumSize() {
+        final int maximumSize = 8;
+        final AccessTokenCache cache = new AccessTokenCache(maximumSize, clock::get);
+        for (int i = 0; i < maximumSize; i++) {
+            cache.put(REALM, actorType, TOKEN + i, principal, NOW, NOW + 60);
+        }
+        assertEquals(maximumSize, cache.size());
+
+        cache.put(REALM, actorType, TOKEN + maximumSize, principal, NOW, NOW + 60);
+
+        assertTrue(cache.size() <= maximumSize * 3 / 4 + 1, "Cache must be shrunk when it is full");
+        assertSame(principal, cache.get(REALM, actorType, TOKEN + maximumSize, 0));
+    }
+
+    @Test
+    void testExpiredEntriesAreEvictedFirst() {
+        final int maximumSize = 4;
+        final AccessTokenCache cache = new AccessTokenCache(maximumSize, clock::get);
+        cache.put(REALM, actorType, "expiring", principal, NOW, NOW + 10);
+        for (int i = 1; i < maximumSize; i++) {
+            cache.put(REALM, actorType, TOKEN + i, principal, NOW, NOW + 60);
+        }
+
+        clock.set((NOW + 10) * 1000L);
+        cache.put(REALM, actorType, TOKEN + maximumSize, principal, NOW + 10, NOW + 70);
+
+        assertEquals(maximumSize, cache.size());
+        for (int i = 1; i <= maximumSize; i++) {
+            assertSame(principal, cache.get(REALM, actorType, TOKEN + i, 0));
+        }
+    }
+
+    @Test
+    void testDisabledCache() {
+        final AccessTokenCache cache = new AccessTokenCache(0, clock::get);
+        cache.put(REALM, actorType, TOKEN, principal, NOW, NOW + 60);
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get(REALM, actorType, TOKEN, 0));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testInvalidateAll() {
+        final AccessTokenCache cache = new AccessTokenCache(10, clock::get);
+        cache.put(REALM, actorType, TOKEN, principal, NOW, NOW + 60);
+
+        cache.invalidateAll();
+
+        assertNull(cache.get(REALM, actorType, TOKEN, 0));
+    }
+}
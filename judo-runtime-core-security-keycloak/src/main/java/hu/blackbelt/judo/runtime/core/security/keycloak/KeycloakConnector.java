@@ -27,16 +27,19 @@ import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
 import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
 import hu.blackbelt.judo.meta.keycloak.Client;
 import hu.blackbelt.judo.runtime.core.security.OpenIdConfigurationProvider;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.eclipse.emf.common.util.ECollections;
 import org.eclipse.emf.common.util.EMap;
 import org.eclipse.emf.ecore.EClass;
 
+import javax.ws.rs.client.ClientResponseFilter;
 import javax.ws.rs.core.Form;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
@@ -47,6 +50,8 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -55,6 +60,11 @@ import static hu.blackbelt.judo.meta.keycloak.runtime.KeycloakObjectMapper.*;
 @Slf4j
 public class KeycloakConnector implements OpenIdConfigurationProvider {
 
+    /**
+     * Admin token is refreshed before its expiration by this margin (or half of its lifetime if it is shorter).
+     */
+    public static final long ADMIN_TOKEN_REFRESH_MARGIN_MS = 30000L;
+
     @Setter
     AsmModel asmModel;
 
@@ -76,6 +86,24 @@ public class KeycloakConnector implements OpenIdConfigurationProvider {
     private EMap<EClass, String> realms = ECollections.asEMap(new ConcurrentHashMap<>());
     private EMap<EClass, Map> openIdConfigurations = ECollections.asEMap(new ConcurrentHashMap<>());
 
+    /**
+     * Prototype of clients, new clients are created from it sharing its configuration (endpoint and conduit).
+     */
+    private volatile WebClient baseClient;
+
+    private volatile AdminToken adminToken;
+
+    /**
+     * Lock of admin token requests, a single caller refreshes the token.
+     */
+    private final ReentrantLock adminTokenLock = new ReentrantLock();
+
+    /**
+     * Current time in milliseconds.
+     */
+    @Setter(AccessLevel.PACKAGE)
+    private LongSupplier clock = System::currentTimeMillis;
+
 
     @Builder
     public KeycloakConnector(
@@ -103,7 +131,60 @@ public class KeycloakConnector implements OpenIdConfigurationProvider {
                     .ifPresent(realm -> realms.put(actorType, realm)));
     }
 
-    private String getAccessToken() {
+    private WebClient createClient() {
+        WebClient client = baseClient;
+        if (client == null) {
+            synchronized (this) {
+                client = baseClient;
+                if (client == null) {
+                    final List clientProviders = new ArrayList(providers);
+                    // cached admin token is dropped when it is rejected, next call will request a new one
+                    clientProviders.add((ClientResponseFilter) (requestContext, responseContext) -> {
+                        if (responseContext.getStatus() == Response.Status.UNAUTHORIZED.getStatusCode()
+                                && requestContext.getUri().getPath().contains("/admin/")) {
+                            invalidateAdminToken();
+                        }
+                    });
+                    client = WebClient.create(serverUrl, clientProviders);
+                    baseClient = client;
+                }
+            }
+        }
+        return WebClient.fromClient(client);
+    }
+
+    /**
+     * Get access token of admin user. Token is cached and it is refreshed before its expiration. While a token is
+     * refreshed by a single caller, other callers keep using the cached token if it is not expired yet (they are
+     * waiting for the new token only if there is no valid one).
+     */
+    String getAccessToken() {
+        final AdminToken token = adminToken;
+        final long now = clock.getAsLong();
+        if (token != null && now < token.getRefreshAt()) {
+            return token.getAccessToken();
+        }
+
+        if (token != null && now < token.getExpiresAt()) {
+            if (!adminTokenLock.tryLock()) {
+                return token.getAccessToken();
+            }
+        } else {
+            adminTokenLock.lock();
+        }
+        try {
+            return refreshAccessToken();
+        } finally {
+            adminTokenLock.unlock();
+        }
+    }
+
+    private String refreshAccessToken() {
+        final AdminToken token = adminToken;
+        if (token != null && clock.getAsLong() < token.getRefreshAt()) {
+            return token.getAccessToken();
+        }
+
         final Form form = new Form()
                 .param("username", adminUser)
                 .param("password", adminPassword)
@@ -112,24 +193,50 @@ public class KeycloakConnector implements OpenIdConfigurationProvider {
         if (clientSecret != null) {
             form.param("client_secret", clientSecret);
         }
-        final Map response = WebClient.create(serverUrl, providers)
-                .accept(MediaType.APPLICATION_JSON)
-                .type(MediaType.APPLICATION_FORM_URLENCODED_TYPE)
-                .path("/realms/master/protocol/openid-connect/token")
-                .post(form, Map.class);
+        final long requestedAt = clock.getAsLong();
+        final Map response;
+        try {
+            response = createClient()
+                    .accept(MediaType.APPLICATION_JSON)
+                    .type(MediaType.APPLICATION_FORM_URLENCODED_TYPE)
+                    .path("/realms/master/protocol/openid-connect/token")
+                    .post(form, Map.class);
+        } catch (RuntimeException ex) {
+            if (token != null && clock.getAsLong() < token.getExpiresAt()) {
+                log.warn("Unable to refresh admin token, current token is used until its expiration", ex);
+                return token.getAccessToken();
+            }
+            throw ex;
+        }
 
-        return (String) response.get("access_token");
+        final String accessToken = (String) response.get("access_token");
+        if (response.get("expires_in") instanceof Number) {
+            final long lifetime = ((Number) response.get("expires_in")).longValue() * 1000L;
+            adminToken = new AdminToken(accessToken,
+                    requestedAt + lifetime - Math.min(ADMIN_TOKEN_REFRESH_MARGIN_MS, lifetime / 2),
+                    requestedAt + lifetime);
+        } else {
+            adminToken = null;
+        }
+        return accessToken;
+    }
+
+    /**
+     * Drop cached admin token, next admin call will request a new one.
+     */
+    public void invalidateAdminToken() {
+        adminToken = null;
     }
 
     public WebClient getClient(final String realm) {
-        return WebClient.create(serverUrl, providers)
+        return createClient()
                 .accept(MediaType.APPLICATION_JSON)
                 .type(MediaType.APPLICATION_JSON)
                 .path("/realms/{realm}/.well-known/openid-configuration", realm);
     }
 
     public WebClient getAdminClient() {
-        return WebClient.create(serverUrl, providers)
+        return createClient()
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + getAccessToken())
                 .path("/admin");
     }
@@ -183,7 +290,7 @@ public class KeycloakConnector implements OpenIdConfigurationProvider {
     @Override
     public void ping() {
         try {
-            final Response response = WebClient.create(serverUrl, providers).path("/").get();
+            final Response response = createClient().path("/").get();
             checkState(response.getStatus() == 200, "Keycloak is not ready");
         } catch (RuntimeException ex) {
             throw new IllegalStateException("Keycloak is not available", ex);
@@ -194,4 +301,11 @@ public class KeycloakConnector implements OpenIdConfigurationProvider {
     public String getClientId(final EClass actorType) {
         return AsmUtils.isActorType(actorType) ? AsmUtils.getClassifierFQName(actorType).replace(".", "-") : null;
     }
+
+    @Value
+    private static class AdminToken {
+        String accessToken;
+        long refreshAt;
+        long expiresAt;
+    }
 }
@@ -51,7 +51,7 @@ import static hu.blackbelt.judo.runtime.core.security.keycloak.KeycloakConnector
 import static java.util.function.Function.identity;
 
 @Slf4j
-public class KeycloakUserManager implements UserManager<String> {
+public class KeycloakUserManager implements UserManager<String>, AutoCloseable {
 
     public static final String KEYCLOAK_ID = "id";
     public static final String KEYCLOAK_USERNAME_CLAIM = "username";
@@ -75,6 +75,9 @@ public class KeycloakUserManager implements UserManager<String> {
     private Integer retryMaxAttempts = 1000;
     private Boolean retryExponentialBackoff = true;
     private Long retryWaitDuration = 1000L;
+    private Integer batchParallelism = UserBatchRunner.DEFAULT_PARALLELISM;
+    private Integer batchRetryMaxAttempts = UserBatchRunner.DEFAULT_MAX_ATTEMPTS;
+    private Long batchTimeout = UserBatchRunner.DEFAULT_TIMEOUT;
 
     private Collection<String> requiredActionsOnUserCreate;
 
@@ -86,6 +89,12 @@ public class KeycloakUserManager implements UserManager<String> {
     private EMap<EClass, Map<String, String>> attributeMappingOfPrincipal = ECollections.asEMap(new ConcurrentHashMap<>());
 
     private RetryRegistry retryRegistry;
+    private final Map<String, Retry> retries = new ConcurrentHashMap<>();
+
+    /**
+     * Runner of batch calls, it has its own worker pool unless a batch executor is given.
+     */
+    private UserBatchRunner batchRunner;
 
     @Setter
     private boolean identityManagerReady;
@@ -103,7 +112,11 @@ public class KeycloakUserManager implements UserManager<String> {
             Boolean asyncServiceCall,
             Integer retryMaxAttempts,
             Boolean retryExponentialBackoff,
-            Long retryWaitDuration
+            Long retryWaitDuration,
+            Integer batchParallelism,
+            Integer batchRetryMaxAttempts,
+            Long batchTimeout,
+            Executor batchExecutor
     ) {
         this.asmModel = asmModel;
         this.defaultPasswordPolicy = defaultPasswordPolicy;
@@ -117,6 +130,9 @@ public class KeycloakUserManager implements UserManager<String> {
         this.retryMaxAttempts = Optional.ofNullable(retryMaxAttempts).orElse(this.retryMaxAttempts);
         this.retryExponentialBackoff = Optional.ofNullable(retryExponentialBackoff).orElse(this.retryExponentialBackoff);
         this.retryWaitDuration = Optional.ofNullable(retryWaitDuration).orElse(this.retryWaitDuration);
+        this.batchParallelism = Optional.ofNullable(batchParallelism).orElse(this.batchParallelism);
+        this.batchRetryMaxAttempts = Optional.ofNullable(batchRetryMaxAttempts).orElse(this.batchRetryMaxAttempts);
+        this.batchTimeout = Optional.ofNullable(batchTimeout).orElse(this.batchTimeout);
         if (requiredActions != null) {
             requiredActionsOnUserCreate = Arrays.asList(requiredActions.split(",")).stream().map(a -> a.trim()).collect(Collectors.toList());
         }
@@ -143,6 +159,25 @@ public class KeycloakUserManager implements UserManager<String> {
         attributeMappingOfPrincipal.clear();
 
         retryRegistry = RetryUtil.createRetryRegistry(retryMaxAttempts, retryWaitDuration, retryExponentialBackoff);
+
+        // batches have their own (lower) limit of attempts and a time limit so a failing identity provider does not
+        // keep workers busy
+        batchRunner = UserBatchRunner.builder()
+                .parallelism(this.batchParallelism)
+                .maxAttempts(Math.min(this.batchRetryMaxAttempts, this.retryMaxAttempts))
+                .waitDuration(this.retryWaitDuration)
+                .exponentialBackoff(this.retryExponentialBackoff)
+                .timeout(this.batchTimeout)
+                .executor(batchExecutor)
+                .build();
+    }
+
+    /**
+     * Shut down worker pool of batch calls (it has to be called on deactivation).
+     */
+    @Override
+    public void close() {
+        batchRunner.close();
     }
 
     @Override
@@ -178,12 +213,9 @@ public class KeycloakUserManager implements UserManager<String> {
         if (enabled) {
             getRealmOfActor(actor)
                     .ifPresent(realmName -> {
-                        Retry retry = retryRegistry.retry("createUserCall Realm: " + realmName + " User:  " + username);
-                        Runnable task = Retry.decorateRunnable(retry,
+                        Runnable task = Retry.decorateRunnable(getRetry("createUserCall Realm: " + realmName),
                                 createUserCall(realmName, username, user));
 
-                        RetryUtil.registerLogEventHandlers(retry);
-
                         if (asyncServiceCall) {
                             CompletableFuture.runAsync(task).whenComplete((v, e) -> {
                                 if (e != null) {
@@ -199,6 +231,20 @@ public class KeycloakUserManager implements UserManager<String> {
         }
     }
 
+    @Override
+    public CompletableFuture<Map<String, Throwable>> createUsers(final EClass actor, final Map<String, Map<String, Object>> users) {
+        if (enabled) {
+            return getRealmOfActor(actor)
+                    .map(realmName -> runBatch("create", realmName,
+                            users.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(),
+                                    e -> createUserCall(realmName, e.getKey(), e.getValue()), (a, b) -> b, LinkedHashMap::new))))
+                    .orElseGet(() -> CompletableFuture.completedFuture(Collections.emptyMap()));
+        } else {
+            log.info("User manager is not enabled, users are not created: '{}'", users.keySet());
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+    }
+
     private Runnable createUserCall(String realmName, String username, final Map<String, Object> user) {
         return () -> {
             checkState(identityManagerReady);
@@ -223,12 +269,9 @@ public class KeycloakUserManager implements UserManager<String> {
         if (enabled) {
             getRealmOfActor(actor)
                     .ifPresent(realmName -> {
-                        Retry retry = retryRegistry.retry("updateUserCall Realm: " + realmName + " User: " + username);
-                        Runnable task = Retry.decorateRunnable(retry,
+                        Runnable task = Retry.decorateRunnable(getRetry("updateUserCall Realm: " + realmName),
                                 updateUserCall(realmName, username, user));
 
-                        RetryUtil.registerLogEventHandlers(retry);
-
                         if (asyncServiceCall) {
                             CompletableFuture.runAsync(task).whenComplete((v, e) -> {
                                 if (e != null) {
@@ -244,6 +287,20 @@ public class KeycloakUserManager implements UserManager<String> {
         }
     }
 
+    @Override
+    public CompletableFuture<Map<String, Throwable>> updateUsers(final EClass actor, final Map<String, Map<String, Object>> users) {
+        if (enabled) {
+            return getRealmOfActor(actor)
+                    .map(realmName -> runBatch("update", realmName,
+                            users.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(),
+                                    e -> updateUserCall(realmName, e.getKey(), e.getValue()), (a, b) -> b, LinkedHashMap::new))))
+                    .orElseGet(() -> CompletableFuture.completedFuture(Collections.emptyMap()));
+        } else {
+            log.info("User manager is not enabled, users are not updated: '{}'", users.keySet());
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+    }
+
     private Runnable updateUserCall(final String realmName, final String username, final Map<String, Object> user) {
         return () -> {
             checkState(identityManagerReady);
@@ -314,12 +371,9 @@ public class KeycloakUserManager implements UserManager<String> {
         if (enabled) {
             getRealmOfActor(actor)
                     .ifPresent(realmName -> {
-                        Retry retry = retryRegistry.retry("deleteUserCall Realm: " + realmName + " User: " + username);
-                        Runnable task = Retry.decorateRunnable(retry,
+                        Runnable task = Retry.decorateRunnable(getRetry("deleteUserCall Realm: " + realmName),
                                 deleteUserCall(realmName, username));
 
-                        RetryUtil.registerLogEventHandlers(retry);
-
                         if (asyncServiceCall) {
                             CompletableFuture.runAsync(task).whenComplete((v, e) -> {
                                 if (e != null) {
@@ -335,6 +389,20 @@ public class KeycloakUserManager implements UserManager<String> {
         }
     }
 
+    @Override
+    public CompletableFuture<Map<String, Throwable>> deleteUsers(final EClass actor, final Collection<String> usernames) {
+        if (enabled) {
+            return getRealmOfActor(actor)
+                    .map(realmName -> runBatch("delete", realmName,
+                            usernames.stream().collect(Collectors.toMap(identity(),
+                                    username -> deleteUserCall(realmName, username), (a, b) -> b, LinkedHashMap::new))))
+                    .orElseGet(() -> CompletableFuture.completedFuture(Collections.emptyMap()));
+        } else {
+            log.info("User manager is not enabled, users are not deleted: '{}'", usernames);
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+    }
+
     private Runnable deleteUserCall(String realmName, final String username) {
         return () -> {
             checkState(identityManagerReady);
@@ -359,6 +427,32 @@ public class KeycloakUserManager implements UserManager<String> {
 
     }
 
+    /**
+     * Get retry of a given name, the same instance (and log event handlers) is shared by all calls of the name.
+     */
+    private Retry getRetry(final String name) {
+        return retries.computeIfAbsent(name, n -> {
+            final Retry retry = retryRegistry.retry(n);
+            RetryUtil.registerLogEventHandlers(retry);
+            return retry;
+        });
+    }
+
+    /**
+     * Run identity provider calls of a batch by batch runner (bounded number of workers, shared backoff, limited
+     * attempts and time).
+     *
+     * @return future completed when all calls are finished, failures by username (returned completed if service
+     * calls are not asynchronous)
+     */
+    private CompletableFuture<Map<String, Throwable>> runBatch(final String operation, final String realmName, final Map<String, Runnable> tasks) {
+        final CompletableFuture<Map<String, Throwable>> result = batchRunner.run(operation, realmName, tasks);
+        if (!asyncServiceCall) {
+            result.join();
+        }
+        return result;
+    }
+
     @Override
     public Map<String, String> getPrincipalAttributeMapping(final EClass principalType) {
         if (attributeMappingOfPrincipal.containsKey(principalType)) {
@@ -30,10 +30,25 @@ import javax.ws.rs.NotFoundException;
 import javax.ws.rs.ProcessingException;
 import java.net.ConnectException;
 import java.time.Duration;
+import java.util.List;
 
 @Slf4j
 public class RetryUtil {
 
+    /**
+     * Failures of identity provider calls that are retried.
+     */
+    private static final List<Class<? extends Throwable>> RETRY_EXCEPTIONS = List.of(
+            NotFoundException.class,
+            ConnectException.class,
+            ProcessingException.class,
+            IllegalStateException.class);
+
+    public static boolean isRetryable(final Throwable throwable) {
+        return RETRY_EXCEPTIONS.stream().anyMatch(type -> type.isInstance(throwable));
+    }
+
+    @SuppressWarnings("unchecked")
     public static RetryRegistry createRetryRegistry(int maxAttempts, long waitDuration, boolean exponentialBackoff) {
         RetryConfig.Builder retryConfigBuilder = RetryConfig.<Void>custom()
                 .maxAttempts(maxAttempts);
@@ -49,11 +64,7 @@ public class RetryUtil {
                 .failAfterMaxAttempts(true);
 
 
-        retryConfigBuilder.retryExceptions(
-                NotFoundException.class,
-                ConnectException.class,
-                ProcessingException.class,
-                IllegalStateException.class);
+        retryConfigBuilder.retryExceptions(RETRY_EXCEPTIONS.toArray(new Class[0]));
 
         RetryConfig retryConfig = retryConfigBuilder.build();
         RetryRegistry retryRegistry = RetryRegistry.of(retryConfig);
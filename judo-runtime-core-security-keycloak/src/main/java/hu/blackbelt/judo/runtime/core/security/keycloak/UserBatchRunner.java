@@ -0,0 +1,197 @@
+package hu.blackbelt.judo.runtime.core.security.keycloak;
+
+/*-
+ * #%L
+ * JUDO Services Keycloak Security
+ * %%
+ * Copyright (C) 2018 - 2023 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Run identity provider calls of user batches by a bounded number of workers.
+ * <p>
+ * Failed calls are retried up to <code>maxAttempts</code> times. Backoff is shared by all calls of a batch: when the
+ * identity provider is failing, all workers pause (wait duration is growing by consecutive failures of the batch), and
+ * a successful call resets it. Calls that are not finished within <code>timeout</code> from start of the batch fail
+ * with {@link TimeoutException}.
+ * <p>
+ * A dedicated pool of <code>parallelism</code> threads is created if no executor is given, it is shut down on
+ * {@link #close()}.
+ */
+@Slf4j
+class UserBatchRunner implements AutoCloseable {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+    public static final int DEFAULT_MAX_ATTEMPTS = 10;
+    public static final long DEFAULT_WAIT_DURATION = 1000L;
+    public static final long DEFAULT_TIMEOUT = 300000L;
+
+    /**
+     * Upper limit of exponential backoff steps (wait duration is doubled at most this many times).
+     */
+    private static final int MAX_BACKOFF_EXPONENT = 10;
+
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final int parallelism;
+    private final int maxAttempts;
+    private final long waitDuration;
+    private final boolean exponentialBackoff;
+    private final long timeout;
+    private final Executor executor;
+    private final boolean ownedExecutor;
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+
+    @Builder
+    UserBatchRunner(final Integer parallelism,
+                    final Integer maxAttempts,
+                    final Long waitDuration,
+                    final Boolean exponentialBackoff,
+                    final Long timeout,
+                    final Executor executor,
+                    final LongSupplier clock,
+                    final Sleeper sleeper) {
+        this.parallelism = Objects.requireNonNullElse(parallelism, DEFAULT_PARALLELISM);
+        this.maxAttempts = Objects.requireNonNullElse(maxAttempts, DEFAULT_MAX_ATTEMPTS);
+        this.waitDuration = Objects.requireNonNullElse(waitDuration, DEFAULT_WAIT_DURATION);
+        this.exponentialBackoff = Objects.requireNonNullElse(exponentialBackoff, true);
+        this.timeout = Objects.requireNonNullElse(timeout, DEFAULT_TIMEOUT);
+        checkArgument(this.parallelism > 0, "Batch parallelism must be positive");
+        checkArgument(this.maxAttempts > 0, "Batch max attempts must be positive");
+        checkArgument(this.timeout > 0, "Batch timeout must be positive");
+        this.ownedExecutor = executor == null;
+        this.executor = executor != null ? executor : Executors.newFixedThreadPool(this.parallelism, new ThreadFactoryBuilder()
+                .setNameFormat("keycloak-user-batch-%d")
+                .setDaemon(true)
+                .build());
+        this.clock = Objects.requireNonNullElse(clock, System::currentTimeMillis);
+        this.sleeper = Objects.requireNonNullElse(sleeper, Thread::sleep);
+    }
+
+    /**
+     * Run calls of a batch, failure of a call is collected and does not prevent running the others.
+     *
+     * @param operation name of operation (for logging)
+     * @param realmName realm of users (for logging)
+     * @param tasks     calls by username
+     * @return future completed when all calls are finished, failures by username
+     */
+    CompletableFuture<Map<String, Throwable>> run(final String operation, final String realmName, final Map<String, Runnable> tasks) {
+        final Queue<Map.Entry<String, Runnable>> queue = new ConcurrentLinkedQueue<>(tasks.entrySet());
+        final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        final Backoff backoff = new Backoff();
+        final long deadline = clock.getAsLong() + timeout;
+
+        final CompletableFuture<?>[] workers = IntStream.range(0, Math.min(parallelism, tasks.size()))
+                .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                    Map.Entry<String, Runnable> task;
+                    while ((task = queue.poll()) != null) {
+                        try {
+                            runWithRetry(task.getValue(), backoff, deadline);
+                        } catch (Exception ex) {
+                            if (ex instanceof InterruptedException) {
+                                Thread.currentThread().interrupt();
+                            }
+                            log.error("Could not {} user: {} of realm: {}", operation, task.getKey(), realmName, ex);
+                            failures.put(task.getKey(), ex);
+                        }
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(workers)
+                .thenApply(v -> Collections.unmodifiableMap(failures));
+    }
+
+    private void runWithRetry(final Runnable task, final Backoff backoff, final long deadline) throws TimeoutException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            final long pausedUntil = backoff.getPausedUntil();
+            if (Math.max(pausedUntil, clock.getAsLong()) >= deadline) {
+                throw new TimeoutException("Batch time limit exceeded");
+            }
+            final long wait = pausedUntil - clock.getAsLong();
+            if (wait > 0) {
+                sleeper.sleep(wait);
+            }
+
+            try {
+                task.run();
+                backoff.onSuccess();
+                return;
+            } catch (RuntimeException ex) {
+                if (!RetryUtil.isRetryable(ex)) {
+                    throw ex;
+                }
+                backoff.onFailure(clock.getAsLong());
+                if (attempt >= maxAttempts) {
+                    throw ex;
+                }
+                log.warn("Retry {} - {}", attempt, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Shut down worker pool if it is owned, shared executors are managed by their owner.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    /**
+     * Backoff state shared by calls of a batch.
+     */
+    private class Backoff {
+        private int consecutiveFailures;
+        private long pausedUntil;
+
+        synchronized long getPausedUntil() {
+            return pausedUntil;
+        }
+
+        synchronized void onFailure(final long now) {
+            consecutiveFailures++;
+            final long wait = exponentialBackoff
+                    ? waitDuration << Math.min(consecutiveFailures - 1, MAX_BACKOFF_EXPONENT)
+                    : waitDuration;
+            pausedUntil = Math.max(pausedUntil, now + wait);
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package hu.blackbelt.judo.runtime.core.security.keycloak;
+
+/*-
+ * #%L
+ * JUDO Services Keycloak Security
+ * %%
+ * Copyright (C) 2018 - 2023 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
+import hu.blackbelt.judo.meta.asm.support.AsmModelResourceSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeycloakConnectorTest {
+
+    private static final String TOKEN_PATH = "/realms/master/protocol/openid-connect/token";
+    private static final long NOW = 1_700_000_000_000L;
+    private static final int EXPIRES_IN = 300;
+
+    private final AtomicLong clock = new AtomicLong(NOW);
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+
+    /**
+     * Responses of token requests (HTTP status and body), each request takes a response.
+     */
+    private final Queue<TokenResponse> tokenResponses = new ConcurrentLinkedQueue<>();
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private KeycloakConnector keycloakConnector;
+
+    private static class TokenResponse {
+        final int status;
+        final String body;
+        final CountDownLatch received = new CountDownLatch(1);
+        final CountDownLatch release;
+
+        TokenResponse(final int status, final String body, final boolean blocked) {
+            this.status = status;
+            this.body = body;
+            this.release = new CountDownLatch(blocked ? 1 : 0);
+        }
+    }
+
+    private static TokenResponse token(final String accessToken, final boolean blocked) {
+        return new TokenResponse(200, "{\"access_token\":\"" + accessToken + "\",\"expires_in\":" + EXPIRES_IN + "}", blocked);
+    }
+
+    private void handleTokenRequest(final HttpExchange exchange) throws IOException {
+        tokenRequests.incrementAndGet();
+        final TokenResponse response = tokenResponses.poll();
+        try {
+            if (response == null) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            response.received.countDown();
+            response.release.await(10, TimeUnit.SECONDS);
+            final byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(response.status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @BeforeEach
+    void init() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(TOKEN_PATH, this::handleTokenRequest);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        executor = Executors.newCachedThreadPool();
+
+        final AsmModel asmModel = AsmModel.buildAsmModel()
+                .resourceSet(AsmModelResourceSupport.createAsmResourceSet())
+                .build();
+        keycloakConnector = KeycloakConnector.builder()
+                .asmModel(asmModel)
+                .objectMapper(new ObjectMapper())
+                .serverUrl("http://localhost:" + server.getAddress().getPort())
+                .adminUser("admin")
+                .adminPassword("password")
+                .build();
+        keycloakConnector.setClock(clock::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenResponses.forEach(response -> response.release.countDown());
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testTokenIsCachedUntilRefreshTime() {
+        tokenResponses.add(token("token-1", false));
+        tokenResponses.add(token("token-2", false));
+
+        assertEquals("token-1", keycloakConnector.getAccessToken());
+        clock.addAndGet((EXPIRES_IN * 1000L) - KeycloakConnector.ADMIN_TOKEN_REFRESH_MARGIN_MS - 1);
+        assertEquals("token-1", keycloakConnector.getAccessToken());
+        assertEquals(1, tokenRequests.get());
+
+        clock.incrementAndGet();
+        assertEquals("token-2", keycloakConnector.getAccessToken());
+        assertEquals(2, tokenRequests.get());
+    }
+
+    @Test
+    void testValidTokenIsServedWhileSingleRefresherRuns() throws Exception {
+        tokenResponses.add(token("token-1", false));
+        final TokenResponse refresh = token("token-2", true);
+        tokenResponses.add(refresh);
+
+        assertEquals("token-1", keycloakConnector.getAccessToken());
+
+        // after refresh time but before expiration
+        clock.addAndGet((EXPIRES_IN * 1000L) - KeycloakConnector.ADMIN_TOKEN_REFRESH_MARGIN_MS / 2);
+        final Future<String> refresher = executor.submit(keycloakConnector::getAccessToken);
+        assertTrue(refresh.received.await(10, TimeUnit.SECONDS), "Token must be refreshed");
+
+        // other callers are not blocked by refresh and they are not sending token requests
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 10; i++) {
+                assertEquals("token-1", keycloakConnector.getAccessToken());
+            }
+        });
+        assertEquals(2, tokenRequests.get());
+        assertFalse(refresher.isDone());
+
+        refresh.release.countDown();
+        assertEquals("token-2", refresher.get(10, TimeUnit.SECONDS));
+        assertEquals("token-2", keycloakConnector.getAccessToken());
+        assertEquals(2, tokenRequests.get());
+    }
+
+    @Test
+    void testExpiredTokenIsRefreshedOnce() throws Exception {
+        tokenResponses.add(token("token-1", false));
+        final TokenResponse refresh = token("token-2", true);
+        tokenResponses.add(refresh);
+
+        assertEquals("token-1", keycloakConnector.getAccessToken());
+
+        clock.addAndGet(EXPIRES_IN * 1000L);
+        final Future<String> first = executor.submit(keycloakConnector::getAccessToken);
+        assertTrue(refresh.received.await(10, TimeUnit.SECONDS), "Token must be refreshed");
+        final Future<String> second = executor.submit(keycloakConnector::getAccessToken);
+
+        // callers are waiting for the new token if there is no valid one
+        Thread.sleep(200);
+        assertFalse(second.isDone());
+
+        refresh.release.countDown();
+        assertEquals("token-2", first.get(10, TimeUnit.SECONDS));
+        assertEquals("token-2", second.get(10, TimeUnit.SECONDS));
+        assertEquals(2, tokenRequests.get());
+    }
+
+    @Test
+    void testValidTokenIsServedIfRefreshFails() {
+        tokenResponses.add(token("token-1", false));
+        tokenResponses.add(new TokenResponse(500, "{}", false));
+        tokenResponses.add(token("token-2", false));
+
+        assertEquals("token-1", keycloakConnector.getAccessToken());
+
+        clock.addAndGet((EXPIRES_IN * 1000L) - KeycloakConnector.ADMIN_TOKEN_REFRESH_MARGIN_MS / 2);
+        assertEquals("token-1", keycloakConnector.getAccessToken());
+        assertEquals("token-2", keycloakConnector.getAccessToken());
+        assertEquals(3, tokenRequests.get());
+    }
+
+    @Test
+    void testExpiredTokenIsNotServedIfRefreshFails() {
+        tokenResponses.add(token("token-1", false));
+
+        assertEquals("token-1", keycloakConnector.getAccessToken());
+
+        clock.addAndGet(EXPIRES_IN * 1000L);
+        assertThrows(RuntimeException.class, () -> keycloakConnector.getAccessToken());
+    }
+
+    @Test
+    void testInvalidatedTokenIsRequestedAgain() {
+        tokenResponses.add(token("token-1", false));
+        tokenResponses.add(token("token-2", false));
+
+        assertEquals("token-1", keycloakConnector.getAccessToken());
+        keycloakConnector.invalidateAdminToken();
+        assertEquals("token-2", keycloakConnector.getAccessToken());
+    }
+}
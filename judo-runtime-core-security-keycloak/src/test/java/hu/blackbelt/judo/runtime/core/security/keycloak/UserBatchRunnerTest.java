@@ -0,0 +1,261 @@
+package hu.blackbelt.judo.runtime.core.security.keycloak;
+
+/*-
+ * #%L
+ * JUDO Services Keycloak Security
+ * %%
+ * Copyright (C) 2018 - 2023 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
+import hu.blackbelt.judo.meta.asm.support.AsmModelResourceSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserBatchRunnerTest {
+
+    private static final String REALM = "demo";
+    private static final String USERS_PATH = "/admin/realms/" + REALM + "/users/";
+    private static final long WAIT_DURATION = 100L;
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+
+    /**
+     * Waits of batch runner (fake sleeper advancing clock).
+     */
+    private final List<Long> sleeps = new CopyOnWriteArrayList<>();
+
+    /**
+     * User IDs of delete requests.
+     */
+    private final List<String> deleteRequests = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    /**
+     * HTTP status of delete requests by index of request.
+     */
+    private volatile IntUnaryOperator deleteStatus = i -> 204;
+
+    private volatile long deleteDelay;
+
+    private HttpServer server;
+
+    private KeycloakAdminClient keycloakAdminClient;
+
+    private void handleTokenRequest(final HttpExchange exchange) throws IOException {
+        final byte[] body = "{\"access_token\":\"token\",\"expires_in\":300}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void handleUserRequest(final HttpExchange exchange) throws IOException {
+        try {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            if (deleteDelay > 0) {
+                Thread.sleep(deleteDelay);
+            }
+            assertEquals("DELETE", exchange.getRequestMethod());
+            final int index = deleteRequests.size();
+            deleteRequests.add(exchange.getRequestURI().getPath().substring(USERS_PATH.length()));
+            exchange.sendResponseHeaders(deleteStatus.applyAsInt(index), -1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    @BeforeEach
+    void init() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/realms/master/protocol/openid-connect/token", this::handleTokenRequest);
+        server.createContext(USERS_PATH, this::handleUserRequest);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        final AsmModel asmModel = AsmModel.buildAsmModel()
+                .resourceSet(AsmModelResourceSupport.createAsmResourceSet())
+                .build();
+        keycloakAdminClient = KeycloakAdminClient.builder()
+                .keycloakConnector(KeycloakConnector.builder()
+                        .asmModel(asmModel)
+                        .objectMapper(new ObjectMapper())
+                        .serverUrl("http://localhost:" + server.getAddress().getPort())
+                        .adminUser("admin")
+                        .adminPassword("password")
+                        .build())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private Runnable deleteUser(final String id) {
+        return () -> {
+            final Response response = keycloakAdminClient.deleteUserRestCall(REALM, id).get();
+            if (response.getStatus() < 200 || response.getStatus() >= 300) {
+                throw new IllegalStateException("Failed to delete user: " + id);
+            }
+        };
+    }
+
+    private Map<String, Runnable> deleteUsers(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> "user" + i)
+                .collect(Collectors.toMap(id -> id, this::deleteUser, (a, b) -> b, LinkedHashMap::new));
+    }
+
+    /**
+     * Runner with a single worker and fake time so waits are deterministic.
+     */
+    private UserBatchRunner.UserBatchRunnerBuilder sequentialRunner() {
+        return UserBatchRunner.builder()
+                .parallelism(1)
+                .waitDuration(WAIT_DURATION)
+                .clock(clock::get)
+                .sleeper(millis -> {
+                    sleeps.add(millis);
+                    clock.addAndGet(millis);
+                });
+    }
+
+    private static Map<String, Throwable> run(final UserBatchRunner runner, final Map<String, Runnable> tasks) throws Exception {
+        return runner.run("delete", REALM, tasks).get(30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testBatchIsRunByBoundedNumberOfWorkers() throws Exception {
+        deleteDelay = 20;
+        final Map<String, Throwable> failures;
+        try (UserBatchRunner runner = UserBatchRunner.builder().parallelism(3).build()) {
+            failures = run(runner, deleteUsers(12));
+        }
+
+        assertEquals(Collections.emptyMap(), failures);
+        assertEquals(IntStream.range(0, 12).mapToObj(i -> "user" + i).collect(Collectors.toSet()), new HashSet<>(deleteRequests));
+        assertTrue(maxInFlight.get() <= 3, "At most 3 calls are allowed in parallel: " + maxInFlight.get());
+    }
+
+    @Test
+    void testBackoffIsSharedByCallsOfBatch() throws Exception {
+        deleteStatus = i -> 503;
+
+        final Map<String, Throwable> failures = run(sequentialRunner().maxAttempts(2).exponentialBackoff(true).build(), deleteUsers(2));
+
+        assertEquals(Set.of("user0", "user1"), failures.keySet());
+        failures.values().forEach(failure -> assertTrue(failure instanceof IllegalStateException));
+        assertEquals(List.of("user0", "user0", "user1", "user1"), deleteRequests);
+        // second user is waiting for backoff of failures of the first one
+        assertEquals(List.of(WAIT_DURATION, 2 * WAIT_DURATION, 4 * WAIT_DURATION), sleeps);
+    }
+
+    @Test
+    void testSuccessfulCallResetsBackoff() throws Exception {
+        deleteStatus = i -> i == 0 ? 503 : 204;
+
+        final Map<String, Throwable> failures = run(sequentialRunner().exponentialBackoff(true).build(), deleteUsers(3));
+
+        assertEquals(Collections.emptyMap(), failures);
+        assertEquals(List.of("user0", "user0", "user1", "user2"), deleteRequests);
+        assertEquals(List.of(WAIT_DURATION), sleeps);
+    }
+
+    @Test
+    void testAttemptsAreLimited() throws Exception {
+        deleteStatus = i -> 503;
+
+        final Map<String, Throwable> failures = run(sequentialRunner().maxAttempts(3).exponentialBackoff(false).build(), deleteUsers(1));
+
+        assertTrue(failures.get("user0") instanceof IllegalStateException);
+        assertEquals(List.of("user0", "user0", "user0"), deleteRequests);
+        assertEquals(List.of(WAIT_DURATION, WAIT_DURATION), sleeps);
+    }
+
+    @Test
+    void testBatchTimeIsLimited() throws Exception {
+        deleteStatus = i -> 503;
+
+        final Map<String, Throwable> failures = run(sequentialRunner()
+                .maxAttempts(100)
+                .exponentialBackoff(false)
+                .timeout(2 * WAIT_DURATION + WAIT_DURATION / 2)
+                .build(), deleteUsers(2));
+
+        assertTrue(failures.get("user0") instanceof TimeoutException);
+        assertTrue(failures.get("user1") instanceof TimeoutException);
+        assertEquals(List.of("user0", "user0", "user0"), deleteRequests);
+    }
+
+    @Test
+    void testNonRetryableFailureIsNotRetried() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final Map<String, Runnable> tasks = new LinkedHashMap<>();
+        tasks.put("user0", () -> {
+            calls.incrementAndGet();
+            throw new IllegalArgumentException("Invalid user");
+        });
+        tasks.put("user1", deleteUser("user1"));
+
+        final Map<String, Throwable> failures = run(sequentialRunner().build(), tasks);
+
+        assertEquals(Set.of("user0"), failures.keySet());
+        assertTrue(failures.get("user0") instanceof IllegalArgumentException);
+        assertEquals(1, calls.get());
+        assertEquals(List.of("user1"), deleteRequests);
+        assertEquals(Collections.emptyList(), sleeps);
+    }
+
+    @Test
+    void testSharedExecutorIsNotShutDown() {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            UserBatchRunner.builder().executor(executor).build().close();
+
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
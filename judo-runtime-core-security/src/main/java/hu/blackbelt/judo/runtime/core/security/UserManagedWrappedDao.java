@@ -27,16 +27,19 @@ import hu.blackbelt.judo.dispatcher.api.Context;
 import lombok.Builder;
 import lombok.NonNull;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EReference;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
+@Slf4j
 public class UserManagedWrappedDao<ID> implements DAO<ID> {
     private static final String ROLLBACK_KEY = "ROLLBACK";
 
@@ -320,14 +323,19 @@ public class UserManagedWrappedDao<ID> implements DAO<ID> {
         if (userManager != null && !Boolean.TRUE.equals(context.getAs(Boolean.class, ROLLBACK_KEY))) {
             final Optional<EClass> managedActorType = userManager != null ? userManager.getManagedActorOfPrincipal(clazz) : Optional.empty();
             if (managedActorType.isPresent()) {
-                for (Payload payload : payloads) {
-                    ID identifier = payload.getAs(identifierProvider.getType(), identifierProvider.getName());
-                    Optional<Payload> loadedUser = delegatee.getByIdentifier(clazz, identifier);
-                    checkArgument(loadedUser.isPresent(), "No user found to update");
-                    final Optional<String> username = managedActorType.map(actorType -> userManager.getUsername(clazz, loadedUser.get()).orElse(null));
+                final List<ID> identifiers = payloads.stream()
+                        .map(payload -> payload.getAs(identifierProvider.getType(), identifierProvider.getName()))
+                        .collect(Collectors.toList());
+                final Map<ID, Payload> loadedUsers = loadUsers(clazz, identifiers);
+                final Map<String, Map<String, Object>> usersToCreate = new LinkedHashMap<>();
+                for (ID identifier : identifiers) {
+                    final Payload loadedUser = loadedUsers.get(identifier);
+                    checkArgument(loadedUser != null, "No user found to update");
+                    final Optional<String> username = userManager.getUsername(clazz, loadedUser);
                     checkState(username.isPresent(), "Unknown username of user to create");
-                    userManager.createUser(managedActorType.get(), convertPrincipalToActor(clazz, loadedUser.get()));
+                    usersToCreate.put(username.get(), convertPrincipalToActor(clazz, loadedUser));
                 }
+                handleFailures("create", userManager.createUsers(managedActorType.get(), usersToCreate));
             }
         }
     }
@@ -337,21 +345,16 @@ public class UserManagedWrappedDao<ID> implements DAO<ID> {
         if (userManager != null && !Boolean.TRUE.equals(context.getAs(Boolean.class, ROLLBACK_KEY))) {
             final Optional<EClass> managedActorType = userManager != null ? userManager.getManagedActorOfPrincipal(clazz) : Optional.empty();
             if (managedActorType.isPresent()) {
+                final List<ID> identifiers = new ArrayList<>();
                 for (Object payload : payloads) {
-                    ID identifier;
                     if (isIdentifier) {
-                        identifier = (ID) payload;
+                        identifiers.add((ID) payload);
                     } else {
-                        identifier = ((Payload) payload).getAs(identifierProvider.getType(), identifierProvider.getName());
-                    }
-                    Optional<Payload> loadedUser = delegatee.getByIdentifier(clazz, identifier);
-                    if (loadedUser.isPresent()) {
-                        Optional<String> username = managedActorType.map(actorType -> userManager.getUsername(clazz, loadedUser.get()).orElse(null));
-                        if (username.isPresent()) {
-                            userNameById.put(identifier, username.get());
-                        }
+                        identifiers.add(((Payload) payload).getAs(identifierProvider.getType(), identifierProvider.getName()));
                     }
                 }
+                loadUsers(clazz, identifiers).forEach((identifier, loadedUser) ->
+                        userManager.getUsername(clazz, loadedUser).ifPresent(username -> userNameById.put(identifier, username)));
             }
         }
         return userNameById;
@@ -360,15 +363,18 @@ public class UserManagedWrappedDao<ID> implements DAO<ID> {
     private void updateUsers(EClass clazz, Map<ID, String> usersToUpdate) {
         if (userManager != null && !Boolean.TRUE.equals(context.getAs(Boolean.class, ROLLBACK_KEY))) {
             final Optional<EClass> managedActorType = userManager != null ? userManager.getManagedActorOfPrincipal(clazz) : Optional.empty();
-            if (managedActorType.isPresent()) {
+            if (managedActorType.isPresent() && !usersToUpdate.isEmpty()) {
+                final Map<ID, Payload> loadedUsers = loadUsers(clazz, usersToUpdate.keySet());
+                final Map<String, Map<String, Object>> users = new LinkedHashMap<>();
                 usersToUpdate.entrySet().forEach(entry -> {
                     ID identifier = entry.getKey();
                     String username = entry.getValue();
-                    Optional<Payload> loadedUser = delegatee.getByIdentifier(clazz, identifier);
-                    checkArgument(loadedUser.isPresent(), "No user found to update");
-                    checkArgument(Objects.equals(userManager.getUsername(clazz, loadedUser.get()).get(), username), "Username is not changeable");
-                    userManager.updateUser(managedActorType.get(), username, convertPrincipalToActor(clazz, loadedUser.get()));
+                    final Payload loadedUser = loadedUsers.get(identifier);
+                    checkArgument(loadedUser != null, "No user found to update");
+                    checkArgument(Objects.equals(userManager.getUsername(clazz, loadedUser).get(), username), "Username is not changeable");
+                    users.put(username, convertPrincipalToActor(clazz, loadedUser));
                 });
+                handleFailures("update", userManager.updateUsers(managedActorType.get(), users));
             }
         }
     }
@@ -376,14 +382,43 @@ public class UserManagedWrappedDao<ID> implements DAO<ID> {
     private void deleteUsers(EClass clazz, Map<ID, String> usersToUpdate) {
         if (userManager != null && !Boolean.TRUE.equals(context.getAs(Boolean.class, ROLLBACK_KEY))) {
             final Optional<EClass> managedActorType = userManager != null ? userManager.getManagedActorOfPrincipal(clazz) : Optional.empty();
-            if (managedActorType.isPresent()) {
-                usersToUpdate.entrySet().forEach(entry -> {
-                    String username = entry.getValue();
-                    userManager.deleteUser(managedActorType.get(), username);
-                });
+            if (managedActorType.isPresent() && !usersToUpdate.isEmpty()) {
+                handleFailures("delete", userManager.deleteUsers(managedActorType.get(), new ArrayList<>(usersToUpdate.values())));
             }
         }
     }
 
+    private Map<ID, Payload> loadUsers(EClass clazz, Collection<ID> identifiers) {
+        if (identifiers.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return delegatee.getByIdentifiers(clazz, identifiers).stream()
+                .collect(Collectors.toMap(payload -> payload.getAs(identifierProvider.getType(), identifierProvider.getName()),
+                        payload -> payload, (a, b) -> a));
+    }
+
+    /**
+     * Fail the DAO operation if (synchronous) user management is already completed with failures, log failures
+     * reported later otherwise so DAO transaction is not waiting for identity provider.
+     */
+    private void handleFailures(String operation, CompletableFuture<Map<String, Throwable>> result) {
+        if (result.isDone()) {
+            final Map<String, Throwable> failures = result.join();
+            if (!failures.isEmpty()) {
+                final IllegalStateException exception = new IllegalStateException("Failed to " + operation + " users: " + failures.keySet());
+                failures.values().forEach(exception::addSuppressed);
+                throw exception;
+            }
+        } else {
+            result.whenComplete((failures, ex) -> {
+                if (ex != null) {
+                    log.error("Failed to " + operation + " users", ex);
+                } else if (!failures.isEmpty()) {
+                    log.error("Failed to {} users: {}", operation, failures.keySet());
+                }
+            });
+        }
+    }
+
 }
 
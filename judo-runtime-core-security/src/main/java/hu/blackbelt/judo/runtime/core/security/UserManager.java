@@ -22,9 +22,8 @@ package hu.blackbelt.judo.runtime.core.security;
 
 import org.eclipse.emf.ecore.EClass;
 
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * User manager for actors.
@@ -73,6 +72,63 @@ public interface UserManager<ID> {
      */
     void deleteUser(EClass actor, ID username);
 
+    /**
+     * Create new users. Failure of a user does not prevent creating the others.
+     *
+     * @param actor actor type
+     * @param users user data by username
+     * @return future completed when all users are processed, failures by username
+     */
+    default CompletableFuture<Map<ID, Throwable>> createUsers(EClass actor, Map<ID, Map<String, Object>> users) {
+        final Map<ID, Throwable> failures = new LinkedHashMap<>();
+        users.forEach((username, user) -> {
+            try {
+                createUser(actor, user);
+            } catch (RuntimeException ex) {
+                failures.put(username, ex);
+            }
+        });
+        return CompletableFuture.completedFuture(failures);
+    }
+
+    /**
+     * Update users. Failure of a user does not prevent updating the others.
+     *
+     * @param actor actor type
+     * @param users user data by username
+     * @return future completed when all users are processed, failures by username
+     */
+    default CompletableFuture<Map<ID, Throwable>> updateUsers(EClass actor, Map<ID, Map<String, Object>> users) {
+        final Map<ID, Throwable> failures = new LinkedHashMap<>();
+        users.forEach((username, user) -> {
+            try {
+                updateUser(actor, username, user);
+            } catch (RuntimeException ex) {
+                failures.put(username, ex);
+            }
+        });
+        return CompletableFuture.completedFuture(failures);
+    }
+
+    /**
+     * Delete users. Failure of a user does not prevent deleting the others.
+     *
+     * @param actor     actor type
+     * @param usernames usernames
+     * @return future completed when all users are processed, failures by username
+     */
+    default CompletableFuture<Map<ID, Throwable>> deleteUsers(EClass actor, Collection<ID> usernames) {
+        final Map<ID, Throwable> failures = new LinkedHashMap<>();
+        usernames.forEach(username -> {
+            try {
+                deleteUser(actor, username);
+            } catch (RuntimeException ex) {
+                failures.put(username, ex);
+            }
+        });
+        return CompletableFuture.completedFuture(failures);
+    }
+
     /**
      * Get managed actors of principals
      *
@@ -64,6 +64,7 @@ import hu.blackbelt.osgi.filestore.security.api.TokenValidator;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EClass;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -71,11 +72,14 @@ import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 
 @Configuration
 public class JudoDefaultSpringConfiguration {
 
+    public static final String SIGNING_EXECUTOR = "judoSigningExecutor";
+
     @Autowired
     public AsmModel asmModel;
 
@@ -226,8 +230,13 @@ public class JudoDefaultSpringConfiguration {
     }
 
     @Bean
-    public InstanceCollector getInstanceCollector(RdbmsResolver rdbmsResolver
+    public InstanceCollector getInstanceCollector(RdbmsResolver rdbmsResolver,
+            Dialect dialect
     ) {
+        // TODO: Map parameter
+        Integer chunkSize = RdbmsInstanceCollector.DEFAULT_CHUNK_SIZE;
+        Boolean arrayParameterBinding = false;
+
         InstanceCollector instanceCollector = RdbmsInstanceCollector.builder()
                 .jdbcTemplate(new NamedParameterJdbcTemplate(dataSource))
                 .asmModel(asmModel)
@@ -236,6 +245,10 @@ public class JudoDefaultSpringConfiguration {
                 .coercer(coercer)
                 .rdbmsParameterMapper(rdbmsParameterMapper)
                 .identifierProvider(identifierProvider)
+                .metricsCollector(metricsCollector)
+                .dialect(dialect)
+                .chunkSize(chunkSize)
+                .arrayParameterBinding(arrayParameterBinding)
                 .build();
         return instanceCollector;
     }
@@ -259,6 +272,12 @@ public class JudoDefaultSpringConfiguration {
     ) {
         // TODO: Map parameter
         Integer chunkSize = 1000;
+        Integer filterCacheSize = SelectStatementExecutor.DEFAULT_FILTER_CACHE_SIZE;
+        Integer sqlCacheSize = SelectStatementExecutor.DEFAULT_SQL_CACHE_SIZE;
+        Integer queryMetaCacheSize = SelectStatementExecutor.DEFAULT_QUERY_META_CACHE_SIZE;
+        Boolean parallelSubQueries = false;
+        Integer subQueryParallelism = SelectStatementExecutor.DEFAULT_SUB_QUERY_PARALLELISM;
+        Integer subQueryMaxConnections = null;
 
         return SelectStatementExecutor.builder()
                 .asmModel(asmModel)
@@ -268,6 +287,12 @@ public class JudoDefaultSpringConfiguration {
                 .identifierProvider(identifierProvider)
                 .metricsCollector(metricsCollector)
                 .chunkSize(chunkSize)
+                .filterCacheSize(filterCacheSize)
+                .sqlCacheSize(sqlCacheSize)
+                .queryMetaCacheSize(queryMetaCacheSize)
+                .parallelSubQueries(parallelSubQueries)
+                .subQueryParallelism(subQueryParallelism)
+                .subQueryMaxConnections(subQueryMaxConnections)
                 .transformationTraceService(transformationTraceService)
                 .rdbmsParameterMapper(rdbmsParameterMapper)
                 .rdbmsBuilder(rdbmsBuilder)
@@ -290,11 +315,15 @@ public class JudoDefaultSpringConfiguration {
     ) {
         // TODO: Map parameter
         Boolean checkMappedActors = false;
+        Integer actorCacheSize = DefaultActorResolver.DEFAULT_ACTOR_CACHE_SIZE;
+        Integer actorCacheTtl = DefaultActorResolver.DEFAULT_ACTOR_CACHE_TTL;
         return DefaultActorResolver.builder()
                 .dataTypeManager(dataTypeManager)
                 .dao(dao)
                 .asmModel(asmModel)
                 .checkMappedActors(checkMappedActors)
+                .actorCacheSize(actorCacheSize)
+                .actorCacheTtl(actorCacheTtl)
                 .build();
     }
 
@@ -307,6 +336,13 @@ public class JudoDefaultSpringConfiguration {
     @Autowired(required = false)
     TokenValidator filestoreTokenValidator;
 
+    /**
+     * Shared executor of parallel identifier signing, dispatcher creates (and closes) its own pool if not defined.
+     */
+    @Autowired(required = false)
+    @Qualifier(SIGNING_EXECUTOR)
+    ExecutorService signingExecutor;
+
 
     @Bean
     public ValidatorProvider validatorProvider(DAO dao) {
@@ -344,6 +380,8 @@ public class JudoDefaultSpringConfiguration {
         Boolean enableValidation = true;
         Boolean trimString = false;
         Boolean caseInsensitiveLike = false;
+        Integer parallelSigningThreshold = DefaultDispatcher.DEFAULT_PARALLEL_SIGNING_THRESHOLD;
+        Integer signingParallelism = Runtime.getRuntime().availableProcessors();
 
         return DefaultDispatcher.builder()
                 .asmModel(asmModel)
@@ -368,6 +406,9 @@ public class JudoDefaultSpringConfiguration {
                 .enableValidation(enableValidation)
                 .trimString(trimString)
                 .caseInsensitiveLike(caseInsensitiveLike)
+                .parallelSigningThreshold(parallelSigningThreshold)
+                .signingParallelism(signingParallelism)
+                .signingExecutor(signingExecutor)
                 .exporter(exporter)
                 .build();
     }
@@ -377,12 +418,19 @@ public class JudoDefaultSpringConfiguration {
     public IdentifierSigner getIdentifierSigner() {
         // TODO: Parameter
         String secret = null;
+        Integer verifiedIdentifierCacheSize = DefaultIdentifierSigner.DEFAULT_VERIFIED_IDENTIFIER_CACHE_SIZE;
+        Integer verifiedIdentifierCacheTtl = DefaultIdentifierSigner.DEFAULT_VERIFIED_IDENTIFIER_CACHE_TTL;
+        String tokenFormat = DefaultIdentifierSigner.TokenFormat.JWS.name();
 
         return DefaultIdentifierSigner.builder()
                 .asmModel(asmModel)
                 .identifierProvider(identifierProvider)
                 .dataTypeManager(dataTypeManager)
                 .secret(secret)
+                .verifiedIdentifierCacheSize(verifiedIdentifierCacheSize)
+                .verifiedIdentifierCacheTtl(verifiedIdentifierCacheTtl)
+                .metricsCollector(metricsCollector)
+                .tokenFormat(DefaultIdentifierSigner.TokenFormat.valueOf(tokenFormat))
                 .build();
     }
 
@@ -55,6 +55,7 @@ public class DefaultPayloadValidator implements PayloadValidator {
     private AsmUtils asmUtils;
 
     public static final String GLOBAL_VALIDATION_CONTEXT = "globalValidationContext";
+    public static final String BATCH_VALIDATION_KEY = "batchValidation";
 
     public static final String REFERENCE_ID_KEY = "__referenceId";
     public static final String VERSION_KEY = "__version";
@@ -100,7 +101,9 @@ public class DefaultPayloadValidator implements PayloadValidator {
     public List<ValidationResult> validatePayload(final EClass transferObjectType, final Payload input, final Map<String, Object> validationContext, boolean throwValidationException) throws ValidationException {
         final List<ValidationResult> validationResults = new ArrayList<>();
 
-        validationContext.put(GLOBAL_VALIDATION_CONTEXT, new HashMap<String, Object>());
+        final Map<String, Object> globalValidationContext = new HashMap<>();
+        globalValidationContext.put(BATCH_VALIDATION_KEY, true);
+        validationContext.put(GLOBAL_VALIDATION_CONTEXT, globalValidationContext);
 
         final Payload payload = Payload.asPayload(input);
 
@@ -116,6 +119,8 @@ public class DefaultPayloadValidator implements PayloadValidator {
             log.debug("Invalid payload", ex);
         }
 
+        validatorProvider.getValidators().forEach(v -> validationResults.addAll(v.validateCollectedValues(globalValidationContext)));
+
         if (throwValidationException && !validationResults.isEmpty()) {
             throw new ValidationException("Validation failed", Collections.unmodifiableCollection(validationResults));
         } else {
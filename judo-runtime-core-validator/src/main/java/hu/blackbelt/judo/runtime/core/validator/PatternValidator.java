@@ -30,13 +30,20 @@ import org.eclipse.emf.ecore.EStructuralFeature;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 public class PatternValidator implements Validator {
 
     private static final String CONSTRAINT_NAME = "pattern";
 
+    /**
+     * Compiled patterns by attribute, pattern constraints of the model are fixed so they are compiled once.
+     */
+    private final Map<EStructuralFeature, Pattern> patterns = new ConcurrentHashMap<>();
+
     @Override
     public boolean isApplicable(final EStructuralFeature feature) {
         return feature instanceof EAttribute && AsmUtils.getExtensionAnnotationListByName(feature, CONSTRAINTS).stream()
@@ -47,12 +54,7 @@ public class PatternValidator implements Validator {
     public Collection<ValidationResult> validateValue(Payload instance, final EStructuralFeature feature, final Object value, final Map<String, Object> context) {
         final Collection<ValidationResult> validationResults = new ArrayList<>();
 
-        final String patternString = AsmUtils.getExtensionAnnotationListByName(feature, CONSTRAINTS).stream()
-                .map(constraint -> constraint.getDetails().get(CONSTRAINT_NAME))
-                .findAny()
-                .orElseThrow(() -> new IllegalStateException("Invalid maxLength constraint"));
-
-        final Pattern pattern = Pattern.compile(patternString);
+        final Pattern pattern = patterns.computeIfAbsent(feature, PatternValidator::compilePattern);
 
         if (value instanceof String) {
             if (!pattern.matcher((String)value).matches()) {
@@ -72,4 +74,14 @@ public class PatternValidator implements Validator {
 
         return validationResults;
     }
+
+    private static Pattern compilePattern(final EStructuralFeature feature) {
+        final String patternString = AsmUtils.getExtensionAnnotationListByName(feature, CONSTRAINTS).stream()
+                .map(constraint -> constraint.getDetails().get(CONSTRAINT_NAME))
+                .filter(Objects::nonNull)
+                .findAny()
+                .orElseThrow(() -> new IllegalStateException("Invalid pattern constraint"));
+
+        return Pattern.compile(patternString);
+    }
 }
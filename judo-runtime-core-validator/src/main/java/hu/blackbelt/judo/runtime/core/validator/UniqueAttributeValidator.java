@@ -21,6 +21,7 @@ package hu.blackbelt.judo.runtime.core.validator;
  */
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import hu.blackbelt.judo.dao.api.DAO;
 import hu.blackbelt.judo.dao.api.IdentifierProvider;
 import hu.blackbelt.judo.dao.api.Payload;
@@ -28,28 +29,46 @@ import hu.blackbelt.judo.dao.api.ValidationResult;
 import hu.blackbelt.judo.dispatcher.api.Context;
 import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
 import hu.blackbelt.judo.meta.asm.runtime.AsmUtils;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EEnum;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static hu.blackbelt.judo.runtime.core.validator.DefaultPayloadValidator.BATCH_VALIDATION_KEY;
 import static hu.blackbelt.judo.runtime.core.validator.DefaultPayloadValidator.GLOBAL_VALIDATION_CONTEXT;
 import static hu.blackbelt.judo.runtime.core.validator.DefaultPayloadValidator.LOCATION_KEY;
 
+/**
+ * Validator checking uniqueness of identifier attributes.
+ * <p>
+ * Values of the same request are checked against each other immediately. If batch validation is enabled in the global
+ * validation context (see {@link DefaultPayloadValidator#BATCH_VALIDATION_KEY}) persisted values are checked by
+ * {@link #validateCollectedValues(Map)}: candidate values are collected per attribute and checked by one search per
+ * attribute per chunk (matching any of the values), all conflicts are reported at once. Otherwise each value is
+ * checked by a separate search.
+ */
 @Slf4j
 public class UniqueAttributeValidator<ID> implements Validator {
 
     public static final String THIS_NAME = "this";
     public static final String UNIQUE_ATTRIBUTE_VALIDATOR_CONTEXT = "uniqueAttributeValidatorContext";
 
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
     @NonNull
     private final DAO<ID> dao;
 
@@ -62,11 +81,19 @@ public class UniqueAttributeValidator<ID> implements Validator {
     @NonNull
     Context context;
 
+    private final int chunkSize;
+
     public UniqueAttributeValidator(@NonNull DAO<ID> dao, @NonNull AsmModel asmModel, @NonNull IdentifierProvider<ID> identifierProvider, @NonNull Context context) {
+        this(dao, asmModel, identifierProvider, context, DEFAULT_CHUNK_SIZE);
+    }
+
+    public UniqueAttributeValidator(@NonNull DAO<ID> dao, @NonNull AsmModel asmModel, @NonNull IdentifierProvider<ID> identifierProvider, @NonNull Context context, int chunkSize) {
+        checkArgument(chunkSize > 0, "Chunk size must be positive");
         this.dao = dao;
         this.asmUtils = new AsmUtils(asmModel.getResourceSet());
         this.identifierProvider = identifierProvider;
         this.context = context;
+        this.chunkSize = chunkSize;
     }
 
     @Override
@@ -81,13 +108,7 @@ public class UniqueAttributeValidator<ID> implements Validator {
 
         Map<String, Object> globalValidationContext = (Map<String, Object>) validationContext.get(GLOBAL_VALIDATION_CONTEXT);
 
-        UniqueValidationContextInfo uniqueValidationContextInfo;
-        if (globalValidationContext.containsKey(UNIQUE_ATTRIBUTE_VALIDATOR_CONTEXT)) {
-            uniqueValidationContextInfo = (UniqueValidationContextInfo) globalValidationContext.get(UNIQUE_ATTRIBUTE_VALIDATOR_CONTEXT);
-        } else {
-            uniqueValidationContextInfo = new UniqueValidationContextInfo();
-            globalValidationContext.put(UNIQUE_ATTRIBUTE_VALIDATOR_CONTEXT, uniqueValidationContextInfo);
-        }
+        UniqueValidationContextInfo<ID> uniqueValidationContextInfo = getUniqueValidationContextInfo(globalValidationContext);
 
         final Collection<ValidationResult> validationResults = new ArrayList<>();
 
@@ -107,21 +128,94 @@ public class UniqueAttributeValidator<ID> implements Validator {
                 uniqueValidationContextInfo.insertableUniqueValue.put(mappedAttribute, new HashSet<>());
                 uniqueValidationContextInfo.insertableUniqueValue.get(mappedAttribute).add(value);
             } else if (uniqueValidationContextInfo.insertableUniqueValue.get(mappedAttribute).contains(value)) {
-                Validator.addValidationError(ImmutableMap.of(
-                                FEATURE_KEY, DefaultPayloadValidator.ATTRIBUTE_TO_MODEL_TYPE.apply((EAttribute) feature),
-                                VALUE_KEY, value
-                        ),
-                        validationContext.get(LOCATION_KEY),
-                        validationResults,
-                        ERROR_IDENTIFIER_ATTRIBUTE_UNIQUENESS_VIOLATION);
+                addUniquenessViolation((EAttribute) feature, value, validationContext.get(LOCATION_KEY), validationResults);
             } else {
                 uniqueValidationContextInfo.insertableUniqueValue.get(mappedAttribute).add(value);
             }
         }
 
         // Check in the persisted values
+        if (Boolean.TRUE.equals(globalValidationContext.get(BATCH_VALIDATION_KEY))) {
+            uniqueValidationContextInfo.candidates
+                    .computeIfAbsent(new CandidateKey(feature.getEContainingClass(), mappedAttribute), k -> new ArrayList<>())
+                    .add(new Candidate<>((EAttribute) feature, value, originalId, validationContext.get(LOCATION_KEY)));
+        } else if (isPersistedValueViolatingUniqueness(feature.getEContainingClass(), mappedAttribute, value, originalId)) {
+            addUniquenessViolation((EAttribute) feature, value, validationContext.get(LOCATION_KEY), validationResults);
+        }
+
+        return validationResults;
+    }
+
+    @Override
+    public Collection<ValidationResult> validateCollectedValues(final Map<String, Object> globalValidationContext) {
+        final Collection<ValidationResult> validationResults = new ArrayList<>();
+        if (globalValidationContext == null || !globalValidationContext.containsKey(UNIQUE_ATTRIBUTE_VALIDATOR_CONTEXT)) {
+            return validationResults;
+        }
+
+        final UniqueValidationContextInfo<ID> uniqueValidationContextInfo = getUniqueValidationContextInfo(globalValidationContext);
+        uniqueValidationContextInfo.candidates.forEach((key, candidates) -> {
+            // values are grouped by their normalized form, a value can be presented by more candidates (i.e. updates)
+            final Map<Object, List<Candidate<ID>>> candidatesByValue = candidates.stream()
+                    .collect(Collectors.groupingBy(c -> normalize(c.getValue()), LinkedHashMap::new, Collectors.toList()));
+
+            for (final List<Object> values : Iterables.partition(candidatesByValue.keySet(), chunkSize)) {
+                final List<Candidate<ID>> chunk = values.stream()
+                        .flatMap(v -> candidatesByValue.get(v).stream())
+                        .collect(Collectors.toList());
+                final Set<Candidate<ID>> violations = getViolations(key, values, candidatesByValue, chunk);
+                chunk.stream()
+                        .filter(violations::contains)
+                        .forEach(c -> addUniquenessViolation(c.getFeature(), c.getValue(), c.getLocation(), validationResults));
+            }
+        });
+        uniqueValidationContextInfo.candidates.clear();
+
+        return validationResults;
+    }
+
+    private Set<Candidate<ID>> getViolations(final CandidateKey key,
+                                             final List<Object> values,
+                                             final Map<Object, List<Candidate<ID>>> candidatesByValue,
+                                             final List<Candidate<ID>> chunk) {
+        final EAttribute feature = chunk.get(0).getFeature();
+        final List<String> filters = chunk.stream()
+                .map(c -> convertFilterToJql(key.getMappedAttribute(), c.getValue()))
+                .distinct()
+                .collect(Collectors.toList());
+
+        if (filters.contains(null)) {
+            return chunk.stream()
+                    .filter(c -> isPersistedValueViolatingUniqueness(key.getTransferObjectType(), key.getMappedAttribute(), c.getValue(), c.getOriginalId()))
+                    .collect(Collectors.toSet());
+        }
+
+        final List<Payload> queryResult = dao.search(key.getTransferObjectType(), DAO.QueryCustomizer.<ID>builder()
+                .filter(filters.size() == 1 ? filters.get(0) : filters.stream().map(f -> "(" + f + ")").collect(Collectors.joining(" or ")))
+                .mask(ImmutableMap.of(feature.getName(), true))
+                .build());
+
+        final Set<Candidate<ID>> violations = new HashSet<>();
+        for (final Payload persisted : queryResult) {
+            final Object persistedValue = normalize(persisted.get(feature.getName()));
+            if (persistedValue == null || !values.contains(persistedValue)) {
+                // returned value cannot be matched to requested ones (i.e. different representation), check values one by one
+                log.debug("Unable to match persisted value of {}, checking values one by one", AsmUtils.getAttributeFQName(key.getMappedAttribute()));
+                return chunk.stream()
+                        .filter(c -> isPersistedValueViolatingUniqueness(key.getTransferObjectType(), key.getMappedAttribute(), c.getValue(), c.getOriginalId()))
+                        .collect(Collectors.toSet());
+            }
+            final ID persistedId = persisted.getAs(identifierProvider.getType(), identifierProvider.getName());
+            candidatesByValue.get(persistedValue).stream()
+                    .filter(c -> c.getOriginalId() == null || !Objects.equals(c.getOriginalId(), persistedId))
+                    .forEach(violations::add);
+        }
+        return violations;
+    }
+
+    private boolean isPersistedValueViolatingUniqueness(final EClass transferObjectType, final EAttribute mappedAttribute, final Object value, final ID originalId) {
         final String filter = convertFilterToJql(mappedAttribute, value);
-        final List<Payload> queryResult = dao.search(feature.getEContainingClass(), DAO.QueryCustomizer.<ID>builder()
+        final List<Payload> queryResult = dao.search(transferObjectType, DAO.QueryCustomizer.<ID>builder()
                 .filter(filter)
                 .mask(ImmutableMap.of(mappedAttribute.getName(), true))
                 .seek(DAO.Seek.builder()
@@ -134,18 +228,42 @@ public class UniqueAttributeValidator<ID> implements Validator {
                     .map(i -> i.getAs(identifierProvider.getType(), identifierProvider.getName()))
                     .collect(Collectors.toSet());
 
-            if (originalId == null || !sameValuesIds.contains(originalId) || queryResult.size() > 1) {
-                Validator.addValidationError(ImmutableMap.of(
-                                FEATURE_KEY, DefaultPayloadValidator.ATTRIBUTE_TO_MODEL_TYPE.apply((EAttribute) feature),
-                                VALUE_KEY, value
-                        ),
-                        validationContext.get(LOCATION_KEY),
-                        validationResults,
-                        ERROR_IDENTIFIER_ATTRIBUTE_UNIQUENESS_VIOLATION);
-            }
+            return originalId == null || !sameValuesIds.contains(originalId) || queryResult.size() > 1;
         }
+        return false;
+    }
 
-        return validationResults;
+    private static void addUniquenessViolation(final EAttribute feature, final Object value, final Object location, final Collection<ValidationResult> validationResults) {
+        Validator.addValidationError(ImmutableMap.of(
+                        FEATURE_KEY, DefaultPayloadValidator.ATTRIBUTE_TO_MODEL_TYPE.apply(feature),
+                        VALUE_KEY, value
+                ),
+                location,
+                validationResults,
+                ERROR_IDENTIFIER_ATTRIBUTE_UNIQUENESS_VIOLATION);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <ID> UniqueValidationContextInfo<ID> getUniqueValidationContextInfo(final Map<String, Object> globalValidationContext) {
+        return (UniqueValidationContextInfo<ID>) globalValidationContext.computeIfAbsent(UNIQUE_ATTRIBUTE_VALIDATOR_CONTEXT, k -> new UniqueValidationContextInfo<ID>());
+    }
+
+    /**
+     * Normalize value for matching persisted values to requested ones (numbers and timestamps can have different
+     * representations of the same value).
+     */
+    private static Object normalize(final Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).stripTrailingZeros();
+        } else if (value instanceof BigInteger || value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return new BigDecimal(value.toString()).stripTrailingZeros();
+        } else if (value instanceof Double || value instanceof Float) {
+            final double doubleValue = ((Number) value).doubleValue();
+            return Double.isFinite(doubleValue) ? BigDecimal.valueOf(doubleValue).stripTrailingZeros() : value;
+        } else if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toInstant();
+        }
+        return value;
     }
 
     private String convertFilterToJql(final EAttribute attribute, final Object value) {
@@ -194,7 +312,23 @@ public class UniqueAttributeValidator<ID> implements Validator {
     }
 
 
-    private static class UniqueValidationContextInfo {
+    private static class UniqueValidationContextInfo<ID> {
         Map<EAttribute, Set<Object>> insertableUniqueValue = new HashMap<>();
+        Map<CandidateKey, List<Candidate<ID>>> candidates = new LinkedHashMap<>();
+    }
+
+    @Value
+    private static class CandidateKey {
+        EClass transferObjectType;
+        EAttribute mappedAttribute;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Candidate<ID> {
+        private final EAttribute feature;
+        private final Object value;
+        private final ID originalId;
+        private final Object location;
     }
 }
@@ -65,6 +65,16 @@ public interface Validator {
 
     Collection<ValidationResult> validateValue(Payload payload, EStructuralFeature feature, Object value, Map<String, Object> context);
 
+    /**
+     * Validate values collected by {@link #validateValue(Payload, EStructuralFeature, Object, Map)} calls of a request
+     * (i.e. checks that are executed in batch). It is called once when all values of the request are processed.
+     *
+     * @param globalValidationContext global validation context shared by all values of the request
+     * @return validation results of collected values
+     */
+    default Collection<ValidationResult> validateCollectedValues(Map<String, Object> globalValidationContext) {
+        return Collections.emptyList();
+    }
 
     static void addValidationError(Map<String, Object> parameters,
                                           Object location,
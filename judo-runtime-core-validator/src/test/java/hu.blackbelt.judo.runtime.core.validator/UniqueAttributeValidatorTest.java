@@ -0,0 +1,211 @@
+package hu.blackbelt.judo.runtime.core.validator;
+
+/*-
+ * #%L
+ * JUDO Runtime Core :: Parent
+ * %%
+ * Copyright (C) 2018 - 2022 BlackBelt Technology
+ * %%
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+ * with the GNU Classpath Exception which is
+ * available at https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+import hu.blackbelt.judo.dao.api.DAO;
+import hu.blackbelt.judo.dao.api.Payload;
+import hu.blackbelt.judo.dao.api.ValidationResult;
+import hu.blackbelt.judo.dispatcher.api.Context;
+import hu.blackbelt.judo.meta.asm.runtime.AsmModel;
+import hu.blackbelt.judo.meta.asm.support.AsmModelResourceSupport;
+import hu.blackbelt.judo.runtime.core.UUIDIdentifierProvider;
+import org.eclipse.emf.ecore.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static hu.blackbelt.judo.runtime.core.validator.DefaultPayloadValidator.*;
+import static hu.blackbelt.judo.runtime.core.validator.Validator.*;
+import static org.eclipse.emf.ecore.util.builder.EcoreBuilders.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UniqueAttributeValidatorTest {
+
+    private static final String EXTENDED_METADATA = "http://blackbelt.hu/judo/meta/ExtendedMetadata/";
+    private static final String CODE_ATTRIBUTE = "code";
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"([^\"]*)\"");
+
+    private final UUIDIdentifierProvider identifierProvider = new UUIDIdentifierProvider();
+
+    private AsmModel asmModel;
+
+    private EClass transferObjectType;
+
+    private DAO<UUID> dao;
+
+    /**
+     * Persisted IDs by code.
+     */
+    private Map<String, UUID> persisted;
+
+    /**
+     * Representation of persisted values returned by searches matching multiple values.
+     */
+    private Map<String, String> batchRepresentation;
+
+    private Map<String, Object> globalValidationContext;
+
+    private static EAnnotation annotation(final String name, final String value) {
+        final EAnnotation annotation = newEAnnotationBuilder()
+                .withSource(EXTENDED_METADATA + name)
+                .build();
+        annotation.getDetails().put("value", value);
+        return annotation;
+    }
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void init() {
+        final EClass entityType = newEClassBuilder()
+                .withName("Product")
+                .withEAnnotations(annotation("entity", "true"))
+                .withEStructuralFeatures(ImmutableList.of(
+                        newEAttributeBuilder()
+                                .withName(CODE_ATTRIBUTE)
+                                .withEType(EcorePackage.eINSTANCE.getEString())
+                                .withEAnnotations(annotation("identifier", "true"))
+                                .build()))
+                .build();
+        transferObjectType = newEClassBuilder()
+                .withName("ProductInfo")
+                .withEAnnotations(annotation("mappedEntityType", "demo.Product"))
+                .withEStructuralFeatures(ImmutableList.of(
+                        newEAttributeBuilder()
+                                .withName(CODE_ATTRIBUTE)
+                                .withEType(EcorePackage.eINSTANCE.getEString())
+                                .withEAnnotations(annotation("binding", CODE_ATTRIBUTE))
+                                .build()))
+                .build();
+
+        asmModel = AsmModel.buildAsmModel()
+                .resourceSet(AsmModelResourceSupport.createAsmResourceSet())
+                .build();
+        asmModel.getAsmModelResourceSupport().addContent(newEPackageBuilder()
+                .withName("demo").withNsPrefix("demo").withNsURI("http://blackbelt.hu/test/demo")
+                .withEClassifiers(ImmutableList.of(entityType, transferObjectType))
+                .build());
+
+        persisted = new HashMap<>();
+        batchRepresentation = new HashMap<>();
+        globalValidationContext = new HashMap<>();
+        globalValidationContext.put(BATCH_VALIDATION_KEY, true);
+
+        dao = mock(DAO.class);
+        when(dao.search(any(EClass.class), any(DAO.QueryCustomizer.class))).thenAnswer(invocation -> {
+            final String filter = invocation.getArgument(1, DAO.QueryCustomizer.class).getFilter();
+            final boolean batch = filter.contains(" or ");
+            final List<Payload> result = new ArrayList<>();
+            final Matcher matcher = STRING_LITERAL.matcher(filter);
+            while (matcher.find()) {
+                final String code = matcher.group(1);
+                if (persisted.containsKey(code)) {
+                    result.add(Payload.asPayload(Map.of(
+                            identifierProvider.getName(), persisted.get(code),
+                            CODE_ATTRIBUTE, batch ? batchRepresentation.getOrDefault(code, code) : code)));
+                }
+            }
+            return result;
+        });
+    }
+
+    private UniqueAttributeValidator<UUID> validator(final int chunkSize) {
+        return new UniqueAttributeValidator<>(dao, asmModel, identifierProvider, mock(Context.class), chunkSize);
+    }
+
+    private Collection<ValidationResult> validate(final UniqueAttributeValidator<UUID> validator, final UUID id, final String... codes) {
+        final List<ValidationResult> results = new ArrayList<>();
+        for (int i = 0; i < codes.length; i++) {
+            final Payload instance = id != null
+                    ? Payload.asPayload(Map.of(identifierProvider.getName(), id, CODE_ATTRIBUTE, codes[i]))
+                    : Payload.asPayload(Map.of(CODE_ATTRIBUTE, codes[i]));
+            final Map<String, Object> validationContext = new HashMap<>();
+            validationContext.put(GLOBAL_VALIDATION_CONTEXT, globalValidationContext);
+            validationContext.put(LOCATION_KEY, "[" + i + "]." + CODE_ATTRIBUTE);
+            results.addAll(validator.validateValue(instance, transferObjectType.getEStructuralFeature(CODE_ATTRIBUTE), codes[i], validationContext));
+        }
+        assertTrue(results.isEmpty(), "Persisted values must be checked by collected values only");
+        results.addAll(validator.validateCollectedValues(globalValidationContext));
+        return results;
+    }
+
+    private static Set<Object> violatedValues(final Collection<ValidationResult> results) {
+        results.forEach(r -> assertEquals(ERROR_IDENTIFIER_ATTRIBUTE_UNIQUENESS_VIOLATION, r.getCode()));
+        return results.stream().map(r -> r.getDetails().get(VALUE_KEY)).collect(Collectors.toSet());
+    }
+
+    @Test
+    void testConflictInsideOneChunk() {
+        persisted.put("b", UUID.randomUUID());
+
+        final Collection<ValidationResult> results = validate(validator(10), null, "a", "b", "c");
+
+        assertEquals(Set.of("b"), violatedValues(results));
+        assertEquals("[1]." + CODE_ATTRIBUTE, results.iterator().next().getLocation());
+        verify(dao, times(1)).search(any(EClass.class), any(DAO.QueryCustomizer.class));
+    }
+
+    @Test
+    void testConflictsAcrossChunks() {
+        persisted.put("a", UUID.randomUUID());
+        persisted.put("d", UUID.randomUUID());
+
+        final Collection<ValidationResult> results = validate(validator(2), null, "a", "b", "c", "d");
+
+        assertEquals(Set.of("a", "d"), violatedValues(results));
+        verify(dao, times(2)).search(any(EClass.class), any(DAO.QueryCustomizer.class));
+    }
+
+    @Test
+    void testUpdateKeepingOwnValue() {
+        final UUID id = UUID.randomUUID();
+        persisted.put("a", id);
+
+        assertTrue(validate(validator(10), id, "a").isEmpty());
+    }
+
+    @Test
+    void testUpdateToValueOfOtherInstance() {
+        persisted.put("a", UUID.randomUUID());
+
+        assertEquals(Set.of("a"), violatedValues(validate(validator(10), UUID.randomUUID(), "a")));
+    }
+
+    @Test
+    void testFallbackIfPersistedValueDoesNotMatch() {
+        persisted.put("a", UUID.randomUUID());
+        // returned value has a different representation than the requested one
+        batchRepresentation.put("a", "A");
+
+        final Collection<ValidationResult> results = validate(validator(10), null, "a", "b", "c");
+
+        assertEquals(Set.of("a"), violatedValues(results));
+        // one search of the chunk and one search per value
+        verify(dao, times(4)).search(any(EClass.class), any(DAO.QueryCustomizer.class));
+    }
+}
@@ -44,6 +44,14 @@ public interface MetricsCollector {
      */
     void stop(String key) throws IllegalStateException;
 
+    /**
+     * Increments the counter with the given key (i.e. cache hits) without measuring time.
+     * @param key the key of the counter to be incremented
+     * @param delta the value to be added to the counter
+     */
+    default void increment(String key, long delta) {
+    }
+
     /**
      * Returns the so far collected metrics.
      */